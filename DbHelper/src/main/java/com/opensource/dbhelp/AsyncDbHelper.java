@@ -0,0 +1,666 @@
+package com.opensource.dbhelp;
+
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import com.opensource.dbhelp.dbutils.BatchResult;
+import com.opensource.dbhelp.dbutils.ColumnarResult;
+import com.opensource.dbhelp.dbutils.DbExecutors;
+import com.opensource.dbhelp.dbutils.QueryScope;
+import com.opensource.dbhelp.page.ListPage;
+
+/**
+ * 基于CompletableFuture的DbHelper异步门面。
+ * <p/>
+ * 每次调用作为一个任务提交到构造时传入的执行器，获取连接、执行语句和把记录集转换为结果都在执行器的线程中进行，调用线程立即返回。 多个查询可以同时发出，也可以用<code>thenCompose</code>等方法串联，不需要在<code>Future.get()</code>上阻塞线程。
+ * 对结果的进一步转换可以用{@link #submit(Call, Function)}放在同一个任务中，或者用<code>thenApplyAsync(fn, getExecutor())</code>放到执行器上，不占用完成任务的线程之外的调用线程。
+ * <p/>
+ * SQLException等异常使CompletableFuture异常完成；任务开始执行前被取消的调用不会执行，执行中被取消时对正在执行的语句调用<code>Statement.cancel()</code>，调用中之后的语句立即失败。
+ * 执行器拒绝任务时返回的CompletableFuture以RejectedExecutionException异常完成。
+ * 超时、fetch size等设置沿用传入的DbHelper，例如<code>new AsyncDbHelper(dbHelper.withTimeout(2, TimeUnit.SECONDS), executor)</code>。
+ * <p/>
+ * JDBC调用是阻塞的，执行器的线程数决定了同时执行的调用数，一般不超过连接池的最大连接数；不要使用<code>ForkJoinPool.commonPool()</code>。 在Java 21及以上版本可以用{@link #withVirtualThreads(DbHelper, int)}
+ * 为每个调用启动一个虚拟线程，等待数据库时不占用平台线程。该类是线程安全的。
+ * <p/>
+ * Copyright: Copyright (c) 26-10-17 下午11:40
+ * <p/>
+ * Company: GNU General Public License
+ * <p/>
+ * Author: GNU General Public License
+ * <p/>
+ * Version: 1.0
+ * <p/>
+ */
+public class AsyncDbHelper implements AutoCloseable {
+
+	/**
+	 * 执行调用的DbHelper
+	 */
+	private final DbHelper helper;
+
+	/**
+	 * 执行调用的执行器
+	 */
+	private final Executor executor;
+
+	/**
+	 * 执行器是否由该对象创建，由{@link #close()}关闭
+	 */
+	private final boolean ownsExecutor;
+
+	/**
+	 * 构造函数，执行器由调用方管理，{@link #close()}不关闭执行器
+	 *
+	 * @param helper
+	 *            执行调用的DbHelper
+	 * @param executor
+	 *            执行调用的执行器
+	 */
+	public AsyncDbHelper(DbHelper helper, Executor executor) {
+		this(helper, executor, false);
+	}
+
+	/**
+	 * 构造函数
+	 *
+	 * @param helper
+	 *            执行调用的DbHelper
+	 * @param executor
+	 *            执行调用的执行器
+	 * @param ownsExecutor
+	 *            执行器是否由该对象创建
+	 */
+	private AsyncDbHelper(DbHelper helper, Executor executor, boolean ownsExecutor) {
+		if (helper == null) {
+			throw new IllegalArgumentException("helper cannot be null");
+		}
+		if (executor == null) {
+			throw new IllegalArgumentException("executor cannot be null");
+		}
+		this.helper = helper;
+		this.executor = executor;
+		this.ownsExecutor = ownsExecutor;
+	}
+
+	/**
+	 * 创建在虚拟线程中执行调用的异步门面，每个调用一个虚拟线程，同时执行的调用数不超过最大并发数。当前JVM不支持虚拟线程时使用同样大小的平台守护线程池。
+	 * <p/>
+	 * 返回的门面持有自己的执行器，一般整个应用只创建一个并共享；不再使用时调用{@link #close()}关闭执行器。
+	 *
+	 * @param helper
+	 *            执行调用的DbHelper
+	 * @param maxConcurrency
+	 *            最大并发数，一般取连接池的最大连接数
+	 * @return 异步门面
+	 * @see DbExecutors#newQueryExecutor(int)
+	 */
+	public static AsyncDbHelper withVirtualThreads(DbHelper helper, int maxConcurrency) {
+		return new AsyncDbHelper(helper, DbExecutors.newQueryExecutor(maxConcurrency), true);
+	}
+
+	/**
+	 * 获取执行调用的DbHelper
+	 *
+	 * @return DbHelper对象
+	 */
+	public DbHelper getHelper() {
+		return helper;
+	}
+
+	/**
+	 * 获取执行调用的执行器，可用于<code>thenApplyAsync</code>等方法
+	 *
+	 * @return 执行器
+	 */
+	public Executor getExecutor() {
+		return executor;
+	}
+
+	/**
+	 * 关闭{@link #withVirtualThreads(DbHelper, int)}创建的执行器，已提交的调用继续执行，之后提交的调用以RejectedExecutionException异常完成。 执行器由调用方传入时不做任何事。
+	 */
+	@Override
+	public void close() {
+		if (ownsExecutor) {
+			((ExecutorService) executor).shutdown();
+		}
+	}
+
+	/**
+	 * 在执行器中执行任意DbHelper调用
+	 *
+	 * @param call
+	 *            使用DbHelper的调用
+	 * @return 结果的CompletableFuture
+	 */
+	public <T> CompletableFuture<T> submit(final Call<T> call) {
+		final CompletableFuture<T> future = new CompletableFuture<T>();
+		final QueryScope scope = new QueryScope();
+		future.whenComplete(new BiConsumer<T, Throwable>() {
+
+			@Override
+			public void accept(T result, Throwable e) {
+				if (future.isCancelled()) {
+					scope.cancel();
+				}
+			}
+		});
+		try {
+			executor.execute(new Runnable() {
+
+				@Override
+				public void run() {
+					if (future.isDone()) {
+						return;
+					}
+					try {
+						future.complete(scope.call(new Callable<T>() {
+
+							@Override
+							public T call() throws Exception {
+								return call.call(helper);
+							}
+						}));
+					}
+					catch (Throwable e) {
+						future.completeExceptionally(e);
+					}
+				}
+			});
+		}
+		catch (RuntimeException e) {
+			future.completeExceptionally(e);
+		}
+		return future;
+	}
+
+	/**
+	 * 在执行器中执行DbHelper调用，并在同一个任务中转换结果
+	 *
+	 * @param call
+	 *            使用DbHelper的调用
+	 * @param mapper
+	 *            结果转换函数
+	 * @return 转换后结果的CompletableFuture
+	 */
+	public <T, R> CompletableFuture<R> submit(final Call<T> call, final Function<? super T, ? extends R> mapper) {
+		return submit(new Call<R>() {
+
+			@Override
+			public R call(DbHelper helper) throws SQLException {
+				return mapper.apply(call.call(helper));
+			}
+		});
+	}
+
+	/**
+	 * 异步执行 SELECT 语句，返回首行首列的值，见{@link DbHelper#queryScalar(String, Object...)}。
+	 *
+	 * @param sql
+	 *            即将被执行的sql语句
+	 * @param params
+	 *            参数数组
+	 * @return 结果的CompletableFuture
+	 */
+	public CompletableFuture<String> queryScalar(final String sql, final Object... params) {
+		return submit(new Call<String>() {
+
+			@Override
+			public String call(DbHelper helper) throws SQLException {
+				return helper.queryScalar(sql, params);
+			}
+		});
+	}
+
+	/**
+	 * 异步查询单行结果，见{@link DbHelper#getMap(String, Object...)}。
+	 *
+	 * @param sql
+	 *            即将被执行的sql语句
+	 * @param params
+	 *            参数数组
+	 * @return 结果的CompletableFuture
+	 */
+	public CompletableFuture<Map<String, String>> getMap(final String sql, final Object... params) {
+		return submit(new Call<Map<String, String>>() {
+
+			@Override
+			public Map<String, String> call(DbHelper helper) throws SQLException {
+				return helper.getMap(sql, params);
+			}
+		});
+	}
+
+	/**
+	 * 异步查询单行结果，字段保持原始类型，见{@link DbHelper#getNativeMap(String, Object...)}。
+	 *
+	 * @param sql
+	 *            即将被执行的sql语句
+	 * @param params
+	 *            参数数组
+	 * @return 结果的CompletableFuture
+	 */
+	public CompletableFuture<Map<String, Object>> getNativeMap(final String sql, final Object... params) {
+		return submit(new Call<Map<String, Object>>() {
+
+			@Override
+			public Map<String, Object> call(DbHelper helper) throws SQLException {
+				return helper.getNativeMap(sql, params);
+			}
+		});
+	}
+
+	/**
+	 * 异步查询单行结果，见{@link DbHelper#getArray(String, Object...)}。
+	 *
+	 * @param sql
+	 *            即将被执行的sql语句
+	 * @param params
+	 *            参数数组
+	 * @return 结果的CompletableFuture
+	 */
+	public CompletableFuture<String[]> getArray(final String sql, final Object... params) {
+		return submit(new Call<String[]>() {
+
+			@Override
+			public String[] call(DbHelper helper) throws SQLException {
+				return helper.getArray(sql, params);
+			}
+		});
+	}
+
+	/**
+	 * 异步查询单行结果，字段保持原始类型，见{@link DbHelper#getNativeArray(String, Object...)}。
+	 *
+	 * @param sql
+	 *            即将被执行的sql语句
+	 * @param params
+	 *            参数数组
+	 * @return 结果的CompletableFuture
+	 */
+	public CompletableFuture<Object[]> getNativeArray(final String sql, final Object... params) {
+		return submit(new Call<Object[]>() {
+
+			@Override
+			public Object[] call(DbHelper helper) throws SQLException {
+				return helper.getNativeArray(sql, params);
+			}
+		});
+	}
+
+	/**
+	 * 异步查询单行结果并转换为bean，见{@link DbHelper#getBean(String, Class, Object...)}。
+	 *
+	 * @param sql
+	 *            即将被执行的sql语句
+	 * @param type
+	 *            指定类
+	 * @param params
+	 *            参数数组
+	 * @return 结果的CompletableFuture
+	 */
+	public <T> CompletableFuture<T> getBean(final String sql, final Class<T> type, final Object... params) {
+		return submit(new Call<T>() {
+
+			@Override
+			public T call(DbHelper helper) throws SQLException {
+				return helper.getBean(sql, type, params);
+			}
+		});
+	}
+
+	/**
+	 * 异步查询多行结果，见{@link DbHelper#getMapList(String, Object...)}。
+	 *
+	 * @param sql
+	 *            即将被执行的sql语句
+	 * @param params
+	 *            参数数组
+	 * @return 结果的CompletableFuture
+	 */
+	public CompletableFuture<List<Map<String, String>>> getMapList(final String sql, final Object... params) {
+		return submit(new Call<List<Map<String, String>>>() {
+
+			@Override
+			public List<Map<String, String>> call(DbHelper helper) throws SQLException {
+				return helper.getMapList(sql, params);
+			}
+		});
+	}
+
+	/**
+	 * 异步查询多行结果，字段保持原始类型，见{@link DbHelper#getNativeMapList(String, Object...)}。
+	 *
+	 * @param sql
+	 *            即将被执行的sql语句
+	 * @param params
+	 *            参数数组
+	 * @return 结果的CompletableFuture
+	 */
+	public CompletableFuture<List<Map<String, Object>>> getNativeMapList(final String sql, final Object... params) {
+		return submit(new Call<List<Map<String, Object>>>() {
+
+			@Override
+			public List<Map<String, Object>> call(DbHelper helper) throws SQLException {
+				return helper.getNativeMapList(sql, params);
+			}
+		});
+	}
+
+	/**
+	 * 异步查询多行结果，见{@link DbHelper#getArrayList(String, Object...)}。
+	 *
+	 * @param sql
+	 *            即将被执行的sql语句
+	 * @param params
+	 *            参数数组
+	 * @return 结果的CompletableFuture
+	 */
+	public CompletableFuture<List<String[]>> getArrayList(final String sql, final Object... params) {
+		return submit(new Call<List<String[]>>() {
+
+			@Override
+			public List<String[]> call(DbHelper helper) throws SQLException {
+				return helper.getArrayList(sql, params);
+			}
+		});
+	}
+
+	/**
+	 * 异步查询多行结果，字段保持原始类型，见{@link DbHelper#getNativeArrayList(String, Object...)}。
+	 *
+	 * @param sql
+	 *            即将被执行的sql语句
+	 * @param params
+	 *            参数数组
+	 * @return 结果的CompletableFuture
+	 */
+	public CompletableFuture<List<Object[]>> getNativeArrayList(final String sql, final Object... params) {
+		return submit(new Call<List<Object[]>>() {
+
+			@Override
+			public List<Object[]> call(DbHelper helper) throws SQLException {
+				return helper.getNativeArrayList(sql, params);
+			}
+		});
+	}
+
+	/**
+	 * 异步查询多行结果并转换为bean，见{@link DbHelper#getBeanList(String, Class, Object...)}。
+	 *
+	 * @param sql
+	 *            即将被执行的sql语句
+	 * @param type
+	 *            指定类
+	 * @param params
+	 *            参数数组
+	 * @return 结果的CompletableFuture
+	 */
+	public <T> CompletableFuture<List<T>> getBeanList(final String sql, final Class<T> type, final Object... params) {
+		return submit(new Call<List<T>>() {
+
+			@Override
+			public List<T> call(DbHelper helper) throws SQLException {
+				return helper.getBeanList(sql, type, params);
+			}
+		});
+	}
+
+	/**
+	 * 异步查询多行结果并按列保存，见{@link DbHelper#getColumnar(String, Object...)}。
+	 *
+	 * @param sql
+	 *            即将被执行的sql语句
+	 * @param params
+	 *            参数数组
+	 * @return 结果的CompletableFuture
+	 */
+	public CompletableFuture<ColumnarResult> getColumnar(final String sql, final Object... params) {
+		return submit(new Call<ColumnarResult>() {
+
+			@Override
+			public ColumnarResult call(DbHelper helper) throws SQLException {
+				return helper.getColumnar(sql, params);
+			}
+		});
+	}
+
+	/**
+	 * 异步分页查询，见{@link DbHelper#getArrayPage(String, int, int, Object...)}。
+	 *
+	 * @param sql
+	 *            用于查询记录集的SQL
+	 * @param curPage
+	 *            显示的页数
+	 * @param pageSize
+	 *            每页记录数
+	 * @param params
+	 *            查询参数
+	 * @return 结果的CompletableFuture
+	 */
+	public CompletableFuture<ListPage<String[]>> getArrayPage(final String sql, final int curPage, final int pageSize, final Object... params) {
+		return submit(new Call<ListPage<String[]>>() {
+
+			@Override
+			public ListPage<String[]> call(DbHelper helper) throws SQLException {
+				return helper.getArrayPage(sql, curPage, pageSize, params);
+			}
+		});
+	}
+
+	/**
+	 * 异步分页查询，字段保持原始类型，见{@link DbHelper#getNativeMapPage(String, int, int, Object...)}。
+	 *
+	 * @param sql
+	 *            用于查询记录集的SQL
+	 * @param curPage
+	 *            显示的页数
+	 * @param pageSize
+	 *            每页记录数
+	 * @param params
+	 *            查询参数
+	 * @return 结果的CompletableFuture
+	 */
+	public CompletableFuture<ListPage<Map<String, Object>>> getNativeMapPage(final String sql, final int curPage, final int pageSize, final Object... params) {
+		return submit(new Call<ListPage<Map<String, Object>>>() {
+
+			@Override
+			public ListPage<Map<String, Object>> call(DbHelper helper) throws SQLException {
+				return helper.getNativeMapPage(sql, curPage, pageSize, params);
+			}
+		});
+	}
+
+	/**
+	 * 异步分页查询并转换为bean，见{@link DbHelper#getPage(String, Class, int, int, Object...)}。
+	 *
+	 * @param sql
+	 *            用于查询记录集的SQL
+	 * @param clazz
+	 *            可以转化的bean类
+	 * @param curPage
+	 *            显示的页数
+	 * @param pageSize
+	 *            每页记录数
+	 * @param params
+	 *            查询参数
+	 * @return 结果的CompletableFuture
+	 */
+	public <T> CompletableFuture<ListPage<T>> getPage(final String sql, final Class<T> clazz, final int curPage, final int pageSize, final Object... params) {
+		return submit(new Call<ListPage<T>>() {
+
+			@Override
+			public ListPage<T> call(DbHelper helper) throws SQLException {
+				return helper.getPage(sql, clazz, curPage, pageSize, params);
+			}
+		});
+	}
+
+	/**
+	 * 异步分页查询，见{@link DbHelper#getMapPage(String, int, int, Object...)}。
+	 *
+	 * @param sql
+	 *            用于查询记录集的SQL
+	 * @param curPage
+	 *            显示的页数
+	 * @param pageSize
+	 *            每页记录数
+	 * @param params
+	 *            查询参数
+	 * @return 结果的CompletableFuture
+	 */
+	public CompletableFuture<ListPage<Map<String, String>>> getMapPage(final String sql, final int curPage, final int pageSize, final Object... params) {
+		return submit(new Call<ListPage<Map<String, String>>>() {
+
+			@Override
+			public ListPage<Map<String, String>> call(DbHelper helper) throws SQLException {
+				return helper.getMapPage(sql, curPage, pageSize, params);
+			}
+		});
+	}
+
+	/**
+	 * 异步执行 UPDATE 或者 DELETE 语句，结果为影响的行数，见{@link DbHelper#execute(String, Object...)}。
+	 *
+	 * @param sql
+	 *            即将被执行的sql语句
+	 * @param params
+	 *            参数数组
+	 * @return 结果的CompletableFuture
+	 */
+	public CompletableFuture<Integer> execute(final String sql, final Object... params) {
+		return submit(new Call<Integer>() {
+
+			@Override
+			public Integer call(DbHelper helper) throws SQLException {
+				return helper.execute(sql, params);
+			}
+		});
+	}
+
+	/**
+	 * 异步执行 INSERT 语句，结果为生成的主键，见{@link DbHelper#insert(String, Object...)}。
+	 *
+	 * @param sql
+	 *            即将被执行的sql语句
+	 * @param params
+	 *            参数数组
+	 * @return 结果的CompletableFuture
+	 */
+	public CompletableFuture<Long> insert(final String sql, final Object... params) {
+		return submit(new Call<Long>() {
+
+			@Override
+			public Long call(DbHelper helper) throws SQLException {
+				return helper.insert(sql, params);
+			}
+		});
+	}
+
+	/**
+	 * 异步批量执行 INSERT 语句，结果为生成的主键，见{@link DbHelper#insertBatch(String, List)}。
+	 *
+	 * @param sql
+	 *            即将被执行的sql语句
+	 * @param params
+	 *            参数行
+	 * @return 结果的CompletableFuture
+	 */
+	public CompletableFuture<long[]> insertBatch(final String sql, final List<Object[]> params) {
+		return submit(new Call<long[]>() {
+
+			@Override
+			public long[] call(DbHelper helper) throws SQLException {
+				return helper.insertBatch(sql, params);
+			}
+		});
+	}
+
+	/**
+	 * 异步执行批处理，见{@link DbHelper#batch(String, List)}。
+	 *
+	 * @param sql
+	 *            即将被执行的sql语句
+	 * @param params
+	 *            参数数组列表
+	 * @return 结果的CompletableFuture
+	 */
+	public CompletableFuture<int[]> batch(final String sql, final List<Object[]> params) {
+		return submit(new Call<int[]>() {
+
+			@Override
+			public int[] call(DbHelper helper) throws SQLException {
+				return helper.batch(sql, params);
+			}
+		});
+	}
+
+	/**
+	 * 异步分批执行批处理，见{@link DbHelper#batchChunked(String, Iterator)}。
+	 *
+	 * @param sql
+	 *            即将被执行的sql语句
+	 * @param params
+	 *            参数行，在执行器的线程中读取
+	 * @return 结果的CompletableFuture
+	 */
+	public CompletableFuture<BatchResult> batchChunked(final String sql, final Iterator<Object[]> params) {
+		return submit(new Call<BatchResult>() {
+
+			@Override
+			public BatchResult call(DbHelper helper) throws SQLException {
+				return helper.batchChunked(sql, params);
+			}
+		});
+	}
+
+	/**
+	 * 异步分批保存bean列表，见{@link DbHelper#batchBeans(String, List, String...)}。
+	 *
+	 * @param sql
+	 *            即将被执行的sql语句
+	 * @param beans
+	 *            bean列表，不能包含null
+	 * @param propertyNames
+	 *            属性名，顺序与SQL参数一致
+	 * @return 结果的CompletableFuture
+	 */
+	public <T> CompletableFuture<BatchResult> batchBeans(final String sql, final List<T> beans, final String... propertyNames) {
+		return submit(new Call<BatchResult>() {
+
+			@Override
+			public BatchResult call(DbHelper helper) throws SQLException {
+				return helper.batchBeans(sql, beans, propertyNames);
+			}
+		});
+	}
+
+	/**
+	 * 在执行器中执行的DbHelper调用
+	 *
+	 * @param <T>
+	 *            调用结果的类型
+	 */
+	public interface Call<T> {
+
+		/**
+		 * 执行调用
+		 *
+		 * @param helper
+		 *            执行调用的DbHelper
+		 * @return 调用结果
+		 * @throws SQLException
+		 *             - if there is any problem executing the sql
+		 */
+		T call(DbHelper helper) throws SQLException;
+	}
+
+}
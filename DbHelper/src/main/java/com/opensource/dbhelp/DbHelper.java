@@ -1,31 +1,58 @@
 package com.opensource.dbhelp;
 
 import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import javax.sql.DataSource;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
-import com.opensource.dbhelp.dbutils.BasicRowProcessor;
+import com.opensource.dbhelp.dbutils.BatchResult;
+import com.opensource.dbhelp.dbutils.BeanParameterReader;
+import com.opensource.dbhelp.dbutils.BeanProcessor;
 import com.opensource.dbhelp.dbutils.CamelBeanProcessor;
+import com.opensource.dbhelp.dbutils.ColumnarResult;
+import com.opensource.dbhelp.dbutils.ConcurrencyLimiter;
 import com.opensource.dbhelp.dbutils.DbUtils;
+import com.opensource.dbhelp.dbutils.FetchSizeAdvisor;
 import com.opensource.dbhelp.dbutils.QueryRunner;
+import com.opensource.dbhelp.dbutils.QueryTimeoutException;
+import com.opensource.dbhelp.dbutils.ResultSetHandler;
+import com.opensource.dbhelp.dbutils.ResultSetSpliterator;
+import com.opensource.dbhelp.dbutils.StatementCache;
 import com.opensource.dbhelp.dbutils.RowProcessor;
+import com.opensource.dbhelp.dbutils.handlers.ArrayCallbackHandler;
 import com.opensource.dbhelp.dbutils.handlers.ArrayHandler;
 import com.opensource.dbhelp.dbutils.handlers.ArrayListHandler;
+import com.opensource.dbhelp.dbutils.handlers.BeanCallbackHandler;
 import com.opensource.dbhelp.dbutils.handlers.BeanHandler;
 import com.opensource.dbhelp.dbutils.handlers.BeanListHandler;
+import com.opensource.dbhelp.dbutils.handlers.ColumnarResultHandler;
+import com.opensource.dbhelp.dbutils.handlers.GeneratedKeysHandler;
+import com.opensource.dbhelp.dbutils.handlers.MapCallbackHandler;
 import com.opensource.dbhelp.dbutils.handlers.MapHandler;
 import com.opensource.dbhelp.dbutils.handlers.MapListHandler;
 import com.opensource.dbhelp.dbutils.handlers.ScalarHandler;
+import com.opensource.dbhelp.dbutils.handlers.StringArrayCallbackHandler;
 import com.opensource.dbhelp.dbutils.handlers.StringArrayHandler;
 import com.opensource.dbhelp.dbutils.handlers.StringArrayListHandler;
+import com.opensource.dbhelp.dbutils.handlers.StringMapCallbackHandler;
 import com.opensource.dbhelp.dbutils.handlers.StringMapHandler;
 import com.opensource.dbhelp.dbutils.handlers.StringMapListHandler;
+import com.opensource.dbhelp.dialect.BatchSqlRewriterFactory;
+import com.opensource.dbhelp.mapper.MapperRowProcessor;
 import com.opensource.dbhelp.page.ListPage;
 import com.opensource.dbhelp.page.ListPagedStatement;
 import com.opensource.dbhelp.page.Page;
@@ -65,9 +92,79 @@ public class DbHelper {
 	protected String dialect;
 
 	/**
-	 * Singleton processor instance that handlers share to save memory.
+	 * 字符串结果列表是否对同一字段的重复值去重，默认不去重
 	 */
-	public static final RowProcessor BEAN_ROW_PROCESSOR = new BasicRowProcessor(new CamelBeanProcessor());
+	protected boolean deduplicateStrings;
+
+	/**
+	 * 流式查询每次从数据库读取的行数，mysql以外的数据库使用
+	 */
+	protected int streamFetchSize = DEFAULT_STREAM_FETCH_SIZE;
+
+	/**
+	 * 流式查询默认每次读取的行数
+	 */
+	public static final int DEFAULT_STREAM_FETCH_SIZE = 500;
+
+	/**
+	 * 事务连接上最多缓存的PreparedStatement数
+	 */
+	protected int statementCacheSize = StatementCache.DEFAULT_MAX_STATEMENTS;
+
+	/**
+	 * 分批执行批处理时每批最多的参数行数
+	 */
+	protected int batchSize = QueryRunner.DEFAULT_BATCH_SIZE;
+
+	/**
+	 * 分批执行批处理时每批参数的估算字节数上限，0表示不限制
+	 */
+	protected long batchBytes;
+
+	/**
+	 * 分批执行INSERT时是否按数据库类型改写为多行插入语句
+	 */
+	protected boolean rewriteBatchInserts;
+
+	/**
+	 * 每次调用的期限，毫秒，包括从连接池获取连接和执行语句，0表示不限制
+	 */
+	protected long queryTimeout;
+
+	/**
+	 * 查询每次从数据库读取的行数，0表示使用驱动默认值或自适应选择
+	 */
+	protected int fetchSize;
+
+	/**
+	 * 未设置fetchSize时是否按SQL自适应选择每次读取的行数
+	 */
+	protected boolean adaptiveFetchSize;
+
+	/**
+	 * 限制该数据源上同时执行的调用数，null表示不限制
+	 */
+	protected ConcurrencyLimiter concurrencyLimiter;
+
+	/**
+	 * 调用等待并发许可时的优先级
+	 */
+	protected ConcurrencyLimiter.Priority priority = ConcurrencyLimiter.Priority.NORMAL;
+
+	/**
+	 * 共享的bean转换器，缓存了各bean类的字段映射计划，可通过它查看映射计划缓存的命中情况
+	 */
+	public static final BeanProcessor BEAN_PROCESSOR = new CamelBeanProcessor();
+
+	/**
+	 * Singleton processor instance that handlers share to save memory. 实体类有编译期生成的映射器时优先使用生成的映射器。
+	 */
+	public static final RowProcessor BEAN_ROW_PROCESSOR = new MapperRowProcessor(BEAN_PROCESSOR);
+
+	/**
+	 * 开启自适应fetch size时共享的选择器，按SQL指纹记录返回行数和行宽
+	 */
+	public static final FetchSizeAdvisor FETCH_SIZE_ADVISOR = new FetchSizeAdvisor();
 
 	/**
 	 * 构造函数
@@ -79,6 +176,38 @@ public class DbHelper {
 		setDataSource(dataSource);
 	}
 
+	/**
+	 * 复制构造函数，复制数据源和全部设置
+	 *
+	 * @param source
+	 *            被复制的对象
+	 */
+	protected DbHelper(DbHelper source) {
+		this.dataSource = source.dataSource;
+		this.dialect = source.dialect;
+		this.deduplicateStrings = source.deduplicateStrings;
+		this.streamFetchSize = source.streamFetchSize;
+		this.statementCacheSize = source.statementCacheSize;
+		this.batchSize = source.batchSize;
+		this.batchBytes = source.batchBytes;
+		this.rewriteBatchInserts = source.rewriteBatchInserts;
+		this.queryTimeout = source.queryTimeout;
+		this.fetchSize = source.fetchSize;
+		this.adaptiveFetchSize = source.adaptiveFetchSize;
+		this.concurrencyLimiter = source.concurrencyLimiter;
+		this.priority = source.priority;
+	}
+
+	/**
+	 * 复制当前对象，供{@link #withTimeout(long, TimeUnit)}、{@link #withFetchSize(int)}和{@link #withPriority(ConcurrencyLimiter.Priority)}使用。
+	 * 子类覆盖了其它方法或增加了设置时应覆盖此方法，通过自己的复制构造函数返回子类的对象，否则这些方法返回的DbHelper不再带有子类的行为。
+	 *
+	 * @return 数据源和全部设置与当前对象相同的新对象
+	 */
+	protected DbHelper copy() {
+		return new DbHelper(this);
+	}
+
 	/**
 	 * 获取数据源
 	 *
@@ -117,13 +246,368 @@ public class DbHelper {
 		this.dialect = dialect;
 	}
 
+	/**
+	 * 字符串结果列表是否对重复值去重
+	 *
+	 * @return 是否去重
+	 */
+	public boolean isDeduplicateStrings() {
+		return deduplicateStrings;
+	}
+
+	/**
+	 * 设置getMapList、getArrayList返回的字符串是否去重。开启后同一次查询中同一字段的相同值共享一个字符串实例，适合状态、类型、地区等重复值很多的大结果集； 每个字段缓存的值数有上限，基数过高的字段自动停止去重。
+	 *
+	 * @param deduplicateStrings
+	 *            是否去重
+	 */
+	public void setDeduplicateStrings(boolean deduplicateStrings) {
+		this.deduplicateStrings = deduplicateStrings;
+	}
+
+	/**
+	 * 获取流式查询每次读取的行数
+	 *
+	 * @return 每次读取的行数
+	 */
+	public int getStreamFetchSize() {
+		return streamFetchSize;
+	}
+
+	/**
+	 * 设置流式查询（stream、forEach系列方法）每次从数据库读取的行数，用于oracle等按fetch size分批读取的数据库；mysql固定使用逐行流式读取，不受该设置影响。
+	 *
+	 * @param streamFetchSize
+	 *            每次读取的行数，必须大于0
+	 */
+	public void setStreamFetchSize(int streamFetchSize) {
+		if (streamFetchSize < 1) {
+			throw new IllegalArgumentException("streamFetchSize must be positive");
+		}
+		this.streamFetchSize = streamFetchSize;
+	}
+
+	/**
+	 * 获取事务连接上最多缓存的PreparedStatement数
+	 *
+	 * @return 最多缓存的语句数
+	 */
+	public int getStatementCacheSize() {
+		return statementCacheSize;
+	}
+
+	/**
+	 * 设置getDbTransaction返回的事务在其连接上最多缓存的PreparedStatement数，同一条SQL在事务关闭前只预编译一次，适合连接池没有开启statement缓存的情况。
+	 *
+	 * @param statementCacheSize
+	 *            最多缓存的语句数，0表示不缓存
+	 */
+	public void setStatementCacheSize(int statementCacheSize) {
+		if (statementCacheSize < 0) {
+			throw new IllegalArgumentException("statementCacheSize cannot be negative");
+		}
+		this.statementCacheSize = statementCacheSize;
+	}
+
+	/**
+	 * 获取分批执行批处理时每批最多的参数行数
+	 *
+	 * @return 每批行数
+	 */
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	/**
+	 * 设置分批执行批处理时每批最多的参数行数，用于参数为Iterator或Stream的batch方法
+	 *
+	 * @param batchSize
+	 *            每批行数，必须大于0
+	 */
+	public void setBatchSize(int batchSize) {
+		if (batchSize < 1) {
+			throw new IllegalArgumentException("batchSize must be positive");
+		}
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * 获取分批执行批处理时每批参数的估算字节数上限
+	 *
+	 * @return 字节数上限，0表示不限制
+	 */
+	public long getBatchBytes() {
+		return batchBytes;
+	}
+
+	/**
+	 * 设置分批执行批处理时每批参数的估算字节数上限，未达到每批行数但参数较大（如长文本、二进制）时提前执行，限制驱动缓冲区的大小
+	 *
+	 * @param batchBytes
+	 *            字节数上限，0表示不限制
+	 */
+	public void setBatchBytes(long batchBytes) {
+		if (batchBytes < 0) {
+			throw new IllegalArgumentException("batchBytes cannot be negative");
+		}
+		this.batchBytes = batchBytes;
+	}
+
+	/**
+	 * 分批执行INSERT时是否改写为多行插入语句
+	 *
+	 * @return 是否改写
+	 */
+	public boolean isRewriteBatchInserts() {
+		return rewriteBatchInserts;
+	}
+
+	/**
+	 * 设置参数为Iterator或Stream的batch方法执行单行INSERT语句时，是否按数据库类型改写为多行插入语句：mysql改写为VALUES (?,?),(?,?),...，oracle改写为INSERT ALL ... SELECT 1 FROM DUAL。
+	 * 改写后一条语句插入多行，每条语句的行数取2的幂，批处理结果中每条语句只有一个更新数。不是单行INSERT ... VALUES的语句不受影响。
+	 *
+	 * @param rewriteBatchInserts
+	 *            是否改写
+	 */
+	public void setRewriteBatchInserts(boolean rewriteBatchInserts) {
+		this.rewriteBatchInserts = rewriteBatchInserts;
+	}
+
+	/**
+	 * 获取每次调用的期限
+	 *
+	 * @return 期限，毫秒，0表示不限制
+	 */
+	public long getQueryTimeout() {
+		return queryTimeout;
+	}
+
+	/**
+	 * 设置每次调用的期限。期限从调用开始计算，包括从连接池获取连接和执行语句：获取连接最多等待到期限，语句设置剩余的<code>setQueryTimeout</code>， 到期时还会主动调用<code>Statement.cancel()</code>，
+	 * 驱动不支持查询超时时也能及时返回。超过期限时抛出{@link QueryTimeoutException}。只对个别调用设置期限时使用{@link #withTimeout(long, TimeUnit)}。
+	 *
+	 * @param queryTimeout
+	 *            期限，毫秒，0表示不限制
+	 */
+	public void setQueryTimeout(long queryTimeout) {
+		if (queryTimeout < 0) {
+			throw new IllegalArgumentException("queryTimeout cannot be negative");
+		}
+		this.queryTimeout = queryTimeout;
+	}
+
+	/**
+	 * 返回使用指定期限的DbHelper，其它设置与当前对象相同，当前对象不受影响。用于个别调用，例如：<code>dbHelper.withTimeout(2, TimeUnit.SECONDS).getBeanList(...)</code>。
+	 *
+	 * @param timeout
+	 *            每次调用的期限，0表示不限制
+	 * @param unit
+	 *            期限的单位
+	 * @return 新的DbHelper对象
+	 */
+	public DbHelper withTimeout(long timeout, TimeUnit unit) {
+		DbHelper helper = copy();
+		helper.setQueryTimeout(unit.toMillis(timeout));
+		return helper;
+	}
+
+	/**
+	 * 获取查询每次从数据库读取的行数
+	 *
+	 * @return 行数，0表示未设置
+	 */
+	public int getFetchSize() {
+		return fetchSize;
+	}
+
+	/**
+	 * 设置查询每次从数据库读取的行数。驱动默认值往往很小（oracle为10行），读取大量记录时往返次数与行数成正比；设置后优先于自适应选择。 分页查询总是使用每页记录数。
+	 *
+	 * @param fetchSize
+	 *            行数，0表示使用驱动默认值或自适应选择
+	 */
+	public void setFetchSize(int fetchSize) {
+		if (fetchSize < 0) {
+			throw new IllegalArgumentException("fetchSize cannot be negative");
+		}
+		this.fetchSize = fetchSize;
+	}
+
+	/**
+	 * 是否自适应选择每次读取的行数
+	 *
+	 * @return 是否自适应
+	 */
+	public boolean isAdaptiveFetchSize() {
+		return adaptiveFetchSize;
+	}
+
+	/**
+	 * 设置未指定fetchSize时是否自适应选择每次读取的行数。开启后由{@link #FETCH_SIZE_ADVISOR}按SQL指纹记录最近返回的行数和估算的行宽，选择在目标缓冲区大小内一次取完的行数。
+	 *
+	 * @param adaptiveFetchSize
+	 *            是否自适应
+	 */
+	public void setAdaptiveFetchSize(boolean adaptiveFetchSize) {
+		this.adaptiveFetchSize = adaptiveFetchSize;
+	}
+
+	/**
+	 * 返回使用指定fetch size的DbHelper，其它设置与当前对象相同，当前对象不受影响。用于个别调用，例如：<code>dbHelper.withFetchSize(5000).getBeanList(...)</code>。
+	 *
+	 * @param fetchSize
+	 *            每次从数据库读取的行数，0表示使用驱动默认值或自适应选择
+	 * @return 新的DbHelper对象
+	 */
+	public DbHelper withFetchSize(int fetchSize) {
+		DbHelper helper = copy();
+		helper.setFetchSize(fetchSize);
+		return helper;
+	}
+
+	/**
+	 * 获取并发限制
+	 *
+	 * @return 并发限制，未设置时为null
+	 */
+	public ConcurrencyLimiter getConcurrencyLimiter() {
+		return concurrencyLimiter;
+	}
+
+	/**
+	 * 设置该数据源上的并发限制。每次调用在从连接池获取连接之前取得许可，释放连接时归还；限制按观测到的延迟自动调整，超出限制的调用排队等待，
+	 * 队列已满或等待超时时以{@link com.opensource.dbhelp.dbutils.ConcurrencyLimitException}立即失败，数据库变慢时不会所有线程都堆积在连接池上。
+	 * 事务、{@link #stream(String, Class, Object...)}和{@link #getConn()}自行持有连接，不受限制。
+	 *
+	 * @param concurrencyLimiter
+	 *            并发限制，null表示不限制
+	 */
+	public void setConcurrencyLimiter(ConcurrencyLimiter concurrencyLimiter) {
+		this.concurrencyLimiter = concurrencyLimiter;
+	}
+
+	/**
+	 * 返回以指定优先级等待并发许可的DbHelper，其它设置与当前对象相同，当前对象不受影响。例如后台任务使用<code>dbHelper.withPriority(Priority.LOW)</code>，过载时先被拒绝。
+	 *
+	 * @param priority
+	 *            优先级
+	 * @return 新的DbHelper对象
+	 */
+	public DbHelper withPriority(ConcurrencyLimiter.Priority priority) {
+		DbHelper helper = copy();
+		helper.priority = priority == null ? ConcurrencyLimiter.Priority.NORMAL : priority;
+		return helper;
+	}
+
+	/**
+	 * 创建并行执行多个独立查询的批次，设置与当前对象相同。例如：
+	 * <p/>
+	 * <code>ParallelQuery batch = dbHelper.parallel();<br/>
+	 * ParallelQuery.Result&lt;String&gt; total = batch.queryScalar("select count(*) from t_order");<br/>
+	 * ParallelQuery.Result&lt;List&lt;User&gt;&gt; users = batch.getBeanList("select * from t_user", User.class);<br/>
+	 * batch.execute();</code>
+	 *
+	 * @return 并行查询批次
+	 */
+	public ParallelQuery parallel() {
+		return new ParallelQuery(this);
+	}
+
+	/**
+	 * 创建按键值范围分区、并行读取的扫描，设置与当前对象相同，用于大查询的导出。例如：
+	 * <p/>
+	 * <code>dbHelper.partitionedScan("select * from t_order where status = ?", "id", 1).withPartitions(16).forEachNativeArray(writer);</code>
+	 *
+	 * @param sql
+	 *            即将被执行的sql语句
+	 * @param keyColumn
+	 *            分区的键列，数值或日期类型，必须出现在查询结果中
+	 * @param params
+	 *            参数数组
+	 * @return 分区扫描
+	 */
+	public PartitionedScan partitionedScan(String sql, String keyColumn, Object... params) {
+		return new PartitionedScan(this, sql, keyColumn, params);
+	}
+
+	/**
+	 * 返回在指定执行器中执行调用的异步门面，设置与当前对象相同。
+	 *
+	 * @param executor
+	 *            执行调用的执行器
+	 * @return 异步门面
+	 */
+	public AsyncDbHelper async(Executor executor) {
+		return new AsyncDbHelper(this, executor);
+	}
+
+	/**
+	 * 为一次调用创建QueryRunner，设置了期限时以当前时间加期限作为这次调用的截止时间，并带上fetch size和并发限制设置
+	 *
+	 * @return QueryRunner对象
+	 */
+	protected QueryRunner newQueryRunner() {
+		QueryRunner run = new QueryRunner(dataSource);
+		run.setFetchSize(fetchSize);
+		if (adaptiveFetchSize) {
+			run.setFetchSizeAdvisor(FETCH_SIZE_ADVISOR);
+		}
+		return configure(run);
+	}
+
+	/**
+	 * 为一次回调查询（forEach系列方法）创建QueryRunner，语句由{@link #prepareStreamingStatement(Connection, String)}创建，mysql逐行读取，其它数据库按{@link #setStreamFetchSize(int)}分批读取。 期限和并发限制设置与{@link #newQueryRunner()}相同，
+	 * 但许可的持有时间包括回调的执行时间，不作为并发限制的延迟样本。
+	 *
+	 * @return QueryRunner对象
+	 */
+	protected QueryRunner newStreamingQueryRunner() {
+		QueryRunner run = new QueryRunner(dataSource) {
+
+			@Override
+			protected PreparedStatement prepareStatement(Connection conn, String sql) throws SQLException {
+				return prepareStreamingStatement(conn, sql);
+			}
+		};
+		run.setLatencySampling(false);
+		return configure(run);
+	}
+
+	/**
+	 * 为QueryRunner设置并发限制，设置了期限时以当前时间加期限作为这次调用的截止时间
+	 *
+	 * @param run
+	 *            QueryRunner对象
+	 * @return 传入的QueryRunner对象
+	 */
+	private QueryRunner configure(QueryRunner run) {
+		run.setConcurrencyLimiter(concurrencyLimiter);
+		run.setPriority(priority);
+		if (queryTimeout > 0) {
+			run.setDeadline(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(queryTimeout));
+		}
+		return run;
+	}
+
 	/**
 	 * 获得数据库事务处理帮助类
 	 *
 	 * @return DbTransaction
 	 */
 	public DbTransaction getDbTransaction() {
-		return new DbTransaction(this.dataSource);
+		DbTransaction transaction = new DbTransaction(this.dataSource, this.statementCacheSize);
+		transaction.setBatchSize(this.batchSize);
+		transaction.setBatchBytes(this.batchBytes);
+		transaction.setQueryTimeout(this.queryTimeout);
+		transaction.setFetchSize(this.fetchSize);
+		if (this.adaptiveFetchSize) {
+			transaction.setFetchSizeAdvisor(FETCH_SIZE_ADVISOR);
+		}
+		if (this.rewriteBatchInserts) {
+			transaction.setBatchSqlRewriter(BatchSqlRewriterFactory.getRewriter(this.dialect));
+		}
+		transaction.setStreamFetchSize(streamingFetchSize());
+		return transaction;
 	}
 
 	/**
@@ -153,6 +637,25 @@ public class DbHelper {
 
 	// ///////////////////////////////////////////////
 
+	/**
+	 * 带入指定的参数数组，执行 SELECT 语句，用指定的处理器把记录集转换为结果。
+	 *
+	 * @param sql
+	 *            即将被执行的sql语句
+	 * @param rsh
+	 *            记录集处理器
+	 * @param params
+	 *            参数数组
+	 * @return 处理器返回的结果
+	 * @throws SQLException
+	 *             - if there is any problem executing the sql
+	 */
+	public <T> T query(String sql, ResultSetHandler<T> rsh, Object... params) throws SQLException {
+		debug(sql, params);
+		QueryRunner run = newQueryRunner();
+		return run.query(sql, rsh, params);
+	}
+
 	/**
 	 * 根据SQL查询出结果集中的第一个字段的值。 如果结果集有多行，则只返回首行对应的结果。 如果结果集为空，则返回null。
 	 *
@@ -166,7 +669,7 @@ public class DbHelper {
 	 */
 	public String queryScalar(String sql, Object... params) throws SQLException {
 		debug(sql, params);
-		QueryRunner run = new QueryRunner(dataSource);
+		QueryRunner run = newQueryRunner();
 		Object obj = run.query(sql, new ScalarHandler<Object>(1), params);
 		if (obj != null) {
 			return obj.toString();
@@ -187,7 +690,7 @@ public class DbHelper {
 	 */
 	public int[] batch(String sql, List<Object[]> params) throws SQLException {
 		debug(sql, "batch sql, count:" + ((params == null) ? -1 : params.size()));
-		QueryRunner run = new QueryRunner(dataSource);
+		QueryRunner run = newQueryRunner();
 		if (params == null) {
 			throw new SQLException("Null parameters. If parameters aren't need, pass an empty array.");
 		}
@@ -198,6 +701,65 @@ public class DbHelper {
 		return run.batch(sql, o);
 	}
 
+	/**
+	 * 分批执行批处理。从Iterator逐行读取参数，每{@link #setBatchSize(int) batchSize}行或参数达到{@link #setBatchBytes(long) batchBytes}时执行一次， 所有批次使用同一个PreparedStatement，内存占用与总行数无关。
+	 * 开启{@link #setRewriteBatchInserts(boolean)}时单行INSERT语句改写为多行插入语句执行。每批在自动提交的连接上执行，某一批出错时之前的批次已经提交，需要整体回滚时使用DbTransaction。
+	 *
+	 * @param sql
+	 *            即将被执行的sql语句
+	 * @param params
+	 *            参数行
+	 * @return 执行结果汇总
+	 * @throws SQLException
+	 *             - if there is any problem executing the sql
+	 */
+	public BatchResult batchChunked(String sql, Iterator<Object[]> params) throws SQLException {
+		debug(sql, "batch sql, chunk size:" + batchSize);
+		QueryRunner run = newQueryRunner();
+		return run.batch(sql, params, batchSize, batchBytes, rewriteBatchInserts ? BatchSqlRewriterFactory.getRewriter(dialect) : null);
+	}
+
+	/**
+	 * 分批执行批处理，参数行来自Stream，见{@link #batchChunked(String, Iterator)}。不会关闭传入的Stream。
+	 *
+	 * @param sql
+	 *            即将被执行的sql语句
+	 * @param params
+	 *            参数行
+	 * @return 执行结果汇总
+	 * @throws SQLException
+	 *             - if there is any problem executing the sql
+	 */
+	public BatchResult batchChunked(String sql, Stream<Object[]> params) throws SQLException {
+		if (params == null) {
+			throw new SQLException("Null parameters. If parameters aren't need, pass an empty stream.");
+		}
+		return batchChunked(sql, params.iterator());
+	}
+
+	/**
+	 * 分批保存bean列表，按属性名顺序读取每个bean的属性值作为参数行，见{@link #batchChunked(String, Iterator)}。 每个bean类及属性名列表只解析一次，getter调用器缓存复用，读取属性值时没有反射查找。
+	 *
+	 * @param sql
+	 *            即将被执行的sql语句
+	 * @param beans
+	 *            bean列表，不能包含null
+	 * @param propertyNames
+	 *            属性名，顺序与SQL参数一致
+	 * @return 执行结果汇总
+	 * @throws SQLException
+	 *             - if there is any problem executing the sql
+	 */
+	public <T> BatchResult batchBeans(String sql, List<T> beans, String... propertyNames) throws SQLException {
+		if (beans == null) {
+			throw new SQLException("Null beans. If beans aren't need, pass an empty list.");
+		}
+		if (beans.isEmpty()) {
+			return new BatchResult();
+		}
+		return batchChunked(sql, BeanParameterReader.rows(beans, propertyNames));
+	}
+
 	/**
 	 * 带入指定的参数数组，执行 SELECT 语句，返回Map&#60;String, String&#62;类型的单行结果。 如果结果集有多行，则只返回首行。 如果结果集为空，则返回null。 结果集中的null字段将转为空字符。
 	 *
@@ -211,7 +773,7 @@ public class DbHelper {
 	 */
 	public Map<String, String> getMap(String sql, Object... params) throws SQLException {
 		debug(sql, params);
-		QueryRunner run = new QueryRunner(dataSource);
+		QueryRunner run = newQueryRunner();
 		return run.query(sql, new StringMapHandler(), params);
 	}
 
@@ -228,7 +790,7 @@ public class DbHelper {
 	 */
 	public Map<String, Object> getNativeMap(String sql, Object... params) throws SQLException {
 		debug(sql, params);
-		QueryRunner run = new QueryRunner(dataSource);
+		QueryRunner run = newQueryRunner();
 		return run.query(sql, new MapHandler(), params);
 	}
 
@@ -245,7 +807,7 @@ public class DbHelper {
 	 */
 	public String[] getArray(String sql, Object... params) throws SQLException {
 		debug(sql, params);
-		QueryRunner run = new QueryRunner(dataSource);
+		QueryRunner run = newQueryRunner();
 		return run.query(sql, new StringArrayHandler(), params);
 	}
 
@@ -262,7 +824,7 @@ public class DbHelper {
 	 */
 	public Object[] getNativeArray(String sql, Object... params) throws SQLException {
 		debug(sql, params);
-		QueryRunner run = new QueryRunner(dataSource);
+		QueryRunner run = newQueryRunner();
 		return run.query(sql, new ArrayHandler(), params);
 	}
 
@@ -281,7 +843,7 @@ public class DbHelper {
 	 */
 	public <T> T getBean(String sql, Class<T> type, Object... params) throws SQLException {
 		debug(sql, params);
-		QueryRunner run = new QueryRunner(dataSource);
+		QueryRunner run = newQueryRunner();
 		return run.query(sql, new BeanHandler<T>(type, BEAN_ROW_PROCESSOR), params);
 	}
 
@@ -298,8 +860,8 @@ public class DbHelper {
 	 */
 	public List<Map<String, String>> getMapList(String sql, Object... params) throws SQLException {
 		debug(sql, params);
-		QueryRunner run = new QueryRunner(dataSource);
-		return run.query(sql, new StringMapListHandler(), params);
+		QueryRunner run = newQueryRunner();
+		return run.query(sql, new StringMapListHandler(deduplicateStrings), params);
 	}
 
 	/**
@@ -315,7 +877,7 @@ public class DbHelper {
 	 */
 	public List<Map<String, Object>> getNativeMapList(String sql, Object... params) throws SQLException {
 		debug(sql, params);
-		QueryRunner run = new QueryRunner(dataSource);
+		QueryRunner run = newQueryRunner();
 		return run.query(sql, new MapListHandler(), params);
 	}
 
@@ -332,8 +894,8 @@ public class DbHelper {
 	 */
 	public List<String[]> getArrayList(String sql, Object... params) throws SQLException {
 		debug(sql, params);
-		QueryRunner run = new QueryRunner(dataSource);
-		return run.query(sql, new StringArrayListHandler(), params);
+		QueryRunner run = newQueryRunner();
+		return run.query(sql, new StringArrayListHandler(deduplicateStrings), params);
 	}
 
 	/**
@@ -349,7 +911,7 @@ public class DbHelper {
 	 */
 	public List<Object[]> getNativeArrayList(String sql, Object... params) throws SQLException {
 		debug(sql, params);
-		QueryRunner run = new QueryRunner(dataSource);
+		QueryRunner run = newQueryRunner();
 		return run.query(sql, new ArrayListHandler(), params);
 	}
 
@@ -368,10 +930,179 @@ public class DbHelper {
 	 */
 	public <T> List<T> getBeanList(String sql, Class<T> type, Object... params) throws SQLException {
 		debug(sql, params);
-		QueryRunner run = new QueryRunner(dataSource);
+		QueryRunner run = newQueryRunner();
 		return run.query(sql, new BeanListHandler<T>(type, BEAN_ROW_PROCESSOR), params);
 	}
 
+	/**
+	 * 带入指定的参数数组，执行 SELECT 语句，返回按列保存的结果。 整数、浮点字段保存为不装箱的基本类型数组，NULL记录在空值位图中，适合对大量行做统计计算。 如果结果集为空，则返回行数为0的结果。
+	 *
+	 * @param sql
+	 *            即将被执行的sql语句
+	 * @param params
+	 *            参数数组
+	 * @return 查询结果
+	 * @throws SQLException
+	 *             - if there is any problem executing the sql
+	 */
+	public ColumnarResult getColumnar(String sql, Object... params) throws SQLException {
+		debug(sql, params);
+		QueryRunner run = newQueryRunner();
+		return run.query(sql, new ColumnarResultHandler(), params);
+	}
+
+	/**
+	 * 带入指定的参数数组，执行 SELECT 语句，把每行映射为指定类的对象后立即交给回调处理，不保存查询结果，内存占用与结果集大小无关。 字段属性映射规则与getBeanList相同。
+	 * <p/>
+	 * forEach系列方法与{@link #stream(String, Class, Object...)}一样流式读取记录集：mysql逐行读取，回调返回前该连接不能执行其它语句；其它数据库按{@link #setStreamFetchSize(int)}分批读取。
+	 *
+	 * @param sql
+	 *            即将被执行的sql语句
+	 * @param type
+	 *            指定类
+	 * @param action
+	 *            每个对象的回调
+	 * @param params
+	 *            参数数组
+	 * @return 处理的行数
+	 * @throws SQLException
+	 *             - if there is any problem executing the sql
+	 */
+	public <T> int forEach(String sql, Class<T> type, Consumer<? super T> action, Object... params) throws SQLException {
+		debug(sql, params);
+		QueryRunner run = newStreamingQueryRunner();
+		return run.query(sql, new BeanCallbackHandler<T>(type, BEAN_ROW_PROCESSOR, action), params).intValue();
+	}
+
+	/**
+	 * 带入指定的参数数组，执行 SELECT 语句，把每行转为字符串数组后立即交给回调处理，不保存查询结果。 结果集中的null字段将转为空字符。
+	 *
+	 * @param sql
+	 *            即将被执行的sql语句
+	 * @param action
+	 *            每行的回调
+	 * @param params
+	 *            参数数组
+	 * @return 处理的行数
+	 * @throws SQLException
+	 *             - if there is any problem executing the sql
+	 */
+	public int forEachArray(String sql, Consumer<? super String[]> action, Object... params) throws SQLException {
+		debug(sql, params);
+		QueryRunner run = newStreamingQueryRunner();
+		return run.query(sql, new StringArrayCallbackHandler(action), params).intValue();
+	}
+
+	/**
+	 * 带入指定的参数数组，执行 SELECT 语句，把每行转为对象数组后立即交给回调处理，不保存查询结果。
+	 *
+	 * @param sql
+	 *            即将被执行的sql语句
+	 * @param action
+	 *            每行的回调
+	 * @param params
+	 *            参数数组
+	 * @return 处理的行数
+	 * @throws SQLException
+	 *             - if there is any problem executing the sql
+	 */
+	public int forEachNativeArray(String sql, Consumer<? super Object[]> action, Object... params) throws SQLException {
+		debug(sql, params);
+		QueryRunner run = newStreamingQueryRunner();
+		return run.query(sql, new ArrayCallbackHandler(action), params).intValue();
+	}
+
+	/**
+	 * 带入指定的参数数组，执行 SELECT 语句，把每行转为Map&#60;String, String&#62;后立即交给回调处理，不保存查询结果。 结果集中的null字段将转为空字符。
+	 *
+	 * @param sql
+	 *            即将被执行的sql语句
+	 * @param action
+	 *            每行的回调
+	 * @param params
+	 *            参数数组
+	 * @return 处理的行数
+	 * @throws SQLException
+	 *             - if there is any problem executing the sql
+	 */
+	public int forEachMap(String sql, Consumer<? super Map<String, String>> action, Object... params) throws SQLException {
+		debug(sql, params);
+		QueryRunner run = newStreamingQueryRunner();
+		return run.query(sql, new StringMapCallbackHandler(action), params).intValue();
+	}
+
+	/**
+	 * 带入指定的参数数组，执行 SELECT 语句，把每行转为Map&#60;String, Object&#62;后立即交给回调处理，不保存查询结果。
+	 *
+	 * @param sql
+	 *            即将被执行的sql语句
+	 * @param action
+	 *            每行的回调
+	 * @param params
+	 *            参数数组
+	 * @return 处理的行数
+	 * @throws SQLException
+	 *             - if there is any problem executing the sql
+	 */
+	public int forEachNativeMap(String sql, Consumer<? super Map<String, Object>> action, Object... params) throws SQLException {
+		debug(sql, params);
+		QueryRunner run = newStreamingQueryRunner();
+		return run.query(sql, new MapCallbackHandler(action), params).intValue();
+	}
+
+	/**
+	 * 带入指定的参数数组，执行 SELECT 语句，返回按行惰性读取的Stream，每行映射为指定类的对象，字段属性映射规则与getBeanList相同。
+	 * <p/>
+	 * Stream持有独立的数据库连接、语句和记录集，读到末尾时自动释放；提前结束（如findFirst、limit）或出错时需要调用Stream.close()释放，建议使用try-with-resources。 mysql使用逐行流式读取，
+	 * Stream关闭前该连接不能执行其它语句；其它数据库按{@link #setStreamFetchSize(int)}分批读取。 Stream中的SQLException包装为RuntimeException抛出，原异常作为cause。
+	 *
+	 * @param sql
+	 *            即将被执行的sql语句
+	 * @param type
+	 *            指定类
+	 * @param params
+	 *            参数数组
+	 * @return 查询结果的Stream
+	 * @throws SQLException
+	 *             - if there is any problem executing the sql
+	 */
+	public <T> Stream<T> stream(String sql, Class<T> type, Object... params) throws SQLException {
+		debug(sql, params);
+		final Connection conn = dataSource.getConnection();
+		PreparedStatement stmt = null;
+		ResultSet rs = null;
+		try {
+			stmt = prepareStreamingStatement(conn, sql);
+			new QueryRunner().fillStatement(sql, stmt, params);
+			rs = stmt.executeQuery();
+		}
+		catch (SQLException e) {
+			DbUtils.closeQuietly(conn, stmt, rs);
+			throw e;
+		}
+		catch (RuntimeException e) {
+			DbUtils.closeQuietly(conn, stmt, rs);
+			throw e;
+		}
+
+		final Statement statement = stmt;
+		final ResultSet resultSet = rs;
+		final ResultSetSpliterator<T> spliterator = new ResultSetSpliterator<T>(rs, type, BEAN_ROW_PROCESSOR, new Runnable() {
+
+			@Override
+			public void run() {
+				DbUtils.closeQuietly(conn, statement, resultSet);
+			}
+		});
+		return StreamSupport.stream(spliterator, false).onClose(new Runnable() {
+
+			@Override
+			public void run() {
+				spliterator.close();
+			}
+		});
+	}
+
 	/**
 	 * 执行 UPDATE 或者 DELETE 语句。
 	 *
@@ -385,10 +1116,102 @@ public class DbHelper {
 	 */
 	public int execute(String sql, Object... params) throws SQLException {
 		debug(sql, params);
-		QueryRunner run = new QueryRunner(dataSource);
+		QueryRunner run = newQueryRunner();
 		return run.update(sql, params);
 	}
 
+	/**
+	 * 执行 INSERT 语句，返回数据库生成的主键。主键从同一语句的<code>getGeneratedKeys()</code>读取，不需要再执行<code>SELECT LAST_INSERT_ID()</code>或查询序列。 oracle等未指定主键列时返回ROWID的数据库使用
+	 * {@link #insert(String, String[], ResultSetHandler, Object...)}指定主键列名。
+	 *
+	 * @param sql
+	 *            即将被执行的sql语句
+	 * @param params
+	 *            参数数组
+	 * @return 生成的主键，没有生成主键时返回null
+	 * @throws SQLException
+	 *             - if there is any problem executing the sql
+	 */
+	public Long insert(String sql, Object... params) throws SQLException {
+		long[] keys = insert(sql, null, new GeneratedKeysHandler(), params);
+		return keys.length == 0 ? null : Long.valueOf(keys[0]);
+	}
+
+	/**
+	 * 执行 INSERT 语句，生成的主键由指定的处理器转换，例如用{@link ScalarHandler}读取非数值主键。
+	 *
+	 * @param sql
+	 *            即将被执行的sql语句
+	 * @param rsh
+	 *            生成主键记录集的处理器
+	 * @param params
+	 *            参数数组
+	 * @return 处理器返回的结果
+	 * @throws SQLException
+	 *             - if there is any problem executing the sql
+	 */
+	public <T> T insert(String sql, ResultSetHandler<T> rsh, Object... params) throws SQLException {
+		return insert(sql, null, rsh, params);
+	}
+
+	/**
+	 * 执行 INSERT 语句，返回指定主键列的值，生成的主键由指定的处理器转换。
+	 *
+	 * @param sql
+	 *            即将被执行的sql语句
+	 * @param keyColumns
+	 *            主键列名，为null时由驱动决定返回的列
+	 * @param rsh
+	 *            生成主键记录集的处理器
+	 * @param params
+	 *            参数数组
+	 * @return 处理器返回的结果
+	 * @throws SQLException
+	 *             - if there is any problem executing the sql
+	 */
+	public <T> T insert(String sql, String[] keyColumns, ResultSetHandler<T> rsh, Object... params) throws SQLException {
+		debug(sql, params);
+		QueryRunner run = newQueryRunner();
+		return run.insert(sql, keyColumns, rsh, params);
+	}
+
+	/**
+	 * 批量执行 INSERT 语句，按参数行的顺序返回数据库生成的主键。
+	 *
+	 * @param sql
+	 *            即将被执行的sql语句
+	 * @param params
+	 *            参数行
+	 * @return 生成的主键
+	 * @throws SQLException
+	 *             - if there is any problem executing the sql
+	 */
+	public long[] insertBatch(String sql, List<Object[]> params) throws SQLException {
+		return insertBatch(sql, null, params);
+	}
+
+	/**
+	 * 批量执行 INSERT 语句，按参数行的顺序返回指定主键列的值。
+	 *
+	 * @param sql
+	 *            即将被执行的sql语句
+	 * @param keyColumns
+	 *            主键列名，为null时由驱动决定返回的列
+	 * @param params
+	 *            参数行
+	 * @return 生成的主键
+	 * @throws SQLException
+	 *             - if there is any problem executing the sql
+	 */
+	public long[] insertBatch(String sql, String[] keyColumns, List<Object[]> params) throws SQLException {
+		debug(sql, "insert batch sql, count:" + ((params == null) ? -1 : params.size()));
+		if (params == null) {
+			throw new SQLException("Null parameters. If parameters aren't need, pass an empty array.");
+		}
+		QueryRunner run = newQueryRunner();
+		return run.insertBatch(sql, keyColumns, new GeneratedKeysHandler(), params.toArray(new Object[params.size()][]));
+	}
+
 	// //////////////Page/////////////////////
 
 	/**
@@ -453,6 +1276,7 @@ public class DbHelper {
 	 */
 	public ListPage<String[]> getArrayPage(String sql, int curPage, int pageSize, Object... params) throws SQLException {
 		ListPagedStatement<String[]> pst = new ListPagedStatement<String[]>(dataSource, dialect, sql, curPage, pageSize, params);
+		pst.setQueryRunner(newQueryRunner());
 		return pst.executeQuery(0);
 	}
 
@@ -518,6 +1342,7 @@ public class DbHelper {
 	 */
 	public ListPage<Map<String, Object>> getNativeMapPage(String sql, int curPage, int pageSize, Object... params) throws SQLException {
 		ListPagedStatement<Map<String, Object>> pst = new ListPagedStatement<Map<String, Object>>(dataSource, dialect, sql, curPage, pageSize, params);
+		pst.setQueryRunner(newQueryRunner());
 		return pst.executeQuery(2);
 	}
 
@@ -591,6 +1416,7 @@ public class DbHelper {
 	 */
 	public <T> ListPage<T> getPage(String sql, Class<T> clazz, int curPage, int pageSize, Object... params) throws SQLException {
 		ListPagedStatement<T> pst = new ListPagedStatement<T>(dataSource, dialect, sql, curPage, pageSize, params);
+		pst.setQueryRunner(newQueryRunner());
 		pst.setClazz(clazz);
 		return pst.executeQuery(-1);
 	}
@@ -657,9 +1483,42 @@ public class DbHelper {
 	 */
 	public ListPage<Map<String, String>> getMapPage(String sql, int curPage, int pageSize, Object... params) throws SQLException {
 		ListPagedStatement<Map<String, String>> pst = new ListPagedStatement<Map<String, String>>(dataSource, dialect, sql, curPage, pageSize, params);
+		pst.setQueryRunner(newQueryRunner());
 		return pst.executeQuery(1);
 	}
 
+	/**
+	 * 创建流式查询使用的只进、只读语句，并按数据库类型设置fetch size。 mysql设置为Integer.MIN_VALUE，驱动逐行读取而不是一次缓存全部结果；连接参数开启useCursorFetch时可以覆盖本方法改用正数fetch size走服务端游标。
+	 *
+	 * @param conn
+	 *            数据库连接
+	 * @param sql
+	 *            执行的SQL语句
+	 * @return 语句对象
+	 * @throws SQLException
+	 *             - if a database access error occurs
+	 */
+	protected PreparedStatement prepareStreamingStatement(Connection conn, String sql) throws SQLException {
+		PreparedStatement stmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+		try {
+			stmt.setFetchSize(streamingFetchSize());
+		}
+		catch (SQLException e) {
+			DbUtils.closeQuietly(stmt);
+			throw e;
+		}
+		return stmt;
+	}
+
+	/**
+	 * 流式查询语句使用的fetch size，mysql为Integer.MIN_VALUE，其它数据库为{@link #getStreamFetchSize()}
+	 *
+	 * @return fetch size
+	 */
+	private int streamingFetchSize() {
+		return "mysql".equals(dialect) ? Integer.MIN_VALUE : streamFetchSize;
+	}
+
 	/**
 	 * 输出debug信息
 	 *
@@ -1,7 +1,8 @@
 package com.opensource.dbhelp;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
 
 import javax.sql.DataSource;
 
@@ -36,30 +37,45 @@ public class DbHelperManager {
 		return INSTANCE;
 	}
 
-	private final Map<String, DbHelper> helpers = new HashMap<String, DbHelper>();
+	private final ConcurrentMap<String, DbHelper> helpers = new ConcurrentHashMap<String, DbHelper>();
 
 	/**
-	 * 获得DbHelper实例
+	 * 创建DbHelper时持有的锁。使用ReentrantLock而不是synchronized，在虚拟线程中等待时不会占住平台线程
+	 */
+	private final ReentrantLock creationLock = new ReentrantLock();
+
+	/**
+	 * 获得DbHelper实例。已创建的实例直接从并发映射中读取，不需要加锁；创建新实例时加锁，同一数据源只创建一次。
 	 * 
 	 * @param configName
 	 *            数据源名
 	 * @return DbHelper
 	 */
 	public DbHelper getHelper(String configName, String dialect) {
-		synchronized (helpers) {
-			if (helpers.containsKey(configName)) {
-				return helpers.get(configName);
+		// ConcurrentHashMap不接受null键，默认数据源用空串表示
+		String key = configName == null ? "" : configName;
+		DbHelper existing = helpers.get(key);
+		if (existing != null) {
+			return existing;
+		}
+		creationLock.lock();
+		try {
+			existing = helpers.get(key);
+			if (existing != null) {
+				return existing;
+			}
+			DataSource dataSource = new ComboPooledDataSource(configName);
+			DbHelper dbHelper = new DbHelper(dataSource);
+			if ("mysql".equals(dialect)) {
+				dbHelper.setDialect("mysql");
 			} else {
-				DataSource dataSource = new ComboPooledDataSource(configName);
-				DbHelper dbHelper = new DbHelper(dataSource);
-				if ("mysql".equals(dialect)) {
-					dbHelper.setDialect("mysql");
-				} else {
-					dbHelper.setDialect("oracle");
-				}
-				helpers.put(configName, dbHelper);
-				return dbHelper;
+				dbHelper.setDialect("oracle");
 			}
+			helpers.put(key, dbHelper);
+			return dbHelper;
+		}
+		finally {
+			creationLock.unlock();
 		}
 	}
 
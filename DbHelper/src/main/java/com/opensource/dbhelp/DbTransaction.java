@@ -1,20 +1,39 @@
 package com.opensource.dbhelp;
 
 import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import javax.sql.DataSource;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import com.opensource.dbhelp.dbutils.BatchResult;
+import com.opensource.dbhelp.dbutils.BeanParameterReader;
 import com.opensource.dbhelp.dbutils.DbUtils;
+import com.opensource.dbhelp.dbutils.FetchSizeAdvisor;
 import com.opensource.dbhelp.dbutils.QueryRunner;
+import com.opensource.dbhelp.dbutils.ResultSetHandler;
+import com.opensource.dbhelp.dbutils.StatementCache;
+import com.opensource.dbhelp.dbutils.handlers.ArrayCallbackHandler;
+import com.opensource.dbhelp.dbutils.handlers.BeanCallbackHandler;
 import com.opensource.dbhelp.dbutils.handlers.BeanHandler;
 import com.opensource.dbhelp.dbutils.handlers.BeanListHandler;
+import com.opensource.dbhelp.dbutils.handlers.GeneratedKeysHandler;
+import com.opensource.dbhelp.dbutils.handlers.MapCallbackHandler;
+import com.opensource.dbhelp.dbutils.handlers.StringArrayCallbackHandler;
 import com.opensource.dbhelp.dbutils.handlers.StringArrayHandler;
 import com.opensource.dbhelp.dbutils.handlers.StringArrayListHandler;
+import com.opensource.dbhelp.dbutils.handlers.StringMapCallbackHandler;
+import com.opensource.dbhelp.dialect.BatchSqlRewriter;
 
 /**
  * 数据库事务处理帮助类。
@@ -92,12 +111,58 @@ public class DbTransaction {
 	private QueryRunner run = null;
 
 	/**
-	 * 初始化时初始化QueryRunner对象
+	 * 连接上最多缓存的PreparedStatement数，0表示不缓存
+	 */
+	private final int statementCacheSize;
+
+	/**
+	 * 当前连接的PreparedStatement缓存
+	 */
+	private StatementCache statementCache;
+
+	/**
+	 * 分批执行批处理时每批最多的参数行数
+	 */
+	private int batchSize = QueryRunner.DEFAULT_BATCH_SIZE;
+
+	/**
+	 * 分批执行批处理时每批参数的估算字节数上限，0表示不限制
+	 */
+	private long batchBytes;
+
+	/**
+	 * 分批执行INSERT时使用的多行插入改写对象，为null时不改写
+	 */
+	private BatchSqlRewriter batchSqlRewriter;
+
+	/**
+	 * forEach系列方法流式读取时的fetch size，0表示与其它查询相同
+	 */
+	private int streamFetchSize;
+
+	/**
+	 * 初始化时初始化QueryRunner对象，连接上最多缓存{@link StatementCache#DEFAULT_MAX_STATEMENTS}个PreparedStatement
 	 *
 	 * @param dataSource
 	 *            使用的数据源
 	 */
 	public DbTransaction(DataSource dataSource) {
+		this(dataSource, StatementCache.DEFAULT_MAX_STATEMENTS);
+	}
+
+	/**
+	 * 初始化时初始化QueryRunner对象
+	 *
+	 * @param dataSource
+	 *            使用的数据源
+	 * @param statementCacheSize
+	 *            连接上最多缓存的PreparedStatement数，同一条SQL在连接释放前只预编译一次；0表示每次执行都重新预编译
+	 */
+	public DbTransaction(DataSource dataSource, int statementCacheSize) {
+		if (statementCacheSize < 0) {
+			throw new IllegalArgumentException("statementCacheSize cannot be negative");
+		}
+		this.statementCacheSize = statementCacheSize;
 		run = new QueryRunner(dataSource);
 	}
 
@@ -115,6 +180,10 @@ public class DbTransaction {
 			logger.error("get connection error!", ex);
 			throw ex;
 		}
+		if (statementCacheSize > 0) {
+			statementCache = new StatementCache(conn, statementCacheSize);
+			run.setStatementCache(statementCache);
+		}
 	}
 
 	/**
@@ -143,6 +212,95 @@ public class DbTransaction {
 		return conn;
 	}
 
+	/**
+	 * 设置分批执行批处理时每批最多的参数行数
+	 *
+	 * @param batchSize
+	 *            每批行数，必须大于0
+	 */
+	public void setBatchSize(int batchSize) {
+		if (batchSize < 1) {
+			throw new IllegalArgumentException("batchSize must be positive");
+		}
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * 设置分批执行批处理时每批参数的估算字节数上限
+	 *
+	 * @param batchBytes
+	 *            字节数上限，0表示不限制
+	 */
+	public void setBatchBytes(long batchBytes) {
+		if (batchBytes < 0) {
+			throw new IllegalArgumentException("batchBytes cannot be negative");
+		}
+		this.batchBytes = batchBytes;
+	}
+
+	/**
+	 * 设置查询每次从数据库读取的行数，设置后优先于自适应选择
+	 *
+	 * @param fetchSize
+	 *            行数，0表示使用驱动默认值或自适应选择
+	 */
+	public void setFetchSize(int fetchSize) {
+		run.setFetchSize(fetchSize);
+	}
+
+	/**
+	 * 设置未指定fetchSize时选择每次读取行数的选择器
+	 *
+	 * @param fetchSizeAdvisor
+	 *            选择器，为null时使用驱动默认值
+	 */
+	public void setFetchSizeAdvisor(FetchSizeAdvisor fetchSizeAdvisor) {
+		run.setFetchSizeAdvisor(fetchSizeAdvisor);
+	}
+
+	/**
+	 * 设置每条语句的执行期限。语句设置<code>setQueryTimeout</code>，到期时还会主动调用<code>Statement.cancel()</code>，超过期限时抛出{@link com.opensource.dbhelp.dbutils.QueryTimeoutException}。 事务中的连接在{@link #connect()}时取得，不受该期限限制。
+	 *
+	 * @param queryTimeout
+	 *            期限，毫秒，0表示不限制
+	 */
+	public void setQueryTimeout(long queryTimeout) {
+		run.setQueryTimeout(queryTimeout, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * 设置forEach系列方法流式读取记录集时的fetch size，由{@link com.opensource.dbhelp.DbHelper#getDbTransaction()}按数据库类型设置。 mysql驱动约定Integer.MIN_VALUE为逐行读取，
+	 * 此时回调返回前不能在本事务中执行其它语句，需要在回调中执行时设置为0。
+	 *
+	 * @param streamFetchSize
+	 *            fetch size，Integer.MIN_VALUE表示mysql逐行读取，0表示与其它查询相同，一次读取全部结果
+	 */
+	public void setStreamFetchSize(int streamFetchSize) {
+		if (streamFetchSize < 0 && streamFetchSize != Integer.MIN_VALUE) {
+			throw new IllegalArgumentException("streamFetchSize cannot be negative");
+		}
+		this.streamFetchSize = streamFetchSize;
+	}
+
+	/**
+	 * 设置分批执行单行INSERT语句时使用的多行插入改写对象
+	 *
+	 * @param batchSqlRewriter
+	 *            改写对象，为null时不改写
+	 */
+	public void setBatchSqlRewriter(BatchSqlRewriter batchSqlRewriter) {
+		this.batchSqlRewriter = batchSqlRewriter;
+	}
+
+	/**
+	 * 获取当前连接的PreparedStatement缓存，可以用来查看命中率
+	 *
+	 * @return PreparedStatement缓存，未连接或不缓存时为null
+	 */
+	public StatementCache getStatementCache() {
+		return statementCache;
+	}
+
 	/**
 	 * 结束事务生命周期，提交所有变更
 	 *
@@ -236,6 +394,96 @@ public class DbTransaction {
 		return run.update(conn, sql, params);
 	}
 
+	/**
+	 * 执行 INSERT 语句，返回数据库生成的主键。主键从同一语句的<code>getGeneratedKeys()</code>读取，不需要再执行<code>SELECT LAST_INSERT_ID()</code>或查询序列。 oracle等未指定主键列时返回ROWID的数据库使用
+	 * {@link #insert(String, String[], ResultSetHandler, Object...)}指定主键列名。
+	 *
+	 * @param sql
+	 *            要执行的sql语句
+	 * @param params
+	 *            参数数组对象
+	 * @return 生成的主键，没有生成主键时返回null
+	 * @throws SQLException
+	 *             SQL异常
+	 */
+	public Long insert(String sql, Object... params) throws SQLException {
+		long[] keys = insert(sql, null, new GeneratedKeysHandler(), params);
+		return keys.length == 0 ? null : Long.valueOf(keys[0]);
+	}
+
+	/**
+	 * 执行 INSERT 语句，生成的主键由指定的处理器转换，例如用{@link com.opensource.dbhelp.dbutils.handlers.ScalarHandler}读取非数值主键。
+	 *
+	 * @param sql
+	 *            要执行的sql语句
+	 * @param rsh
+	 *            生成主键记录集的处理器
+	 * @param params
+	 *            参数数组对象
+	 * @return 处理器返回的结果
+	 * @throws SQLException
+	 *             SQL异常
+	 */
+	public <T> T insert(String sql, ResultSetHandler<T> rsh, Object... params) throws SQLException {
+		return insert(sql, null, rsh, params);
+	}
+
+	/**
+	 * 执行 INSERT 语句，返回指定主键列的值，生成的主键由指定的处理器转换。
+	 *
+	 * @param sql
+	 *            要执行的sql语句
+	 * @param keyColumns
+	 *            主键列名，为null时由驱动决定返回的列
+	 * @param rsh
+	 *            生成主键记录集的处理器
+	 * @param params
+	 *            参数数组对象
+	 * @return 处理器返回的结果
+	 * @throws SQLException
+	 *             SQL异常
+	 */
+	public <T> T insert(String sql, String[] keyColumns, ResultSetHandler<T> rsh, Object... params) throws SQLException {
+		debug(sql, params);
+		return run.insert(conn, sql, keyColumns, rsh, params);
+	}
+
+	/**
+	 * 批量执行 INSERT 语句，按参数行的顺序返回数据库生成的主键。
+	 *
+	 * @param sql
+	 *            要执行的sql语句
+	 * @param params
+	 *            参数行
+	 * @return 生成的主键
+	 * @throws SQLException
+	 *             SQL异常
+	 */
+	public long[] insertBatch(String sql, List<Object[]> params) throws SQLException {
+		return insertBatch(sql, null, params);
+	}
+
+	/**
+	 * 批量执行 INSERT 语句，按参数行的顺序返回指定主键列的值。
+	 *
+	 * @param sql
+	 *            要执行的sql语句
+	 * @param keyColumns
+	 *            主键列名，为null时由驱动决定返回的列
+	 * @param params
+	 *            参数行
+	 * @return 生成的主键
+	 * @throws SQLException
+	 *             SQL异常
+	 */
+	public long[] insertBatch(String sql, String[] keyColumns, List<Object[]> params) throws SQLException {
+		debug(sql, "insert batch sql, count:" + ((params == null) ? -1 : params.size()));
+		if (params == null) {
+			throw new SQLException("Null parameters. If parameters aren't need, pass an empty array.");
+		}
+		return run.insertBatch(conn, sql, keyColumns, new GeneratedKeysHandler(), params.toArray(new Object[params.size()][]));
+	}
+
 	/**
 	 * 批处理执行sql
 	 *
@@ -257,6 +505,63 @@ public class DbTransaction {
 		return run.batch(conn, sql, p);
 	}
 
+	/**
+	 * 分批执行批处理。从Iterator逐行读取参数，每batchSize行或参数达到batchBytes时执行一次，所有批次使用同一个PreparedStatement，内存占用与总行数无关。 设置了{@link #setBatchSqlRewriter(BatchSqlRewriter)}时单行INSERT语句改写为多行插入语句执行。
+	 *
+	 * @param sql
+	 *            要执行的SQL语句
+	 * @param params
+	 *            参数行
+	 * @return 执行结果汇总
+	 * @throws SQLException
+	 *             SQL异常
+	 */
+	public BatchResult batchChunked(String sql, Iterator<Object[]> params) throws SQLException {
+		debug(sql, "batch sql, chunk size:" + batchSize);
+		return run.batch(conn, sql, params, batchSize, batchBytes, batchSqlRewriter);
+	}
+
+	/**
+	 * 分批执行批处理，参数行来自Stream，见{@link #batchChunked(String, Iterator)}。不会关闭传入的Stream。
+	 *
+	 * @param sql
+	 *            要执行的SQL语句
+	 * @param params
+	 *            参数行
+	 * @return 执行结果汇总
+	 * @throws SQLException
+	 *             SQL异常
+	 */
+	public BatchResult batchChunked(String sql, Stream<Object[]> params) throws SQLException {
+		if (params == null) {
+			throw new SQLException("Null parameters. If parameters aren't need, pass an empty stream.");
+		}
+		return batchChunked(sql, params.iterator());
+	}
+
+	/**
+	 * 分批保存bean列表，按属性名顺序读取每个bean的属性值作为参数行，见{@link #batchChunked(String, Iterator)}。 每个bean类及属性名列表只解析一次，getter调用器缓存复用，读取属性值时没有反射查找。
+	 *
+	 * @param sql
+	 *            要执行的SQL语句
+	 * @param beans
+	 *            bean列表，不能包含null
+	 * @param propertyNames
+	 *            属性名，顺序与SQL参数一致
+	 * @return 执行结果汇总
+	 * @throws SQLException
+	 *             SQL异常
+	 */
+	public <T> BatchResult batchBeans(String sql, List<T> beans, String... propertyNames) throws SQLException {
+		if (beans == null) {
+			throw new SQLException("Null beans. If beans aren't need, pass an empty list.");
+		}
+		if (beans.isEmpty()) {
+			return new BatchResult();
+		}
+		return batchChunked(sql, BeanParameterReader.rows(beans, propertyNames));
+	}
+
 	/**
 	 * 查找单条记录
 	 *
@@ -445,10 +750,137 @@ public class DbTransaction {
 		return run.query(conn, sql, new BeanListHandler<T>(type, DbHelper.BEAN_ROW_PROCESSOR), params);
 	}
 
+	/**
+	 * 带入指定的参数数组，执行 SELECT 语句，把每行映射为指定类的对象后立即交给回调处理，不保存查询结果，内存占用与结果集大小无关。 字段属性映射规则与getBeanList相同。
+	 * <p/>
+	 * forEach系列方法按{@link #setStreamFetchSize(int)}流式读取记录集，mysql逐行读取时回调中不能在本事务中执行其它语句。
+	 *
+	 * @param sql
+	 *            要执行的SQL语句
+	 * @param type
+	 *            指定类
+	 * @param action
+	 *            每个对象的回调
+	 * @param params
+	 *            参数数组
+	 * @return 处理的行数
+	 * @throws SQLException
+	 *             SQL异常
+	 */
+	public <T> int forEach(String sql, Class<T> type, Consumer<? super T> action, Object... params) throws SQLException {
+		debug(sql, params);
+		return streamingRunner().query(conn, sql, new BeanCallbackHandler<T>(type, DbHelper.BEAN_ROW_PROCESSOR, action), params).intValue();
+	}
+
+	/**
+	 * 带入指定的参数数组，执行 SELECT 语句，把每行转为字符串数组后立即交给回调处理，不保存查询结果。 结果集中的null字段将转为空字符。
+	 *
+	 * @param sql
+	 *            要执行的SQL语句
+	 * @param action
+	 *            每行的回调
+	 * @param params
+	 *            参数数组
+	 * @return 处理的行数
+	 * @throws SQLException
+	 *             SQL异常
+	 */
+	public int forEachArray(String sql, Consumer<? super String[]> action, Object... params) throws SQLException {
+		debug(sql, params);
+		return streamingRunner().query(conn, sql, new StringArrayCallbackHandler(action), params).intValue();
+	}
+
+	/**
+	 * 带入指定的参数数组，执行 SELECT 语句，把每行转为对象数组后立即交给回调处理，不保存查询结果。
+	 *
+	 * @param sql
+	 *            要执行的SQL语句
+	 * @param action
+	 *            每行的回调
+	 * @param params
+	 *            参数数组
+	 * @return 处理的行数
+	 * @throws SQLException
+	 *             SQL异常
+	 */
+	public int forEachNativeArray(String sql, Consumer<? super Object[]> action, Object... params) throws SQLException {
+		debug(sql, params);
+		return streamingRunner().query(conn, sql, new ArrayCallbackHandler(action), params).intValue();
+	}
+
+	/**
+	 * 带入指定的参数数组，执行 SELECT 语句，把每行转为Map&#60;String, String&#62;后立即交给回调处理，不保存查询结果。 结果集中的null字段将转为空字符。
+	 *
+	 * @param sql
+	 *            要执行的SQL语句
+	 * @param action
+	 *            每行的回调
+	 * @param params
+	 *            参数数组
+	 * @return 处理的行数
+	 * @throws SQLException
+	 *             SQL异常
+	 */
+	public int forEachMap(String sql, Consumer<? super Map<String, String>> action, Object... params) throws SQLException {
+		debug(sql, params);
+		return streamingRunner().query(conn, sql, new StringMapCallbackHandler(action), params).intValue();
+	}
+
+	/**
+	 * 带入指定的参数数组，执行 SELECT 语句，把每行转为Map&#60;String, Object&#62;后立即交给回调处理，不保存查询结果。
+	 *
+	 * @param sql
+	 *            要执行的SQL语句
+	 * @param action
+	 *            每行的回调
+	 * @param params
+	 *            参数数组
+	 * @return 处理的行数
+	 * @throws SQLException
+	 *             SQL异常
+	 */
+	public int forEachNativeMap(String sql, Consumer<? super Map<String, Object>> action, Object... params) throws SQLException {
+		debug(sql, params);
+		return streamingRunner().query(conn, sql, new MapCallbackHandler(action), params).intValue();
+	}
+
+	/**
+	 * 获取forEach系列方法使用的QueryRunner。设置了流式读取的fetch size时，语句为只进、只读且不放入语句缓存，期限与其它语句相同
+	 *
+	 * @return QueryRunner对象
+	 */
+	private QueryRunner streamingRunner() {
+		if (streamFetchSize == 0) {
+			return run;
+		}
+		QueryRunner streaming = new QueryRunner() {
+
+			@Override
+			protected PreparedStatement prepareStatement(Connection conn, String sql) throws SQLException {
+				PreparedStatement stmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+				try {
+					stmt.setFetchSize(streamFetchSize);
+				}
+				catch (SQLException e) {
+					DbUtils.closeQuietly(stmt);
+					throw e;
+				}
+				return stmt;
+			}
+		};
+		streaming.setQueryTimeout(run.getQueryTimeout(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+		return streaming;
+	}
+
 	/**
 	 * 关闭连接
 	 */
 	public void close() {
+		if (statementCache != null) {
+			run.setStatementCache(null);
+			statementCache.close();
+			statementCache = null;
+		}
 		DbUtils.closeQuietly(conn);
 		conn = null;
 	}
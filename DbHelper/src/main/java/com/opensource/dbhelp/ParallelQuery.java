@@ -0,0 +1,458 @@
+package com.opensource.dbhelp;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.opensource.dbhelp.dbutils.DbExecutors;
+import com.opensource.dbhelp.dbutils.ParallelQueryException;
+import com.opensource.dbhelp.dbutils.ResultSetHandler;
+import com.opensource.dbhelp.page.ListPage;
+
+/**
+ * 并行执行多个独立查询的批次。
+ * <p/>
+ * 页面上互不依赖的多个查询依次执行时，总耗时是各查询耗时之和。先把查询登记到批次中，{@link #execute()}时各自从连接池获取连接并行执行，总耗时接近最慢的一个查询。
+ * 登记方法返回{@link Result}，<code>execute()</code>返回后从中读取结果。
+ * <p/>
+ * 同时执行的查询数不超过{@link #withMaxConcurrency(int)}，其中一个在调用<code>execute()</code>的线程中执行，其余提交到{@link #withExecutor(Executor)}设置的执行器； 执行器拒绝或忙碌时调用线程继续执行剩余的查询，不会因执行器饱和而等待不到结果。
+ * 未设置执行器时使用{@link DbExecutors#getSharedExecutor()}，Java 21及以上为虚拟线程，否则为平台守护线程池。
+ * <p/>
+ * 全部查询结束后才返回；有查询失败时抛出{@link ParallelQueryException}，汇总所有失败，成功的查询结果仍可读取。超时、fetch size、并发限制等设置沿用创建批次的DbHelper。
+ * <p/>
+ * 批次只能执行一次，登记和执行应在同一线程中进行。
+ * <p/>
+ * Copyright: Copyright (c) 26-10-18 上午12:10
+ * <p/>
+ * Company: GNU General Public License
+ * <p/>
+ * Author: GNU General Public License
+ * <p/>
+ * Version: 1.0
+ * <p/>
+ */
+public class ParallelQuery {
+
+	/**
+	 * 默认的最大并发数
+	 */
+	public static final int DEFAULT_MAX_CONCURRENCY = 8;
+
+	/**
+	 * 执行查询的DbHelper
+	 */
+	private final DbHelper helper;
+
+	/**
+	 * 登记的查询，按登记顺序排列
+	 */
+	private final List<Result<?>> results = new ArrayList<Result<?>>();
+
+	/**
+	 * 执行查询的执行器，为null时使用共享的执行器
+	 */
+	private Executor executor;
+
+	/**
+	 * 最大并发数
+	 */
+	private int maxConcurrency = DEFAULT_MAX_CONCURRENCY;
+
+	/**
+	 * 是否已经执行
+	 */
+	private boolean executed;
+
+	/**
+	 * 构造函数
+	 *
+	 * @param helper
+	 *            执行查询的DbHelper
+	 */
+	ParallelQuery(DbHelper helper) {
+		this.helper = helper;
+	}
+
+	/**
+	 * 设置执行查询的执行器
+	 *
+	 * @param executor
+	 *            执行器，为null时使用共享的执行器
+	 * @return 当前对象
+	 */
+	public ParallelQuery withExecutor(Executor executor) {
+		this.executor = executor;
+		return this;
+	}
+
+	/**
+	 * 设置同时执行的最大查询数，包括调用线程，一般不超过连接池的最大连接数
+	 *
+	 * @param maxConcurrency
+	 *            最大并发数，1表示在调用线程中依次执行
+	 * @return 当前对象
+	 */
+	public ParallelQuery withMaxConcurrency(int maxConcurrency) {
+		if (maxConcurrency < 1) {
+			throw new IllegalArgumentException("maxConcurrency must be positive");
+		}
+		this.maxConcurrency = maxConcurrency;
+		return this;
+	}
+
+	/**
+	 * 登记任意DbHelper调用
+	 *
+	 * @param call
+	 *            使用DbHelper的调用
+	 * @return 调用的结果，执行后可读取
+	 */
+	public <T> Result<T> add(AsyncDbHelper.Call<T> call) {
+		if (call == null) {
+			throw new IllegalArgumentException("call cannot be null");
+		}
+		if (executed) {
+			throw new IllegalStateException("ParallelQuery has already been executed");
+		}
+		Result<T> result = new Result<T>(call);
+		results.add(result);
+		return result;
+	}
+
+	/**
+	 * 登记使用指定处理器的查询，见{@link DbHelper#query(String, ResultSetHandler, Object...)}。
+	 *
+	 * @param sql
+	 *            即将被执行的sql语句
+	 * @param rsh
+	 *            记录集处理器
+	 * @param params
+	 *            参数数组
+	 * @return 查询的结果，执行后可读取
+	 */
+	public <T> Result<T> query(final String sql, final ResultSetHandler<T> rsh, final Object... params) {
+		return add(new AsyncDbHelper.Call<T>() {
+
+			@Override
+			public T call(DbHelper helper) throws SQLException {
+				return helper.query(sql, rsh, params);
+			}
+		});
+	}
+
+	/**
+	 * 登记返回首行首列的值的查询，见{@link DbHelper#queryScalar(String, Object...)}。
+	 *
+	 * @param sql
+	 *            即将被执行的sql语句
+	 * @param params
+	 *            参数数组
+	 * @return 查询的结果，执行后可读取
+	 */
+	public Result<String> queryScalar(final String sql, final Object... params) {
+		return add(new AsyncDbHelper.Call<String>() {
+
+			@Override
+			public String call(DbHelper helper) throws SQLException {
+				return helper.queryScalar(sql, params);
+			}
+		});
+	}
+
+	/**
+	 * 登记单行查询，见{@link DbHelper#getMap(String, Object...)}。
+	 *
+	 * @param sql
+	 *            即将被执行的sql语句
+	 * @param params
+	 *            参数数组
+	 * @return 查询的结果，执行后可读取
+	 */
+	public Result<Map<String, String>> getMap(final String sql, final Object... params) {
+		return add(new AsyncDbHelper.Call<Map<String, String>>() {
+
+			@Override
+			public Map<String, String> call(DbHelper helper) throws SQLException {
+				return helper.getMap(sql, params);
+			}
+		});
+	}
+
+	/**
+	 * 登记单行查询，结果映射为指定类的对象，见{@link DbHelper#getBean(String, Class, Object...)}。
+	 *
+	 * @param sql
+	 *            即将被执行的sql语句
+	 * @param type
+	 *            指定类
+	 * @param params
+	 *            参数数组
+	 * @return 查询的结果，执行后可读取
+	 */
+	public <T> Result<T> getBean(final String sql, final Class<T> type, final Object... params) {
+		return add(new AsyncDbHelper.Call<T>() {
+
+			@Override
+			public T call(DbHelper helper) throws SQLException {
+				return helper.getBean(sql, type, params);
+			}
+		});
+	}
+
+	/**
+	 * 登记多行查询，见{@link DbHelper#getMapList(String, Object...)}。
+	 *
+	 * @param sql
+	 *            即将被执行的sql语句
+	 * @param params
+	 *            参数数组
+	 * @return 查询的结果，执行后可读取
+	 */
+	public Result<List<Map<String, String>>> getMapList(final String sql, final Object... params) {
+		return add(new AsyncDbHelper.Call<List<Map<String, String>>>() {
+
+			@Override
+			public List<Map<String, String>> call(DbHelper helper) throws SQLException {
+				return helper.getMapList(sql, params);
+			}
+		});
+	}
+
+	/**
+	 * 登记多行查询，字段保持原始类型，见{@link DbHelper#getNativeMapList(String, Object...)}。
+	 *
+	 * @param sql
+	 *            即将被执行的sql语句
+	 * @param params
+	 *            参数数组
+	 * @return 查询的结果，执行后可读取
+	 */
+	public Result<List<Map<String, Object>>> getNativeMapList(final String sql, final Object... params) {
+		return add(new AsyncDbHelper.Call<List<Map<String, Object>>>() {
+
+			@Override
+			public List<Map<String, Object>> call(DbHelper helper) throws SQLException {
+				return helper.getNativeMapList(sql, params);
+			}
+		});
+	}
+
+	/**
+	 * 登记多行查询，每行映射为指定类的对象，见{@link DbHelper#getBeanList(String, Class, Object...)}。
+	 *
+	 * @param sql
+	 *            即将被执行的sql语句
+	 * @param type
+	 *            指定类
+	 * @param params
+	 *            参数数组
+	 * @return 查询的结果，执行后可读取
+	 */
+	public <T> Result<List<T>> getBeanList(final String sql, final Class<T> type, final Object... params) {
+		return add(new AsyncDbHelper.Call<List<T>>() {
+
+			@Override
+			public List<T> call(DbHelper helper) throws SQLException {
+				return helper.getBeanList(sql, type, params);
+			}
+		});
+	}
+
+	/**
+	 * 登记分页查询，见{@link DbHelper#getPage(String, Class, int, int, Object...)}。
+	 *
+	 * @param sql
+	 *            即将被执行的sql语句
+	 * @param clazz
+	 *            指定类
+	 * @param curPage
+	 *            当前页
+	 * @param pageSize
+	 *            每页记录数
+	 * @param params
+	 *            参数数组
+	 * @return 查询的结果，执行后可读取
+	 */
+	public <T> Result<ListPage<T>> getPage(final String sql, final Class<T> clazz, final int curPage, final int pageSize, final Object... params) {
+		return add(new AsyncDbHelper.Call<ListPage<T>>() {
+
+			@Override
+			public ListPage<T> call(DbHelper helper) throws SQLException {
+				return helper.getPage(sql, clazz, curPage, pageSize, params);
+			}
+		});
+	}
+
+	/**
+	 * 登记的查询数
+	 *
+	 * @return 查询数
+	 */
+	public int size() {
+		return results.size();
+	}
+
+	/**
+	 * 并行执行登记的全部查询，全部结束后返回
+	 *
+	 * @throws ParallelQueryException
+	 *             有查询失败，汇总全部失败的异常
+	 * @throws SQLException
+	 *             等待时被中断，尚未开始的查询不再执行
+	 */
+	public void execute() throws SQLException {
+		if (executed) {
+			throw new IllegalStateException("ParallelQuery has already been executed");
+		}
+		executed = true;
+		final int count = results.size();
+		if (count == 0) {
+			return;
+		}
+		final AtomicInteger next = new AtomicInteger();
+		final CountDownLatch done = new CountDownLatch(count);
+		final AtomicReference<Error> error = new AtomicReference<Error>();
+		Runnable worker = new Runnable() {
+
+			@Override
+			public void run() {
+				int index;
+				while ((index = next.getAndIncrement()) < count) {
+					try {
+						results.get(index).run(helper);
+					}
+					catch (Error e) {
+						// 在调用线程中重新抛出；该线程随之结束，剩余的查询由其它线程执行
+						error.compareAndSet(null, e);
+						throw e;
+					}
+					finally {
+						done.countDown();
+					}
+				}
+			}
+		};
+
+		Executor target = executor != null ? executor : DbExecutors.getSharedExecutor();
+		int workers = Math.min(maxConcurrency, count) - 1;
+		for (int i = 0; i < workers; i++) {
+			try {
+				target.execute(worker);
+			}
+			catch (RejectedExecutionException e) {
+				// 剩余的查询由调用线程执行
+				break;
+			}
+		}
+		worker.run();
+
+		try {
+			done.await();
+		}
+		catch (InterruptedException e) {
+			next.set(count);
+			Thread.currentThread().interrupt();
+			throw new SQLException("Interrupted while waiting for parallel queries", e);
+		}
+		if (error.get() != null) {
+			throw error.get();
+		}
+
+		List<SQLException> failures = new ArrayList<SQLException>();
+		for (Result<?> result : results) {
+			if (result.exception != null) {
+				failures.add(result.exception);
+			}
+		}
+		if (!failures.isEmpty()) {
+			throw new ParallelQueryException(failures.size() + " of " + count + " parallel queries failed", failures);
+		}
+	}
+
+	/**
+	 * 登记的一个查询及其结果
+	 */
+	public static final class Result<T> {
+
+		private final AsyncDbHelper.Call<T> call;
+
+		private volatile boolean done;
+
+		private T value;
+
+		private SQLException exception;
+
+		Result(AsyncDbHelper.Call<T> call) {
+			this.call = call;
+		}
+
+		/**
+		 * 执行查询，记录结果或异常
+		 */
+		void run(DbHelper helper) {
+			try {
+				value = call.call(helper);
+			}
+			catch (SQLException e) {
+				exception = e;
+			}
+			catch (RuntimeException e) {
+				exception = new SQLException(e.toString(), e);
+			}
+			done = true;
+		}
+
+		/**
+		 * 查询是否已经结束
+		 *
+		 * @return 是否结束
+		 */
+		public boolean isDone() {
+			return done;
+		}
+
+		/**
+		 * 查询是否失败
+		 *
+		 * @return 是否失败
+		 */
+		public boolean isFailed() {
+			return done && exception != null;
+		}
+
+		/**
+		 * 获取查询失败的异常
+		 *
+		 * @return 异常，成功或尚未结束时为null
+		 */
+		public SQLException getException() {
+			return done ? exception : null;
+		}
+
+		/**
+		 * 获取查询的结果
+		 *
+		 * @return 查询的结果
+		 * @throws SQLException
+		 *             查询失败时抛出查询的异常
+		 * @throws IllegalStateException
+		 *             查询尚未执行
+		 */
+		public T get() throws SQLException {
+			if (!done) {
+				throw new IllegalStateException("Query has not been executed");
+			}
+			if (exception != null) {
+				throw exception;
+			}
+			return value;
+		}
+	}
+
+}
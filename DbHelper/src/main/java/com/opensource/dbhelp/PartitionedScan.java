@@ -0,0 +1,681 @@
+package com.opensource.dbhelp;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import com.opensource.dbhelp.dbutils.DbExecutors;
+import com.opensource.dbhelp.dbutils.QueryScope;
+import com.opensource.dbhelp.dbutils.handlers.ArrayHandler;
+import com.opensource.dbhelp.dialect.PageSqlParser;
+import com.opensource.dbhelp.dialect.PageSqlParserFactory;
+
+/**
+ * 按键值范围分区、并行读取的大查询。
+ * <p/>
+ * 整表导出作为一条查询执行时，只使用一个连接和一个核。该类按数值或日期类型的键列把查询分成多个键值范围，每个范围作为一条子查询在单独的连接上并行执行，读到的行交给调用线程中的回调。 分区边界默认按键的最小值和最大值等分，
+ * 键值分布不均匀时可以用{@link #withQuantiles(boolean)}按分位数划分，每个边界通过一次按键排序的分页查询取得，键列上需要有索引。
+ * <p/>
+ * 子查询的形式为<code>select * from ( 原查询 ) ps_ where 键列 &gt;= ? and 键列 &lt; ?</code>，键列必须出现在原查询的结果中。第一个和最后一个分区不设下界和上界，键为null的行单独作为一个分区，
+ * 因此划分之后新插入的行也不会遗漏。
+ * <p/>
+ * 默认不保证行的顺序，先读到的行先交给回调。{@link #withOrdered(boolean)}开启后子查询按键排序，回调按分区顺序依次收到各分区的行，整体按键升序，键为null的行在最后；
+ * 各分区仍然并行读取，后面的分区读到的行暂存在有界的缓冲区中，缓冲区满时该分区暂停读取。
+ * <p/>
+ * 回调只在调用线程中执行，不需要考虑线程安全。回调抛出异常或子查询出错时，其它分区正在执行的子查询被取消（<code>Statement.cancel()</code>），释放连接之后抛出该异常。
+ * 子查询与{@link DbHelper#forEachNativeArray(String, Consumer, Object...)}一样流式读取：mysql逐行读取，其它数据库按{@link DbHelper#getStreamFetchSize()}分批读取。超时、并发限制等设置沿用创建扫描的DbHelper。
+ * <p/>
+ * Copyright: Copyright (c) 26-10-18 上午12:40
+ * <p/>
+ * Company: GNU General Public License
+ * <p/>
+ * Author: GNU General Public License
+ * <p/>
+ * Version: 1.0
+ * <p/>
+ */
+public class PartitionedScan {
+
+	/**
+	 * 默认的分区数
+	 */
+	public static final int DEFAULT_PARTITIONS = 8;
+
+	/**
+	 * 默认每个分区缓冲的行数
+	 */
+	public static final int DEFAULT_BUFFER_ROWS = 4096;
+
+	/**
+	 * 子查询每次交给调用线程的行数
+	 */
+	private static final int CHUNK_ROWS = 256;
+
+	/**
+	 * 子查询中原查询的别名
+	 */
+	private static final String ALIAS = " ) ps_";
+
+	/**
+	 * 执行查询的DbHelper
+	 */
+	private final DbHelper helper;
+
+	/**
+	 * 原查询
+	 */
+	private final String sql;
+
+	/**
+	 * 分区的键列
+	 */
+	private final String keyColumn;
+
+	/**
+	 * 原查询的参数
+	 */
+	private final Object[] params;
+
+	private int partitions = DEFAULT_PARTITIONS;
+
+	private boolean quantiles;
+
+	private boolean ordered;
+
+	private int maxConcurrency;
+
+	private int bufferRows = DEFAULT_BUFFER_ROWS;
+
+	private Executor executor;
+
+	/**
+	 * 构造函数
+	 *
+	 * @param helper
+	 *            执行查询的DbHelper
+	 * @param sql
+	 *            原查询
+	 * @param keyColumn
+	 *            分区的键列，数值或日期类型
+	 * @param params
+	 *            原查询的参数
+	 */
+	PartitionedScan(DbHelper helper, String sql, String keyColumn, Object... params) {
+		if (sql == null || keyColumn == null) {
+			throw new IllegalArgumentException("sql and keyColumn cannot be null");
+		}
+		this.helper = helper;
+		this.sql = sql;
+		this.keyColumn = keyColumn;
+		this.params = params == null ? new Object[0] : params;
+	}
+
+	/**
+	 * 设置分区数
+	 *
+	 * @param partitions
+	 *            分区数，不包括键为null的分区
+	 * @return 当前对象
+	 */
+	public PartitionedScan withPartitions(int partitions) {
+		if (partitions < 1) {
+			throw new IllegalArgumentException("partitions must be positive");
+		}
+		this.partitions = partitions;
+		return this;
+	}
+
+	/**
+	 * 设置是否按分位数划分分区
+	 *
+	 * @param quantiles
+	 *            为true时按分位数划分，为false时按最小值和最大值等分
+	 * @return 当前对象
+	 */
+	public PartitionedScan withQuantiles(boolean quantiles) {
+		this.quantiles = quantiles;
+		return this;
+	}
+
+	/**
+	 * 设置是否按键的顺序交付行
+	 *
+	 * @param ordered
+	 *            为true时按键升序交付，为false时先读到的行先交付
+	 * @return 当前对象
+	 */
+	public PartitionedScan withOrdered(boolean ordered) {
+		this.ordered = ordered;
+		return this;
+	}
+
+	/**
+	 * 设置同时执行的最大子查询数，一般不超过连接池的最大连接数
+	 *
+	 * @param maxConcurrency
+	 *            最大并发数，0表示与分区数相同
+	 * @return 当前对象
+	 */
+	public PartitionedScan withMaxConcurrency(int maxConcurrency) {
+		if (maxConcurrency < 0) {
+			throw new IllegalArgumentException("maxConcurrency cannot be negative");
+		}
+		this.maxConcurrency = maxConcurrency;
+		return this;
+	}
+
+	/**
+	 * 设置每个分区缓冲的行数
+	 *
+	 * @param bufferRows
+	 *            缓冲的行数
+	 * @return 当前对象
+	 */
+	public PartitionedScan withBufferRows(int bufferRows) {
+		if (bufferRows < 1) {
+			throw new IllegalArgumentException("bufferRows must be positive");
+		}
+		this.bufferRows = bufferRows;
+		return this;
+	}
+
+	/**
+	 * 设置执行子查询的执行器
+	 *
+	 * @param executor
+	 *            执行器，为null时使用{@link DbExecutors#getSharedExecutor()}
+	 * @return 当前对象
+	 */
+	public PartitionedScan withExecutor(Executor executor) {
+		this.executor = executor;
+		return this;
+	}
+
+	/**
+	 * 执行扫描，每行作为字段保持原始类型的数组交给回调，见{@link DbHelper#forEachNativeArray(String, Consumer, Object...)}。
+	 *
+	 * @param action
+	 *            每行的回调，在调用线程中执行
+	 * @return 处理的行数
+	 * @throws SQLException
+	 *             - if there is any problem executing the sql
+	 */
+	public long forEachNativeArray(Consumer<? super Object[]> action) throws SQLException {
+		return scan(new Source<Object[]>() {
+
+			@Override
+			public void read(DbHelper helper, String sql, Consumer<Object[]> sink, Object[] params) throws SQLException {
+				helper.forEachNativeArray(sql, sink, params);
+			}
+		}, action);
+	}
+
+	/**
+	 * 执行扫描，每行作为字段保持原始类型的Map交给回调，见{@link DbHelper#forEachNativeMap(String, Consumer, Object...)}。
+	 *
+	 * @param action
+	 *            每行的回调，在调用线程中执行
+	 * @return 处理的行数
+	 * @throws SQLException
+	 *             - if there is any problem executing the sql
+	 */
+	public long forEachNativeMap(Consumer<? super Map<String, Object>> action) throws SQLException {
+		return scan(new Source<Map<String, Object>>() {
+
+			@Override
+			public void read(DbHelper helper, String sql, Consumer<Map<String, Object>> sink, Object[] params) throws SQLException {
+				helper.forEachNativeMap(sql, sink, params);
+			}
+		}, action);
+	}
+
+	/**
+	 * 划分分区并行读取，在调用线程中交付行
+	 */
+	private <R> long scan(final Source<R> source, Consumer<? super R> action) throws SQLException {
+		if (action == null) {
+			throw new IllegalArgumentException("action cannot be null");
+		}
+		final List<Partition> ranges = split();
+		final int count = ranges.size();
+		final Run<R> run = new Run<R>(count, ordered ? count : 1, Math.max(2, bufferRows / CHUNK_ROWS));
+
+		final AtomicInteger next = new AtomicInteger();
+		Runnable worker = new Runnable() {
+
+			@Override
+			public void run() {
+				int index;
+				while ((index = next.getAndIncrement()) < count) {
+					try {
+						if (!run.aborted) {
+							ranges.get(index).read(source, helper, run, ordered ? index : 0);
+						}
+					}
+					catch (Error e) {
+						// 交给调用线程抛出；该线程随之结束，尚未开始的分区不再读取
+						run.fail(ordered ? index : 0, e);
+						while (next.getAndIncrement() < count) {
+							run.finished.countDown();
+						}
+						throw e;
+					}
+					finally {
+						run.finished.countDown();
+					}
+				}
+			}
+		};
+		Executor target = executor != null ? executor : DbExecutors.getSharedExecutor();
+		int workers = Math.min(maxConcurrency > 0 ? maxConcurrency : count, count);
+		int started = 0;
+		for (int i = 0; i < workers; i++) {
+			try {
+				target.execute(worker);
+				started++;
+			}
+			catch (RejectedExecutionException e) {
+				if (started == 0) {
+					throw new SQLException("Executor rejected the partitioned scan", e);
+				}
+				break;
+			}
+		}
+
+		long rows = 0;
+		try {
+			int lane = 0;
+			int done = 0;
+			while (done < count) {
+				Chunk<R> chunk = run.queues.get(lane).take();
+				if (chunk.error instanceof Error) {
+					throw (Error) chunk.error;
+				}
+				if (chunk.error != null) {
+					throw (SQLException) chunk.error;
+				}
+				for (R row : chunk.rows) {
+					action.accept(row);
+				}
+				rows += chunk.rows.size();
+				if (chunk.last) {
+					done++;
+					if (ordered) {
+						lane++;
+					}
+				}
+			}
+		}
+		catch (InterruptedException e) {
+			run.abort();
+			Thread.currentThread().interrupt();
+			throw new SQLException("Interrupted while waiting for partitioned scan", e);
+		}
+		finally {
+			run.abort();
+			run.awaitFinished();
+		}
+		return rows;
+	}
+
+	/**
+	 * 按最小值和最大值或分位数计算分区
+	 *
+	 * @return 分区列表，按键值升序排列，键为null的分区在最后
+	 */
+	private List<Partition> split() throws SQLException {
+		List<Object> bounds = quantiles ? quantileBounds() : rangeBounds();
+		List<Partition> result = new ArrayList<Partition>(bounds.size() + 2);
+		String orderBy = ordered ? " order by " + keyColumn : "";
+		if (bounds.isEmpty()) {
+			// 没有可划分的范围，整个查询作为一个分区
+			result.add(new Partition(ordered ? "select * from ( " + sql + ALIAS + orderBy : sql, params));
+			return result;
+		}
+		String prefix = "select * from ( " + sql + ALIAS + " where ";
+		for (int i = 0; i <= bounds.size(); i++) {
+			StringBuilder where = new StringBuilder(prefix);
+			List<Object> args = new ArrayList<Object>(params.length + 2);
+			for (Object param : params) {
+				args.add(param);
+			}
+			if (i > 0) {
+				where.append(keyColumn).append(" >= ?");
+				args.add(bounds.get(i - 1));
+			}
+			if (i < bounds.size()) {
+				where.append(i > 0 ? " and " : "").append(keyColumn).append(" < ?");
+				args.add(bounds.get(i));
+			}
+			result.add(new Partition(where.append(orderBy).toString(), args.toArray()));
+		}
+		result.add(new Partition(prefix + keyColumn + " is null", params));
+		return result;
+	}
+
+	/**
+	 * 按最小值和最大值等分，计算分区之间的边界
+	 *
+	 * @return 升序的边界值，不包括最小值
+	 */
+	private List<Object> rangeBounds() throws SQLException {
+		List<Object> bounds = new ArrayList<Object>(partitions);
+		if (partitions == 1) {
+			return bounds;
+		}
+		Object[] minMax = helper.query("select min(" + keyColumn + "), max(" + keyColumn + ") from ( " + sql + ALIAS, new ArrayHandler(), params);
+		Object min = minMax.length > 0 ? minMax[0] : null;
+		Object max = minMax.length > 1 ? minMax[1] : null;
+		if (min == null || max == null) {
+			return bounds;
+		}
+		if (min instanceof Date && max instanceof Date) {
+			long low = ((Date) min).getTime();
+			long high = ((Date) max).getTime();
+			long last = low;
+			for (int i = 1; i < partitions; i++) {
+				long bound = low + (long) ((double) (high - low) * i / partitions);
+				if (bound > last) {
+					bounds.add(new Timestamp(bound));
+					last = bound;
+				}
+			}
+			return bounds;
+		}
+		if (min instanceof Number && max instanceof Number) {
+			BigDecimal low = toDecimal((Number) min);
+			BigDecimal high = toDecimal((Number) max);
+			boolean integral = isIntegral((Number) min) && isIntegral((Number) max);
+			BigDecimal step = high.subtract(low).divide(BigDecimal.valueOf(partitions), MathContext.DECIMAL64);
+			BigDecimal last = low;
+			for (int i = 1; i < partitions; i++) {
+				BigDecimal bound = low.add(step.multiply(BigDecimal.valueOf(i)));
+				if (integral) {
+					bound = bound.setScale(0, RoundingMode.CEILING);
+				}
+				if (bound.compareTo(last) > 0 && bound.compareTo(high) <= 0) {
+					bounds.add(integral && bound.toBigInteger().bitLength() < 64 ? (Object) Long.valueOf(bound.longValue()) : bound);
+					last = bound;
+				}
+			}
+			return bounds;
+		}
+		throw new SQLException("Partition key " + keyColumn + " must be numeric or a date, found " + min.getClass().getName());
+	}
+
+	/**
+	 * 按分位数计算分区之间的边界，每个边界通过一次按键排序的分页查询取得
+	 *
+	 * @return 升序的边界值，不包括最小值
+	 */
+	private List<Object> quantileBounds() throws SQLException {
+		List<Object> bounds = new ArrayList<Object>(partitions);
+		if (partitions == 1) {
+			return bounds;
+		}
+		String counted = helper.queryScalar("select count(" + keyColumn + ") from ( " + sql + ALIAS, params);
+		long total = counted == null ? 0 : Long.parseLong(counted);
+		PageSqlParser parser = PageSqlParserFactory.getParser(helper.getDialect());
+		String keySql = parser.getPageSql("select " + keyColumn + " from ( " + sql + ALIAS + " where " + keyColumn + " is not null order by " + keyColumn, true);
+		Object last = null;
+		for (int i = 1; i < partitions; i++) {
+			long position = total * i / partitions + 1;
+			if (position <= 1 || position > total || position > Integer.MAX_VALUE) {
+				continue;
+			}
+			Object[] row = helper.query(keySql, new ArrayHandler(), parser.attachPageParam(params, true, (int) position, 1));
+			Object bound = row.length > 0 ? row[0] : null;
+			if (bound == null || !(bound instanceof Number || bound instanceof Date)) {
+				if (bound != null) {
+					throw new SQLException("Partition key " + keyColumn + " must be numeric or a date, found " + bound.getClass().getName());
+				}
+				continue;
+			}
+			if (last == null || compare(bound, last) > 0) {
+				bounds.add(bound);
+				last = bound;
+			}
+		}
+		return bounds;
+	}
+
+	private static BigDecimal toDecimal(Number number) {
+		if (number instanceof BigDecimal) {
+			return (BigDecimal) number;
+		}
+		if (number instanceof BigInteger) {
+			return new BigDecimal((BigInteger) number);
+		}
+		if (number instanceof Double || number instanceof Float) {
+			return BigDecimal.valueOf(number.doubleValue());
+		}
+		return BigDecimal.valueOf(number.longValue());
+	}
+
+	private static boolean isIntegral(Number number) {
+		if (number instanceof BigDecimal) {
+			return ((BigDecimal) number).stripTrailingZeros().scale() <= 0;
+		}
+		return !(number instanceof Double || number instanceof Float);
+	}
+
+	private static int compare(Object a, Object b) {
+		if (a instanceof Date && b instanceof Date) {
+			return Long.compare(((Date) a).getTime(), ((Date) b).getTime());
+		}
+		return toDecimal((Number) a).compareTo(toDecimal((Number) b));
+	}
+
+	/**
+	 * 读取一条子查询的行
+	 */
+	private interface Source<R> {
+
+		void read(DbHelper helper, String sql, Consumer<R> sink, Object[] params) throws SQLException;
+	}
+
+	/**
+	 * 一个分区的子查询
+	 */
+	private static final class Partition {
+
+		final String sql;
+
+		final Object[] params;
+
+		Partition(String sql, Object[] params) {
+			this.sql = sql;
+			this.params = params;
+		}
+
+		/**
+		 * 在扫描的取消范围中执行子查询，把行按块放入队列，结束时放入最后一块或错误
+		 */
+		<R> void read(final Source<R> source, final DbHelper helper, final Run<R> run, final int lane) {
+			final List<List<R>> pending = new ArrayList<List<R>>(1);
+			pending.add(new ArrayList<R>(CHUNK_ROWS));
+			try {
+				run.newScope().call(new Callable<Void>() {
+
+					@Override
+					public Void call() throws SQLException {
+						source.read(helper, sql, new Consumer<R>() {
+
+							@Override
+							public void accept(R row) {
+								List<R> rows = pending.get(0);
+								rows.add(row);
+								if (rows.size() >= CHUNK_ROWS) {
+									run.put(lane, new Chunk<R>(rows, false, null));
+									pending.set(0, new ArrayList<R>(CHUNK_ROWS));
+								}
+							}
+						}, params);
+						return null;
+					}
+				});
+				run.put(lane, new Chunk<R>(pending.get(0), true, null));
+			}
+			catch (Aborted e) {
+				// 扫描已经结束，不再交付
+			}
+			catch (SQLException e) {
+				// 扫描已经结束时是取消子查询导致的异常，fail不再交付
+				run.fail(lane, e);
+			}
+			catch (RuntimeException e) {
+				run.fail(lane, new SQLException(e.toString(), e));
+			}
+			catch (Exception e) {
+				run.fail(lane, new SQLException(e.toString(), e));
+			}
+		}
+	}
+
+	/**
+	 * 交给调用线程的一块行，最后一块或出错时带有标记
+	 */
+	private static final class Chunk<R> {
+
+		final List<R> rows;
+
+		final boolean last;
+
+		/**
+		 * 读取分区时的SQLException或Error
+		 */
+		final Throwable error;
+
+		Chunk(List<R> rows, boolean last, Throwable error) {
+			this.rows = rows;
+			this.last = last;
+			this.error = error;
+		}
+	}
+
+	/**
+	 * 一次扫描的共享状态
+	 */
+	private static final class Run<R> {
+
+		final List<BlockingQueue<Chunk<R>>> queues;
+
+		final CountDownLatch finished;
+
+		/**
+		 * 子查询的取消范围，扫描结束时全部取消
+		 */
+		final ConcurrentLinkedQueue<QueryScope> scopes = new ConcurrentLinkedQueue<QueryScope>();
+
+		volatile boolean aborted;
+
+		Run(int partitions, int lanes, int capacity) {
+			this.finished = new CountDownLatch(partitions);
+			this.queues = new ArrayList<BlockingQueue<Chunk<R>>>(lanes);
+			for (int i = 0; i < lanes; i++) {
+				// 不保证顺序时所有分区共用一个队列
+				queues.add(new ArrayBlockingQueue<Chunk<R>>(lanes == 1 ? capacity * partitions : capacity));
+			}
+		}
+
+		/**
+		 * 放入一块行，队列满时等待，扫描结束后抛出{@link Aborted}使子查询停止读取
+		 */
+		void put(int lane, Chunk<R> chunk) {
+			try {
+				while (!aborted) {
+					if (queues.get(lane).offer(chunk, 100, TimeUnit.MILLISECONDS)) {
+						return;
+					}
+				}
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			throw new Aborted();
+		}
+
+		void fail(int lane, Throwable e) {
+			try {
+				put(lane, new Chunk<R>(new ArrayList<R>(0), true, e));
+			}
+			catch (Aborted ignored) {
+				// 扫描已经结束
+			}
+		}
+
+		/**
+		 * 为一条子查询创建取消范围，扫描已经结束时创建的范围立即取消
+		 */
+		QueryScope newScope() {
+			QueryScope scope = new QueryScope();
+			scopes.add(scope);
+			if (aborted) {
+				scope.cancel();
+			}
+			return scope;
+		}
+
+		/**
+		 * 结束扫描，取消正在执行的子查询，子查询不必读到下一行才停止
+		 */
+		void abort() {
+			if (aborted) {
+				return;
+			}
+			aborted = true;
+			for (QueryScope scope : scopes) {
+				scope.cancel();
+			}
+		}
+
+		/**
+		 * 等待所有子查询结束，释放连接
+		 */
+		void awaitFinished() {
+			boolean interrupted = false;
+			while (true) {
+				try {
+					finished.await();
+					break;
+				}
+				catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * 扫描结束后停止子查询读取
+	 */
+	private static final class Aborted extends RuntimeException {
+
+		private static final long serialVersionUID = 1L;
+
+		Aborted() {
+			super(null, null, false, false);
+		}
+	}
+
+}
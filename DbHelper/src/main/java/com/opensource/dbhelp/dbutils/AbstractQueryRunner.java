@@ -3,8 +3,6 @@
  */
 package com.opensource.dbhelp.dbutils;
 
-import java.beans.IntrospectionException;
-import java.beans.Introspector;
 import java.beans.PropertyDescriptor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
@@ -13,9 +11,13 @@ import java.sql.ParameterMetaData;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
 import java.sql.Statement;
 import java.sql.Types;
 import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 
 import javax.sql.DataSource;
 
@@ -39,6 +41,61 @@ public abstract class AbstractQueryRunner {
 	@Deprecated
 	protected final DataSource ds;
 
+	/**
+	 * Statement cache of the connection this runner is pinned to, or <code>null</code> to prepare a new statement for every call.
+	 */
+	private volatile StatementCache statementCache;
+
+	/**
+	 * Time limit in nanoseconds for each connection checkout and each call, or 0 for no limit.
+	 */
+	private volatile long queryTimeoutNanos;
+
+	/**
+	 * The <code>System.nanoTime()</code> value after which calls fail, only meaningful when {@link #hasDeadline} is set.
+	 */
+	private volatile long deadline;
+
+	/**
+	 * Whether {@link #deadline} is set.
+	 */
+	private volatile boolean hasDeadline;
+
+	/**
+	 * Fetch size set on query statements, or 0 to leave the driver default or ask the {@link #fetchSizeAdvisor}.
+	 */
+	private volatile int fetchSize;
+
+	/**
+	 * Chooses the fetch size of queries when no fixed fetch size is set, or <code>null</code>.
+	 */
+	private volatile FetchSizeAdvisor fetchSizeAdvisor;
+
+	/**
+	 * Limits the calls running concurrently on the DataSource, or <code>null</code> for no limit.
+	 */
+	private volatile ConcurrencyLimiter concurrencyLimiter;
+
+	/**
+	 * Priority of the calls of this runner when they wait for the {@link #concurrencyLimiter}.
+	 */
+	private volatile ConcurrencyLimiter.Priority priority = ConcurrencyLimiter.Priority.NORMAL;
+
+	/**
+	 * Whether the time a call holds its permit is fed to the {@link #concurrencyLimiter} as a latency sample.
+	 */
+	private volatile boolean latencySampling = true;
+
+	/**
+	 * The calls holding a concurrency permit or running under a time limit, by the connection they took from the DataSource. Removed when the connection is closed.
+	 */
+	private final ConcurrentMap<Connection, Checkout> checkouts = new ConcurrentHashMap<Connection, Checkout>();
+
+	/**
+	 * Driver name of the connections of <code>ds</code>, read from the first statement filled, or <code>null</code> until then.
+	 */
+	private volatile String driverName;
+
 	/**
 	 * Default constructor, sets pmdKnownBroken to false and ds to null.
 	 */
@@ -100,7 +157,271 @@ public abstract class AbstractQueryRunner {
 	}
 
 	/**
-	 * Factory method that creates and initializes a <code>PreparedStatement</code> object for the given SQL. <code>QueryRunner</code> methods always call this method to prepare statements for them. Subclasses can override this method to provide special PreparedStatement configuration if needed. This implementation simply calls <code>conn.prepareStatement(sql)</code>.
+	 * Returns the statement cache used for calls on its connection.
+	 *
+	 * @return the statement cache, or <code>null</code> if statements are not cached
+	 */
+	public StatementCache getStatementCache() {
+		return statementCache;
+	}
+
+	/**
+	 * Sets the statement cache used for calls on its connection, for example while a transaction holds one connection across several calls. Calls on other connections still prepare and close their own statements. The owner of the cache must close it before releasing the connection.
+	 *
+	 * @param statementCache
+	 *            the statement cache, or <code>null</code> to stop caching
+	 */
+	public void setStatementCache(StatementCache statementCache) {
+		this.statementCache = statementCache;
+	}
+
+	/**
+	 * Returns the fetch size set on query statements.
+	 *
+	 * @return the fetch size, or 0 if not set
+	 */
+	public int getFetchSize() {
+		return fetchSize;
+	}
+
+	/**
+	 * Sets the fetch size, the number of rows the driver reads per round trip, for query statements. A fixed fetch size takes precedence over the {@link FetchSizeAdvisor}.
+	 *
+	 * @param fetchSize
+	 *            the fetch size, or 0 to leave the driver default or use the advisor
+	 */
+	public void setFetchSize(int fetchSize) {
+		if (fetchSize < 0) {
+			throw new IllegalArgumentException("fetchSize cannot be negative");
+		}
+		this.fetchSize = fetchSize;
+	}
+
+	/**
+	 * Returns the advisor choosing the fetch size of queries.
+	 *
+	 * @return the advisor, or <code>null</code> if not set
+	 */
+	public FetchSizeAdvisor getFetchSizeAdvisor() {
+		return fetchSizeAdvisor;
+	}
+
+	/**
+	 * Sets the advisor choosing the fetch size of queries from the row counts and row widths it has seen for the same SQL. Only used when no fixed fetch size is set.
+	 *
+	 * @param fetchSizeAdvisor
+	 *            the advisor, or <code>null</code> to stop adapting
+	 */
+	public void setFetchSizeAdvisor(FetchSizeAdvisor fetchSizeAdvisor) {
+		this.fetchSizeAdvisor = fetchSizeAdvisor;
+	}
+
+	/**
+	 * Returns the limiter of the calls running concurrently on the DataSource.
+	 *
+	 * @return the limiter, or <code>null</code> if not set
+	 */
+	public ConcurrencyLimiter getConcurrencyLimiter() {
+		return concurrencyLimiter;
+	}
+
+	/**
+	 * Sets the limiter of the calls running concurrently on the DataSource. Calls take a permit before taking a connection from the DataSource and return it when the connection is closed, so share one limiter between all runners of a DataSource. Calls on a <code>Connection</code> passed in are not limited.
+	 *
+	 * @param concurrencyLimiter
+	 *            the limiter, or <code>null</code> for no limit
+	 */
+	public void setConcurrencyLimiter(ConcurrencyLimiter concurrencyLimiter) {
+		this.concurrencyLimiter = concurrencyLimiter;
+	}
+
+	/**
+	 * Returns the priority of the calls of this runner when they wait for the concurrency limiter.
+	 *
+	 * @return the priority
+	 */
+	public ConcurrencyLimiter.Priority getPriority() {
+		return priority;
+	}
+
+	/**
+	 * Sets the priority of the calls of this runner when they wait for the concurrency limiter. Waiting calls of a higher priority get permits first, and push out waiting calls of a lower priority when the wait queue is full.
+	 *
+	 * @param priority
+	 *            the priority, <code>null</code> for {@link ConcurrencyLimiter.Priority#NORMAL}
+	 */
+	public void setPriority(ConcurrencyLimiter.Priority priority) {
+		this.priority = priority == null ? ConcurrencyLimiter.Priority.NORMAL : priority;
+	}
+
+	/**
+	 * Returns whether the time a call holds its concurrency permit is used as a latency sample by the limiter.
+	 *
+	 * @return true if the calls are sampled
+	 */
+	public boolean isLatencySampling() {
+		return latencySampling;
+	}
+
+	/**
+	 * Sets whether the time a call holds its concurrency permit is used as a latency sample by the limiter. Turn it off for calls whose hold time does not reflect the database latency, for example streaming queries that run a callback per row, so a long export does not distort the limit of the other calls. Such calls still take a permit, and a checkout timeout still lowers the limit.
+	 *
+	 * @param latencySampling
+	 *            false to return permits without a sample
+	 */
+	public void setLatencySampling(boolean latencySampling) {
+		this.latencySampling = latencySampling;
+	}
+
+	/**
+	 * Sets the fixed or advised fetch size on a query statement. Does nothing if neither is set, so the driver default applies.
+	 *
+	 * @param sql
+	 *            The SQL the statement was prepared from.
+	 * @param stmt
+	 *            The query statement.
+	 * @param advisor
+	 *            The advisor read once for the call, may be <code>null</code>.
+	 * @throws java.sql.SQLException
+	 *             if a database access error occurs
+	 */
+	void applyFetchSize(String sql, Statement stmt, FetchSizeAdvisor advisor) throws SQLException {
+		int size = this.fetchSize;
+		if (size == 0 && advisor != null) {
+			size = advisor.advise(sql);
+		}
+		if (size > 0) {
+			stmt.setFetchSize(size);
+		}
+	}
+
+	/**
+	 * Returns the time limit for each call.
+	 *
+	 * @param unit
+	 *            the unit of the returned value
+	 * @return the time limit, or 0 for no limit
+	 */
+	public long getQueryTimeout(TimeUnit unit) {
+		return unit.convert(queryTimeoutNanos, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Sets the time limit for each call. The limit is one budget shared by the whole call: the wait for the concurrency limiter, the connection checkout and the statements all spend the time left when the call started. Statements get <code>setQueryTimeout</code> with the remaining time rounded up to seconds, and a watchdog calls <code>Statement.cancel()</code> when the time is up, so calls also end when the driver does not honour the query timeout. A call that runs out of time fails with {@link QueryTimeoutException}.
+	 *
+	 * @param timeout
+	 *            the time limit, or 0 for no limit
+	 * @param unit
+	 *            the unit of <code>timeout</code>
+	 */
+	public void setQueryTimeout(long timeout, TimeUnit unit) {
+		if (timeout < 0) {
+			throw new IllegalArgumentException("timeout cannot be negative");
+		}
+		this.queryTimeoutNanos = unit.toNanos(timeout);
+	}
+
+	/**
+	 * Sets an absolute deadline shared by all later connection checkouts and calls of this runner, for example one deadline for a whole request. Combined with {@link #setQueryTimeout(long, TimeUnit)} the earlier limit applies.
+	 *
+	 * @param deadline
+	 *            the <code>System.nanoTime()</code> value after which calls fail with {@link QueryTimeoutException}
+	 */
+	public void setDeadline(long deadline) {
+		this.deadline = deadline;
+		this.hasDeadline = true;
+	}
+
+	/**
+	 * Removes the deadline set by {@link #setDeadline(long)}.
+	 */
+	public void clearDeadline() {
+		this.hasDeadline = false;
+	}
+
+	/**
+	 * Returns the time left for the next call.
+	 *
+	 * @return the time left in nanoseconds, or 0 for no limit
+	 * @throws QueryTimeoutException
+	 *             if the deadline has passed
+	 */
+	protected long remainingNanos() throws QueryTimeoutException {
+		long timeout = this.queryTimeoutNanos;
+		if (!this.hasDeadline) {
+			return timeout;
+		}
+		long left = this.deadline - System.nanoTime();
+		if (left <= 0) {
+			throw new QueryTimeoutException("Deadline exceeded " + TimeUnit.NANOSECONDS.toMillis(-left) + " ms ago", 0, null);
+		}
+		return timeout > 0 && timeout < left ? timeout : left;
+	}
+
+	/**
+	 * Starts the watchdog for one call. Every statement of the call is registered with {@link QueryWatchdog#watch(Statement)}, and the watchdog is stopped before the statements are released. On a connection taken by {@link #prepareConnection()} the statements get the time the call has left after waiting for the connection.
+	 *
+	 * @param conn
+	 *            the connection the call runs on
+	 * @return the watchdog of the call
+	 * @throws QueryTimeoutException
+	 *             if the deadline has passed
+	 */
+	QueryWatchdog startWatchdog(Connection conn) throws QueryTimeoutException {
+		Checkout checkout = this.checkouts.isEmpty() ? null : this.checkouts.get(conn);
+		if (checkout == null || checkout.budget == 0) {
+			return QueryWatchdog.start(remainingNanos());
+		}
+		return QueryWatchdog.start(timeLeft(checkout.budget, checkout.deadline));
+	}
+
+	/**
+	 * Returns the time a call has left.
+	 *
+	 * @param budget
+	 *            the time the call had when it started, in nanoseconds
+	 * @param deadline
+	 *            the <code>System.nanoTime()</code> value the call ends at
+	 * @return the time left in nanoseconds, greater than 0
+	 * @throws QueryTimeoutException
+	 *             if the call has run out of time
+	 */
+	private static long timeLeft(long budget, long deadline) throws QueryTimeoutException {
+		long left = deadline - System.nanoTime();
+		if (left <= 0) {
+			long millis = TimeUnit.NANOSECONDS.toMillis(budget);
+			throw new QueryTimeoutException("Call timed out after " + millis + " ms", millis, null);
+		}
+		return left;
+	}
+
+	/**
+	 * Stops the watchdog of a call.
+	 *
+	 * @param watchdog
+	 *            the watchdog, may be <code>null</code> if the call failed before it was started.
+	 */
+	static void stopWatchdog(QueryWatchdog watchdog) {
+		if (watchdog != null) {
+			watchdog.stop();
+		}
+	}
+
+	/**
+	 * Turns an exception caught during a call into a {@link QueryTimeoutException} if the call ran out of time.
+	 *
+	 * @param watchdog
+	 *            the watchdog, may be <code>null</code> if the call failed before it was started.
+	 * @param e
+	 *            the caught exception
+	 * @return the exception to rethrow
+	 */
+	static SQLException translateTimeout(QueryWatchdog watchdog, SQLException e) {
+		return watchdog == null ? e : watchdog.translate(e);
+	}
+
+	/**
+	 * Factory method that creates and initializes a <code>PreparedStatement</code> object for the given SQL. <code>QueryRunner</code> methods always call this method to prepare statements for them. Subclasses can override this method to provide special PreparedStatement configuration if needed. This implementation takes the statement from the statement cache if one is set for the connection, and otherwise simply calls <code>conn.prepareStatement(sql)</code>.
 	 *
 	 * @param conn
 	 *            The <code>Connection</code> used to create the <code>PreparedStatement</code>
@@ -111,27 +432,93 @@ public abstract class AbstractQueryRunner {
 	 *             if a database access error occurs
 	 */
 	protected PreparedStatement prepareStatement(Connection conn, String sql) throws SQLException {
-
+		StatementCache cache = this.statementCache;
+		if (cache != null && cache.getConnection() == conn) {
+			return cache.acquire(sql);
+		}
 		return conn.prepareStatement(sql);
 	}
 
 	/**
-	 * Factory method that creates and initializes a <code>Connection</code> object. <code>QueryRunner</code> methods always call this method to retrieve connections from its DataSource. Subclasses can override this method to provide special <code>Connection</code> configuration if needed. This implementation simply calls <code>ds.getConnection()</code>.
+	 * Releases a statement created by {@link #prepareStatement(Connection, String)}. <code>QueryRunner</code> methods always call this method when they are done with a statement. The statement goes back to the statement cache if one is set for the connection, and is closed otherwise.
 	 *
-	 * @return An initialized <code>Connection</code>.
+	 * @param conn
+	 *            The <code>Connection</code> the statement was prepared on
+	 * @param sql
+	 *            The SQL the statement was prepared from.
+	 * @param stmt
+	 *            The statement to release, may be <code>null</code>.
 	 * @throws java.sql.SQLException
 	 *             if a database access error occurs
+	 */
+	protected void releaseStatement(Connection conn, String sql, PreparedStatement stmt) throws SQLException {
+		StatementCache cache = this.statementCache;
+		if (stmt != null && cache != null && cache.getConnection() == conn && cache.release(sql, stmt)) {
+			return;
+		}
+		close(stmt);
+	}
+
+	/**
+	 * Factory method that creates and initializes a <code>Connection</code> object. <code>QueryRunner</code> methods always call this method to retrieve connections from its DataSource. Subclasses can override this method to provide special <code>Connection</code> configuration if needed. This implementation calls <code>ds.getConnection()</code>, and waits at most the time left under the query timeout or deadline. With a {@link ConcurrencyLimiter} set, it first takes a permit, which {@link #close(Connection)} returns. The time limit is taken once when the call starts, so the permit, the connection and the statements of the call share one budget.
+	 *
+	 * @return An initialized <code>Connection</code>.
+	 * @throws java.sql.SQLException
+	 *             if a database access error occurs, or {@link ConcurrencyLimitException} if the call is shed by the limiter
 	 * @since DbUtils 1.1
 	 */
 	protected Connection prepareConnection() throws SQLException {
 		if (this.getDataSource() == null) {
 			throw new SQLException("QueryRunner requires a DataSource to be " + "invoked in this way, or a Connection should be passed in");
 		}
-		return this.getDataSource().getConnection();
+		long budget = this.remainingNanos();
+		long deadline = System.nanoTime() + budget;
+		ConcurrencyLimiter limiter = this.concurrencyLimiter;
+		if (limiter == null) {
+			Connection conn = this.openConnection(budget, deadline);
+			if (budget > 0) {
+				this.checkouts.put(conn, new Checkout(null, budget, deadline));
+			}
+			return conn;
+		}
+		ConcurrencyLimiter.Permit permit = limiter.acquire(this.priority, budget);
+		Connection conn;
+		try {
+			conn = this.openConnection(budget, deadline);
+		}
+		catch (SQLException e) {
+			// a checkout timeout means the database is already overloaded
+			permit.release(e instanceof SQLTimeoutException);
+			throw e;
+		}
+		catch (RuntimeException e) {
+			permit.release(false);
+			throw e;
+		}
+		this.checkouts.put(conn, new Checkout(permit, budget, deadline));
+		return conn;
+	}
+
+	/**
+	 * Takes a connection from the DataSource, waiting at most the time the call has left.
+	 *
+	 * @param budget
+	 *            the time the call had when it started in nanoseconds, or 0 for no limit
+	 * @param deadline
+	 *            the <code>System.nanoTime()</code> value the call ends at, ignored without a limit
+	 * @return the connection
+	 * @throws java.sql.SQLException
+	 *             if a database access error occurs
+	 */
+	private Connection openConnection(long budget, long deadline) throws SQLException {
+		if (budget == 0) {
+			return this.getDataSource().getConnection();
+		}
+		return QueryWatchdog.getConnection(this.getDataSource(), timeLeft(budget, deadline));
 	}
 
 	/**
-	 * Fill the <code>PreparedStatement</code> replacement parameters with the given objects.
+	 * Fill the <code>PreparedStatement</code> replacement parameters with the given objects. Non-null values are bound with the typed setter chosen by {@link ParameterBinders}.
 	 *
 	 * @param stmt
 	 *            PreparedStatement to fill
@@ -161,7 +548,7 @@ public abstract class AbstractQueryRunner {
 
 		for (int i = 0; i < params.length; i++) {
 			if (params[i] != null) {
-				stmt.setObject(i + 1, params[i]);
+				ParameterBinders.forType(params[i].getClass()).bind(stmt, i + 1, params[i]);
 			} else {
 				// VARCHAR works with many drivers regardless
 				// of the actual column type. Oddly, NULL and
@@ -183,6 +570,63 @@ public abstract class AbstractQueryRunner {
 		}
 	}
 
+	/**
+	 * Returns the driver name used to look up the parameter metadata of a statement. A runner with a <code>DataSource</code> reads it once and assumes all statements it fills come from connections of that <code>DataSource</code>; without one the connection of every statement is asked.
+	 *
+	 * @param stmt
+	 *            The statement to fill.
+	 * @return The driver name, or <code>null</code> if it cannot be read.
+	 */
+	private String driverName(PreparedStatement stmt) {
+		if (this.ds == null) {
+			return ParameterMetaDataCache.driverName(stmt);
+		}
+		String name = this.driverName;
+		if (name == null) {
+			name = ParameterMetaDataCache.driverName(stmt);
+			this.driverName = name;
+		}
+		return name;
+	}
+
+	/**
+	 * Fill the <code>PreparedStatement</code> replacement parameters with the given objects, using parameter metadata cached by SQL text. The parameter count is checked and the SQL types for <code>null</code> parameters are read only once per distinct statement, see {@link ParameterMetaDataCache}. Non-null values are bound with the typed setter chosen by {@link ParameterBinders}, remembered per statement and parameter position. <code>QueryRunner</code> methods always call this method.
+	 *
+	 * @param sql
+	 *            The SQL the statement was prepared from.
+	 * @param stmt
+	 *            PreparedStatement to fill
+	 * @param params
+	 *            Query replacement parameters; <code>null</code> is a valid value to pass in.
+	 * @throws java.sql.SQLException
+	 *             if a database access error occurs
+	 */
+	public void fillStatement(String sql, PreparedStatement stmt, Object... params) throws SQLException {
+		if (pmdKnownBroken) {
+			this.fillStatement(stmt, params);
+			return;
+		}
+
+		ParameterMetaDataCache.Parameters parameters = ParameterMetaDataCache.lookup(this.driverName(stmt), sql, stmt);
+		int paramsCount = params == null ? 0 : params.length;
+		if (parameters.isCountKnown() && parameters.getCount() != paramsCount) {
+			throw new SQLException("Wrong number of parameters: expected " + parameters.getCount() + ", was given " + paramsCount);
+		}
+
+		// nothing to do here
+		if (params == null) {
+			return;
+		}
+
+		for (int i = 0; i < params.length; i++) {
+			if (params[i] != null) {
+				parameters.getBinder(i + 1, params[i]).bind(stmt, i + 1, params[i]);
+			} else {
+				stmt.setNull(i + 1, parameters.getType(i + 1));
+			}
+		}
+	}
+
 	/**
 	 * Fill the <code>PreparedStatement</code> replacement parameters with the given object's bean property values.
 	 *
@@ -234,33 +678,7 @@ public abstract class AbstractQueryRunner {
 	 *             If a database access error occurs
 	 */
 	public void fillStatementWithBean(PreparedStatement stmt, Object bean, String... propertyNames) throws SQLException {
-		PropertyDescriptor[] descriptors;
-		try {
-			descriptors = Introspector.getBeanInfo(bean.getClass()).getPropertyDescriptors();
-		}
-		catch (IntrospectionException e) {
-			throw new RuntimeException("Couldn't introspect bean " + bean.getClass().toString(), e);
-		}
-		PropertyDescriptor[] sorted = new PropertyDescriptor[propertyNames.length];
-		for (int i = 0; i < propertyNames.length; i++) {
-			String propertyName = propertyNames[i];
-			if (propertyName == null) {
-				throw new NullPointerException("propertyName can't be null: " + i);
-			}
-			boolean found = false;
-			for (int j = 0; j < descriptors.length; j++) {
-				PropertyDescriptor descriptor = descriptors[j];
-				if (propertyName.equals(descriptor.getName())) {
-					sorted[i] = descriptor;
-					found = true;
-					break;
-				}
-			}
-			if (!found) {
-				throw new RuntimeException("Couldn't find bean property: " + bean.getClass() + " " + propertyName);
-			}
-		}
-		fillStatementWithBean(stmt, bean, sorted);
+		fillStatement(stmt, BeanParameterReader.of(bean.getClass(), propertyNames).read(bean));
 	}
 
 	/**
@@ -293,7 +711,13 @@ public abstract class AbstractQueryRunner {
 			msg.append(Arrays.deepToString(params));
 		}
 
-		SQLException e = new SQLException(msg.toString(), cause.getSQLState(), cause.getErrorCode());
+		SQLException e;
+		if (cause instanceof SQLTimeoutException) {
+			long timeoutMillis = cause instanceof QueryTimeoutException ? ((QueryTimeoutException) cause).getTimeoutMillis() : 0;
+			e = new QueryTimeoutException(msg.toString(), cause.getSQLState(), cause.getErrorCode(), timeoutMillis, null);
+		} else {
+			e = new SQLException(msg.toString(), cause.getSQLState(), cause.getErrorCode());
+		}
 		e.setNextException(cause);
 
 		throw e;
@@ -324,7 +748,7 @@ public abstract class AbstractQueryRunner {
 	}
 
 	/**
-	 * Close a <code>Connection</code>. This implementation avoids closing if null and does <strong>not</strong> suppress any exceptions. Subclasses can override to provide special handling like logging.
+	 * Close a <code>Connection</code>. This implementation avoids closing if null and does <strong>not</strong> suppress any exceptions, and returns the concurrency permit taken by {@link #prepareConnection()}. Subclasses can override to provide special handling like logging.
 	 *
 	 * @param conn
 	 *            Connection to close
@@ -333,7 +757,21 @@ public abstract class AbstractQueryRunner {
 	 * @since DbUtils 1.1
 	 */
 	protected void close(Connection conn) throws SQLException {
-		DbUtils.close(conn);
+		try {
+			DbUtils.close(conn);
+		}
+		finally {
+			if (conn != null && !this.checkouts.isEmpty()) {
+				Checkout checkout = this.checkouts.remove(conn);
+				if (checkout != null && checkout.permit != null) {
+					if (this.latencySampling) {
+						checkout.permit.release(false);
+					} else {
+						checkout.permit.releaseWithoutSample();
+					}
+				}
+			}
+		}
 	}
 
 	/**
@@ -362,4 +800,31 @@ public abstract class AbstractQueryRunner {
 		DbUtils.close(rs);
 	}
 
+	/**
+	 * The permit and time budget of a call that took a connection from the DataSource.
+	 */
+	private static final class Checkout {
+
+		/**
+		 * The concurrency permit, or <code>null</code> without a limiter.
+		 */
+		final ConcurrencyLimiter.Permit permit;
+
+		/**
+		 * The time the call had when it started in nanoseconds, or 0 for no limit.
+		 */
+		final long budget;
+
+		/**
+		 * The <code>System.nanoTime()</code> value the call ends at.
+		 */
+		final long deadline;
+
+		Checkout(ConcurrencyLimiter.Permit permit, long budget, long deadline) {
+			this.permit = permit;
+			this.budget = budget;
+			this.deadline = deadline;
+		}
+	}
+
 }
\ No newline at end of file
@@ -10,11 +10,13 @@ import java.sql.SQLException;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
 
 import javax.sql.DataSource;
 
 /**
- * Executes SQL queries with pluggable strategies for handling <code>ResultSet</code>s. This class is thread safe.
+ * Executes SQL queries with pluggable strategies for handling <code>ResultSet</code>s. Cancelling a returned <code>Future</code> cancels the statement it is running. On Java 21 and later, pass {@link DbExecutors#newVirtualThreadPerTaskExecutor(int)} to run each call on its own virtual thread. This class is thread safe.
  *
  * @see ResultSetHandler
  * @since 1.4
@@ -89,6 +91,146 @@ public class AsyncQueryRunner extends AbstractQueryRunner {
 		this.queryRunner = new QueryRunner(ds, pmdKnownBroken);
 	}
 
+	/**
+	 * Submits a call to the executor. Cancelling the returned <code>Future</code> also cancels the statement the call is executing, so the database stops working on it and the pooled connection is freed.
+	 *
+	 * @param <T>
+	 *            The type of the result of the call.
+	 * @param call
+	 *            The call running the underlying <code>QueryRunner</code>.
+	 * @return A <code>Future</code> of the result.
+	 */
+	private <T> Future<T> submit(final Callable<T> call) {
+		final QueryWatchdog.Scope scope = new QueryWatchdog.Scope();
+		FutureTask<T> future = new FutureTask<T>(new Callable<T>() {
+
+			@Override
+			public T call() throws Exception {
+				return scope.call(call);
+			}
+
+		}) {
+
+			@Override
+			public boolean cancel(boolean mayInterruptIfRunning) {
+				boolean cancelled = super.cancel(mayInterruptIfRunning);
+				if (cancelled) {
+					scope.cancel();
+				}
+				return cancelled;
+			}
+		};
+		executorService.execute(future);
+		return future;
+	}
+
+	/**
+	 * Sets the statement cache on this runner and on the underlying <code>QueryRunner</code>, which executes the calls.
+	 *
+	 * @param statementCache
+	 *            the statement cache, or <code>null</code> to stop caching
+	 */
+	@Override
+	public void setStatementCache(StatementCache statementCache) {
+		super.setStatementCache(statementCache);
+		queryRunner.setStatementCache(statementCache);
+	}
+
+	/**
+	 * Sets the fetch size on this runner and on the underlying <code>QueryRunner</code>, which executes the calls.
+	 *
+	 * @param fetchSize
+	 *            the fetch size, or 0 to leave the driver default or use the advisor
+	 */
+	@Override
+	public void setFetchSize(int fetchSize) {
+		super.setFetchSize(fetchSize);
+		queryRunner.setFetchSize(fetchSize);
+	}
+
+	/**
+	 * Sets the fetch size advisor on this runner and on the underlying <code>QueryRunner</code>, which executes the calls.
+	 *
+	 * @param fetchSizeAdvisor
+	 *            the advisor, or <code>null</code> to stop adapting
+	 */
+	@Override
+	public void setFetchSizeAdvisor(FetchSizeAdvisor fetchSizeAdvisor) {
+		super.setFetchSizeAdvisor(fetchSizeAdvisor);
+		queryRunner.setFetchSizeAdvisor(fetchSizeAdvisor);
+	}
+
+	/**
+	 * Sets the concurrency limiter on this runner and on the underlying <code>QueryRunner</code>, which executes the calls.
+	 *
+	 * @param concurrencyLimiter
+	 *            the limiter, or <code>null</code> for no limit
+	 */
+	@Override
+	public void setConcurrencyLimiter(ConcurrencyLimiter concurrencyLimiter) {
+		super.setConcurrencyLimiter(concurrencyLimiter);
+		queryRunner.setConcurrencyLimiter(concurrencyLimiter);
+	}
+
+	/**
+	 * Sets the priority on this runner and on the underlying <code>QueryRunner</code>, which executes the calls.
+	 *
+	 * @param priority
+	 *            the priority, <code>null</code> for {@link ConcurrencyLimiter.Priority#NORMAL}
+	 */
+	@Override
+	public void setPriority(ConcurrencyLimiter.Priority priority) {
+		super.setPriority(priority);
+		queryRunner.setPriority(priority);
+	}
+
+	/**
+	 * Sets the latency sampling on this runner and on the underlying <code>QueryRunner</code>, which executes the calls.
+	 *
+	 * @param latencySampling
+	 *            false to return permits without a sample
+	 */
+	@Override
+	public void setLatencySampling(boolean latencySampling) {
+		super.setLatencySampling(latencySampling);
+		queryRunner.setLatencySampling(latencySampling);
+	}
+
+	/**
+	 * Sets the time limit on this runner and on the underlying <code>QueryRunner</code>, which executes the calls. The time a call waits in the executor is not counted.
+	 *
+	 * @param timeout
+	 *            the time limit, or 0 for no limit
+	 * @param unit
+	 *            the unit of <code>timeout</code>
+	 */
+	@Override
+	public void setQueryTimeout(long timeout, TimeUnit unit) {
+		super.setQueryTimeout(timeout, unit);
+		queryRunner.setQueryTimeout(timeout, unit);
+	}
+
+	/**
+	 * Sets the deadline on this runner and on the underlying <code>QueryRunner</code>, which executes the calls.
+	 *
+	 * @param deadline
+	 *            the <code>System.nanoTime()</code> value after which calls fail with {@link QueryTimeoutException}
+	 */
+	@Override
+	public void setDeadline(long deadline) {
+		super.setDeadline(deadline);
+		queryRunner.setDeadline(deadline);
+	}
+
+	/**
+	 * Removes the deadline from this runner and from the underlying <code>QueryRunner</code>.
+	 */
+	@Override
+	public void clearDeadline() {
+		super.clearDeadline();
+		queryRunner.clearDeadline();
+	}
+
 	/**
 	 * @deprecated No longer used by this class. Will be removed in a future version. Class that encapsulates the continuation for batch calls.
 	 */
@@ -170,7 +312,7 @@ public class AsyncQueryRunner extends AbstractQueryRunner {
 	 *             if a database access error occurs
 	 */
 	public Future<int[]> batch(final Connection conn, final String sql, final Object[][] params) throws SQLException {
-		return executorService.submit(new Callable<int[]>() {
+		return this.submit(new Callable<int[]>() {
 
 			@Override
 			public int[] call() throws Exception {
@@ -192,7 +334,7 @@ public class AsyncQueryRunner extends AbstractQueryRunner {
 	 *             if a database access error occurs
 	 */
 	public Future<int[]> batch(final String sql, final Object[][] params) throws SQLException {
-		return executorService.submit(new Callable<int[]>() {
+		return this.submit(new Callable<int[]>() {
 
 			@Override
 			public int[] call() throws Exception {
@@ -302,7 +444,7 @@ public class AsyncQueryRunner extends AbstractQueryRunner {
 	 *             if a database access error occurs
 	 */
 	public <T> Future<T> query(final Connection conn, final String sql, final ResultSetHandler<T> rsh, final Object... params) throws SQLException {
-		return executorService.submit(new Callable<T>() {
+		return this.submit(new Callable<T>() {
 
 			@Override
 			public T call() throws Exception {
@@ -328,7 +470,7 @@ public class AsyncQueryRunner extends AbstractQueryRunner {
 	 *             if a database access error occurs
 	 */
 	public <T> Future<T> query(final Connection conn, final String sql, final ResultSetHandler<T> rsh) throws SQLException {
-		return executorService.submit(new Callable<T>() {
+		return this.submit(new Callable<T>() {
 
 			@Override
 			public T call() throws Exception {
@@ -354,7 +496,7 @@ public class AsyncQueryRunner extends AbstractQueryRunner {
 	 *             if a database access error occurs
 	 */
 	public <T> Future<T> query(final String sql, final ResultSetHandler<T> rsh, final Object... params) throws SQLException {
-		return executorService.submit(new Callable<T>() {
+		return this.submit(new Callable<T>() {
 
 			@Override
 			public T call() throws Exception {
@@ -378,7 +520,7 @@ public class AsyncQueryRunner extends AbstractQueryRunner {
 	 *             if a database access error occurs
 	 */
 	public <T> Future<T> query(final String sql, final ResultSetHandler<T> rsh) throws SQLException {
-		return executorService.submit(new Callable<T>() {
+		return this.submit(new Callable<T>() {
 
 			@Override
 			public T call() throws Exception {
@@ -466,7 +608,7 @@ public class AsyncQueryRunner extends AbstractQueryRunner {
 	 *             if a database access error occurs
 	 */
 	public Future<Integer> update(final Connection conn, final String sql) throws SQLException {
-		return executorService.submit(new Callable<Integer>() {
+		return this.submit(new Callable<Integer>() {
 
 			@Override
 			public Integer call() throws Exception {
@@ -490,7 +632,7 @@ public class AsyncQueryRunner extends AbstractQueryRunner {
 	 *             if a database access error occurs
 	 */
 	public Future<Integer> update(final Connection conn, final String sql, final Object param) throws SQLException {
-		return executorService.submit(new Callable<Integer>() {
+		return this.submit(new Callable<Integer>() {
 
 			@Override
 			public Integer call() throws Exception {
@@ -514,7 +656,7 @@ public class AsyncQueryRunner extends AbstractQueryRunner {
 	 *             if a database access error occurs
 	 */
 	public Future<Integer> update(final Connection conn, final String sql, final Object... params) throws SQLException {
-		return executorService.submit(new Callable<Integer>() {
+		return this.submit(new Callable<Integer>() {
 
 			@Override
 			public Integer call() throws Exception {
@@ -534,7 +676,7 @@ public class AsyncQueryRunner extends AbstractQueryRunner {
 	 * @return A <code>Future</code> which returns the number of rows updated.
 	 */
 	public Future<Integer> update(final String sql) throws SQLException {
-		return executorService.submit(new Callable<Integer>() {
+		return this.submit(new Callable<Integer>() {
 
 			@Override
 			public Integer call() throws Exception {
@@ -556,7 +698,7 @@ public class AsyncQueryRunner extends AbstractQueryRunner {
 	 * @return A <code>Future</code> which returns the number of rows updated.
 	 */
 	public Future<Integer> update(final String sql, final Object param) throws SQLException {
-		return executorService.submit(new Callable<Integer>() {
+		return this.submit(new Callable<Integer>() {
 
 			@Override
 			public Integer call() throws Exception {
@@ -578,7 +720,7 @@ public class AsyncQueryRunner extends AbstractQueryRunner {
 	 * @return A <code>Future</code> which returns the number of rows updated.
 	 */
 	public Future<Integer> update(final String sql, final Object... params) throws SQLException {
-		return executorService.submit(new Callable<Integer>() {
+		return this.submit(new Callable<Integer>() {
 
 			@Override
 			public Integer call() throws Exception {
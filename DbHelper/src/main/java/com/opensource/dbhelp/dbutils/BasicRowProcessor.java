@@ -6,10 +6,9 @@ package com.opensource.dbhelp.dbutils;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * Basic implementation of the <code>RowProcessor</code> interface.
@@ -47,6 +46,11 @@ public class BasicRowProcessor implements RowProcessor {
 	 */
 	private final BeanProcessor convert;
 
+	/**
+	 * True if <code>toMap(ResultSet)</code> is not overridden, so rows can share a {@link ColumnIndex}.
+	 */
+	private final boolean defaultMapProcessing;
+
 	/**
 	 * BasicRowProcessor constructor. Bean processing defaults to a BeanProcessor instance.
 	 */
@@ -64,6 +68,7 @@ public class BasicRowProcessor implements RowProcessor {
 	public BasicRowProcessor(BeanProcessor convert) {
 		super();
 		this.convert = convert;
+		this.defaultMapProcessing = !overridesToMap(this.getClass());
 	}
 
 	/**
@@ -129,6 +134,44 @@ public class BasicRowProcessor implements RowProcessor {
 		return this.convert.toBeanList(rs, type);
 	}
 
+	/**
+	 * Convert the rows of a <code>ResultSet</code> into JavaBeans one at a time and pass each to the given action. This implementation delegates to a BeanProcessor instance.
+	 *
+	 * @see com.opensource.dbhelp.dbutils.BeanProcessor#forEachBean(java.sql.ResultSet, Class, Consumer)
+	 * @param <T>
+	 *            The type of bean to create
+	 * @param rs
+	 *            ResultSet that supplies the bean data, not yet advanced with <code>next()</code>
+	 * @param type
+	 *            Class from which to create the bean instances
+	 * @param action
+	 *            Receives each bean in the order the rows are returned by the <code>ResultSet</code>
+	 * @throws java.sql.SQLException
+	 *             if a database access error occurs
+	 * @return the number of rows processed
+	 */
+	public <T> int forEachBean(ResultSet rs, Class<T> type, Consumer<? super T> action) throws SQLException {
+		return this.convert.forEachBean(rs, type, action);
+	}
+
+	/**
+	 * Returns a reader that converts rows of a result set with the given columns into JavaBeans, resolving the column mapping only once. This implementation delegates to a BeanProcessor instance.
+	 *
+	 * @see com.opensource.dbhelp.dbutils.BeanProcessor#beanReader(ResultSetMetaData, Class)
+	 * @param <T>
+	 *            The type of bean to create
+	 * @param rsmd
+	 *            The <code>ResultSetMetaData</code> of the result set the reader is used with.
+	 * @param type
+	 *            Class from which to create the bean instances
+	 * @throws java.sql.SQLException
+	 *             if a database access error occurs
+	 * @return the bean reader, which is not thread-safe
+	 */
+	public <T> BeanReader<T> beanReader(ResultSetMetaData rsmd, Class<T> type) throws SQLException {
+		return this.convert.beanReader(rsmd, type);
+	}
+
 	/**
 	 * Convert a <code>ResultSet</code> row into a <code>Map</code>. This implementation returns a <code>Map</code> with case insensitive column names as keys. Calls to <code>map.get("COL")</code> and <code>map.get("col")</code> return the same value.
 	 * 
@@ -141,96 +184,70 @@ public class BasicRowProcessor implements RowProcessor {
 	 */
 	@Override
 	public Map<String, Object> toMap(ResultSet rs) throws SQLException {
-		Map<String, Object> result = new CaseInsensitiveHashMap();
-		ResultSetMetaData rsmd = rs.getMetaData();
-		int cols = rsmd.getColumnCount();
-
-		for (int i = 1; i <= cols; i++) {
-			result.put(rsmd.getColumnName(i), rs.getObject(i));
-		}
-
-		return result;
+		return this.createMap(rs, ColumnIndex.of(rs.getMetaData()));
 	}
 
 	/**
-	 * A Map that converts all keys to lowercase Strings for case insensitive lookups. This is needed for the toMap() implementation because databases don't consistently handle the casing of column names.
-	 * <p>
-	 * The keys are stored as they are given [BUG #DBUTILS-34], so we maintain an internal mapping from lowercase keys to the real keys in order to achieve the case insensitive lookup.
+	 * Convert a <code>ResultSet</code> row into a <code>Map</code> that shares the given column index with the other rows of the same <code>ResultSet</code>. The row only stores its column values, lookups by column name are case insensitive as with {@link #toMap(ResultSet)}. Handlers that convert many rows should build the index once with {@link ColumnIndex#of(java.sql.ResultSetMetaData)} and call this method for every row.
 	 * <p>
-	 * Note: This implementation does not allow <tt>null</tt> for key, whereas {@link java.util.HashMap} does, because of the code:
-	 * 
-	 * <pre>
-	 * key.toString().toLowerCase()
-	 * </pre>
-	 */
-	private static class CaseInsensitiveHashMap extends HashMap<String, Object> {
-
-		/**
-		 * The internal mapping from lowercase keys to the real keys.
-		 * <p>
-		 * Any query operation using the key ({@link #get(Object)}, {@link #containsKey(Object)}) is done in three steps:
-		 * <ul>
-		 * <li>convert the parameter key to lower case</li>
-		 * <li>get the actual key that corresponds to the lower case key</li>
-		 * <li>query the map with the actual key</li>
-		 * </ul>
-		 * </p>
-		 */
-		private final Map<String, String> lowerCaseMap = new HashMap<String, String>();
-
-		/**
-		 * Required for serialization support.
-		 *
-		 * @see java.io.Serializable
-		 */
-		private static final long serialVersionUID = -2848100435296897392L;
-
-		/** {@inheritDoc} */
-		@Override
-		public boolean containsKey(Object key) {
-			Object realKey = lowerCaseMap.get(key.toString().toLowerCase(Locale.ENGLISH));
-			return super.containsKey(realKey);
-			// Possible optimisation here:
-			// Since the lowerCaseMap contains a mapping for all the keys,
-			// we could just do this:
-			// return lowerCaseMap.containsKey(key.toString().toLowerCase());
+	 * If a subclass overrides {@link #toMap(ResultSet)}, this method calls it and ignores the index.
+	 * </p>
+	 *
+	 * @param rs
+	 *            ResultSet that supplies the map data
+	 * @param index
+	 *            the column index of <code>rs</code>
+	 * @throws java.sql.SQLException
+	 *             if a database access error occurs
+	 * @return the newly created Map
+	 */
+	public Map<String, Object> toMap(ResultSet rs, ColumnIndex index) throws SQLException {
+		if (!this.defaultMapProcessing) {
+			return this.toMap(rs);
 		}
+		return this.createMap(rs, index);
+	}
 
-		/** {@inheritDoc} */
-		@Override
-		public Object get(Object key) {
-			Object realKey = lowerCaseMap.get(key.toString().toLowerCase(Locale.ENGLISH));
-			return super.get(realKey);
+	/**
+	 * Creates the row map without checking for an overridden <code>toMap(ResultSet)</code>.
+	 *
+	 * @param rs
+	 *            ResultSet that supplies the map data
+	 * @param index
+	 *            the column index of <code>rs</code>
+	 * @throws java.sql.SQLException
+	 *             if a database access error occurs
+	 * @return the newly created Map
+	 */
+	private Map<String, Object> createMap(ResultSet rs, ColumnIndex index) throws SQLException {
+		int size = index.size();
+		Object[] values = new Object[size];
+		for (int slot = 0; slot < size; slot++) {
+			int i = index.column(slot);
+			values[slot] = rs.getObject(i);
 		}
 
-		/** {@inheritDoc} */
-		@Override
-		public Object put(String key, Object value) {
-			/*
-			 * In order to keep the map and lowerCaseMap synchronized, we have to remove the old mapping before putting the new one. Indeed, oldKey and key are not necessaliry equals. (That's why we call super.remove(oldKey) and not just super.put(key, value))
-			 */
-			Object oldKey = lowerCaseMap.put(key.toLowerCase(Locale.ENGLISH), key);
-			Object oldValue = super.remove(oldKey);
-			super.put(key, value);
-			return oldValue;
-		}
+		return new RowMap<Object>(index, values);
+	}
 
-		/** {@inheritDoc} */
-		@Override
-		public void putAll(Map<? extends String, ?> m) {
-			for (Map.Entry<? extends String, ?> entry : m.entrySet()) {
-				String key = entry.getKey();
-				Object value = entry.getValue();
-				this.put(key, value);
+	/**
+	 * Checks whether a subclass customizes map conversion by overriding <code>toMap(ResultSet)</code>.
+	 *
+	 * @param c
+	 *            The runtime class of this processor.
+	 * @return true if <code>toMap(ResultSet)</code> is overridden below <code>BasicRowProcessor</code>.
+	 */
+	private static boolean overridesToMap(Class<?> c) {
+		for (; c != null && c != BasicRowProcessor.class; c = c.getSuperclass()) {
+			try {
+				c.getDeclaredMethod("toMap", ResultSet.class);
+				return true;
+			}
+			catch (NoSuchMethodException e) { // NOPMD
+				// keep looking
 			}
 		}
-
-		/** {@inheritDoc} */
-		@Override
-		public Object remove(Object key) {
-			Object realKey = lowerCaseMap.remove(key.toString().toLowerCase(Locale.ENGLISH));
-			return super.remove(realKey);
-		}
+		return false;
 	}
 
 }
\ No newline at end of file
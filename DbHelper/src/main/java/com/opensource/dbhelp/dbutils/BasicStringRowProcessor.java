@@ -6,8 +6,6 @@ package com.opensource.dbhelp.dbutils;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
-import java.util.HashMap;
-import java.util.Locale;
 import java.util.Map;
 
 /**
@@ -36,10 +34,22 @@ public class BasicStringRowProcessor implements StringRowProcessor {
 		return instance;
 	}
 
+	/**
+	 * True if <code>toArray(ResultSet)</code> is not overridden, so column values can be deduplicated.
+	 */
+	private final boolean defaultArrayProcessing;
+
+	/**
+	 * True if <code>toMap(ResultSet)</code> is not overridden, so rows can share a {@link ColumnIndex}.
+	 */
+	private final boolean defaultMapProcessing;
+
 	/**
 	 * BasicRowProcessor constructor.
 	 */
 	public BasicStringRowProcessor() {
+		this.defaultArrayProcessing = !overrides(this.getClass(), "toArray");
+		this.defaultMapProcessing = !overrides(this.getClass(), "toMap");
 	}
 
 	/**
@@ -54,13 +64,48 @@ public class BasicStringRowProcessor implements StringRowProcessor {
 	 */
 	@Override
 	public String[] toArray(ResultSet rs) throws SQLException {
+		return this.createArray(rs, null);
+	}
+
+	/**
+	 * Convert a <code>ResultSet</code> row into a <code>String[]</code>, returning shared instances for repeated column values.
+	 * <p>
+	 * If a subclass overrides {@link #toArray(ResultSet)}, this method calls it and does not deduplicate.
+	 * </p>
+	 *
+	 * @param rs
+	 *            ResultSet that supplies the array data
+	 * @param dedup
+	 *            the string cache of the current query, or <code>null</code> to keep every value
+	 * @throws java.sql.SQLException
+	 *             if a database access error occurs
+	 * @return the newly created array
+	 */
+	public String[] toArray(ResultSet rs, StringDeduplicator dedup) throws SQLException {
+		if (!this.defaultArrayProcessing) {
+			return this.toArray(rs);
+		}
+		return this.createArray(rs, dedup);
+	}
 
+	/**
+	 * Creates the row array without checking for an overridden <code>toArray(ResultSet)</code>.
+	 *
+	 * @param rs
+	 *            ResultSet that supplies the array data
+	 * @param dedup
+	 *            the string cache of the current query, or <code>null</code>
+	 * @throws java.sql.SQLException
+	 *             if a database access error occurs
+	 * @return the newly created array
+	 */
+	private String[] createArray(ResultSet rs, StringDeduplicator dedup) throws SQLException {
 		ResultSetMetaData meta = rs.getMetaData();
 		int cols = meta.getColumnCount();
 		String[] result = new String[cols];
 
 		for (int i = 0; i < cols; i++) {
-			result[i] = trimToEmpty(rs.getString(i + 1));
+			result[i] = this.columnValue(rs, i + 1, dedup);
 		}
 
 		return result;
@@ -78,100 +123,115 @@ public class BasicStringRowProcessor implements StringRowProcessor {
 	 */
 	@Override
 	public Map<String, String> toMap(ResultSet rs) throws SQLException {
-		Map<String, String> result = new CaseInsensitiveHashMap();
-		ResultSetMetaData rsmd = rs.getMetaData();
-		int cols = rsmd.getColumnCount();
-
-		for (int i = 1; i <= cols; i++) {
-			result.put(rsmd.getColumnName(i), trimToEmpty(rs.getString(i)));
-		}
-
-		return result;
+		return this.createMap(rs, ColumnIndex.of(rs.getMetaData()), null);
 	}
 
-	private static String trimToEmpty(String str) {
-		return str != null ? str.trim() : "";
+	/**
+	 * Convert a <code>ResultSet</code> row into a <code>Map</code> that shares the given column index with the other rows of the same <code>ResultSet</code>. The row only stores its column values, lookups by column name are case insensitive as with {@link #toMap(ResultSet)}. Handlers that convert many rows should build the index once with {@link ColumnIndex#of(java.sql.ResultSetMetaData)} and call this method for every row.
+	 * <p>
+	 * If a subclass overrides {@link #toMap(ResultSet)}, this method calls it and ignores the index.
+	 * </p>
+	 *
+	 * @param rs
+	 *            ResultSet that supplies the map data
+	 * @param index
+	 *            the column index of <code>rs</code>
+	 * @throws java.sql.SQLException
+	 *             if a database access error occurs
+	 * @return the newly created Map
+	 */
+	public Map<String, String> toMap(ResultSet rs, ColumnIndex index) throws SQLException {
+		return this.toMap(rs, index, null);
 	}
 
 	/**
-	 * A Map that converts all keys to lowercase Strings for case insensitive lookups. This is needed for the toMap() implementation because databases don't consistently handle the casing of column names.
+	 * Convert a <code>ResultSet</code> row into a <code>Map</code> that shares the given column index, returning shared instances for repeated column values.
 	 * <p>
-	 * The keys are stored as they are given [BUG #DBUTILS-34], so we maintain an internal mapping from lowercase keys to the real keys in order to achieve the case insensitive lookup.
-	 * <p>
-	 * Note: This implementation does not allow <tt>null</tt> for key, whereas {@link java.util.HashMap} does, because of the code:
-	 * 
-	 * <pre>
-	 * key.toString().toLowerCase()
-	 * </pre>
+	 * If a subclass overrides {@link #toMap(ResultSet)}, this method calls it, ignores the index and does not deduplicate.
+	 * </p>
+	 *
+	 * @param rs
+	 *            ResultSet that supplies the map data
+	 * @param index
+	 *            the column index of <code>rs</code>
+	 * @param dedup
+	 *            the string cache of the current query, or <code>null</code> to keep every value
+	 * @throws java.sql.SQLException
+	 *             if a database access error occurs
+	 * @return the newly created Map
 	 */
-	private static class CaseInsensitiveHashMap extends HashMap<String, String> {
-
-		/**
-		 * The internal mapping from lowercase keys to the real keys.
-		 * <p>
-		 * Any query operation using the key ({@link #get(Object)}, {@link #containsKey(Object)}) is done in three steps:
-		 * <ul>
-		 * <li>convert the parameter key to lower case</li>
-		 * <li>get the actual key that corresponds to the lower case key</li>
-		 * <li>query the map with the actual key</li>
-		 * </ul>
-		 * </p>
-		 */
-		private final Map<String, String> lowerCaseMap = new HashMap<String, String>();
-
-		/**
-		 * Required for serialization support.
-		 *
-		 * @see java.io.Serializable
-		 */
-		private static final long serialVersionUID = -2848101435296897392L;
-
-		/** {@inheritDoc} */
-		@Override
-		public boolean containsKey(Object key) {
-			Object realKey = lowerCaseMap.get(key.toString().toLowerCase(Locale.ENGLISH));
-			return super.containsKey(realKey);
-			// Possible optimisation here:
-			// Since the lowerCaseMap contains a mapping for all the keys,
-			// we could just do this:
-			// return lowerCaseMap.containsKey(key.toString().toLowerCase());
+	public Map<String, String> toMap(ResultSet rs, ColumnIndex index, StringDeduplicator dedup) throws SQLException {
+		if (!this.defaultMapProcessing) {
+			return this.toMap(rs);
 		}
+		return this.createMap(rs, index, dedup);
+	}
 
-		/** {@inheritDoc} */
-		@Override
-		public String get(Object key) {
-			Object realKey = lowerCaseMap.get(key.toString().toLowerCase(Locale.ENGLISH));
-			return super.get(realKey);
+	/**
+	 * Creates the row map without checking for an overridden <code>toMap(ResultSet)</code>.
+	 *
+	 * @param rs
+	 *            ResultSet that supplies the map data
+	 * @param index
+	 *            the column index of <code>rs</code>
+	 * @param dedup
+	 *            the string cache of the current query, or <code>null</code>
+	 * @throws java.sql.SQLException
+	 *             if a database access error occurs
+	 * @return the newly created Map
+	 */
+	private Map<String, String> createMap(ResultSet rs, ColumnIndex index, StringDeduplicator dedup) throws SQLException {
+		int size = index.size();
+		Object[] values = new Object[size];
+		for (int slot = 0; slot < size; slot++) {
+			values[slot] = this.columnValue(rs, index.column(slot), dedup);
 		}
 
-		/** {@inheritDoc} */
-		@Override
-		public String put(String key, String value) {
-			/*
-			 * In order to keep the map and lowerCaseMap synchronized, we have to remove the old mapping before putting the new one. Indeed, oldKey and key are not necessaliry equals. (That's why we call super.remove(oldKey) and not just super.put(key, value))
-			 */
-			Object oldKey = lowerCaseMap.put(key.toLowerCase(Locale.ENGLISH), key);
-			String oldValue = super.remove(oldKey);
-			super.put(key, value);
-			return oldValue;
-		}
+		return new RowMap<String>(index, values);
+	}
 
-		/** {@inheritDoc} */
-		@Override
-		public void putAll(Map<? extends String, ? extends String> m) {
-			for (Map.Entry<? extends String, ? extends String> entry : m.entrySet()) {
-				String key = entry.getKey();
-				String value = entry.getValue();
-				this.put(key, value);
+	/**
+	 * Reads a column as a trimmed string, SQL NULL becomes an empty string.
+	 *
+	 * @param rs
+	 *            ResultSet positioned on a valid row
+	 * @param column
+	 *            the column index, starting at 1
+	 * @param dedup
+	 *            the string cache of the current query, or <code>null</code>
+	 * @throws java.sql.SQLException
+	 *             if a database access error occurs
+	 * @return the column value
+	 */
+	private String columnValue(ResultSet rs, int column, StringDeduplicator dedup) throws SQLException {
+		String value = trimToEmpty(rs.getString(column));
+		return dedup == null ? value : dedup.deduplicate(column, value);
+	}
+
+	/**
+	 * Checks whether a subclass customizes row conversion by overriding the given single-argument method.
+	 *
+	 * @param c
+	 *            The runtime class of this processor.
+	 * @param method
+	 *            <code>toArray</code> or <code>toMap</code>.
+	 * @return true if <code>method(ResultSet)</code> is overridden below <code>BasicStringRowProcessor</code>.
+	 */
+	private static boolean overrides(Class<?> c, String method) {
+		for (; c != null && c != BasicStringRowProcessor.class; c = c.getSuperclass()) {
+			try {
+				c.getDeclaredMethod(method, ResultSet.class);
+				return true;
+			}
+			catch (NoSuchMethodException e) { // NOPMD
+				// keep looking
 			}
 		}
+		return false;
+	}
 
-		/** {@inheritDoc} */
-		@Override
-		public String remove(Object key) {
-			Object realKey = lowerCaseMap.remove(key.toString().toLowerCase(Locale.ENGLISH));
-			return super.remove(realKey);
-		}
+	private static String trimToEmpty(String str) {
+		return str != null ? str.trim() : "";
 	}
 
 }
\ No newline at end of file
@@ -0,0 +1,102 @@
+package com.opensource.dbhelp.dbutils;
+
+import java.sql.Statement;
+
+/**
+ * 分批执行批处理的汇总结果。
+ * <p/>
+ * 分批执行时只累计每批<code>executeBatch</code>返回的更新数，不保存每行的结果，内存占用与总行数无关。
+ * <p/>
+ * Copyright: Copyright (c) 26-10-17 下午11:30
+ * <p/>
+ * Company: GNU General Public License
+ * <p/>
+ * Author: GNU General Public License
+ * <p/>
+ * Version: 1.0
+ * <p/>
+ */
+public class BatchResult {
+
+	/**
+	 * 提交的参数行数
+	 */
+	private long rowCount;
+
+	/**
+	 * 执行executeBatch的次数
+	 */
+	private int batchCount;
+
+	/**
+	 * 驱动返回的更新行数之和
+	 */
+	private long updateCount;
+
+	/**
+	 * 驱动返回SUCCESS_NO_INFO的语句数
+	 */
+	private long successNoInfoCount;
+
+	/**
+	 * 累计一批的执行结果
+	 *
+	 * @param rows
+	 *            这一批提交的参数行数
+	 * @param counts
+	 *            <code>executeBatch</code>的返回值
+	 */
+	void add(int rows, int[] counts) {
+		rowCount += rows;
+		batchCount++;
+		for (int count : counts) {
+			if (count >= 0) {
+				updateCount += count;
+			} else if (count == Statement.SUCCESS_NO_INFO) {
+				successNoInfoCount++;
+			}
+		}
+	}
+
+	/**
+	 * 提交的参数行数
+	 *
+	 * @return 参数行数
+	 */
+	public long getRowCount() {
+		return rowCount;
+	}
+
+	/**
+	 * 执行executeBatch的次数
+	 *
+	 * @return 批次数
+	 */
+	public int getBatchCount() {
+		return batchCount;
+	}
+
+	/**
+	 * 驱动返回的更新行数之和，不包括返回SUCCESS_NO_INFO的语句
+	 *
+	 * @return 更新行数
+	 */
+	public long getUpdateCount() {
+		return updateCount;
+	}
+
+	/**
+	 * 驱动返回SUCCESS_NO_INFO的语句数，执行成功但驱动没有提供更新行数（如oracle或mysql的rewriteBatchedStatements）
+	 *
+	 * @return 语句数
+	 */
+	public long getSuccessNoInfoCount() {
+		return successNoInfoCount;
+	}
+
+	@Override
+	public String toString() {
+		return "BatchResult[rows=" + rowCount + ", batches=" + batchCount + ", updated=" + updateCount + ", successNoInfo=" + successNoInfoCount + "]";
+	}
+
+}
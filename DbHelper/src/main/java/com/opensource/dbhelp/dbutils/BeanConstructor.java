@@ -0,0 +1,248 @@
+package com.opensource.dbhelp.dbutils;
+
+import java.beans.ConstructorProperties;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+
+/**
+ * 通过构造函数创建bean的构造器，用于没有setter的不可变对象。
+ * <p/>
+ * 支持Java record（规范构造函数）及标注了<code>java.beans.ConstructorProperties</code>的构造函数。构造函数句柄只创建一次并转换为接收<code>Object[]</code>参数的形式， 每行只调用一次构造函数，不再逐个字段反射调用setter。
+ * 项目以Java 8为编译目标，record相关方法通过反射调用，在不支持record的JDK上只使用<code>ConstructorProperties</code>。
+ * 非public的record或构造函数无法通过本库的<code>Lookup</code>创建句柄，此时退化为反射调用<code>Constructor.newInstance</code>。
+ * <p/>
+ * 单行转换时使用每个线程复用的参数数组，不必每行分配。
+ * <p/>
+ * 该类创建后不可变，可以被多个线程共享。
+ * <p/>
+ * Copyright: Copyright (c) 26-10-17 下午4:10
+ * <p/>
+ * Company: GNU General Public License
+ * <p/>
+ * Author: GNU General Public License
+ * <p/>
+ * Version: 1.0
+ * <p/>
+ */
+final class BeanConstructor {
+
+	/**
+	 * Class.isRecord()，JDK 16以下为null
+	 */
+	private static final Method IS_RECORD;
+
+	/**
+	 * Class.getRecordComponents()，JDK 16以下为null
+	 */
+	private static final Method GET_RECORD_COMPONENTS;
+
+	static {
+		Method isRecord = null;
+		Method getRecordComponents = null;
+		try {
+			isRecord = Class.class.getMethod("isRecord");
+			getRecordComponents = Class.class.getMethod("getRecordComponents");
+		}
+		catch (NoSuchMethodException e) { // NOPMD
+			// JDK 16以下没有record
+		}
+		IS_RECORD = isRecord;
+		GET_RECORD_COMPONENTS = getRecordComponents;
+	}
+
+	/**
+	 * 构造函数参数名，与字段名匹配
+	 */
+	final String[] parameterNames;
+
+	/**
+	 * 构造函数参数类型
+	 */
+	final Class<?>[] parameterTypes;
+
+	/**
+	 * 类型为(Object[])Object的构造函数句柄，构造函数无法通过句柄访问时为null
+	 */
+	private final MethodHandle handle;
+
+	/**
+	 * 构造函数，句柄为null时反射调用
+	 */
+	private final Constructor<?> constructor;
+
+	/**
+	 * 每个线程复用的参数数组，使用期间从线程中取出
+	 */
+	private final ThreadLocal<Object[]> buffers = new ThreadLocal<Object[]>();
+
+	private BeanConstructor(Constructor<?> constructor, String[] parameterNames) throws IllegalAccessException {
+		this.parameterNames = parameterNames;
+		this.parameterTypes = constructor.getParameterTypes();
+		this.constructor = constructor;
+		MethodHandle target;
+		try {
+			target = MethodHandles.lookup().unreflectConstructor(constructor);
+		}
+		catch (IllegalAccessException e) {
+			makeAccessible(constructor, e);
+			this.handle = null;
+			return;
+		}
+		this.handle = target.asType(target.type().generic()).asSpreader(Object[].class, parameterTypes.length).asType(MethodType.methodType(Object.class, Object[].class));
+	}
+
+	/**
+	 * 使本库无权访问的构造函数可以被反射调用
+	 *
+	 * @param constructor
+	 *            构造函数
+	 * @param cause
+	 *            创建句柄时的异常
+	 * @throws IllegalAccessException
+	 *             构造函数无法访问，例如所在模块没有开放
+	 */
+	private static void makeAccessible(Constructor<?> constructor, IllegalAccessException cause) throws IllegalAccessException {
+		try {
+			constructor.setAccessible(true);
+		}
+		catch (RuntimeException e) {
+			cause.addSuppressed(e);
+			throw cause;
+		}
+	}
+
+	/**
+	 * 调用构造函数创建对象
+	 *
+	 * @param args
+	 *            构造函数参数，调用后可以被复用
+	 * @return 新创建的对象
+	 * @throws Throwable
+	 *             构造函数抛出的异常
+	 */
+	Object newInstance(Object[] args) throws Throwable {
+		if (handle != null) {
+			return handle.invokeExact(args);
+		}
+		try {
+			return constructor.newInstance(args);
+		}
+		catch (InvocationTargetException e) {
+			throw e.getCause();
+		}
+	}
+
+	/**
+	 * 取出当前线程复用的参数数组，用完后需要调用{@link #releaseArguments(Object[])}归还。 数组在使用期间从线程中取出，同一线程嵌套转换时会另外分配，不会互相覆盖。
+	 *
+	 * @return 参数数组，长度等于构造函数参数个数
+	 */
+	Object[] borrowArguments() {
+		Object[] args = buffers.get();
+		if (args == null) {
+			return new Object[parameterTypes.length];
+		}
+		buffers.set(null);
+		return args;
+	}
+
+	/**
+	 * 归还参数数组，清空其中的参数值以免持有上一行的数据
+	 *
+	 * @param args
+	 *            {@link #borrowArguments()}返回的数组
+	 */
+	void releaseArguments(Object[] args) {
+		Arrays.fill(args, null);
+		buffers.set(args);
+	}
+
+	/**
+	 * 获取类的构造器。record使用规范构造函数；其它类只有在没有public无参构造函数时才使用标注了ConstructorProperties的public构造函数，存在多个时取参数最多的一个。
+	 *
+	 * @param type
+	 *            bean类
+	 * @return 构造器，类需要通过无参构造函数和setter创建时返回null
+	 * @throws IllegalAccessException
+	 *             构造函数无法访问
+	 */
+	static BeanConstructor of(Class<?> type) throws IllegalAccessException {
+		if (isRecord(type)) {
+			return recordConstructor(type);
+		}
+
+		Constructor<?> annotated = null;
+		for (Constructor<?> constructor : type.getConstructors()) {
+			if (constructor.getParameterTypes().length == 0) {
+				return null;
+			}
+			ConstructorProperties properties = constructor.getAnnotation(ConstructorProperties.class);
+			if (properties != null && properties.value().length == constructor.getParameterTypes().length && (annotated == null || annotated.getParameterTypes().length < constructor.getParameterTypes().length)) {
+				annotated = constructor;
+			}
+		}
+		if (annotated == null || Modifier.isAbstract(type.getModifiers())) {
+			return null;
+		}
+		return new BeanConstructor(annotated, annotated.getAnnotation(ConstructorProperties.class).value());
+	}
+
+	/**
+	 * 判断是否为record
+	 *
+	 * @param type
+	 *            要判断的类
+	 * @return 是否为record
+	 */
+	private static boolean isRecord(Class<?> type) {
+		if (IS_RECORD == null) {
+			return false;
+		}
+		try {
+			return ((Boolean) IS_RECORD.invoke(type)).booleanValue();
+		}
+		catch (Exception e) {
+			return false;
+		}
+	}
+
+	/**
+	 * 获取record的规范构造函数
+	 *
+	 * @param type
+	 *            record类
+	 * @return 构造器
+	 * @throws IllegalAccessException
+	 *             构造函数无法访问
+	 */
+	private static BeanConstructor recordConstructor(Class<?> type) throws IllegalAccessException {
+		try {
+			Object components = GET_RECORD_COMPONENTS.invoke(type);
+			int length = Array.getLength(components);
+			String[] names = new String[length];
+			Class<?>[] types = new Class<?>[length];
+			for (int i = 0; i < length; i++) {
+				Object component = Array.get(components, i);
+				names[i] = (String) component.getClass().getMethod("getName").invoke(component);
+				types[i] = (Class<?>) component.getClass().getMethod("getType").invoke(component);
+			}
+			return new BeanConstructor(type.getDeclaredConstructor(types), names);
+		}
+		catch (IllegalAccessException e) {
+			throw e;
+		}
+		catch (Exception e) {
+			IllegalAccessException iae = new IllegalAccessException("Cannot resolve canonical constructor of " + type.getName() + ": " + e.getMessage());
+			iae.initCause(e);
+			throw iae;
+		}
+	}
+
+}
@@ -0,0 +1,178 @@
+package com.opensource.dbhelp.dbutils;
+
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+
+/**
+ * 记录集字段与bean属性之间的映射计划。
+ * <p/>
+ * 同一个bean类对应同一组字段标签时，映射计划只需要计算一次：属性内省、字段名匹配的结果都保存在这里， 后续相同结构的查询直接复用，不再重复进行内省和名称匹配。
+ * <p/>
+ * 该类创建后不可变，可以被多个线程共享。
+ * <p/>
+ * Copyright: Copyright (c) 26-10-17 上午10:20
+ * <p/>
+ * Company: GNU General Public License
+ * <p/>
+ * Author: GNU General Public License
+ * <p/>
+ * Version: 1.0
+ * <p/>
+ */
+final class BeanMappingPlan {
+
+	/**
+	 * 映射到bean属性的字段序号（从1开始）
+	 */
+	final int[] columns;
+
+	/**
+	 * 每个映射字段对应的属性名
+	 */
+	final String[] propertyNames;
+
+	/**
+	 * 每个映射字段对应的setter调用器
+	 */
+	final PropertySetter[] setters;
+
+	/**
+	 * 每个映射字段按属性类型确定的读取器
+	 */
+	final ColumnReader[] readers;
+
+	/**
+	 * 通过构造函数创建对象时的构造器，通过setter创建时为null
+	 */
+	final BeanConstructor constructor;
+
+	/**
+	 * 每个映射字段对应的构造函数参数位置，通过setter创建时为null
+	 */
+	final int[] arguments;
+
+	/**
+	 * 构造函数参数的初始值，基本类型为默认值，其它为null；通过setter创建时为null
+	 */
+	final Object[] defaults;
+
+	/**
+	 * 根据内省结果和字段映射关系构建映射计划
+	 *
+	 * @param props
+	 *            bean属性数组
+	 * @param columnToProperty
+	 *            字段到属性的位置数组，0号元素无意义
+	 */
+	BeanMappingPlan(PropertyDescriptor[] props, int[] columnToProperty) {
+		int mapped = 0;
+		for (int col = 1; col < columnToProperty.length; col++) {
+			if (columnToProperty[col] != BeanProcessor.PROPERTY_NOT_FOUND && props[columnToProperty[col]].getWriteMethod() != null) {
+				mapped++;
+			}
+		}
+
+		this.columns = new int[mapped];
+		this.propertyNames = new String[mapped];
+		this.setters = new PropertySetter[mapped];
+		this.readers = new ColumnReader[mapped];
+
+		int i = 0;
+		for (int col = 1; col < columnToProperty.length; col++) {
+			if (columnToProperty[col] == BeanProcessor.PROPERTY_NOT_FOUND) {
+				continue;
+			}
+			PropertyDescriptor prop = props[columnToProperty[col]];
+			Method setter = prop.getWriteMethod();
+			if (setter == null) {
+				// 没有setter的属性不需要读取字段值
+				continue;
+			}
+			this.columns[i] = col;
+			this.propertyNames[i] = prop.getName();
+			this.setters[i] = PropertySetter.of(setter);
+			this.readers[i] = ColumnReader.forType(this.setters[i].type);
+			i++;
+		}
+
+		this.constructor = null;
+		this.arguments = null;
+		this.defaults = null;
+	}
+
+	/**
+	 * 根据构造器和字段映射关系构建通过构造函数创建对象的映射计划
+	 *
+	 * @param constructor
+	 *            构造器
+	 * @param columnToProperty
+	 *            字段到构造函数参数的位置数组，0号元素无意义
+	 */
+	BeanMappingPlan(BeanConstructor constructor, int[] columnToProperty) {
+		int mapped = 0;
+		for (int col = 1; col < columnToProperty.length; col++) {
+			if (columnToProperty[col] != BeanProcessor.PROPERTY_NOT_FOUND) {
+				mapped++;
+			}
+		}
+
+		this.columns = new int[mapped];
+		this.propertyNames = new String[mapped];
+		this.setters = null;
+		this.readers = new ColumnReader[mapped];
+		this.constructor = constructor;
+		this.arguments = new int[mapped];
+
+		int i = 0;
+		for (int col = 1; col < columnToProperty.length; col++) {
+			int argument = columnToProperty[col];
+			if (argument == BeanProcessor.PROPERTY_NOT_FOUND) {
+				continue;
+			}
+			this.columns[i] = col;
+			this.propertyNames[i] = constructor.parameterNames[argument];
+			this.readers[i] = ColumnReader.forType(constructor.parameterTypes[argument]);
+			this.arguments[i] = argument;
+			i++;
+		}
+
+		this.defaults = new Object[constructor.parameterTypes.length];
+		for (int arg = 0; arg < this.defaults.length; arg++) {
+			this.defaults[arg] = BeanProcessor.primitiveDefault(constructor.parameterTypes[arg]);
+		}
+	}
+
+	/**
+	 * 映射计划的缓存键：记录集的字段标签序列。计划按bean类分别缓存，键中不引用bean类。
+	 */
+	static final class Key {
+
+		private final String[] labels;
+
+		private final int hash;
+
+		Key(String[] labels) {
+			this.labels = labels;
+			this.hash = Arrays.hashCode(labels);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return hash == other.hash && Arrays.equals(labels, other.labels);
+		}
+	}
+
+}
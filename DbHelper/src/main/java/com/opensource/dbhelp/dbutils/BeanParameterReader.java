@@ -0,0 +1,301 @@
+package com.opensource.dbhelp.dbutils;
+
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按bean类和属性名列表缓存的参数读取器，把bean的属性值按顺序读出为SQL参数数组。
+ * <p/>
+ * 原来{@link AbstractQueryRunner#fillStatementWithBean(java.sql.PreparedStatement, Object, String...)}对每个bean都调用<code>Introspector.getBeanInfo</code>、线性查找属性名并通过<code>Method.invoke</code>读取属性值。
+ * 这里每个（类，属性名列表）只解析一次，每个属性的getter构建为{@link PropertyGetter}，之后读取bean只调用getter，不再有反射查找。 没有JavaBean getter时也接受与属性同名的无参public方法，可以用于record。
+ * 缓存有上限，达到上限后新的组合不再缓存，按需创建。
+ * <p/>
+ * 该类创建后不可变，可以被多个线程共享。
+ * <p/>
+ * Copyright: Copyright (c) 26-10-17 下午11:55
+ * <p/>
+ * Company: GNU General Public License
+ * <p/>
+ * Author: GNU General Public License
+ * <p/>
+ * Version: 1.0
+ * <p/>
+ */
+public final class BeanParameterReader {
+
+	/**
+	 * 最多缓存的读取器个数
+	 */
+	private static final int MAX_READERS = 1024;
+
+	/**
+	 * （类，属性名列表）到读取器的缓存
+	 */
+	private static final ConcurrentMap<Key, BeanParameterReader> readers = new ConcurrentHashMap<Key, BeanParameterReader>();
+
+	/**
+	 * 命中缓存的次数
+	 */
+	private static final LongAdder hits = new LongAdder();
+
+	/**
+	 * 解析bean类的次数
+	 */
+	private static final LongAdder misses = new LongAdder();
+
+	/**
+	 * bean类
+	 */
+	private final Class<?> type;
+
+	/**
+	 * 属性名，与参数顺序一致
+	 */
+	private final String[] propertyNames;
+
+	/**
+	 * 每个属性的getter调用器
+	 */
+	private final PropertyGetter[] getters;
+
+	private BeanParameterReader(Class<?> type, String[] propertyNames, PropertyGetter[] getters) {
+		this.type = type;
+		this.propertyNames = propertyNames;
+		this.getters = getters;
+	}
+
+	/**
+	 * 获取bean类及属性名列表对应的读取器，缓存中没有时解析bean类
+	 *
+	 * @param type
+	 *            bean类
+	 * @param propertyNames
+	 *            属性名，顺序与SQL参数一致
+	 * @return 读取器
+	 */
+	public static BeanParameterReader of(Class<?> type, String... propertyNames) {
+		Key key = new Key(type, propertyNames);
+		BeanParameterReader reader = readers.get(key);
+		if (reader != null) {
+			hits.increment();
+			return reader;
+		}
+		misses.increment();
+
+		reader = resolve(type, key.propertyNames);
+		if (readers.size() < MAX_READERS) {
+			BeanParameterReader existing = readers.putIfAbsent(key, reader);
+			if (existing != null) {
+				reader = existing;
+			}
+		}
+		return reader;
+	}
+
+	/**
+	 * 解析bean类，为每个属性构建getter调用器
+	 *
+	 * @param type
+	 *            bean类
+	 * @param propertyNames
+	 *            属性名
+	 * @return 读取器
+	 */
+	private static BeanParameterReader resolve(Class<?> type, String[] propertyNames) {
+		PropertyDescriptor[] descriptors;
+		try {
+			descriptors = Introspector.getBeanInfo(type).getPropertyDescriptors();
+		}
+		catch (IntrospectionException e) {
+			throw new RuntimeException("Couldn't introspect bean " + type.toString(), e);
+		}
+
+		PropertyGetter[] getters = new PropertyGetter[propertyNames.length];
+		for (int i = 0; i < propertyNames.length; i++) {
+			String propertyName = propertyNames[i];
+			if (propertyName == null) {
+				throw new NullPointerException("propertyName can't be null: " + i);
+			}
+			Method method = readMethod(type, descriptors, propertyName);
+			getters[i] = PropertyGetter.of(method);
+		}
+		return new BeanParameterReader(type, propertyNames, getters);
+	}
+
+	/**
+	 * 查找属性的读取方法，没有JavaBean getter时查找与属性同名的无参public方法
+	 *
+	 * @param type
+	 *            bean类
+	 * @param descriptors
+	 *            bean类的属性描述
+	 * @param propertyName
+	 *            属性名
+	 * @return 读取方法
+	 */
+	private static Method readMethod(Class<?> type, PropertyDescriptor[] descriptors, String propertyName) {
+		for (PropertyDescriptor descriptor : descriptors) {
+			if (propertyName.equals(descriptor.getName())) {
+				Method method = descriptor.getReadMethod();
+				if (method == null) {
+					throw new RuntimeException("No read method for bean property " + type + " " + propertyName);
+				}
+				return method;
+			}
+		}
+		try {
+			Method method = type.getMethod(propertyName);
+			if (method.getReturnType() != void.class && !Modifier.isStatic(method.getModifiers())) {
+				return method;
+			}
+		}
+		catch (NoSuchMethodException e) { // NOPMD
+			// 按属性不存在处理
+		}
+		throw new RuntimeException("Couldn't find bean property: " + type + " " + propertyName);
+	}
+
+	/**
+	 * 按属性名顺序读出bean的属性值，每次返回新的数组
+	 *
+	 * @param bean
+	 *            bean对象，类型必须为创建读取器时的bean类或其子类
+	 * @return 属性值数组
+	 */
+	public Object[] read(Object bean) {
+		Object[] params = new Object[getters.length];
+		for (int i = 0; i < getters.length; i++) {
+			try {
+				params[i] = getters[i].get(bean);
+			}
+			catch (RuntimeException e) {
+				throw e;
+			}
+			catch (Error e) {
+				throw e;
+			}
+			catch (Throwable e) {
+				throw new RuntimeException("Couldn't read bean property: " + type + " " + propertyNames[i], e);
+			}
+		}
+		return params;
+	}
+
+	/**
+	 * 把bean逐个读出为参数行，读取器按bean类取得，相邻bean类相同时复用上一个读取器。返回的Iterator惰性读取，可以直接用于分批执行的批处理。
+	 *
+	 * @param beans
+	 *            bean列表，不能包含null
+	 * @param propertyNames
+	 *            属性名，顺序与SQL参数一致
+	 * @return 参数行
+	 */
+	public static Iterator<Object[]> rows(final Iterable<?> beans, final String... propertyNames) {
+		final Iterator<?> it = beans.iterator();
+		return new Iterator<Object[]>() {
+
+			private BeanParameterReader reader;
+
+			@Override
+			public boolean hasNext() {
+				return it.hasNext();
+			}
+
+			@Override
+			public Object[] next() {
+				Object bean = it.next();
+				if (bean == null) {
+					throw new NullPointerException("bean can't be null");
+				}
+				if (reader == null || reader.type != bean.getClass()) {
+					reader = of(bean.getClass(), propertyNames);
+				}
+				return reader.read(bean);
+			}
+		};
+	}
+
+	/**
+	 * bean类
+	 *
+	 * @return bean类
+	 */
+	public Class<?> getType() {
+		return type;
+	}
+
+	/**
+	 * 命中缓存的次数
+	 *
+	 * @return 命中次数
+	 */
+	public static long getHits() {
+		return hits.sum();
+	}
+
+	/**
+	 * 解析bean类的次数
+	 *
+	 * @return 未命中次数
+	 */
+	public static long getMisses() {
+		return misses.sum();
+	}
+
+	/**
+	 * 当前缓存的读取器个数
+	 *
+	 * @return 缓存个数
+	 */
+	public static int size() {
+		return readers.size();
+	}
+
+	/**
+	 * 清空缓存，例如重新加载bean类之后
+	 */
+	public static void clear() {
+		readers.clear();
+	}
+
+	/**
+	 * 缓存键，bean类及属性名列表
+	 */
+	private static final class Key {
+
+		final Class<?> type;
+
+		final String[] propertyNames;
+
+		final int hash;
+
+		Key(Class<?> type, String[] propertyNames) {
+			this.type = type;
+			this.propertyNames = propertyNames.clone();
+			this.hash = 31 * type.hashCode() + Arrays.hashCode(this.propertyNames);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return type == other.type && Arrays.equals(propertyNames, other.propertyNames);
+		}
+	}
+
+}
@@ -7,24 +7,32 @@ import java.beans.BeanInfo;
 import java.beans.IntrospectionException;
 import java.beans.Introspector;
 import java.beans.PropertyDescriptor;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
-import java.sql.SQLXML;
 import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
 
 /**
  * <p>
  * <code>BeanProcessor</code> matches column names to bean property names and converts <code>ResultSet</code> columns into objects for those bean properties. Subclasses should override the methods in the processing chain to customize behavior.
  * </p>
  * <p>
+ * The column to property mapping of each bean class and result set shape is resolved once and cached in a mapping plan, see {@link #getMappingPlanHits()} and {@link #getMappingPlanMisses()}.
+ * </p>
+ * <p>
+ * Immutable beans are created through their constructor: Java records use the canonical constructor, and classes without a public no-arg constructor use a public constructor annotated with <code>java.beans.ConstructorProperties</code>. Columns are matched to the constructor parameter names in the same way as to bean properties, and the constructor is invoked once per row.
+ * </p>
+ * <p>
  * This class is thread-safe.
  * </p>
  *
@@ -43,11 +51,41 @@ public class BeanProcessor {
 	 */
 	private static final Map<Class<?>, Object> primitiveDefaults = new HashMap<Class<?>, Object>();
 
+	/**
+	 * Upper bound of cached mapping plans. Once reached, new result set shapes are mapped without being cached.
+	 */
+	private static final int MAX_MAPPING_PLANS = 1024;
+
 	/**
 	 * ResultSet column to bean property name overrides.
 	 */
 	private final Map<String, String> columnToPropertyOverrides;
 
+	/**
+	 * Mapping plans of each bean class keyed by result set column labels. Held in a <code>ClassValue</code> so that caching plans does not keep bean classes and their class loaders reachable; replaced as a whole by {@link #clearMappingPlans()}.
+	 */
+	private volatile ClassValue<ConcurrentMap<BeanMappingPlan.Key, BeanMappingPlan>> mappingPlans = newMappingPlans();
+
+	/**
+	 * Number of mapping plans cached since the last {@link #clearMappingPlans()}.
+	 */
+	private final AtomicInteger mappingPlanCount = new AtomicInteger();
+
+	/**
+	 * True if <code>processColumn</code> is not overridden, so columns are read with the typed readers of the mapping plan and <code>int</code>, <code>long</code> and <code>double</code> columns are set without boxing.
+	 */
+	private final boolean defaultColumnProcessing;
+
+	/**
+	 * Number of lookups answered by a cached mapping plan.
+	 */
+	private final LongAdder mappingPlanHits = new LongAdder();
+
+	/**
+	 * Number of lookups that had to introspect the bean class and match column names.
+	 */
+	private final LongAdder mappingPlanMisses = new LongAdder();
+
 	static {
 		primitiveDefaults.put(Integer.TYPE, Integer.valueOf(0));
 		primitiveDefaults.put(Short.TYPE, Short.valueOf((short) 0));
@@ -59,6 +97,17 @@ public class BeanProcessor {
 		primitiveDefaults.put(Character.TYPE, Character.valueOf((char) 0));
 	}
 
+	/**
+	 * Returns the value a primitive property receives for SQL NULL.
+	 *
+	 * @param type
+	 *            The property type.
+	 * @return The default value, or null if the type is not primitive.
+	 */
+	static Object primitiveDefault(Class<?> type) {
+		return primitiveDefaults.get(type);
+	}
+
 	/**
 	 * Constructor for BeanProcessor.
 	 */
@@ -78,7 +127,29 @@ public class BeanProcessor {
 		if (columnToPropertyOverrides == null) {
 			throw new IllegalArgumentException("columnToPropertyOverrides map cannot be null");
 		}
-		this.columnToPropertyOverrides = columnToPropertyOverrides;
+		// copied so that later changes to the caller's map cannot disagree with cached mapping plans
+		this.columnToPropertyOverrides = new HashMap<String, String>(columnToPropertyOverrides);
+		this.defaultColumnProcessing = !overridesProcessColumn(this.getClass());
+	}
+
+	/**
+	 * Checks whether a subclass customizes column conversion by overriding <code>processColumn</code>.
+	 *
+	 * @param c
+	 *            The runtime class of this processor.
+	 * @return true if <code>processColumn</code> is overridden below <code>BeanProcessor</code>.
+	 */
+	private static boolean overridesProcessColumn(Class<?> c) {
+		for (; c != null && c != BeanProcessor.class; c = c.getSuperclass()) {
+			try {
+				c.getDeclaredMethod("processColumn", ResultSet.class, Integer.TYPE, Class.class);
+				return true;
+			}
+			catch (NoSuchMethodException e) { // NOPMD
+				// keep looking
+			}
+		}
+		return false;
 	}
 
 	/**
@@ -103,12 +174,19 @@ public class BeanProcessor {
 	 */
 	public <T> T toBean(ResultSet rs, Class<T> type) throws SQLException {
 
-		PropertyDescriptor[] props = this.propertyDescriptors(type);
-
-		ResultSetMetaData rsmd = rs.getMetaData();
-		int[] columnToProperty = this.mapColumnsToProperties(rsmd, props);
+		BeanMappingPlan plan = this.mappingPlan(rs.getMetaData(), type);
+		if (plan.constructor == null) {
+			return this.createBean(rs, type, plan, null);
+		}
 
-		return this.createBean(rs, type, props, columnToProperty);
+		// single rows use the per-thread argument buffer of the constructor
+		Object[] args = plan.constructor.borrowArguments();
+		try {
+			return this.createBean(rs, type, plan, args);
+		}
+		finally {
+			plan.constructor.releaseArguments(args);
+		}
 	}
 
 	/**
@@ -138,18 +216,251 @@ public class BeanProcessor {
 			return results;
 		}
 
-		PropertyDescriptor[] props = this.propertyDescriptors(type);
-		ResultSetMetaData rsmd = rs.getMetaData();
-		int[] columnToProperty = this.mapColumnsToProperties(rsmd, props);
+		BeanMappingPlan plan = this.mappingPlan(rs.getMetaData(), type);
+		// the argument buffer is confined to this call and reused for every row
+		Object[] args = plan.constructor == null ? null : new Object[plan.defaults.length];
 
 		do {
-			results.add(this.createBean(rs, type, props, columnToProperty));
+			results.add(this.createBean(rs, type, plan, args));
 		}
 		while (rs.next());
 
 		return results;
 	}
 
+	/**
+	 * Converts the rows of a <code>ResultSet</code> into JavaBeans one at a time and passes each bean to the given action as soon as it is read, without collecting them. The mapping rules are the same as for {@link #toBeanList(ResultSet, Class)}.
+	 *
+	 * @param <T>
+	 *            The type of bean to create
+	 * @param rs
+	 *            ResultSet that supplies the bean data, not yet advanced with <code>next()</code>
+	 * @param type
+	 *            Class from which to create the bean instances
+	 * @param action
+	 *            Receives each bean in the order the rows are returned by the <code>ResultSet</code>
+	 * @throws java.sql.SQLException
+	 *             if a database access error occurs
+	 * @return the number of rows processed
+	 */
+	public <T> int forEachBean(ResultSet rs, Class<T> type, Consumer<? super T> action) throws SQLException {
+		if (!rs.next()) {
+			return 0;
+		}
+
+		BeanMappingPlan plan = this.mappingPlan(rs.getMetaData(), type);
+		Object[] args = plan.constructor == null ? null : new Object[plan.defaults.length];
+
+		int rows = 0;
+		do {
+			action.accept(this.createBean(rs, type, plan, args));
+			rows++;
+		}
+		while (rs.next());
+
+		return rows;
+	}
+
+	/**
+	 * Returns a reader that converts rows of a result set with the given columns into JavaBeans. The mapping plan is resolved once when the reader is created, so the reader suits callers that pull rows one at a time, such as a <code>Spliterator</code>. The mapping rules are the same as for {@link #toBean(ResultSet, Class)}.
+	 *
+	 * @param <T>
+	 *            The type of bean to create
+	 * @param rsmd
+	 *            The <code>ResultSetMetaData</code> of the result set the reader is used with.
+	 * @param type
+	 *            Class from which to create the bean instances
+	 * @throws java.sql.SQLException
+	 *             if a database access error occurs or introspection failed.
+	 * @return the bean reader, which is not thread-safe
+	 */
+	public <T> BeanReader<T> beanReader(ResultSetMetaData rsmd, final Class<T> type) throws SQLException {
+		final BeanMappingPlan plan = this.mappingPlan(rsmd, type);
+		final Object[] args = plan.constructor == null ? null : new Object[plan.defaults.length];
+		return new BeanReader<T>() {
+
+			@Override
+			public T read(ResultSet rs) throws SQLException {
+				return BeanProcessor.this.createBean(rs, type, plan, args);
+			}
+		};
+	}
+
+	/**
+	 * Matches the columns of a result set to the given properties with the rules of this processor, including the column to property overrides. Row processors that create beans without introspection, for example from generated code, use this to map columns exactly as this processor would.
+	 *
+	 * @param type
+	 *            The bean class the properties belong to.
+	 * @param rsmd
+	 *            The <code>ResultSetMetaData</code> containing column information.
+	 * @param props
+	 *            The bean property descriptors; only their names are used.
+	 * @throws java.sql.SQLException
+	 *             if a database access error occurs
+	 * @return An int[] with column index to property index mappings. The 0th element is meaningless because JDBC column indexing starts at 1.
+	 */
+	public int[] matchColumns(Class<?> type, ResultSetMetaData rsmd, PropertyDescriptor[] props) throws SQLException {
+		return this.mapColumnsToProperties(type, rsmd, props);
+	}
+
+	/**
+	 * Returns the mapping plan for the given bean class and result set shape. Plans are cached per <code>BeanProcessor</code> instance, so repeated queries with the same column labels skip introspection and column name matching.
+	 *
+	 * @param rsmd
+	 *            The <code>ResultSetMetaData</code> containing column information.
+	 * @param type
+	 *            The bean type.
+	 * @return The mapping plan.
+	 * @throws java.sql.SQLException
+	 *             if a database access error occurs or introspection failed.
+	 */
+	private BeanMappingPlan mappingPlan(ResultSetMetaData rsmd, Class<?> type) throws SQLException {
+		int cols = rsmd.getColumnCount();
+		String[] labels = new String[cols];
+		for (int col = 1; col <= cols; col++) {
+			labels[col - 1] = columnLabel(rsmd, col);
+		}
+
+		ConcurrentMap<BeanMappingPlan.Key, BeanMappingPlan> plans = this.mappingPlans.get(type);
+		BeanMappingPlan.Key key = new BeanMappingPlan.Key(labels);
+		BeanMappingPlan plan = plans.get(key);
+		if (plan != null) {
+			this.mappingPlanHits.increment();
+			return plan;
+		}
+		this.mappingPlanMisses.increment();
+
+		BeanConstructor constructor = this.beanConstructor(type);
+		if (constructor != null) {
+			PropertyDescriptor[] params = this.parameterDescriptors(constructor);
+			plan = new BeanMappingPlan(constructor, this.mapColumnsToProperties(type, rsmd, params));
+		} else {
+			PropertyDescriptor[] props = this.propertyDescriptors(type);
+			int[] columnToProperty = this.mapColumnsToProperties(type, rsmd, props);
+			plan = new BeanMappingPlan(props, columnToProperty);
+		}
+
+		if (this.mappingPlanCount.get() < MAX_MAPPING_PLANS) {
+			BeanMappingPlan existing = plans.putIfAbsent(key, plan);
+			if (existing != null) {
+				plan = existing;
+			} else {
+				this.mappingPlanCount.incrementAndGet();
+			}
+		}
+		return plan;
+	}
+
+	/**
+	 * Returns the constructor used to create instances of the given class, or null if it is created with its no-arg constructor and setters.
+	 *
+	 * @param type
+	 *            The bean type.
+	 * @return The bean constructor or null.
+	 * @throws java.sql.SQLException
+	 *             if the constructor cannot be accessed.
+	 */
+	private BeanConstructor beanConstructor(Class<?> type) throws SQLException {
+		try {
+			return BeanConstructor.of(type);
+		}
+		catch (IllegalAccessException e) {
+			throw new SQLException("Cannot create " + type.getName() + ": " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Describes the constructor parameters as properties without accessors, so that they are matched to columns by <code>mapColumnsToProperties</code>.
+	 *
+	 * @param constructor
+	 *            The bean constructor.
+	 * @return One descriptor per constructor parameter, in parameter order.
+	 * @throws java.sql.SQLException
+	 *             if a parameter name is not a valid property name.
+	 */
+	private PropertyDescriptor[] parameterDescriptors(BeanConstructor constructor) throws SQLException {
+		String[] names = constructor.parameterNames;
+		PropertyDescriptor[] params = new PropertyDescriptor[names.length];
+		try {
+			for (int i = 0; i < names.length; i++) {
+				params[i] = new PropertyDescriptor(names[i], null, null);
+			}
+		}
+		catch (IntrospectionException e) {
+			throw new SQLException("Bean introspection failed: " + e.getMessage());
+		}
+		return params;
+	}
+
+	/**
+	 * Returns the label of the given column, or its name if the driver reports no label.
+	 *
+	 * @param rsmd
+	 *            The <code>ResultSetMetaData</code> containing column information.
+	 * @param col
+	 *            The column index, starting at 1.
+	 * @return The column label.
+	 * @throws java.sql.SQLException
+	 *             if a database access error occurs
+	 */
+	static String columnLabel(ResultSetMetaData rsmd, int col) throws SQLException {
+		String columnName = rsmd.getColumnLabel(col);
+		if (null == columnName || 0 == columnName.length()) {
+			columnName = rsmd.getColumnName(col);
+		}
+		return columnName;
+	}
+
+	/**
+	 * Returns the number of bean mappings served from the mapping plan cache.
+	 *
+	 * @return the cache hit count
+	 */
+	public long getMappingPlanHits() {
+		return this.mappingPlanHits.sum();
+	}
+
+	/**
+	 * Returns the number of bean mappings that had to build a new mapping plan.
+	 *
+	 * @return the cache miss count
+	 */
+	public long getMappingPlanMisses() {
+		return this.mappingPlanMisses.sum();
+	}
+
+	/**
+	 * Returns the number of mapping plans currently cached.
+	 *
+	 * @return the cached plan count
+	 */
+	public int getMappingPlanCount() {
+		return this.mappingPlanCount.get();
+	}
+
+	/**
+	 * Discards all cached mapping plans.
+	 */
+	public void clearMappingPlans() {
+		this.mappingPlans = newMappingPlans();
+		this.mappingPlanCount.set(0);
+	}
+
+	/**
+	 * Creates an empty per-class mapping plan cache.
+	 *
+	 * @return the cache
+	 */
+	private static ClassValue<ConcurrentMap<BeanMappingPlan.Key, BeanMappingPlan>> newMappingPlans() {
+		return new ClassValue<ConcurrentMap<BeanMappingPlan.Key, BeanMappingPlan>>() {
+
+			@Override
+			protected ConcurrentMap<BeanMappingPlan.Key, BeanMappingPlan> computeValue(Class<?> type) {
+				return new ConcurrentHashMap<BeanMappingPlan.Key, BeanMappingPlan>();
+			}
+		};
+	}
+
 	/**
 	 * Creates a new object and initializes its fields from the ResultSet.
 	 * 
@@ -159,97 +470,200 @@ public class BeanProcessor {
 	 *            The result set.
 	 * @param type
 	 *            The bean type (the return type of the object).
-	 * @param props
-	 *            The property descriptors.
-	 * @param columnToProperty
-	 *            The column indices in the result set.
+	 * @param plan
+	 *            The mapping plan for this result set.
+	 * @param args
+	 *            The constructor argument buffer to reuse, or null to allocate one. Only used when the plan creates beans through a constructor.
 	 * @return An initialized object.
 	 * @throws java.sql.SQLException
 	 *             if a database error occurs.
 	 */
-	private <T> T createBean(ResultSet rs, Class<T> type, PropertyDescriptor[] props, int[] columnToProperty) throws SQLException {
+	private <T> T createBean(ResultSet rs, Class<T> type, BeanMappingPlan plan, Object[] args) throws SQLException {
 
-		T bean = this.newInstance(type);
+		if (plan.constructor != null) {
+			return this.construct(rs, type, plan, args);
+		}
 
-		for (int i = 1; i < columnToProperty.length; i++) {
+		T bean = this.newInstance(type);
 
-			if (columnToProperty[i] == PROPERTY_NOT_FOUND) {
-				continue;
-			}
+		int[] columns = plan.columns;
+		for (int i = 0; i < columns.length; i++) {
 
-			PropertyDescriptor prop = props[columnToProperty[i]];
-			Class<?> propType = prop.getPropertyType();
+			PropertySetter setter = plan.setters[i];
+			Class<?> propType = setter.type;
 
-			Object value = this.processColumn(rs, i, propType);
+			Object value;
+			if (this.defaultColumnProcessing) {
+				if (propType.isPrimitive() && this.setPrimitive(rs, columns[i], bean, setter, plan.propertyNames[i])) {
+					continue;
+				}
+				value = plan.readers[i].read(rs, columns[i]);
+			} else {
+				value = this.processColumn(rs, columns[i], propType);
+			}
 
 			if (propType != null && value == null && propType.isPrimitive()) {
 				value = primitiveDefaults.get(propType);
 			}
 
-			this.callSetter(bean, prop, value);
+			this.callSetter(bean, setter, plan.propertyNames[i], value);
 		}
 
 		return bean;
 	}
 
 	/**
-	 * Calls the setter method on the target object for the given property. If no setter method exists for the property, this method does nothing.
-	 * 
-	 * @param target
-	 *            The object to set the property on.
-	 * @param prop
-	 *            The property to set.
-	 * @param value
-	 *            The value to pass into the setter.
+	 * Reads the mapped columns into the constructor arguments and invokes the constructor once. Unmapped primitive parameters receive their default values and other unmapped parameters receive <code>null</code>.
+	 *
+	 * @param <T>
+	 *            The type of bean to create
+	 * @param rs
+	 *            The result set, positioned on a valid row.
+	 * @param type
+	 *            The bean type.
+	 * @param plan
+	 *            The constructor mapping plan for this result set.
+	 * @param args
+	 *            The argument buffer to reuse, or null to allocate one.
+	 * @return The newly created object.
 	 * @throws java.sql.SQLException
-	 *             if an error occurs setting the property.
+	 *             if a database access error occurs or the constructor fails.
 	 */
-	private void callSetter(Object target, PropertyDescriptor prop, Object value) throws SQLException {
+	private <T> T construct(ResultSet rs, Class<T> type, BeanMappingPlan plan, Object[] args) throws SQLException {
+		if (args == null) {
+			args = new Object[plan.defaults.length];
+		}
+		System.arraycopy(plan.defaults, 0, args, 0, args.length);
+
+		Class<?>[] parameterTypes = plan.constructor.parameterTypes;
+		int[] columns = plan.columns;
+		for (int i = 0; i < columns.length; i++) {
+			int arg = plan.arguments[i];
+			Class<?> propType = parameterTypes[arg];
 
-		Method setter = prop.getWriteMethod();
+			Object value;
+			if (this.defaultColumnProcessing) {
+				value = plan.readers[i].read(rs, columns[i]);
+			} else {
+				value = this.processColumn(rs, columns[i], propType);
+			}
+
+			if (value == null && propType.isPrimitive()) {
+				value = primitiveDefaults.get(propType);
+			}
 
-		if (setter == null) {
-			return;
+			args[arg] = this.convertValue(value, propType, plan.propertyNames[i]);
 		}
 
-		Class<?>[] params = setter.getParameterTypes();
 		try {
-			// convert types for some popular ones
-			if (value instanceof java.util.Date) {
-				final String targetType = params[0].getName();
-				if ("java.sql.Date".equals(targetType)) {
-					value = new java.sql.Date(((java.util.Date) value).getTime());
-				} else if ("java.sql.Time".equals(targetType)) {
-					value = new java.sql.Time(((java.util.Date) value).getTime());
-				} else if ("java.sql.Timestamp".equals(targetType)) {
-					value = new Timestamp(((java.util.Date) value).getTime());
-				}
-			}
+			return type.cast(plan.constructor.newInstance(args));
+		}
+		catch (Throwable e) {
+			throw new SQLException("Cannot create " + type.getName() + ": " + e.getMessage(), e);
+		}
+	}
 
-			// Don't call setter if the value object isn't the right type
-			if (this.isCompatibleType(value, params[0])) {
-				setter.invoke(target, new Object[] { value });
+	/**
+	 * Reads an <code>int</code>, <code>long</code> or <code>double</code> column and passes it to the setter without boxing. SQL NULL becomes 0, like the <code>ResultSet</code> get* methods.
+	 *
+	 * @param rs
+	 *            The result set, positioned on a valid row.
+	 * @param index
+	 *            The column index.
+	 * @param target
+	 *            The object to set the property on.
+	 * @param setter
+	 *            The property's setter.
+	 * @param propName
+	 *            The property name, used in error messages.
+	 * @return false if the property type has no unboxed path.
+	 * @throws java.sql.SQLException
+	 *             if a database access error occurs or the setter fails.
+	 */
+	private boolean setPrimitive(ResultSet rs, int index, Object target, PropertySetter setter, String propName) throws SQLException {
+		Class<?> type = setter.type;
+		try {
+			if (type == Integer.TYPE) {
+				setter.setInt(target, rs.getInt(index));
+			} else if (type == Long.TYPE) {
+				setter.setLong(target, rs.getLong(index));
+			} else if (type == Double.TYPE) {
+				setter.setDouble(target, rs.getDouble(index));
 			} else {
-				throw new SQLException("Cannot set " + prop.getName() + ": incompatible types, cannot convert " + value.getClass().getName() + " to " + params[0].getName());
-				// value cannot be null here because isCompatibleType allows null
+				return false;
 			}
-
 		}
-		catch (IllegalArgumentException e) {
-			throw new SQLException("Cannot set " + prop.getName() + ": " + e.getMessage());
+		catch (SQLException e) {
+			throw e;
+		}
+		catch (Throwable e) {
+			throw new SQLException("Cannot set " + propName + ": " + e.getMessage(), e);
+		}
+		return true;
+	}
 
+	/**
+	 * Calls the setter on the target object for the given property.
+	 * 
+	 * @param target
+	 *            The object to set the property on.
+	 * @param setter
+	 *            The property's setter.
+	 * @param propName
+	 *            The property name, used in error messages.
+	 * @param value
+	 *            The value to pass into the setter.
+	 * @throws java.sql.SQLException
+	 *             if an error occurs setting the property.
+	 */
+	private void callSetter(Object target, PropertySetter setter, String propName, Object value) throws SQLException {
+
+		value = this.convertValue(value, setter.type, propName);
+
+		try {
+			setter.set(target, value);
 		}
-		catch (IllegalAccessException e) {
-			throw new SQLException("Cannot set " + prop.getName() + ": " + e.getMessage());
+		catch (Throwable e) {
+			throw new SQLException("Cannot set " + propName + ": " + e.getMessage(), e);
+		}
+	}
 
+	/**
+	 * Converts a column value to the given property type where a popular conversion exists and checks that the result can be passed to the property.
+	 *
+	 * @param value
+	 *            The column value.
+	 * @param type
+	 *            The property type.
+	 * @param propName
+	 *            The property name, used in error messages.
+	 * @return The converted value.
+	 * @throws java.sql.SQLException
+	 *             if the value is not compatible with the property type.
+	 */
+	private Object convertValue(Object value, Class<?> type, String propName) throws SQLException {
+
+		// convert types for some popular ones
+		if (value instanceof java.util.Date) {
+			if (type == java.sql.Date.class) {
+				value = new java.sql.Date(((java.util.Date) value).getTime());
+			} else if (type == java.sql.Time.class) {
+				value = new java.sql.Time(((java.util.Date) value).getTime());
+			} else if (type == Timestamp.class) {
+				value = new Timestamp(((java.util.Date) value).getTime());
+			}
 		}
-		catch (InvocationTargetException e) {
-			throw new SQLException("Cannot set " + prop.getName() + ": " + e.getMessage());
+
+		// Don't call setter if the value object isn't the right type
+		if (!this.isCompatibleType(value, type)) {
+			// value cannot be null here because isCompatibleType allows null
+			throw new SQLException("Cannot set " + propName + ": incompatible types, cannot convert " + value.getClass().getName() + " to " + type.getName());
 		}
+		return value;
 	}
 
 	/**
-	 * ResultSet.getObject() returns an Integer object for an INT column. The setter method for the property might take an Integer or a primitive int. This method returns true if the value can be successfully passed into the setter method. Remember, Method.invoke() handles the unwrapping of Integer into an int.
+	 * ResultSet.getObject() returns an Integer object for an INT column. The setter method for the property might take an Integer or a primitive int. This method returns true if the value can be successfully passed into the setter method. Remember, the property setter handles the unwrapping of Integer into an int.
 	 *
 	 * @param value
 	 *            The value to be passed into the setter method.
@@ -292,7 +706,7 @@ public class BeanProcessor {
 	}
 
 	/**
-	 * Factory method that returns a new instance of the given Class. This is called at the start of the bean creation process and may be overridden to provide custom behavior like returning a cached bean instance.
+	 * Factory method that returns a new instance of the given Class. This is called at the start of the bean creation process and may be overridden to provide custom behavior like returning a cached bean instance. It is not called for beans created through their constructor.
 	 * 
 	 * @param <T>
 	 *            The type of object to create
@@ -339,6 +753,23 @@ public class BeanProcessor {
 		return beanInfo.getPropertyDescriptors();
 	}
 
+	/**
+	 * Maps the columns of a result set to the properties of the given bean class. Subclasses can override this method to keep per-class lookup structures; this implementation delegates to {@link #mapColumnsToProperties(ResultSetMetaData, PropertyDescriptor[])}.
+	 *
+	 * @param type
+	 *            The bean class the property descriptors were obtained from.
+	 * @param rsmd
+	 *            The <code>ResultSetMetaData</code> containing column information.
+	 * @param props
+	 *            The bean property descriptors of <code>type</code>.
+	 * @throws java.sql.SQLException
+	 *             if a database access error occurs
+	 * @return An int[] with column index to property index mappings. The 0th element is meaningless because JDBC column indexing starts at 1.
+	 */
+	protected int[] mapColumnsToProperties(Class<?> type, ResultSetMetaData rsmd, PropertyDescriptor[] props) throws SQLException {
+		return this.mapColumnsToProperties(rsmd, props);
+	}
+
 	/**
 	 * The positions in the returned array represent column numbers. The values stored at each position represent the index in the <code>PropertyDescriptor[]</code> for the bean property that matches the column name. If no bean property was found for a column, the position is set to <code>PROPERTY_NOT_FOUND</code>.
 	 *
@@ -357,10 +788,7 @@ public class BeanProcessor {
 		Arrays.fill(columnToProperty, PROPERTY_NOT_FOUND);
 
 		for (int col = 1; col <= cols; col++) {
-			String columnName = rsmd.getColumnLabel(col);
-			if (null == columnName || 0 == columnName.length()) {
-				columnName = rsmd.getColumnName(col);
-			}
+			String columnName = columnLabel(rsmd, col);
 			String propertyName = columnToPropertyOverrides.get(columnName);
 			if (propertyName == null) {
 				propertyName = columnName;
@@ -380,7 +808,10 @@ public class BeanProcessor {
 	/**
 	 * Convert a <code>ResultSet</code> column into an object. Simple implementations could just call <code>rs.getObject(index)</code> while more complex implementations could perform type manipulation to match the column's type to the bean property type.
 	 * <p>
-	 * This implementation calls the appropriate <code>ResultSet</code> getter method for the given property type to perform the type conversion. If the property type doesn't match one of the supported <code>ResultSet</code> types, <code>getObject</code> is called.
+	 * This implementation calls the appropriate <code>ResultSet</code> getter method for the given property type to perform the type conversion, reading the column only once and checking <code>wasNull()</code> for wrapper types. If the property type doesn't match one of the supported <code>ResultSet</code> types, <code>getObject</code> is called.
+	 * </p>
+	 * <p>
+	 * Bean mapping resolves the reader of every column once per mapping plan and does not call this method unless a subclass overrides it.
 	 * </p>
 	 *
 	 * @param rs
@@ -394,45 +825,7 @@ public class BeanProcessor {
 	 * @return The object from the <code>ResultSet</code> at the given column index after optional type processing or <code>null</code> if the column value was SQL NULL.
 	 */
 	protected Object processColumn(ResultSet rs, int index, Class<?> propType) throws SQLException {
-
-		if (!propType.isPrimitive() && rs.getObject(index) == null) {
-			return null;
-		}
-
-		if (propType.equals(String.class)) {
-			return rs.getString(index);
-
-		} else if (propType.equals(Integer.TYPE) || propType.equals(Integer.class)) {
-			return Integer.valueOf(rs.getInt(index));
-
-		} else if (propType.equals(Boolean.TYPE) || propType.equals(Boolean.class)) {
-			return Boolean.valueOf(rs.getBoolean(index));
-
-		} else if (propType.equals(Long.TYPE) || propType.equals(Long.class)) {
-			return Long.valueOf(rs.getLong(index));
-
-		} else if (propType.equals(Double.TYPE) || propType.equals(Double.class)) {
-			return Double.valueOf(rs.getDouble(index));
-
-		} else if (propType.equals(Float.TYPE) || propType.equals(Float.class)) {
-			return Float.valueOf(rs.getFloat(index));
-
-		} else if (propType.equals(Short.TYPE) || propType.equals(Short.class)) {
-			return Short.valueOf(rs.getShort(index));
-
-		} else if (propType.equals(Byte.TYPE) || propType.equals(Byte.class)) {
-			return Byte.valueOf(rs.getByte(index));
-
-		} else if (propType.equals(Timestamp.class)) {
-			return rs.getTimestamp(index);
-
-		} else if (propType.equals(SQLXML.class)) {
-			return rs.getSQLXML(index);
-
-		} else {
-			return rs.getObject(index);
-		}
-
+		return ColumnReader.forType(propType).read(rs, index);
 	}
 
-}
\ No newline at end of file
+}
\ No newline at end of file
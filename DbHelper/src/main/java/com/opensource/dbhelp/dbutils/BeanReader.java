@@ -0,0 +1,39 @@
+package com.opensource.dbhelp.dbutils;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * 按一个记录集的字段解析好的bean转换器。
+ * <p/>
+ * 由{@link BeanProcessor#beanReader(java.sql.ResultSetMetaData, Class)}或{@link BasicRowProcessor#beanReader(java.sql.ResultSetMetaData, Class)}创建，字段与属性的匹配在创建时完成一次，之后逐行调用{@link #read(ResultSet)}不再读取记录集元数据。
+ * 只能用于创建它的记录集或字段完全相同的记录集。
+ * <p/>
+ * 该类不是线程安全的，同一时间只能在一个线程中使用。
+ * <p/>
+ * Copyright: Copyright (c) 26-10-17 下午4:20
+ * <p/>
+ * Company: GNU General Public License
+ * <p/>
+ * Author: GNU General Public License
+ * <p/>
+ * Version: 1.0
+ * <p/>
+ *
+ * @param <T>
+ *            转换后的bean类型
+ */
+public interface BeanReader<T> {
+
+	/**
+	 * 把记录集的当前行转换为bean
+	 *
+	 * @param rs
+	 *            记录集，已定位到有效行
+	 * @return bean
+	 * @throws SQLException
+	 *             if a database access error occurs
+	 */
+	T read(ResultSet rs) throws SQLException;
+
+}
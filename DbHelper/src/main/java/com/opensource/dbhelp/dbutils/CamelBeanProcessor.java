@@ -4,14 +4,18 @@ import java.beans.PropertyDescriptor;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.util.Arrays;
-
-import org.apache.commons.lang3.text.WordUtils;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * 记录集字段及bean属性之间的映射转换实现类。
  * <p/>
  * 重写dbutils中“beanProcessor”的"mapColumnsToProperties"方法， 使其可以实现数据表user_id到对象userId和user_id到对象属性user_id之间的自动转换。 注：引用时需要注意的是平台优先处理“user_id到对象userId”。
  * <p/>
+ * 每个bean类的属性名只建立一次索引并缓存在bean类上，类被卸载时随之释放；每个字段名只格式化一次，字段匹配的复杂度为O(字段数)。
+ * <p/>
  * Copyright: Copyright (c) Feb 6, 2009 3:39:21 PM
  * <p/>
  * Company: GNU General Public License
@@ -23,6 +27,40 @@ import org.apache.commons.lang3.text.WordUtils;
  */
 public class CamelBeanProcessor extends BeanProcessor {
 
+	/**
+	 * 各bean类的属性名索引
+	 */
+	private final ClassValue<AtomicReference<PropertyIndex>> propertyIndexes = new ClassValue<AtomicReference<PropertyIndex>>() {
+
+		@Override
+		protected AtomicReference<PropertyIndex> computeValue(Class<?> type) {
+			return new AtomicReference<PropertyIndex>();
+		}
+	};
+
+	/**
+	 * 对象属性和字段关系映射，使用缓存的bean类属性名索引
+	 *
+	 * @param type
+	 *            bean类
+	 * @param rsmd
+	 *            元字符结果集
+	 * @param props
+	 *            对象属性数组
+	 * @return 对象和数据表字段关系位置数组
+	 */
+	@Override
+	protected int[] mapColumnsToProperties(Class<?> type, ResultSetMetaData rsmd, PropertyDescriptor[] props) throws SQLException {
+		AtomicReference<PropertyIndex> cached = propertyIndexes.get(type);
+		PropertyIndex index = cached.get();
+		if (index == null || !index.matches(props)) {
+			// 属性数组与建立索引时不同，例如同一个类分别按构造函数参数和setter映射
+			index = new PropertyIndex(props);
+			cached.set(index);
+		}
+		return mapColumnsToProperties(rsmd, index);
+	}
+
 	/**
 	 * 对象属性和字段关系映射
 	 *
@@ -34,26 +72,37 @@ public class CamelBeanProcessor extends BeanProcessor {
 	 */
 	@Override
 	protected int[] mapColumnsToProperties(ResultSetMetaData rsmd, PropertyDescriptor[] props) throws SQLException {
+		return mapColumnsToProperties(rsmd, new PropertyIndex(props));
+	}
+
+	/**
+	 * 根据属性名索引映射字段，字段格式化后的名称和原名称都能匹配时取靠前的属性，与逐个属性比较的结果一致
+	 *
+	 * @param rsmd
+	 *            元字符结果集
+	 * @param index
+	 *            属性名索引
+	 * @return 对象和数据表字段关系位置数组
+	 */
+	private int[] mapColumnsToProperties(ResultSetMetaData rsmd, PropertyIndex index) throws SQLException {
 
 		int cols = rsmd.getColumnCount();
 		int columnToProperty[] = new int[cols + 1];
 		Arrays.fill(columnToProperty, PROPERTY_NOT_FOUND);
 
 		for (int col = 1; col <= cols; col++) {
-			String columnName = rsmd.getColumnLabel(col);
-			if (null == columnName || 0 == columnName.length()) {
-				columnName = rsmd.getColumnName(col);
+			String columnName = columnLabel(rsmd, col);
+			if (columnName == null) {
+				continue;
 			}
 
-			for (int i = 0; i < props.length; i++) {
-				if (formatColName(columnName).equalsIgnoreCase(props[i].getName())) {
-					columnToProperty[col] = i;
-					break;
-				}
-				if (columnName.equalsIgnoreCase(props[i].getName())) {
-					columnToProperty[col] = i;
-					break;
-				}
+			String lowerName = columnName.toLowerCase(Locale.ENGLISH);
+			int camel = index.find(formatColName(lowerName));
+			int plain = index.find(lowerName);
+			if (camel == PROPERTY_NOT_FOUND || (plain != PROPERTY_NOT_FOUND && plain < camel)) {
+				columnToProperty[col] = plain;
+			} else {
+				columnToProperty[col] = camel;
 			}
 		}
 
@@ -61,20 +110,82 @@ public class CamelBeanProcessor extends BeanProcessor {
 	}
 
 	/**
-	 * 格式化字符将user_id或USER_ID字段返回成userId
+	 * 格式化字符将user_id或USER_ID字段返回成userid，属性名比较时忽略大小写
 	 *
-	 * @param name
-	 *            字段名
+	 * @param lowerName
+	 *            小写的字段名
 	 * @return 转化后的属性名
 	 */
-	private String formatColName(String name) {
-		if (name == null || "".equals(name)) {
-			return "";
+	private static String formatColName(String lowerName) {
+		if (lowerName.indexOf('_') < 0) {
+			return lowerName;
+		}
+		StringBuilder sb = new StringBuilder(lowerName.length());
+		for (int i = 0; i < lowerName.length(); i++) {
+			char c = lowerName.charAt(i);
+			if (c != '_') {
+				sb.append(c);
+			}
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * bean类的小写属性名到属性位置的索引，同名属性取第一个。
+	 */
+	private static final class PropertyIndex {
+
+		/**
+		 * 建立索引时的属性数组
+		 */
+		private final PropertyDescriptor[] props;
+
+		/**
+		 * 建立索引时的属性名，按属性位置排列
+		 */
+		private final String[] names;
+
+		private final Map<String, Integer> positions;
+
+		PropertyIndex(PropertyDescriptor[] props) {
+			this.props = props;
+			this.names = new String[props.length];
+			this.positions = new HashMap<String, Integer>(props.length * 2);
+			for (int i = 0; i < props.length; i++) {
+				names[i] = props[i].getName();
+				String key = names[i].toLowerCase(Locale.ENGLISH);
+				if (!positions.containsKey(key)) {
+					positions.put(key, Integer.valueOf(i));
+				}
+			}
+		}
+
+		/**
+		 * 判断索引是否由相同的属性数组建立，属性名及顺序都相同时可以复用
+		 *
+		 * @param props
+		 *            对象属性数组
+		 * @return 是否可以复用
+		 */
+		boolean matches(PropertyDescriptor[] props) {
+			if (props == this.props) {
+				return true;
+			}
+			if (props.length != names.length) {
+				return false;
+			}
+			for (int i = 0; i < props.length; i++) {
+				if (!names[i].equals(props[i].getName())) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		int find(String lowerName) {
+			Integer position = positions.get(lowerName);
+			return position == null ? PROPERTY_NOT_FOUND : position.intValue();
 		}
-		String rstr = name.toLowerCase();
-		rstr = WordUtils.uncapitalize(WordUtils.capitalize(rstr, "_".toCharArray()));
-		rstr = rstr.replaceAll("_", "");
-		return rstr;
 	}
 
 }
@@ -0,0 +1,147 @@
+package com.opensource.dbhelp.dbutils;
+
+import java.io.Serializable;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 记录集字段名到位置的不可变索引，字段名不区分大小写。
+ * <p/>
+ * 同一个记录集的所有行共享一个索引，每行的{@link RowMap}只保存字段值数组。字段名重复时（例如多表关联查询），与原来逐行put的结果一致，保留最后一个同名字段。
+ * <p/>
+ * 该类创建后不可变，可以被多个线程共享。
+ * <p/>
+ * Copyright: Copyright (c) 26-10-17 下午5:20
+ * <p/>
+ * Company: GNU General Public License
+ * <p/>
+ * Author: GNU General Public License
+ * <p/>
+ * Version: 1.0
+ * <p/>
+ */
+public final class ColumnIndex implements Serializable {
+
+	private static final long serialVersionUID = 2718093712418870432L;
+
+	/**
+	 * 每个位置对应的字段名
+	 */
+	private final String[] names;
+
+	/**
+	 * 每个位置对应的记录集字段序号（从1开始）
+	 */
+	private final int[] columns;
+
+	/**
+	 * 原字段名到位置的映射，大小写一致时不需要转换小写
+	 */
+	private final Map<String, Integer> exact;
+
+	/**
+	 * 小写字段名到位置的映射
+	 */
+	private final Map<String, Integer> lower;
+
+	/**
+	 * 根据字段名构建索引
+	 *
+	 * @param columnNames
+	 *            按记录集顺序排列的字段名
+	 */
+	public ColumnIndex(String[] columnNames) {
+		Map<String, Integer> lastColumn = new HashMap<String, Integer>(columnNames.length * 2);
+		for (int i = 0; i < columnNames.length; i++) {
+			lastColumn.put(columnNames[i].toLowerCase(Locale.ENGLISH), Integer.valueOf(i));
+		}
+
+		int size = lastColumn.size();
+		this.names = new String[size];
+		this.columns = new int[size];
+		this.exact = new HashMap<String, Integer>(size * 2);
+		this.lower = new HashMap<String, Integer>(size * 2);
+
+		int slot = 0;
+		for (int i = 0; i < columnNames.length; i++) {
+			String key = columnNames[i].toLowerCase(Locale.ENGLISH);
+			if (lastColumn.get(key).intValue() != i) {
+				continue;
+			}
+			Integer position = Integer.valueOf(slot);
+			this.names[slot] = columnNames[i];
+			this.columns[slot] = i + 1;
+			this.exact.put(columnNames[i], position);
+			this.lower.put(key, position);
+			slot++;
+		}
+	}
+
+	/**
+	 * 根据记录集元数据构建索引，字段名取<code>getColumnName</code>
+	 *
+	 * @param rsmd
+	 *            记录集元数据
+	 * @return 字段索引
+	 * @throws SQLException
+	 *             if a database access error occurs
+	 */
+	public static ColumnIndex of(ResultSetMetaData rsmd) throws SQLException {
+		int cols = rsmd.getColumnCount();
+		String[] columnNames = new String[cols];
+		for (int i = 1; i <= cols; i++) {
+			columnNames[i - 1] = rsmd.getColumnName(i);
+		}
+		return new ColumnIndex(columnNames);
+	}
+
+	/**
+	 * 索引中的字段数，重复的字段名只计一次
+	 *
+	 * @return 字段数
+	 */
+	public int size() {
+		return names.length;
+	}
+
+	/**
+	 * 获取位置对应的字段名
+	 *
+	 * @param slot
+	 *            位置，从0开始
+	 * @return 字段名
+	 */
+	public String name(int slot) {
+		return names[slot];
+	}
+
+	/**
+	 * 获取位置对应的记录集字段序号
+	 *
+	 * @param slot
+	 *            位置，从0开始
+	 * @return 字段序号，从1开始
+	 */
+	public int column(int slot) {
+		return columns[slot];
+	}
+
+	/**
+	 * 查找字段名对应的位置，不区分大小写
+	 *
+	 * @param key
+	 *            字段名
+	 * @return 位置，不存在时返回-1
+	 */
+	public int indexOf(Object key) {
+		Integer position = exact.get(key);
+		if (position == null) {
+			position = lower.get(key.toString().toLowerCase(Locale.ENGLISH));
+		}
+		return position == null ? -1 : position.intValue();
+	}
+
+}
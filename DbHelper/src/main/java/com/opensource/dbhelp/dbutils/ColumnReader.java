@@ -0,0 +1,238 @@
+package com.opensource.dbhelp.dbutils;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLXML;
+import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 按属性类型读取记录集字段的读取器。
+ * <p/>
+ * 映射计划创建时为每个字段确定读取器，每行每个字段只调用一次对应类型的<code>ResultSet.getXxx</code>方法， 包装类型通过<code>wasNull()</code>判断SQL NULL，不再先调用<code>getObject</code>判断是否为空再重复读取一次。
+ * 基本类型的读取器与<code>ResultSet</code>的get*方法一致，SQL NULL返回0或false。
+ * <p/>
+ * Copyright: Copyright (c) 26-10-17 下午1:40
+ * <p/>
+ * Company: GNU General Public License
+ * <p/>
+ * Author: GNU General Public License
+ * <p/>
+ * Version: 1.0
+ * <p/>
+ */
+enum ColumnReader {
+
+	STRING {
+
+		@Override
+		Object read(ResultSet rs, int index) throws SQLException {
+			return rs.getString(index);
+		}
+	},
+
+	INT {
+
+		@Override
+		Object read(ResultSet rs, int index) throws SQLException {
+			return Integer.valueOf(rs.getInt(index));
+		}
+	},
+
+	INTEGER {
+
+		@Override
+		Object read(ResultSet rs, int index) throws SQLException {
+			int value = rs.getInt(index);
+			return rs.wasNull() ? null : Integer.valueOf(value);
+		}
+	},
+
+	PRIMITIVE_LONG {
+
+		@Override
+		Object read(ResultSet rs, int index) throws SQLException {
+			return Long.valueOf(rs.getLong(index));
+		}
+	},
+
+	LONG {
+
+		@Override
+		Object read(ResultSet rs, int index) throws SQLException {
+			long value = rs.getLong(index);
+			return rs.wasNull() ? null : Long.valueOf(value);
+		}
+	},
+
+	PRIMITIVE_DOUBLE {
+
+		@Override
+		Object read(ResultSet rs, int index) throws SQLException {
+			return Double.valueOf(rs.getDouble(index));
+		}
+	},
+
+	DOUBLE {
+
+		@Override
+		Object read(ResultSet rs, int index) throws SQLException {
+			double value = rs.getDouble(index);
+			return rs.wasNull() ? null : Double.valueOf(value);
+		}
+	},
+
+	PRIMITIVE_FLOAT {
+
+		@Override
+		Object read(ResultSet rs, int index) throws SQLException {
+			return Float.valueOf(rs.getFloat(index));
+		}
+	},
+
+	FLOAT {
+
+		@Override
+		Object read(ResultSet rs, int index) throws SQLException {
+			float value = rs.getFloat(index);
+			return rs.wasNull() ? null : Float.valueOf(value);
+		}
+	},
+
+	PRIMITIVE_SHORT {
+
+		@Override
+		Object read(ResultSet rs, int index) throws SQLException {
+			return Short.valueOf(rs.getShort(index));
+		}
+	},
+
+	SHORT {
+
+		@Override
+		Object read(ResultSet rs, int index) throws SQLException {
+			short value = rs.getShort(index);
+			return rs.wasNull() ? null : Short.valueOf(value);
+		}
+	},
+
+	PRIMITIVE_BYTE {
+
+		@Override
+		Object read(ResultSet rs, int index) throws SQLException {
+			return Byte.valueOf(rs.getByte(index));
+		}
+	},
+
+	BYTE {
+
+		@Override
+		Object read(ResultSet rs, int index) throws SQLException {
+			byte value = rs.getByte(index);
+			return rs.wasNull() ? null : Byte.valueOf(value);
+		}
+	},
+
+	PRIMITIVE_BOOLEAN {
+
+		@Override
+		Object read(ResultSet rs, int index) throws SQLException {
+			return Boolean.valueOf(rs.getBoolean(index));
+		}
+	},
+
+	BOOLEAN {
+
+		@Override
+		Object read(ResultSet rs, int index) throws SQLException {
+			boolean value = rs.getBoolean(index);
+			return rs.wasNull() ? null : Boolean.valueOf(value);
+		}
+	},
+
+	TIMESTAMP {
+
+		@Override
+		Object read(ResultSet rs, int index) throws SQLException {
+			return rs.getTimestamp(index);
+		}
+	},
+
+	BIG_DECIMAL {
+
+		@Override
+		Object read(ResultSet rs, int index) throws SQLException {
+			return rs.getBigDecimal(index);
+		}
+	},
+
+	XML {
+
+		@Override
+		Object read(ResultSet rs, int index) throws SQLException {
+			return rs.getSQLXML(index);
+		}
+	},
+
+	OBJECT {
+
+		@Override
+		Object read(ResultSet rs, int index) throws SQLException {
+			return rs.getObject(index);
+		}
+	};
+
+	/**
+	 * 属性类型与读取器的对应关系，未列出的类型使用getObject
+	 */
+	private static final Map<Class<?>, ColumnReader> READERS = new HashMap<Class<?>, ColumnReader>();
+
+	static {
+		READERS.put(String.class, STRING);
+		READERS.put(Integer.TYPE, INT);
+		READERS.put(Integer.class, INTEGER);
+		READERS.put(Long.TYPE, PRIMITIVE_LONG);
+		READERS.put(Long.class, LONG);
+		READERS.put(Double.TYPE, PRIMITIVE_DOUBLE);
+		READERS.put(Double.class, DOUBLE);
+		READERS.put(Float.TYPE, PRIMITIVE_FLOAT);
+		READERS.put(Float.class, FLOAT);
+		READERS.put(Short.TYPE, PRIMITIVE_SHORT);
+		READERS.put(Short.class, SHORT);
+		READERS.put(Byte.TYPE, PRIMITIVE_BYTE);
+		READERS.put(Byte.class, BYTE);
+		READERS.put(Boolean.TYPE, PRIMITIVE_BOOLEAN);
+		READERS.put(Boolean.class, BOOLEAN);
+		READERS.put(Timestamp.class, TIMESTAMP);
+		READERS.put(BigDecimal.class, BIG_DECIMAL);
+		READERS.put(SQLXML.class, XML);
+	}
+
+	/**
+	 * 读取字段值
+	 *
+	 * @param rs
+	 *            记录集，已定位到有效行
+	 * @param index
+	 *            字段序号
+	 * @return 字段值，SQL NULL时对象类型返回null
+	 * @throws SQLException
+	 *             if a database access error occurs
+	 */
+	abstract Object read(ResultSet rs, int index) throws SQLException;
+
+	/**
+	 * 获取属性类型对应的读取器
+	 *
+	 * @param propType
+	 *            bean属性类型
+	 * @return 读取器
+	 */
+	static ColumnReader forType(Class<?> propType) {
+		ColumnReader reader = READERS.get(propType);
+		return reader == null ? OBJECT : reader;
+	}
+
+}
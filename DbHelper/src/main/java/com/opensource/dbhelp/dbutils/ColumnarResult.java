@@ -0,0 +1,679 @@
+package com.opensource.dbhelp.dbutils;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 按列保存的查询结果。
+ * <p/>
+ * 每个字段按JDBC类型保存为一个向量：整数字段为<code>int[]</code>或<code>long[]</code>，浮点字段为<code>double[]</code>，定点小数为<code>BigDecimal[]</code>，字符字段为<code>String[]</code>，其它类型为<code>Object[]</code>。
+ * 数值向量不装箱，SQL NULL记录在每个字段的空值位图中，对应位置的值为0。读取时按块分配向量，读取结束后合并为一个连续的数组，适合在Java中对大量行做聚合计算。
+ * <p/>
+ * 字段序号与JDBC一致从1开始，行号从0开始。该类创建后不可修改，可以被多个线程共享；<code>getLongs</code>等方法直接返回内部数组，调用方不应修改。
+ * <p/>
+ * Copyright: Copyright (c) 26-10-17 下午7:40
+ * <p/>
+ * Company: GNU General Public License
+ * <p/>
+ * Author: GNU General Public License
+ * <p/>
+ * Version: 1.0
+ * <p/>
+ */
+public final class ColumnarResult {
+
+	/**
+	 * 字段向量的存储类型
+	 */
+	public enum ColumnType {
+		/** int[] */
+		INT,
+		/** long[] */
+		LONG,
+		/** double[] */
+		DOUBLE,
+		/** BigDecimal[] */
+		DECIMAL,
+		/** String[] */
+		STRING,
+		/** Object[] */
+		OBJECT
+	}
+
+	/**
+	 * 读取时每块的行数
+	 */
+	private static final int CHUNK_SIZE = 4096;
+
+	/**
+	 * 字段名索引
+	 */
+	private final ColumnIndex index;
+
+	/**
+	 * 字段名，按字段顺序
+	 */
+	private final String[] names;
+
+	/**
+	 * 每个字段的存储类型
+	 */
+	private final ColumnType[] types;
+
+	/**
+	 * 每个字段的数据，类型为int[]、long[]、double[]、BigDecimal[]、String[]或Object[]
+	 */
+	private final Object[] data;
+
+	/**
+	 * 每个字段的空值位图
+	 */
+	private final long[][] nulls;
+
+	/**
+	 * 行数
+	 */
+	private final int rowCount;
+
+	private ColumnarResult(String[] names, ColumnType[] types, Object[] data, long[][] nulls, int rowCount) {
+		this.index = new ColumnIndex(names);
+		this.names = names;
+		this.types = types;
+		this.data = data;
+		this.nulls = nulls;
+		this.rowCount = rowCount;
+	}
+
+	/**
+	 * 读取记录集的全部行
+	 *
+	 * @param rs
+	 *            记录集，尚未调用next
+	 * @return 按列保存的结果
+	 * @throws SQLException
+	 *             if a database access error occurs
+	 */
+	public static ColumnarResult read(ResultSet rs) throws SQLException {
+		ResultSetMetaData rsmd = rs.getMetaData();
+		int cols = rsmd.getColumnCount();
+		String[] names = new String[cols];
+		ColumnType[] types = new ColumnType[cols];
+		Vector[] vectors = new Vector[cols];
+		for (int i = 0; i < cols; i++) {
+			names[i] = rsmd.getColumnName(i + 1);
+			types[i] = columnType(rsmd, i + 1);
+			vectors[i] = Vector.create(types[i]);
+		}
+
+		int rows = 0;
+		while (rs.next()) {
+			int offset = rows % CHUNK_SIZE;
+			if (offset == 0) {
+				for (int i = 0; i < cols; i++) {
+					vectors[i].addChunk();
+				}
+			}
+			for (int i = 0; i < cols; i++) {
+				vectors[i].read(rs, i + 1, offset);
+			}
+			rows++;
+		}
+
+		Object[] data = new Object[cols];
+		long[][] nulls = new long[cols][];
+		for (int i = 0; i < cols; i++) {
+			data[i] = vectors[i].compact(rows);
+			nulls[i] = vectors[i].nullBits(rows);
+		}
+		return new ColumnarResult(names, types, data, nulls, rows);
+	}
+
+	/**
+	 * 根据JDBC类型确定字段的存储类型，没有小数位且精度不超过18的NUMERIC/DECIMAL按long保存； 无符号的INTEGER（例如MySQL的INT UNSIGNED）超出int范围，按long保存，无符号的BIGINT按BigDecimal保存
+	 *
+	 * @param rsmd
+	 *            记录集元数据
+	 * @param col
+	 *            字段序号
+	 * @return 存储类型
+	 * @throws SQLException
+	 *             if a database access error occurs
+	 */
+	private static ColumnType columnType(ResultSetMetaData rsmd, int col) throws SQLException {
+		switch (rsmd.getColumnType(col)) {
+			case Types.TINYINT:
+			case Types.SMALLINT:
+				return ColumnType.INT;
+			case Types.INTEGER:
+				return rsmd.isSigned(col) ? ColumnType.INT : ColumnType.LONG;
+			case Types.BIGINT:
+				return rsmd.isSigned(col) ? ColumnType.LONG : ColumnType.DECIMAL;
+			case Types.REAL:
+			case Types.FLOAT:
+			case Types.DOUBLE:
+				return ColumnType.DOUBLE;
+			case Types.NUMERIC:
+			case Types.DECIMAL:
+				int precision = rsmd.getPrecision(col);
+				if (rsmd.getScale(col) == 0 && precision > 0 && precision <= 18) {
+					return ColumnType.LONG;
+				}
+				return ColumnType.DECIMAL;
+			case Types.CHAR:
+			case Types.VARCHAR:
+			case Types.LONGVARCHAR:
+			case Types.NCHAR:
+			case Types.NVARCHAR:
+			case Types.LONGNVARCHAR:
+				return ColumnType.STRING;
+			default:
+				return ColumnType.OBJECT;
+		}
+	}
+
+	/**
+	 * 行数
+	 *
+	 * @return 行数
+	 */
+	public int getRowCount() {
+		return rowCount;
+	}
+
+	/**
+	 * 字段数
+	 *
+	 * @return 字段数
+	 */
+	public int getColumnCount() {
+		return names.length;
+	}
+
+	/**
+	 * 获取字段名
+	 *
+	 * @param col
+	 *            字段序号，从1开始
+	 * @return 字段名
+	 */
+	public String getColumnName(int col) {
+		return names[col - 1];
+	}
+
+	/**
+	 * 根据字段名查找字段序号，不区分大小写，字段名重复时返回最后一个
+	 *
+	 * @param name
+	 *            字段名
+	 * @return 字段序号，从1开始
+	 * @throws IllegalArgumentException
+	 *             字段不存在
+	 */
+	public int findColumn(String name) {
+		int slot = index.indexOf(name);
+		if (slot < 0) {
+			throw new IllegalArgumentException("Unknown column: " + name);
+		}
+		return index.column(slot);
+	}
+
+	/**
+	 * 获取字段的存储类型
+	 *
+	 * @param col
+	 *            字段序号，从1开始
+	 * @return 存储类型
+	 */
+	public ColumnType getColumnType(int col) {
+		return types[col - 1];
+	}
+
+	/**
+	 * 判断值是否为SQL NULL
+	 *
+	 * @param col
+	 *            字段序号，从1开始
+	 * @param row
+	 *            行号，从0开始
+	 * @return 是否为NULL
+	 */
+	public boolean isNull(int col, int row) {
+		checkRow(row);
+		long[] bits = nulls[col - 1];
+		return bits != null && (bits[row >>> 6] & (1L << row)) != 0;
+	}
+
+	/**
+	 * 字段的NULL值个数
+	 *
+	 * @param col
+	 *            字段序号，从1开始
+	 * @return NULL值个数
+	 */
+	public int getNullCount(int col) {
+		long[] bits = nulls[col - 1];
+		int count = 0;
+		if (bits != null) {
+			for (long word : bits) {
+				count += Long.bitCount(word);
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * 获取int字段的全部值，NULL对应位置为0
+	 *
+	 * @param col
+	 *            字段序号，从1开始
+	 * @return 内部数组，长度等于行数
+	 */
+	public int[] getInts(int col) {
+		return (int[]) vector(col, ColumnType.INT);
+	}
+
+	/**
+	 * 获取long字段的全部值，NULL对应位置为0
+	 *
+	 * @param col
+	 *            字段序号，从1开始
+	 * @return 内部数组，长度等于行数
+	 */
+	public long[] getLongs(int col) {
+		return (long[]) vector(col, ColumnType.LONG);
+	}
+
+	/**
+	 * 获取double字段的全部值，NULL对应位置为0
+	 *
+	 * @param col
+	 *            字段序号，从1开始
+	 * @return 内部数组，长度等于行数
+	 */
+	public double[] getDoubles(int col) {
+		return (double[]) vector(col, ColumnType.DOUBLE);
+	}
+
+	/**
+	 * 获取定点小数字段的全部值
+	 *
+	 * @param col
+	 *            字段序号，从1开始
+	 * @return 内部数组，长度等于行数
+	 */
+	public BigDecimal[] getBigDecimals(int col) {
+		return (BigDecimal[]) vector(col, ColumnType.DECIMAL);
+	}
+
+	/**
+	 * 获取字符字段的全部值
+	 *
+	 * @param col
+	 *            字段序号，从1开始
+	 * @return 内部数组，长度等于行数
+	 */
+	public String[] getStrings(int col) {
+		return (String[]) vector(col, ColumnType.STRING);
+	}
+
+	/**
+	 * 按long读取一个值，NULL返回0，非整数字段截断小数
+	 *
+	 * @param col
+	 *            字段序号，从1开始
+	 * @param row
+	 *            行号，从0开始
+	 * @return 值
+	 */
+	public long getLong(int col, int row) {
+		checkRow(row);
+		Object v = data[col - 1];
+		switch (types[col - 1]) {
+			case INT:
+				return ((int[]) v)[row];
+			case LONG:
+				return ((long[]) v)[row];
+			case DOUBLE:
+				return (long) ((double[]) v)[row];
+			default:
+				Object value = getObject(col, row);
+				if (value == null) {
+					return 0L;
+				}
+				if (value instanceof Number) {
+					return ((Number) value).longValue();
+				}
+				return Long.parseLong(value.toString().trim());
+		}
+	}
+
+	/**
+	 * 按int读取一个值，NULL返回0
+	 *
+	 * @param col
+	 *            字段序号，从1开始
+	 * @param row
+	 *            行号，从0开始
+	 * @return 值
+	 */
+	public int getInt(int col, int row) {
+		if (types[col - 1] == ColumnType.INT) {
+			checkRow(row);
+			return ((int[]) data[col - 1])[row];
+		}
+		return (int) getLong(col, row);
+	}
+
+	/**
+	 * 按double读取一个值，NULL返回0
+	 *
+	 * @param col
+	 *            字段序号，从1开始
+	 * @param row
+	 *            行号，从0开始
+	 * @return 值
+	 */
+	public double getDouble(int col, int row) {
+		checkRow(row);
+		Object v = data[col - 1];
+		switch (types[col - 1]) {
+			case INT:
+				return ((int[]) v)[row];
+			case LONG:
+				return ((long[]) v)[row];
+			case DOUBLE:
+				return ((double[]) v)[row];
+			default:
+				Object value = getObject(col, row);
+				if (value == null) {
+					return 0d;
+				}
+				if (value instanceof Number) {
+					return ((Number) value).doubleValue();
+				}
+				return Double.parseDouble(value.toString().trim());
+		}
+	}
+
+	/**
+	 * 读取一个值，数值字段装箱返回，NULL返回null
+	 *
+	 * @param col
+	 *            字段序号，从1开始
+	 * @param row
+	 *            行号，从0开始
+	 * @return 值
+	 */
+	public Object getObject(int col, int row) {
+		if (isNull(col, row)) {
+			return null;
+		}
+		Object v = data[col - 1];
+		switch (types[col - 1]) {
+			case INT:
+				return Integer.valueOf(((int[]) v)[row]);
+			case LONG:
+				return Long.valueOf(((long[]) v)[row]);
+			case DOUBLE:
+				return Double.valueOf(((double[]) v)[row]);
+			default:
+				return ((Object[]) v)[row];
+		}
+	}
+
+	/**
+	 * 按字符串读取一个值，NULL返回null
+	 *
+	 * @param col
+	 *            字段序号，从1开始
+	 * @param row
+	 *            行号，从0开始
+	 * @return 值
+	 */
+	public String getString(int col, int row) {
+		Object value = getObject(col, row);
+		return value == null ? null : value.toString();
+	}
+
+	@Override
+	public String toString() {
+		return "ColumnarResult" + Arrays.toString(names) + " rows=" + rowCount;
+	}
+
+	private Object vector(int col, ColumnType expected) {
+		if (types[col - 1] != expected) {
+			throw new IllegalStateException("Column " + names[col - 1] + " is stored as " + types[col - 1] + ", not " + expected);
+		}
+		return data[col - 1];
+	}
+
+	private void checkRow(int row) {
+		if (row < 0 || row >= rowCount) {
+			throw new IndexOutOfBoundsException("row " + row + ", row count " + rowCount);
+		}
+	}
+
+	/**
+	 * 读取过程中按块增长的字段向量
+	 */
+	private abstract static class Vector {
+
+		/**
+		 * 空值位图，每块CHUNK_SIZE/64个long
+		 */
+		final List<long[]> nullChunks = new ArrayList<long[]>();
+
+		/**
+		 * 是否出现过NULL
+		 */
+		boolean hasNull;
+
+		static Vector create(ColumnType type) {
+			switch (type) {
+				case INT:
+					return new IntVector();
+				case LONG:
+					return new LongVector();
+				case DOUBLE:
+					return new DoubleVector();
+				default:
+					return new ObjectVector(type);
+			}
+		}
+
+		void addChunk() {
+			nullChunks.add(new long[CHUNK_SIZE >>> 6]);
+			addDataChunk();
+		}
+
+		void setNull(int offset) {
+			nullChunks.get(nullChunks.size() - 1)[offset >>> 6] |= 1L << offset;
+			hasNull = true;
+		}
+
+		long[] nullBits(int rows) {
+			if (!hasNull) {
+				return null;
+			}
+			long[] bits = new long[(rows + 63) >>> 6];
+			int words = CHUNK_SIZE >>> 6;
+			for (int c = 0; c < nullChunks.size(); c++) {
+				int start = c * words;
+				System.arraycopy(nullChunks.get(c), 0, bits, start, Math.min(words, bits.length - start));
+			}
+			return bits;
+		}
+
+		abstract void addDataChunk();
+
+		abstract void read(ResultSet rs, int col, int offset) throws SQLException;
+
+		abstract Object compact(int rows);
+	}
+
+	private static final class IntVector extends Vector {
+
+		private final List<int[]> chunks = new ArrayList<int[]>();
+
+		private int[] current;
+
+		@Override
+		void addDataChunk() {
+			current = new int[CHUNK_SIZE];
+			chunks.add(current);
+		}
+
+		@Override
+		void read(ResultSet rs, int col, int offset) throws SQLException {
+			current[offset] = rs.getInt(col);
+			if (rs.wasNull()) {
+				setNull(offset);
+			}
+		}
+
+		@Override
+		Object compact(int rows) {
+			int[] all = new int[rows];
+			for (int c = 0, start = 0; start < rows; c++, start += CHUNK_SIZE) {
+				System.arraycopy(chunks.get(c), 0, all, start, Math.min(CHUNK_SIZE, rows - start));
+			}
+			return all;
+		}
+	}
+
+	private static final class LongVector extends Vector {
+
+		private final List<long[]> chunks = new ArrayList<long[]>();
+
+		private long[] current;
+
+		@Override
+		void addDataChunk() {
+			current = new long[CHUNK_SIZE];
+			chunks.add(current);
+		}
+
+		@Override
+		void read(ResultSet rs, int col, int offset) throws SQLException {
+			current[offset] = rs.getLong(col);
+			if (rs.wasNull()) {
+				setNull(offset);
+			}
+		}
+
+		@Override
+		Object compact(int rows) {
+			long[] all = new long[rows];
+			for (int c = 0, start = 0; start < rows; c++, start += CHUNK_SIZE) {
+				System.arraycopy(chunks.get(c), 0, all, start, Math.min(CHUNK_SIZE, rows - start));
+			}
+			return all;
+		}
+	}
+
+	private static final class DoubleVector extends Vector {
+
+		private final List<double[]> chunks = new ArrayList<double[]>();
+
+		private double[] current;
+
+		@Override
+		void addDataChunk() {
+			current = new double[CHUNK_SIZE];
+			chunks.add(current);
+		}
+
+		@Override
+		void read(ResultSet rs, int col, int offset) throws SQLException {
+			current[offset] = rs.getDouble(col);
+			if (rs.wasNull()) {
+				setNull(offset);
+			}
+		}
+
+		@Override
+		Object compact(int rows) {
+			double[] all = new double[rows];
+			for (int c = 0, start = 0; start < rows; c++, start += CHUNK_SIZE) {
+				System.arraycopy(chunks.get(c), 0, all, start, Math.min(CHUNK_SIZE, rows - start));
+			}
+			return all;
+		}
+	}
+
+	private static final class ObjectVector extends Vector {
+
+		private final ColumnType type;
+
+		private final List<Object[]> chunks = new ArrayList<Object[]>();
+
+		private Object[] current;
+
+		ObjectVector(ColumnType type) {
+			this.type = type;
+		}
+
+		@Override
+		void addDataChunk() {
+			switch (type) {
+				case DECIMAL:
+					current = new BigDecimal[CHUNK_SIZE];
+					break;
+				case STRING:
+					current = new String[CHUNK_SIZE];
+					break;
+				default:
+					current = new Object[CHUNK_SIZE];
+					break;
+			}
+			chunks.add(current);
+		}
+
+		@Override
+		void read(ResultSet rs, int col, int offset) throws SQLException {
+			Object value;
+			switch (type) {
+				case DECIMAL:
+					value = rs.getBigDecimal(col);
+					break;
+				case STRING:
+					value = rs.getString(col);
+					break;
+				default:
+					value = rs.getObject(col);
+					break;
+			}
+			current[offset] = value;
+			if (value == null) {
+				setNull(offset);
+			}
+		}
+
+		@Override
+		Object compact(int rows) {
+			Object[] all;
+			switch (type) {
+				case DECIMAL:
+					all = new BigDecimal[rows];
+					break;
+				case STRING:
+					all = new String[rows];
+					break;
+				default:
+					all = new Object[rows];
+					break;
+			}
+			for (int c = 0, start = 0; start < rows; c++, start += CHUNK_SIZE) {
+				System.arraycopy(chunks.get(c), 0, all, start, Math.min(CHUNK_SIZE, rows - start));
+			}
+			return all;
+		}
+	}
+
+}
@@ -0,0 +1,50 @@
+package com.opensource.dbhelp.dbutils;
+
+import java.sql.SQLTransientException;
+
+/**
+ * 调用被并发限制拒绝时抛出的异常。
+ * <p/>
+ * 正在执行的调用数达到限制、且等待队列已满或等待超过最长等待时间时，调用不会获取数据库连接，直接以该异常失败。 这是暂时性的失败，调用者可以稍后重试或降级处理。
+ * <p/>
+ * Copyright: Copyright (c) 26-10-17 下午11:55
+ * <p/>
+ * Company: GNU General Public License
+ * <p/>
+ * Author: GNU General Public License
+ * <p/>
+ * Version: 1.0
+ * <p/>
+ */
+public class ConcurrencyLimitException extends SQLTransientException {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * 拒绝时的并发限制
+	 */
+	private final int limit;
+
+	/**
+	 * 构造函数
+	 *
+	 * @param reason
+	 *            异常说明
+	 * @param limit
+	 *            拒绝时的并发限制
+	 */
+	public ConcurrencyLimitException(String reason, int limit) {
+		super(reason);
+		this.limit = limit;
+	}
+
+	/**
+	 * 获取拒绝时的并发限制
+	 *
+	 * @return 并发限制
+	 */
+	public int getLimit() {
+		return limit;
+	}
+
+}
@@ -0,0 +1,513 @@
+package com.opensource.dbhelp.dbutils;
+
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 按观测到的延迟自适应调整的并发限制。
+ * <p/>
+ * 数据库变慢时，所有线程都堆积在<code>DataSource.getConnection()</code>上，连接池耗尽，整个服务的延迟一起变长。 该类限制同一数据源上同时执行的调用数，调用在获取连接之前取得许可，释放连接时归还。
+ * 超出限制的调用进入有界的等待队列，队列已满或等待超时时立即以{@link ConcurrencyLimitException}失败，而不是让每个调用都变慢。
+ * <p/>
+ * 限制按梯度方式调整：以许可从取得到归还的时间为样本，与长期的指数滑动平均比较，样本明显变长（超过平均值的{@value #TOLERANCE}倍）时按比例减小限制， 延迟稳定且限制被用满时增加限制的平方根；获取连接超时按乘法减小。
+ * 限制用满一半以下时不再增加，避免空闲时限制无限增长。
+ * <p/>
+ * 等待队列按{@link Priority}分为多个通道，许可优先交给高优先级的等待者。队列已满时，高优先级的调用挤掉最后进入队列的低优先级等待者，被挤掉的调用立即失败。
+ * <p/>
+ * 该类是线程安全的，使用{@link ReentrantLock}，在虚拟线程中等待许可不会占住平台线程。
+ * <p/>
+ * Copyright: Copyright (c) 26-10-17 下午11:55
+ * <p/>
+ * Company: GNU General Public License
+ * <p/>
+ * Author: GNU General Public License
+ * <p/>
+ * Version: 1.0
+ * <p/>
+ */
+public final class ConcurrencyLimiter {
+
+	/**
+	 * 调用的优先级
+	 */
+	public enum Priority {
+		/**
+		 * 高优先级，例如在线请求中的关键查询
+		 */
+		HIGH,
+
+		/**
+		 * 普通优先级，默认值
+		 */
+		NORMAL,
+
+		/**
+		 * 低优先级，例如报表、后台任务，过载时最先被拒绝
+		 */
+		LOW
+	}
+
+	/**
+	 * 默认的初始并发限制
+	 */
+	public static final int DEFAULT_INITIAL_LIMIT = 20;
+
+	/**
+	 * 默认的最小并发限制
+	 */
+	public static final int DEFAULT_MIN_LIMIT = 1;
+
+	/**
+	 * 默认的最大并发限制
+	 */
+	public static final int DEFAULT_MAX_LIMIT = 200;
+
+	/**
+	 * 默认的等待队列长度
+	 */
+	public static final int DEFAULT_MAX_QUEUE = 100;
+
+	/**
+	 * 默认的最长等待时间，毫秒
+	 */
+	public static final long DEFAULT_MAX_WAIT_MILLIS = 1000;
+
+	/**
+	 * 样本超过长期平均值的倍数在此以内时视为延迟稳定
+	 */
+	private static final double TOLERANCE = 1.5;
+
+	/**
+	 * 长期平均值的平滑系数，约相当于最近100个样本
+	 */
+	private static final double LONG_RTT_ALPHA = 2.0 / 101;
+
+	/**
+	 * 每个样本对限制的调整比例
+	 */
+	private static final double SMOOTHING = 0.2;
+
+	/**
+	 * 获取连接超时时限制乘以的系数
+	 */
+	private static final double BACKOFF_RATIO = 0.9;
+
+	private final int minLimit;
+
+	private final int maxLimit;
+
+	private final int maxQueue;
+
+	private final long maxWaitNanos;
+
+	private final ReentrantLock lock = new ReentrantLock();
+
+	/**
+	 * 按优先级排列的等待通道
+	 */
+	private final ArrayDeque<Waiter>[] lanes;
+
+	/**
+	 * 当前的并发限制
+	 */
+	private double limit;
+
+	/**
+	 * 延迟的长期指数滑动平均，纳秒，还没有样本时为0
+	 */
+	private double longRtt;
+
+	/**
+	 * 持有许可的调用数
+	 */
+	private int inFlight;
+
+	/**
+	 * 等待中的调用数
+	 */
+	private int queued;
+
+	/**
+	 * 被拒绝的调用数
+	 */
+	private final LongAdder rejected = new LongAdder();
+
+	/**
+	 * 使用默认参数的构造函数
+	 */
+	public ConcurrencyLimiter() {
+		this(DEFAULT_INITIAL_LIMIT, DEFAULT_MIN_LIMIT, DEFAULT_MAX_LIMIT, DEFAULT_MAX_QUEUE, DEFAULT_MAX_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * 构造函数
+	 *
+	 * @param initialLimit
+	 *            初始并发限制
+	 * @param minLimit
+	 *            最小并发限制
+	 * @param maxLimit
+	 *            最大并发限制，一般取连接池的最大连接数
+	 * @param maxQueue
+	 *            等待队列长度，0表示不等待，达到限制时立即拒绝
+	 * @param maxWait
+	 *            最长等待时间
+	 * @param unit
+	 *            <code>maxWait</code>的单位
+	 */
+	public ConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, int maxQueue, long maxWait, TimeUnit unit) {
+		if (minLimit < 1 || maxLimit < minLimit || maxQueue < 0 || maxWait < 0) {
+			throw new IllegalArgumentException("Invalid concurrency limit bounds");
+		}
+		this.minLimit = minLimit;
+		this.maxLimit = maxLimit;
+		this.maxQueue = maxQueue;
+		this.maxWaitNanos = unit.toNanos(maxWait);
+		this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+		Priority[] priorities = Priority.values();
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		ArrayDeque<Waiter>[] queues = new ArrayDeque[priorities.length];
+		for (int i = 0; i < priorities.length; i++) {
+			queues[i] = new ArrayDeque<Waiter>();
+		}
+		this.lanes = queues;
+	}
+
+	/**
+	 * 取得许可，达到限制时按优先级排队等待。调用结束后必须调用{@link Permit#release(boolean)}归还。
+	 *
+	 * @param priority
+	 *            调用的优先级，null按{@link Priority#NORMAL}
+	 * @param timeoutNanos
+	 *            调用剩余的时间，纳秒，0表示不限制；比最长等待时间短时按此等待
+	 * @return 许可
+	 * @throws ConcurrencyLimitException
+	 *             队列已满、被高优先级的调用挤掉或等待超过最长等待时间
+	 * @throws QueryTimeoutException
+	 *             等待超过调用剩余的时间
+	 * @throws SQLException
+	 *             等待时被中断
+	 */
+	public Permit acquire(Priority priority, long timeoutNanos) throws SQLException {
+		if (priority == null) {
+			priority = Priority.NORMAL;
+		}
+		boolean callerLimited = timeoutNanos > 0 && timeoutNanos < maxWaitNanos;
+		long waitNanos = callerLimited ? timeoutNanos : maxWaitNanos;
+		lock.lock();
+		try {
+			if (queued == 0 && inFlight < (int) limit) {
+				return grant();
+			}
+			if (waitNanos == 0 || (queued >= maxQueue && !evictBelow(priority))) {
+				throw reject("Concurrency limit " + (int) limit + " reached and wait queue is full");
+			}
+			Waiter waiter = new Waiter(lock.newCondition());
+			lanes[priority.ordinal()].addLast(waiter);
+			queued++;
+			long nanos = waitNanos;
+			try {
+				while (waiter.state == Waiter.WAITING) {
+					if (nanos <= 0) {
+						remove(waiter);
+						if (callerLimited) {
+							rejected.increment();
+							long millis = TimeUnit.NANOSECONDS.toMillis(timeoutNanos);
+							throw new QueryTimeoutException("Timed out after " + millis + " ms waiting for a concurrency permit", millis, null);
+						}
+						throw reject("Timed out after " + TimeUnit.NANOSECONDS.toMillis(waitNanos) + " ms waiting for a concurrency permit");
+					}
+					nanos = waiter.condition.awaitNanos(nanos);
+				}
+			}
+			catch (InterruptedException e) {
+				if (waiter.state == Waiter.GRANTED) {
+					// 许可已经交付，归还给其它等待者
+					release(null, false);
+				} else {
+					remove(waiter);
+				}
+				Thread.currentThread().interrupt();
+				throw new SQLException("Interrupted while waiting for a concurrency permit", e);
+			}
+			if (waiter.state == Waiter.EVICTED) {
+				throw reject("Evicted from the wait queue by a higher priority call");
+			}
+			return waiter.permit;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * 持有锁时创建许可
+	 */
+	private Permit grant() {
+		inFlight++;
+		return new Permit(inFlight);
+	}
+
+	/**
+	 * 持有锁时挤掉最后进入队列的低优先级等待者
+	 *
+	 * @param priority
+	 *            新调用的优先级
+	 * @return 是否挤掉了一个等待者
+	 */
+	private boolean evictBelow(Priority priority) {
+		for (int i = lanes.length - 1; i > priority.ordinal(); i--) {
+			Waiter victim = lanes[i].pollLast();
+			if (victim != null) {
+				queued--;
+				victim.state = Waiter.EVICTED;
+				victim.condition.signal();
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * 持有锁时把超时或中断的等待者移出队列
+	 */
+	private void remove(Waiter waiter) {
+		for (ArrayDeque<Waiter> lane : lanes) {
+			Iterator<Waiter> it = lane.iterator();
+			while (it.hasNext()) {
+				if (it.next() == waiter) {
+					it.remove();
+					queued--;
+					return;
+				}
+			}
+		}
+	}
+
+	private ConcurrencyLimitException reject(String reason) {
+		rejected.increment();
+		return new ConcurrencyLimitException(reason, (int) limit);
+	}
+
+	/**
+	 * 归还许可，按样本调整限制，把空出的许可按优先级交给等待者
+	 *
+	 * @param permit
+	 *            归还的许可，为null时只归还不调整限制
+	 * @param dropped
+	 *            调用是否因超时失败
+	 */
+	private void release(Permit permit, boolean dropped) {
+		lock.lock();
+		try {
+			inFlight--;
+			if (permit != null) {
+				if (dropped) {
+					limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+				} else {
+					sample(System.nanoTime() - permit.start, permit.inFlight);
+				}
+			}
+			while (queued > 0 && inFlight < (int) limit) {
+				Waiter waiter = poll();
+				waiter.permit = grant();
+				waiter.state = Waiter.GRANTED;
+				waiter.condition.signal();
+			}
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * 持有锁时按一个延迟样本调整限制
+	 *
+	 * @param rtt
+	 *            许可从取得到归还的时间，纳秒
+	 * @param inFlightAtStart
+	 *            取得许可时持有许可的调用数
+	 */
+	private void sample(long rtt, int inFlightAtStart) {
+		rtt = Math.max(1, rtt);
+		if (longRtt == 0) {
+			longRtt = rtt;
+			return;
+		}
+		longRtt += (rtt - longRtt) * LONG_RTT_ALPHA;
+		if (longRtt > 2 * rtt) {
+			// 延迟恢复后长期平均值下降较慢，加快下降，避免之后的变慢不被察觉
+			longRtt *= 0.95;
+		}
+		double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longRtt / rtt));
+		double newLimit = limit * gradient + Math.sqrt(limit);
+		if (newLimit > limit && inFlightAtStart < limit / 2) {
+			return;
+		}
+		limit = Math.max(minLimit, Math.min(maxLimit, limit * (1 - SMOOTHING) + newLimit * SMOOTHING));
+	}
+
+	/**
+	 * 持有锁时取出优先级最高的等待者
+	 */
+	private Waiter poll() {
+		for (ArrayDeque<Waiter> lane : lanes) {
+			Waiter waiter = lane.pollFirst();
+			if (waiter != null) {
+				queued--;
+				return waiter;
+			}
+		}
+		throw new IllegalStateException("queued count out of sync");
+	}
+
+	/**
+	 * 当前的并发限制
+	 *
+	 * @return 并发限制
+	 */
+	public int getLimit() {
+		lock.lock();
+		try {
+			return (int) limit;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * 持有许可的调用数
+	 *
+	 * @return 调用数
+	 */
+	public int getInFlight() {
+		lock.lock();
+		try {
+			return inFlight;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * 等待中的调用数
+	 *
+	 * @return 调用数
+	 */
+	public int getQueued() {
+		lock.lock();
+		try {
+			return queued;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * 被拒绝的调用数
+	 *
+	 * @return 调用数
+	 */
+	public long getRejected() {
+		return rejected.sum();
+	}
+
+	@Override
+	public String toString() {
+		lock.lock();
+		try {
+			return "ConcurrencyLimiter{limit=" + (int) limit + ", inFlight=" + inFlight + ", queued=" + queued + ", rejected=" + rejected.sum() + "}";
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * 一次调用持有的许可
+	 */
+	public final class Permit {
+
+		/**
+		 * 取得许可的System.nanoTime()
+		 */
+		private final long start = System.nanoTime();
+
+		/**
+		 * 取得许可时持有许可的调用数，包括自己
+		 */
+		private final int inFlight;
+
+		private boolean released;
+
+		Permit(int inFlight) {
+			this.inFlight = inFlight;
+		}
+
+		/**
+		 * 归还许可，重复调用时忽略
+		 *
+		 * @param dropped
+		 *            调用是否因超时失败，为true时按乘法减小限制
+		 */
+		public void release(boolean dropped) {
+			lock.lock();
+			try {
+				if (!released) {
+					released = true;
+					ConcurrencyLimiter.this.release(this, dropped);
+				}
+			}
+			finally {
+				lock.unlock();
+			}
+		}
+
+		/**
+		 * 归还许可，不作为延迟样本调整限制，用于持有时间不代表数据库延迟的调用，例如逐行回调的流式查询。重复调用时忽略
+		 */
+		public void releaseWithoutSample() {
+			lock.lock();
+			try {
+				if (!released) {
+					released = true;
+					ConcurrencyLimiter.this.release(null, false);
+				}
+			}
+			finally {
+				lock.unlock();
+			}
+		}
+	}
+
+	/**
+	 * 等待许可的调用
+	 */
+	private static final class Waiter {
+
+		static final int WAITING = 0;
+
+		static final int GRANTED = 1;
+
+		static final int EVICTED = 2;
+
+		final Condition condition;
+
+		int state = WAITING;
+
+		Permit permit;
+
+		Waiter(Condition condition) {
+			this.condition = condition;
+		}
+	}
+
+}
@@ -0,0 +1,217 @@
+package com.opensource.dbhelp.dbutils;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 执行JDBC调用的执行器。
+ * <p/>
+ * JDBC调用是阻塞的，使用平台线程池时线程数决定了同时执行的调用数。在Java 21及以上版本运行时，可以为每个调用创建一个虚拟线程，阻塞在网络读写上的虚拟线程不占用平台线程。
+ * 这里通过反射调用<code>Executors.newVirtualThreadPerTaskExecutor()</code>，同一个jar在Java 8上编译和运行，在Java 21上自动使用虚拟线程；不支持时{@link #newQueryExecutor(int)}退回到固定大小的平台线程池。
+ * <p/>
+ * 虚拟线程的个数不受限制，而连接池的连接数有限；c3p0在<code>synchronized</code>中等待空闲连接，大量虚拟线程在这里等待会占住平台线程。 因此虚拟线程执行器按最大并发数限制同时执行的任务，
+ * 超出的任务在{@link Semaphore}上等待，这种等待不占用平台线程。最大并发数一般取连接池的最大连接数。
+ * <p/>
+ * 该类是线程安全的。
+ * <p/>
+ * Copyright: Copyright (c) 26-10-17 下午11:50
+ * <p/>
+ * Company: GNU General Public License
+ * <p/>
+ * Author: GNU General Public License
+ * <p/>
+ * Version: 1.0
+ * <p/>
+ */
+public final class DbExecutors {
+
+	/**
+	 * <code>Executors.newVirtualThreadPerTaskExecutor()</code>，当前JVM不支持时为null
+	 */
+	private static final Method NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR = findVirtualThreadFactory();
+
+	/**
+	 * 共享执行器的最大并发数
+	 */
+	private static final int SHARED_MAX_CONCURRENCY = 32;
+
+	private DbExecutors() {
+	}
+
+	private static Method findVirtualThreadFactory() {
+		try {
+			Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			// Java 19、20中虚拟线程是预览功能，未启用时调用抛出UnsupportedOperationException
+			((ExecutorService) method.invoke(null)).shutdown();
+			return method;
+		}
+		catch (NoSuchMethodException e) {
+			return null;
+		}
+		catch (IllegalAccessException e) {
+			return null;
+		}
+		catch (InvocationTargetException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * 当前JVM是否支持虚拟线程
+	 *
+	 * @return 是否支持
+	 */
+	public static boolean isVirtualThreadSupported() {
+		return NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR != null;
+	}
+
+	/**
+	 * 创建为每个任务启动一个虚拟线程的执行器，不限制并发数
+	 *
+	 * @return 执行器
+	 * @throws UnsupportedOperationException
+	 *             当前JVM不支持虚拟线程
+	 */
+	public static ExecutorService newVirtualThreadPerTaskExecutor() {
+		if (NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR == null) {
+			throw new UnsupportedOperationException("Virtual threads require Java 21 or later");
+		}
+		try {
+			return (ExecutorService) NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR.invoke(null);
+		}
+		catch (IllegalAccessException e) {
+			throw new UnsupportedOperationException("Virtual threads are not accessible", e);
+		}
+		catch (InvocationTargetException e) {
+			throw new UnsupportedOperationException("Virtual threads are not available", e.getCause());
+		}
+	}
+
+	/**
+	 * 创建为每个任务启动一个虚拟线程的执行器，同时执行的任务数不超过最大并发数
+	 *
+	 * @param maxConcurrency
+	 *            最大并发数，一般取连接池的最大连接数
+	 * @return 执行器
+	 * @throws UnsupportedOperationException
+	 *             当前JVM不支持虚拟线程
+	 */
+	public static ExecutorService newVirtualThreadPerTaskExecutor(int maxConcurrency) {
+		if (maxConcurrency < 1) {
+			throw new IllegalArgumentException("maxConcurrency must be positive");
+		}
+		return new BoundedExecutorService(newVirtualThreadPerTaskExecutor(), maxConcurrency);
+	}
+
+	/**
+	 * 创建执行JDBC调用的执行器：支持虚拟线程时为每个任务启动一个虚拟线程，同时执行的任务数不超过最大并发数；否则为固定大小的守护线程池
+	 *
+	 * @param maxConcurrency
+	 *            最大并发数，也是平台线程池的线程数
+	 * @return 执行器
+	 */
+	public static ExecutorService newQueryExecutor(int maxConcurrency) {
+		if (maxConcurrency < 1) {
+			throw new IllegalArgumentException("maxConcurrency must be positive");
+		}
+		if (isVirtualThreadSupported()) {
+			return newVirtualThreadPerTaskExecutor(maxConcurrency);
+		}
+		return Executors.newFixedThreadPool(maxConcurrency, new QueryWatchdog.DaemonThreadFactory("dbhelper-query-"));
+	}
+
+	/**
+	 * 获取共享的执行JDBC调用的执行器，第一次使用时由{@link #newQueryExecutor(int)}创建，供未指定执行器的并行查询使用，不要关闭
+	 *
+	 * @return 共享的执行器
+	 */
+	public static ExecutorService getSharedExecutor() {
+		return SharedExecutor.INSTANCE;
+	}
+
+	/**
+	 * 共享的执行器，第一次使用时创建
+	 */
+	private static final class SharedExecutor {
+
+		static final ExecutorService INSTANCE = newQueryExecutor(SHARED_MAX_CONCURRENCY);
+	}
+
+	/**
+	 * 限制并发数的执行器。任务提交后立即交给底层执行器启动线程，在线程中取得许可后才执行，因此等待许可的是虚拟线程，不占用平台线程，也不阻塞提交任务的线程。
+	 */
+	private static final class BoundedExecutorService extends AbstractExecutorService {
+
+		private final ExecutorService delegate;
+
+		private final Semaphore permits;
+
+		BoundedExecutorService(ExecutorService delegate, int maxConcurrency) {
+			this.delegate = delegate;
+			this.permits = new Semaphore(maxConcurrency, true);
+		}
+
+		@Override
+		public void execute(final Runnable command) {
+			if (command == null) {
+				throw new NullPointerException();
+			}
+			delegate.execute(new Runnable() {
+
+				@Override
+				public void run() {
+					try {
+						permits.acquire();
+					}
+					catch (InterruptedException e) {
+						// 执行器正在关闭，任务不再执行，取消任务使等待结果的调用者返回
+						if (command instanceof Future) {
+							((Future<?>) command).cancel(false);
+						}
+						Thread.currentThread().interrupt();
+						return;
+					}
+					try {
+						command.run();
+					}
+					finally {
+						permits.release();
+					}
+				}
+			});
+		}
+
+		@Override
+		public void shutdown() {
+			delegate.shutdown();
+		}
+
+		@Override
+		public List<Runnable> shutdownNow() {
+			return delegate.shutdownNow();
+		}
+
+		@Override
+		public boolean isShutdown() {
+			return delegate.isShutdown();
+		}
+
+		@Override
+		public boolean isTerminated() {
+			return delegate.isTerminated();
+		}
+
+		@Override
+		public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+			return delegate.awaitTermination(timeout, unit);
+		}
+	}
+
+}
@@ -0,0 +1,346 @@
+package com.opensource.dbhelp.dbutils;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 按SQL指纹自适应选择fetch size。
+ * <p/>
+ * 驱动默认的fetch size往往很小（oracle为10行），读取大结果集时往返次数与行数成正比。这里按SQL指纹（空白合并、字面量替换为?）记录最近的返回行数和按列类型估算的行宽， 选择能一次取完预计行数、且缓冲区不超过目标字节数的fetch
+ * size，结果限制在最小值和最大值之间。 还没有记录的SQL使用初始值。 预计行数取按比例衰减的最大值：行数变多时立即跟上，变少时逐步减小。
+ * <p/>
+ * 记录数有上限，达到上限后新的SQL不再记录，使用初始值。
+ * <p/>
+ * 该类是线程安全的。
+ * <p/>
+ * Copyright: Copyright (c) 26-10-17 下午11:30
+ * <p/>
+ * Company: GNU General Public License
+ * <p/>
+ * Author: GNU General Public License
+ * <p/>
+ * Version: 1.0
+ * <p/>
+ */
+public final class FetchSizeAdvisor {
+
+	/**
+	 * 默认的目标缓冲区字节数
+	 */
+	public static final int DEFAULT_TARGET_BUFFER_BYTES = 1 << 20;
+
+	/**
+	 * 默认的最小fetch size
+	 */
+	public static final int DEFAULT_MIN_FETCH_SIZE = 10;
+
+	/**
+	 * 默认的最大fetch size
+	 */
+	public static final int DEFAULT_MAX_FETCH_SIZE = 10000;
+
+	/**
+	 * 默认的初始fetch size，用于还没有记录的SQL
+	 */
+	public static final int DEFAULT_INITIAL_FETCH_SIZE = 100;
+
+	/**
+	 * 最多记录的SQL指纹个数
+	 */
+	private static final int MAX_STATEMENTS = 2048;
+
+	/**
+	 * 无法估算的列按此字节数计算
+	 */
+	private static final int DEFAULT_COLUMN_BYTES = 32;
+
+	/**
+	 * 字符列最多按此字符数计算，LOB列也按此计算
+	 */
+	private static final int MAX_COLUMN_CHARS = 4000;
+
+	/**
+	 * SQL指纹到统计的映射
+	 */
+	private final ConcurrentMap<String, Stats> statements = new ConcurrentHashMap<String, Stats>();
+
+	private final int targetBufferBytes;
+
+	private final int minFetchSize;
+
+	private final int maxFetchSize;
+
+	private final int initialFetchSize;
+
+	/**
+	 * 使用默认参数的构造函数
+	 */
+	public FetchSizeAdvisor() {
+		this(DEFAULT_TARGET_BUFFER_BYTES, DEFAULT_MIN_FETCH_SIZE, DEFAULT_MAX_FETCH_SIZE, DEFAULT_INITIAL_FETCH_SIZE);
+	}
+
+	/**
+	 * 构造函数
+	 *
+	 * @param targetBufferBytes
+	 *            一次读取的目标缓冲区字节数
+	 * @param minFetchSize
+	 *            最小fetch size
+	 * @param maxFetchSize
+	 *            最大fetch size
+	 * @param initialFetchSize
+	 *            还没有记录的SQL使用的fetch size
+	 */
+	public FetchSizeAdvisor(int targetBufferBytes, int minFetchSize, int maxFetchSize, int initialFetchSize) {
+		if (targetBufferBytes < 1 || minFetchSize < 1 || maxFetchSize < minFetchSize) {
+			throw new IllegalArgumentException("Invalid fetch size bounds");
+		}
+		this.targetBufferBytes = targetBufferBytes;
+		this.minFetchSize = minFetchSize;
+		this.maxFetchSize = maxFetchSize;
+		this.initialFetchSize = clamp(initialFetchSize);
+	}
+
+	/**
+	 * 选择SQL的fetch size
+	 *
+	 * @param sql
+	 *            SQL文本
+	 * @return fetch size
+	 */
+	public int advise(String sql) {
+		Stats stats = statements.get(fingerprint(sql));
+		if (stats == null) {
+			return initialFetchSize;
+		}
+		long byWidth = targetBufferBytes / Math.max(1, stats.rowBytes);
+		// 多取一行，驱动可以在同一次往返中确认已到末尾
+		long byRows = (long) Math.ceil(stats.expectedRows) + 1;
+		return clamp(Math.min(byWidth, byRows));
+	}
+
+	/**
+	 * 记录一次查询的结果
+	 *
+	 * @param sql
+	 *            SQL文本
+	 * @param rs
+	 *            查询的记录集，第一次记录时读取元数据估算行宽
+	 * @param rows
+	 *            返回的行数，未知时为负数
+	 * @throws SQLException
+	 *             读取元数据出错
+	 */
+	public void record(String sql, ResultSet rs, int rows) throws SQLException {
+		String key = fingerprint(sql);
+		Stats stats = statements.get(key);
+		if (stats == null) {
+			if (statements.size() >= MAX_STATEMENTS) {
+				return;
+			}
+			stats = new Stats(estimateRowBytes(rs.getMetaData()));
+			Stats existing = statements.putIfAbsent(key, stats);
+			if (existing != null) {
+				stats = existing;
+			}
+		}
+		if (rows >= 0) {
+			stats.update(rows);
+		}
+	}
+
+	/**
+	 * 统计结果对象的行数。Map只有值为Map时才按每个值一行统计（KeyedHandler的结果），单行的Map（MapHandler的结果）是列名到值的映射，不是行数。
+	 *
+	 * @param result
+	 *            处理器返回的结果
+	 * @return 行数，无法判断时返回-1
+	 */
+	public static int countRows(Object result) {
+		if (result instanceof Collection) {
+			return ((Collection<?>) result).size();
+		}
+		if (result instanceof ColumnarResult) {
+			return ((ColumnarResult) result).getRowCount();
+		}
+		if (result instanceof Map) {
+			Map<?, ?> map = (Map<?, ?>) result;
+			if (map.isEmpty()) {
+				return 0;
+			}
+			return map.values().iterator().next() instanceof Map ? map.size() : -1;
+		}
+		return -1;
+	}
+
+	/**
+	 * 当前记录的SQL指纹个数
+	 *
+	 * @return 记录个数
+	 */
+	public int size() {
+		return statements.size();
+	}
+
+	/**
+	 * 清空记录
+	 */
+	public void clear() {
+		statements.clear();
+	}
+
+	private int clamp(long fetchSize) {
+		return (int) Math.max(minFetchSize, Math.min(maxFetchSize, fetchSize));
+	}
+
+	/**
+	 * 按列类型估算一行的字节数
+	 *
+	 * @param metaData
+	 *            记录集的元数据
+	 * @return 估算的字节数
+	 * @throws SQLException
+	 *             读取元数据出错
+	 */
+	static int estimateRowBytes(ResultSetMetaData metaData) throws SQLException {
+		int bytes = 0;
+		int cols = metaData.getColumnCount();
+		for (int i = 1; i <= cols; i++) {
+			switch (metaData.getColumnType(i)) {
+				case Types.BIT:
+				case Types.BOOLEAN:
+				case Types.TINYINT:
+					bytes += 1;
+					break;
+				case Types.SMALLINT:
+				case Types.INTEGER:
+				case Types.REAL:
+					bytes += 4;
+					break;
+				case Types.BIGINT:
+				case Types.DOUBLE:
+				case Types.FLOAT:
+					bytes += 8;
+					break;
+				case Types.DATE:
+				case Types.TIME:
+				case Types.TIMESTAMP:
+				case Types.TIME_WITH_TIMEZONE:
+				case Types.TIMESTAMP_WITH_TIMEZONE:
+					bytes += 16;
+					break;
+				case Types.NUMERIC:
+				case Types.DECIMAL:
+					bytes += 22;
+					break;
+				case Types.CHAR:
+				case Types.VARCHAR:
+				case Types.NCHAR:
+				case Types.NVARCHAR:
+				case Types.BINARY:
+				case Types.VARBINARY:
+					int size = metaData.getColumnDisplaySize(i);
+					bytes += size > 0 ? 2 * Math.min(size, MAX_COLUMN_CHARS) : DEFAULT_COLUMN_BYTES;
+					break;
+				case Types.LONGVARCHAR:
+				case Types.LONGNVARCHAR:
+				case Types.LONGVARBINARY:
+				case Types.CLOB:
+				case Types.NCLOB:
+				case Types.BLOB:
+					bytes += 2 * MAX_COLUMN_CHARS;
+					break;
+				default:
+					bytes += DEFAULT_COLUMN_BYTES;
+					break;
+			}
+		}
+		return Math.max(1, bytes);
+	}
+
+	/**
+	 * 计算SQL指纹：连续空白合并为一个空格，字符串和数值字面量替换为?，使只有字面量不同的SQL共用同一份统计
+	 *
+	 * @param sql
+	 *            SQL文本
+	 * @return 指纹
+	 */
+	static String fingerprint(String sql) {
+		int len = sql.length();
+		StringBuilder sb = null;
+		int i = 0;
+		while (i < len) {
+			char ch = sql.charAt(i);
+			int next = i + 1;
+			String replacement = null;
+			if (ch == '\'') {
+				while (next < len) {
+					if (sql.charAt(next++) == '\'') {
+						if (next < len && sql.charAt(next) == '\'') {
+							// 转义的单引号
+							next++;
+						} else {
+							break;
+						}
+					}
+				}
+				replacement = "?";
+			} else if (Character.isDigit(ch) && (i == 0 || !Character.isJavaIdentifierPart(sql.charAt(i - 1)))) {
+				while (next < len && (Character.isDigit(sql.charAt(next)) || sql.charAt(next) == '.')) {
+					next++;
+				}
+				replacement = "?";
+			} else if (Character.isWhitespace(ch)) {
+				while (next < len && Character.isWhitespace(sql.charAt(next))) {
+					next++;
+				}
+				if (ch != ' ' || next > i + 1) {
+					replacement = " ";
+				}
+			}
+			if (replacement != null && sb == null) {
+				sb = new StringBuilder(len).append(sql, 0, i);
+			}
+			if (sb != null) {
+				if (replacement != null) {
+					sb.append(replacement);
+				} else {
+					sb.append(sql, i, next);
+				}
+			}
+			i = next;
+		}
+		return sb == null ? sql : sb.toString();
+	}
+
+	/**
+	 * 一个SQL指纹的统计
+	 */
+	private static final class Stats {
+
+		/**
+		 * 估算的行宽，字节
+		 */
+		final int rowBytes;
+
+		/**
+		 * 预计的行数，多个线程同时更新时可能丢失一次更新，不影响结果
+		 */
+		volatile double expectedRows;
+
+		Stats(int rowBytes) {
+			this.rowBytes = rowBytes;
+		}
+
+		void update(int rows) {
+			expectedRows = Math.max(rows, expectedRows * 0.75);
+		}
+	}
+
+}
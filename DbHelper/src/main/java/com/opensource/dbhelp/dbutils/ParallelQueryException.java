@@ -0,0 +1,56 @@
+package com.opensource.dbhelp.dbutils;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 并行执行的一批查询中有查询失败时抛出的异常。
+ * <p/>
+ * 批次中的查询全部结束后才抛出，汇总所有失败查询的异常：第一个异常作为cause，全部异常按登记顺序用<code>setNextException</code>串联，也可以通过{@link #getFailures()}取得。 成功的查询结果仍然可用。
+ * <p/>
+ * Copyright: Copyright (c) 26-10-18 上午12:10
+ * <p/>
+ * Company: GNU General Public License
+ * <p/>
+ * Author: GNU General Public License
+ * <p/>
+ * Version: 1.0
+ * <p/>
+ */
+public class ParallelQueryException extends SQLException {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * 失败查询的异常，按登记顺序排列
+	 */
+	private final List<SQLException> failures;
+
+	/**
+	 * 构造函数
+	 *
+	 * @param reason
+	 *            异常说明
+	 * @param failures
+	 *            失败查询的异常，至少一个
+	 */
+	public ParallelQueryException(String reason, List<SQLException> failures) {
+		super(reason, failures.get(0).getSQLState(), failures.get(0).getErrorCode(), failures.get(0));
+		this.failures = Collections.unmodifiableList(new ArrayList<SQLException>(failures));
+		for (SQLException failure : failures) {
+			setNextException(failure);
+		}
+	}
+
+	/**
+	 * 获取失败查询的异常
+	 *
+	 * @return 异常列表，按登记顺序排列
+	 */
+	public List<SQLException> getFailures() {
+		return failures;
+	}
+
+}
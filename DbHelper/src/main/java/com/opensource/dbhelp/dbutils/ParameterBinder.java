@@ -0,0 +1,37 @@
+package com.opensource.dbhelp.dbutils;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * 把一种类型的参数值设置到<code>PreparedStatement</code>的绑定器。
+ * <p/>
+ * 绑定器按参数值的类型从{@link ParameterBinders}中取得，直接调用对应类型的<code>setXxx</code>方法，不再对每个参数调用<code>setObject</code>由驱动判断类型。 自定义类型可以通过{@link ParameterBinders#register(Class, ParameterBinder)}注册绑定器。
+ * 实现需要是无状态、线程安全的。
+ * <p/>
+ * Copyright: Copyright (c) 26-10-17 下午11:00
+ * <p/>
+ * Company: GNU General Public License
+ * <p/>
+ * Author: GNU General Public License
+ * <p/>
+ * Version: 1.0
+ * <p/>
+ */
+public interface ParameterBinder {
+
+	/**
+	 * 设置参数值
+	 *
+	 * @param stmt
+	 *            要设置参数的语句
+	 * @param index
+	 *            参数序号，从1开始
+	 * @param value
+	 *            参数值，不为null
+	 * @throws SQLException
+	 *             if a database access error occurs
+	 */
+	void bind(PreparedStatement stmt, int index, Object value) throws SQLException;
+
+}
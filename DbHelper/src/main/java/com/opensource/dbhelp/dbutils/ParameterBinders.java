@@ -0,0 +1,134 @@
+package com.opensource.dbhelp.dbutils;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.Date;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按参数值类型取得{@link ParameterBinder}的注册表。
+ * <p/>
+ * 先按类型精确查找；找不到时依次判断枚举、流、Blob/Clob等需要按父类型匹配的类型，结果缓存在类型的ClassValue上，之后同一类型只需一次查找，类被卸载时缓存随之释放。 没有对应绑定器的类型使用setObject。
+ * {@link AbstractQueryRunner#fillStatement(String, java.sql.PreparedStatement, Object...)}还会按SQL和参数位置缓存上次使用的绑定器，重复执行同一条SQL时直接调用对应的setter。
+ * <p/>
+ * 该类是线程安全的。
+ * <p/>
+ * Copyright: Copyright (c) 26-10-17 下午11:00
+ * <p/>
+ * Company: GNU General Public License
+ * <p/>
+ * Author: GNU General Public License
+ * <p/>
+ * Version: 1.0
+ * <p/>
+ */
+public final class ParameterBinders {
+
+	/**
+	 * 内置和注册的参数类型到绑定器的映射
+	 */
+	private static final Map<Class<?>, ParameterBinder> binders = new ConcurrentHashMap<Class<?>, ParameterBinder>();
+
+	/**
+	 * 每个参数类型解析出的绑定器
+	 */
+	private static final ClassValue<ParameterBinder> resolved = new ClassValue<ParameterBinder>() {
+
+		@Override
+		protected ParameterBinder computeValue(Class<?> type) {
+			ParameterBinder binder = binders.get(type);
+			return binder != null ? binder : resolve(type);
+		}
+	};
+
+	static {
+		binders.put(String.class, StandardParameterBinder.STRING);
+		binders.put(Integer.class, StandardParameterBinder.INTEGER);
+		binders.put(Long.class, StandardParameterBinder.LONG);
+		binders.put(Short.class, StandardParameterBinder.SHORT);
+		binders.put(Byte.class, StandardParameterBinder.BYTE);
+		binders.put(Double.class, StandardParameterBinder.DOUBLE);
+		binders.put(Float.class, StandardParameterBinder.FLOAT);
+		binders.put(Boolean.class, StandardParameterBinder.BOOLEAN);
+		binders.put(Character.class, StandardParameterBinder.CHARACTER);
+		binders.put(BigDecimal.class, StandardParameterBinder.BIG_DECIMAL);
+		binders.put(BigInteger.class, StandardParameterBinder.BIG_INTEGER);
+		binders.put(Timestamp.class, StandardParameterBinder.TIMESTAMP);
+		binders.put(Date.class, StandardParameterBinder.DATE);
+		binders.put(Time.class, StandardParameterBinder.TIME);
+		binders.put(LocalDate.class, StandardParameterBinder.LOCAL_DATE);
+		binders.put(LocalDateTime.class, StandardParameterBinder.LOCAL_DATE_TIME);
+		binders.put(LocalTime.class, StandardParameterBinder.LOCAL_TIME);
+		binders.put(Instant.class, StandardParameterBinder.INSTANT);
+		binders.put(byte[].class, StandardParameterBinder.BYTES);
+	}
+
+	private ParameterBinders() {
+	}
+
+	/**
+	 * 注册自定义类型的绑定器，覆盖已有的绑定器。只对该类型本身生效，不影响子类型。
+	 *
+	 * @param type
+	 *            参数类型
+	 * @param binder
+	 *            绑定器
+	 */
+	public static void register(Class<?> type, ParameterBinder binder) {
+		if (type == null || binder == null) {
+			throw new IllegalArgumentException("type and binder cannot be null");
+		}
+		binders.put(type, binder);
+		// 之前已按父类型解析过的，下次查找时重新解析
+		resolved.remove(type);
+	}
+
+	/**
+	 * 获取参数类型对应的绑定器
+	 *
+	 * @param type
+	 *            参数值的类型
+	 * @return 绑定器，没有对应绑定器时返回调用setObject的绑定器
+	 */
+	public static ParameterBinder forType(Class<?> type) {
+		return resolved.get(type);
+	}
+
+	/**
+	 * 为没有精确注册的类型按父类型选择绑定器
+	 *
+	 * @param type
+	 *            参数值的类型
+	 * @return 绑定器
+	 */
+	private static ParameterBinder resolve(Class<?> type) {
+		if (Enum.class.isAssignableFrom(type)) {
+			return StandardParameterBinder.ENUM;
+		}
+		if (InputStream.class.isAssignableFrom(type)) {
+			return StandardParameterBinder.INPUT_STREAM;
+		}
+		if (Reader.class.isAssignableFrom(type)) {
+			return StandardParameterBinder.READER;
+		}
+		if (Blob.class.isAssignableFrom(type)) {
+			return StandardParameterBinder.BLOB;
+		}
+		if (Clob.class.isAssignableFrom(type)) {
+			return StandardParameterBinder.CLOB;
+		}
+		return StandardParameterBinder.OBJECT;
+	}
+
+}
@@ -0,0 +1,361 @@
+package com.opensource.dbhelp.dbutils;
+
+import java.sql.ParameterMetaData;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Types;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按驱动及SQL缓存的参数元数据。
+ * <p/>
+ * 原来每次执行都调用<code>getParameterMetaData()</code>检查参数个数，每个null参数再调用<code>getParameterType</code>；mysql服务端预编译和oracle上这可能多一次往返或元数据解析。
+ * 这里以驱动名和SQL文本为键缓存参数个数和每个参数的SQL类型，同一个驱动上的同一条SQL只读取一次元数据，批量执行时也不再逐行检查；同一JVM中多个数据源使用不同数据库时互不影响。 缓存有上限，达到上限后新的SQL不再缓存，按原方式读取。
+ * <p/>
+ * 不支持<code>getParameterType</code>的驱动按驱动名全局记录，之后该驱动的SQL不再读取元数据，null参数按VARCHAR设置，不再需要每个QueryRunner实例各自探测一次。
+ * 参数类型只用于设置null参数，同一条SQL在不同数据库上类型不同时也不影响正确性。每个参数位置还缓存上次使用的{@link ParameterBinder}，参数值类型不变时不再查找绑定器。
+ * <p/>
+ * 该类是线程安全的。
+ * <p/>
+ * Copyright: Copyright (c) 26-10-17 下午9:40
+ * <p/>
+ * Company: GNU General Public License
+ * <p/>
+ * Author: GNU General Public License
+ * <p/>
+ * Version: 1.0
+ * <p/>
+ */
+public final class ParameterMetaDataCache {
+
+	/**
+	 * 最多缓存的SQL条数
+	 */
+	private static final int MAX_STATEMENTS = 2048;
+
+	/**
+	 * 驱动名及SQL文本到参数元数据的缓存
+	 */
+	private static final ConcurrentMap<Key, Parameters> statements = new ConcurrentHashMap<Key, Parameters>();
+
+	/**
+	 * 不支持ParameterMetaData的驱动名
+	 */
+	private static final ConcurrentMap<String, Boolean> brokenDrivers = new ConcurrentHashMap<String, Boolean>();
+
+	/**
+	 * 命中缓存的次数
+	 */
+	private static final LongAdder hits = new LongAdder();
+
+	/**
+	 * 读取元数据的次数
+	 */
+	private static final LongAdder misses = new LongAdder();
+
+	private ParameterMetaDataCache() {
+	}
+
+	/**
+	 * 获取SQL在语句所属驱动上的参数元数据，缓存中没有时从语句读取
+	 *
+	 * @param sql
+	 *            SQL文本
+	 * @param stmt
+	 *            由该SQL创建的语句
+	 * @return 参数元数据
+	 * @throws SQLException
+	 *             if a database access error occurs
+	 */
+	public static Parameters lookup(String sql, PreparedStatement stmt) throws SQLException {
+		return lookup(driverName(stmt), sql, stmt);
+	}
+
+	/**
+	 * 获取SQL在指定驱动上的参数元数据，缓存中没有时从语句读取。调用方已知语句所属驱动时使用，省去每次读取连接的DatabaseMetaData
+	 *
+	 * @param driver
+	 *            语句所属连接的驱动名，见{@link #driverName(PreparedStatement)}，可以为null
+	 * @param sql
+	 *            SQL文本
+	 * @param stmt
+	 *            由该SQL创建的语句
+	 * @return 参数元数据
+	 * @throws SQLException
+	 *             if a database access error occurs
+	 */
+	public static Parameters lookup(String driver, String sql, PreparedStatement stmt) throws SQLException {
+		Key key = new Key(driver, sql);
+		Parameters parameters = statements.get(key);
+		if (parameters != null) {
+			hits.increment();
+			return parameters;
+		}
+		misses.increment();
+
+		parameters = describe(driver, stmt);
+		if (statements.size() < MAX_STATEMENTS) {
+			Parameters existing = statements.putIfAbsent(key, parameters);
+			if (existing != null) {
+				parameters = existing;
+			}
+		}
+		return parameters;
+	}
+
+	/**
+	 * 从语句读取参数元数据
+	 *
+	 * @param driver
+	 *            语句所属连接的驱动名，可以为null
+	 * @param stmt
+	 *            语句
+	 * @return 参数元数据，驱动不支持时返回{@link Parameters#UNKNOWN}
+	 * @throws SQLException
+	 *             if a database access error occurs
+	 */
+	private static Parameters describe(String driver, PreparedStatement stmt) throws SQLException {
+		if (driver != null && brokenDrivers.containsKey(driver)) {
+			return Parameters.UNKNOWN;
+		}
+
+		ParameterMetaData pmd;
+		int count;
+		try {
+			pmd = stmt.getParameterMetaData();
+			count = pmd.getParameterCount();
+		}
+		catch (SQLFeatureNotSupportedException e) {
+			markBroken(driver);
+			return Parameters.UNKNOWN;
+		}
+
+		int[] types = new int[count];
+		try {
+			for (int i = 0; i < count; i++) {
+				types[i] = pmd.getParameterType(i + 1);
+			}
+		}
+		catch (SQLException e) {
+			// 参数个数可用，null参数按VARCHAR设置
+			markBroken(driver);
+			return new Parameters(count, null);
+		}
+		return new Parameters(count, types);
+	}
+
+	/**
+	 * 获取语句所属连接的驱动名
+	 *
+	 * @param stmt
+	 *            语句
+	 * @return 驱动名，无法获取时返回null
+	 */
+	public static String driverName(PreparedStatement stmt) {
+		try {
+			return stmt.getConnection().getMetaData().getDriverName();
+		}
+		catch (SQLException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * 记录驱动不支持ParameterMetaData
+	 *
+	 * @param driver
+	 *            驱动名，可以为null
+	 */
+	private static void markBroken(String driver) {
+		if (driver != null) {
+			brokenDrivers.put(driver, Boolean.TRUE);
+		}
+	}
+
+	/**
+	 * 判断驱动是否已被记录为不支持ParameterMetaData
+	 *
+	 * @param driverName
+	 *            驱动名，即<code>DatabaseMetaData.getDriverName()</code>
+	 * @return 是否不支持
+	 */
+	public static boolean isDriverBroken(String driverName) {
+		return brokenDrivers.containsKey(driverName);
+	}
+
+	/**
+	 * 命中缓存的次数
+	 *
+	 * @return 命中次数
+	 */
+	public static long getHits() {
+		return hits.sum();
+	}
+
+	/**
+	 * 读取元数据的次数
+	 *
+	 * @return 未命中次数
+	 */
+	public static long getMisses() {
+		return misses.sum();
+	}
+
+	/**
+	 * 当前缓存的SQL条数
+	 *
+	 * @return 缓存条数
+	 */
+	public static int size() {
+		return statements.size();
+	}
+
+	/**
+	 * 清空缓存及驱动记录，例如表结构变化之后
+	 */
+	public static void clear() {
+		statements.clear();
+		brokenDrivers.clear();
+	}
+
+	/**
+	 * 一条SQL的参数元数据，创建后不可变
+	 */
+	public static final class Parameters {
+
+		/**
+		 * 驱动不支持ParameterMetaData时使用，不检查参数个数
+		 */
+		static final Parameters UNKNOWN = new Parameters(-1, null);
+
+		/**
+		 * 参数个数，未知时为-1
+		 */
+		private final int count;
+
+		/**
+		 * 每个参数的SQL类型，未知时为null
+		 */
+		private final int[] types;
+
+		/**
+		 * 每个参数位置上次使用的绑定器，参数个数未知时为null
+		 */
+		private final BoundBinder[] binders;
+
+		Parameters(int count, int[] types) {
+			this.count = count;
+			this.types = types;
+			this.binders = count > 0 ? new BoundBinder[count] : null;
+		}
+
+		/**
+		 * 参数个数是否已知
+		 *
+		 * @return 是否已知
+		 */
+		public boolean isCountKnown() {
+			return count >= 0;
+		}
+
+		/**
+		 * 参数个数
+		 *
+		 * @return 参数个数，未知时为-1
+		 */
+		public int getCount() {
+			return count;
+		}
+
+		/**
+		 * 设置null参数时使用的SQL类型。未知时使用VARCHAR，大多数驱动都能接受，oracle驱动不接受NULL和OTHER。
+		 *
+		 * @param index
+		 *            参数序号，从1开始
+		 * @return SQL类型，未知时为VARCHAR
+		 */
+		public int getType(int index) {
+			if (types == null || index < 1 || index > types.length) {
+				return Types.VARCHAR;
+			}
+			return types[index - 1];
+		}
+
+		/**
+		 * 获取参数值对应的绑定器，参数值类型与该位置上次相同时直接返回上次的绑定器
+		 *
+		 * @param index
+		 *            参数序号，从1开始
+		 * @param value
+		 *            参数值，不为null
+		 * @return 绑定器
+		 */
+		public ParameterBinder getBinder(int index, Object value) {
+			Class<?> type = value.getClass();
+			if (binders == null || index < 1 || index > binders.length) {
+				return ParameterBinders.forType(type);
+			}
+			BoundBinder bound = binders[index - 1];
+			if (bound == null || bound.type != type) {
+				// 多个线程同时写入时结果相同，不需要加锁
+				bound = new BoundBinder(type, ParameterBinders.forType(type));
+				binders[index - 1] = bound;
+			}
+			return bound.binder;
+		}
+	}
+
+	/**
+	 * 缓存键：驱动名及SQL文本
+	 */
+	private static final class Key {
+
+		private final String driver;
+
+		private final String sql;
+
+		private final int hash;
+
+		Key(String driver, String sql) {
+			this.driver = driver == null ? "" : driver;
+			this.sql = sql;
+			this.hash = 31 * this.driver.hashCode() + sql.hashCode();
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return hash == other.hash && sql.equals(other.sql) && driver.equals(other.driver);
+		}
+	}
+
+	/**
+	 * 参数位置上次使用的参数类型及绑定器，创建后不可变
+	 */
+	private static final class BoundBinder {
+
+		final Class<?> type;
+
+		final ParameterBinder binder;
+
+		BoundBinder(Class<?> type, ParameterBinder binder) {
+			this.type = type;
+			this.binder = binder;
+		}
+	}
+
+}
@@ -0,0 +1,176 @@
+package com.opensource.dbhelp.dbutils;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+import org.apache.commons.lang3.ClassUtils;
+
+/**
+ * bean属性getter调用器。
+ * <p/>
+ * 与{@link PropertySetter}相对应，每个属性只构建一次并缓存复用，读取属性值时不再进行<code>Method.invoke</code>反射调用及参数数组分配。 优先使用<code>LambdaMetafactory</code>生成的<code>Function</code>，
+ * 当bean类对本类加载器不可见时退化为<code>MethodHandle</code>调用，当getter无法被访问时退化为反射调用。基本类型的属性值返回包装类。
+ * <p/>
+ * 与{@link PropertySetter}一样按getter方法缓存在声明getter的类上，不同属性名列表的读取器共享同一个调用器。
+ * <p/>
+ * 该类创建后不可变，可以被多个线程共享。
+ * <p/>
+ * Copyright: Copyright (c) 26-10-17 下午11:55
+ * <p/>
+ * Company: GNU General Public License
+ * <p/>
+ * Author: GNU General Public License
+ * <p/>
+ * Version: 1.0
+ * <p/>
+ */
+abstract class PropertyGetter {
+
+	/**
+	 * 已创建的调用器，按声明getter的类分组，以getter方法为键
+	 */
+	private static final ClassValue<ConcurrentMap<Method, PropertyGetter>> GETTERS = new ClassValue<ConcurrentMap<Method, PropertyGetter>>() {
+
+		@Override
+		protected ConcurrentMap<Method, PropertyGetter> computeValue(Class<?> type) {
+			return new ConcurrentHashMap<Method, PropertyGetter>();
+		}
+	};
+
+	/**
+	 * 读取属性值
+	 *
+	 * @param bean
+	 *            目标对象
+	 * @return 属性值，基本类型返回包装类
+	 * @throws Throwable
+	 *             getter抛出的异常
+	 */
+	abstract Object get(Object bean) throws Throwable;
+
+	/**
+	 * 获取getter方法的调用器，第一次使用时创建
+	 *
+	 * @param getter
+	 *            getter方法，没有参数
+	 * @return 属性getter调用器
+	 */
+	static PropertyGetter of(Method getter) {
+		ConcurrentMap<Method, PropertyGetter> getters = GETTERS.get(getter.getDeclaringClass());
+		PropertyGetter result = getters.get(getter);
+		if (result == null) {
+			result = create(getter);
+			PropertyGetter existing = getters.putIfAbsent(getter, result);
+			if (existing != null) {
+				result = existing;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * 为getter方法创建调用器
+	 *
+	 * @param getter
+	 *            getter方法，没有参数
+	 * @return 属性getter调用器
+	 */
+	private static PropertyGetter create(Method getter) {
+		Class<?> type = getter.getReturnType();
+		MethodHandles.Lookup lookup = MethodHandles.lookup();
+		MethodHandle handle;
+		try {
+			handle = lookup.unreflect(getter);
+		}
+		catch (IllegalAccessException e) {
+			return new ReflectiveGetter(getter);
+		}
+
+		if (PropertySetter.isVisible(getter.getDeclaringClass()) && PropertySetter.isVisible(type)) {
+			try {
+				return lambdaGetter(lookup, handle, getter.getDeclaringClass(), type);
+			}
+			catch (Throwable e) { // NOPMD
+				// LambdaMetafactory不可用时使用MethodHandle
+			}
+		}
+		return new HandleGetter(handle);
+	}
+
+	/**
+	 * 通过LambdaMetafactory生成getter调用器，基本类型的返回值由LambdaMetafactory负责装箱
+	 */
+	@SuppressWarnings("unchecked")
+	private static PropertyGetter lambdaGetter(MethodHandles.Lookup lookup, MethodHandle handle, Class<?> beanType, Class<?> type) throws Throwable {
+		CallSite site = LambdaMetafactory.metafactory(lookup, "apply", MethodType.methodType(Function.class), MethodType.methodType(Object.class, Object.class), handle, MethodType.methodType(ClassUtils.primitiveToWrapper(type), beanType));
+		return new LambdaGetter((Function<Object, Object>) site.getTarget().invoke());
+	}
+
+	/**
+	 * 基于Function的getter调用器
+	 */
+	private static final class LambdaGetter extends PropertyGetter {
+
+		private final Function<Object, Object> function;
+
+		LambdaGetter(Function<Object, Object> function) {
+			this.function = function;
+		}
+
+		@Override
+		Object get(Object bean) {
+			return function.apply(bean);
+		}
+	}
+
+	/**
+	 * 基于MethodHandle的getter调用器
+	 */
+	private static final class HandleGetter extends PropertyGetter {
+
+		/**
+		 * 类型为(Object)Object的getter句柄
+		 */
+		private final MethodHandle generic;
+
+		HandleGetter(MethodHandle handle) {
+			this.generic = handle.asType(MethodType.methodType(Object.class, Object.class));
+		}
+
+		@Override
+		Object get(Object bean) throws Throwable {
+			return generic.invokeExact(bean);
+		}
+	}
+
+	/**
+	 * 基于反射的getter调用器，仅在getter无法通过MethodHandle访问时使用
+	 */
+	private static final class ReflectiveGetter extends PropertyGetter {
+
+		private final Method getter;
+
+		ReflectiveGetter(Method getter) {
+			this.getter = getter;
+		}
+
+		@Override
+		Object get(Object bean) throws Throwable {
+			try {
+				return getter.invoke(bean);
+			}
+			catch (InvocationTargetException e) {
+				throw e.getCause();
+			}
+		}
+	}
+
+}
@@ -0,0 +1,369 @@
+package com.opensource.dbhelp.dbutils;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiConsumer;
+import java.util.function.ObjDoubleConsumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ObjLongConsumer;
+
+import org.apache.commons.lang3.ClassUtils;
+
+/**
+ * bean属性setter调用器。
+ * <p/>
+ * 每个属性只构建一次并在映射计划中复用，避免每行每个字段都进行<code>Method.invoke</code>反射调用及参数数组分配。 优先使用<code>LambdaMetafactory</code>生成的
+ * <code>BiConsumer</code>/<code>ObjIntConsumer</code>/<code>ObjLongConsumer</code>/<code>ObjDoubleConsumer</code>，int、long、double类型的属性可以直接传入基本类型值而不需要装箱； 当bean类对本类加载器不可见时退化为<code>MethodHandle</code>调用，
+ * 当setter无法被访问时退化为反射调用。
+ * <p/>
+ * 调用器按setter方法缓存在声明setter的类上，同一个setter只生成一次，多个映射计划（包括超出映射计划缓存数量后每次新建的计划）共享同一个调用器；类被卸载时缓存随之释放。
+ * <p/>
+ * 该类创建后不可变，可以被多个线程共享。
+ * <p/>
+ * Copyright: Copyright (c) 26-10-17 上午11:05
+ * <p/>
+ * Company: GNU General Public License
+ * <p/>
+ * Author: GNU General Public License
+ * <p/>
+ * Version: 1.0
+ * <p/>
+ */
+abstract class PropertySetter {
+
+	/**
+	 * 已创建的调用器，按声明setter的类分组，以setter方法为键
+	 */
+	private static final ClassValue<ConcurrentMap<Method, PropertySetter>> SETTERS = new ClassValue<ConcurrentMap<Method, PropertySetter>>() {
+
+		@Override
+		protected ConcurrentMap<Method, PropertySetter> computeValue(Class<?> type) {
+			return new ConcurrentHashMap<Method, PropertySetter>();
+		}
+	};
+
+	/**
+	 * setter参数类型
+	 */
+	final Class<?> type;
+
+	/**
+	 * 构造函数
+	 *
+	 * @param type
+	 *            setter参数类型
+	 */
+	PropertySetter(Class<?> type) {
+		this.type = type;
+	}
+
+	/**
+	 * 设置对象类型的属性值，基本类型的属性由包装类拆箱
+	 *
+	 * @param bean
+	 *            目标对象
+	 * @param value
+	 *            属性值，需要与参数类型兼容
+	 * @throws Throwable
+	 *             setter抛出的异常
+	 */
+	abstract void set(Object bean, Object value) throws Throwable;
+
+	/**
+	 * 设置int类型的属性值
+	 *
+	 * @param bean
+	 *            目标对象
+	 * @param value
+	 *            属性值
+	 * @throws Throwable
+	 *             setter抛出的异常
+	 */
+	void setInt(Object bean, int value) throws Throwable {
+		set(bean, Integer.valueOf(value));
+	}
+
+	/**
+	 * 设置long类型的属性值
+	 *
+	 * @param bean
+	 *            目标对象
+	 * @param value
+	 *            属性值
+	 * @throws Throwable
+	 *             setter抛出的异常
+	 */
+	void setLong(Object bean, long value) throws Throwable {
+		set(bean, Long.valueOf(value));
+	}
+
+	/**
+	 * 设置double类型的属性值
+	 *
+	 * @param bean
+	 *            目标对象
+	 * @param value
+	 *            属性值
+	 * @throws Throwable
+	 *             setter抛出的异常
+	 */
+	void setDouble(Object bean, double value) throws Throwable {
+		set(bean, Double.valueOf(value));
+	}
+
+	/**
+	 * 获取setter方法的调用器，第一次使用时创建
+	 *
+	 * @param setter
+	 *            setter方法，只有一个参数
+	 * @return 属性setter调用器
+	 */
+	static PropertySetter of(Method setter) {
+		ConcurrentMap<Method, PropertySetter> setters = SETTERS.get(setter.getDeclaringClass());
+		PropertySetter result = setters.get(setter);
+		if (result == null) {
+			result = create(setter);
+			PropertySetter existing = setters.putIfAbsent(setter, result);
+			if (existing != null) {
+				result = existing;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * 为setter方法创建调用器
+	 *
+	 * @param setter
+	 *            setter方法，只有一个参数
+	 * @return 属性setter调用器
+	 */
+	private static PropertySetter create(Method setter) {
+		Class<?> type = setter.getParameterTypes()[0];
+		MethodHandles.Lookup lookup = MethodHandles.lookup();
+		MethodHandle handle;
+		try {
+			handle = lookup.unreflect(setter);
+		}
+		catch (IllegalAccessException e) {
+			return new ReflectiveSetter(setter);
+		}
+
+		if (isVisible(setter.getDeclaringClass()) && isVisible(type)) {
+			try {
+				return lambdaSetter(lookup, handle, setter.getDeclaringClass(), type);
+			}
+			catch (Throwable e) { // NOPMD
+				// LambdaMetafactory不可用时使用MethodHandle
+			}
+		}
+		return new HandleSetter(handle, type);
+	}
+
+	/**
+	 * 判断类是否对本类的加载器可见，LambdaMetafactory生成的类定义在本类的加载器中
+	 *
+	 * @param c
+	 *            要判断的类
+	 * @return 是否可见
+	 */
+	static boolean isVisible(Class<?> c) {
+		if (c.isPrimitive()) {
+			return true;
+		}
+		if (!Modifier.isPublic(c.getModifiers())) {
+			return false;
+		}
+		try {
+			return Class.forName(c.getName(), false, PropertySetter.class.getClassLoader()) == c;
+		}
+		catch (ClassNotFoundException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * 通过LambdaMetafactory生成setter调用器
+	 */
+	@SuppressWarnings("unchecked")
+	private static PropertySetter lambdaSetter(MethodHandles.Lookup lookup, MethodHandle handle, Class<?> beanType, Class<?> type) throws Throwable {
+		if (type == Integer.TYPE) {
+			CallSite site = LambdaMetafactory.metafactory(lookup, "accept", MethodType.methodType(ObjIntConsumer.class), MethodType.methodType(void.class, Object.class, int.class), handle, MethodType.methodType(void.class, beanType, int.class));
+			return new IntLambdaSetter((ObjIntConsumer<Object>) site.getTarget().invoke());
+		} else if (type == Long.TYPE) {
+			CallSite site = LambdaMetafactory.metafactory(lookup, "accept", MethodType.methodType(ObjLongConsumer.class), MethodType.methodType(void.class, Object.class, long.class), handle, MethodType.methodType(void.class, beanType, long.class));
+			return new LongLambdaSetter((ObjLongConsumer<Object>) site.getTarget().invoke());
+		} else if (type == Double.TYPE) {
+			CallSite site = LambdaMetafactory.metafactory(lookup, "accept", MethodType.methodType(ObjDoubleConsumer.class), MethodType.methodType(void.class, Object.class, double.class), handle, MethodType.methodType(void.class, beanType, double.class));
+			return new DoubleLambdaSetter((ObjDoubleConsumer<Object>) site.getTarget().invoke());
+		}
+		// 其它基本类型由LambdaMetafactory负责拆箱
+		CallSite site = LambdaMetafactory.metafactory(lookup, "accept", MethodType.methodType(BiConsumer.class), MethodType.methodType(void.class, Object.class, Object.class), handle, MethodType.methodType(void.class, beanType, ClassUtils.primitiveToWrapper(type)));
+		return new LambdaSetter((BiConsumer<Object, Object>) site.getTarget().invoke(), type);
+	}
+
+	/**
+	 * 基于BiConsumer的setter调用器
+	 */
+	private static final class LambdaSetter extends PropertySetter {
+
+		private final BiConsumer<Object, Object> consumer;
+
+		LambdaSetter(BiConsumer<Object, Object> consumer, Class<?> type) {
+			super(type);
+			this.consumer = consumer;
+		}
+
+		@Override
+		void set(Object bean, Object value) {
+			consumer.accept(bean, value);
+		}
+	}
+
+	/**
+	 * 基于ObjIntConsumer的setter调用器
+	 */
+	private static final class IntLambdaSetter extends PropertySetter {
+
+		private final ObjIntConsumer<Object> consumer;
+
+		IntLambdaSetter(ObjIntConsumer<Object> consumer) {
+			super(Integer.TYPE);
+			this.consumer = consumer;
+		}
+
+		@Override
+		void set(Object bean, Object value) {
+			consumer.accept(bean, ((Integer) value).intValue());
+		}
+
+		@Override
+		void setInt(Object bean, int value) {
+			consumer.accept(bean, value);
+		}
+	}
+
+	/**
+	 * 基于ObjLongConsumer的setter调用器
+	 */
+	private static final class LongLambdaSetter extends PropertySetter {
+
+		private final ObjLongConsumer<Object> consumer;
+
+		LongLambdaSetter(ObjLongConsumer<Object> consumer) {
+			super(Long.TYPE);
+			this.consumer = consumer;
+		}
+
+		@Override
+		void set(Object bean, Object value) {
+			consumer.accept(bean, ((Long) value).longValue());
+		}
+
+		@Override
+		void setLong(Object bean, long value) {
+			consumer.accept(bean, value);
+		}
+	}
+
+	/**
+	 * 基于ObjDoubleConsumer的setter调用器
+	 */
+	private static final class DoubleLambdaSetter extends PropertySetter {
+
+		private final ObjDoubleConsumer<Object> consumer;
+
+		DoubleLambdaSetter(ObjDoubleConsumer<Object> consumer) {
+			super(Double.TYPE);
+			this.consumer = consumer;
+		}
+
+		@Override
+		void set(Object bean, Object value) {
+			consumer.accept(bean, ((Double) value).doubleValue());
+		}
+
+		@Override
+		void setDouble(Object bean, double value) {
+			consumer.accept(bean, value);
+		}
+	}
+
+	/**
+	 * 基于MethodHandle的setter调用器
+	 */
+	private static final class HandleSetter extends PropertySetter {
+
+		/**
+		 * 类型为(Object, Object)void的句柄
+		 */
+		private final MethodHandle generic;
+
+		/**
+		 * 类型为(Object, int|long|double)void的句柄，其它类型为null
+		 */
+		private final MethodHandle primitive;
+
+		HandleSetter(MethodHandle handle, Class<?> type) {
+			super(type);
+			this.generic = handle.asType(MethodType.methodType(void.class, Object.class, Object.class));
+			if (type == Integer.TYPE || type == Long.TYPE || type == Double.TYPE) {
+				this.primitive = handle.asType(MethodType.methodType(void.class, Object.class, type));
+			} else {
+				this.primitive = null;
+			}
+		}
+
+		@Override
+		void set(Object bean, Object value) throws Throwable {
+			generic.invokeExact(bean, value);
+		}
+
+		@Override
+		void setInt(Object bean, int value) throws Throwable {
+			primitive.invokeExact(bean, value);
+		}
+
+		@Override
+		void setLong(Object bean, long value) throws Throwable {
+			primitive.invokeExact(bean, value);
+		}
+
+		@Override
+		void setDouble(Object bean, double value) throws Throwable {
+			primitive.invokeExact(bean, value);
+		}
+	}
+
+	/**
+	 * 基于反射的setter调用器，仅在setter无法通过MethodHandle访问时使用
+	 */
+	private static final class ReflectiveSetter extends PropertySetter {
+
+		private final Method setter;
+
+		ReflectiveSetter(Method setter) {
+			super(setter.getParameterTypes()[0]);
+			this.setter = setter;
+		}
+
+		@Override
+		void set(Object bean, Object value) throws Throwable {
+			try {
+				setter.invoke(bean, value);
+			}
+			catch (InvocationTargetException e) {
+				throw e.getCause();
+			}
+		}
+	}
+
+}
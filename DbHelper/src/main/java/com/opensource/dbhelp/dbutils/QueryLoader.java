@@ -8,6 +8,9 @@ import java.io.InputStream;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * <code>QueryLoader</code> is a registry for sets of queries so that multiple copies of the same queries aren't loaded into memory. This implementation loads properties files filled with query name to SQL mappings. This class is thread safe.
@@ -31,7 +34,12 @@ public class QueryLoader {
 	/**
 	 * Maps query set names to Maps of their queries.
 	 */
-	private final Map<String, Map<String, String>> queries = new HashMap<String, Map<String, String>>();
+	private final ConcurrentMap<String, Map<String, String>> queries = new ConcurrentHashMap<String, Map<String, String>>();
+
+	/**
+	 * Held while a query set is read from the class path, so each path is read only once. A ReentrantLock rather than a monitor, so a virtual thread blocked on it or on the read does not pin its carrier thread.
+	 */
+	private final ReentrantLock loadLock = new ReentrantLock();
 
 	/**
 	 * QueryLoader constructor.
@@ -41,7 +49,7 @@ public class QueryLoader {
 	}
 
 	/**
-	 * Loads a Map of query names to SQL values. The Maps are cached so a subsequent request to load queries from the same path will return the cached Map.
+	 * Loads a Map of query names to SQL values. The Maps are cached so a subsequent request to load queries from the same path will return the cached Map without locking.
 	 *
 	 * @param path
 	 *            The path that the ClassLoader will use to find the file. This is <strong>not</strong> a file system path. If you had a jarred Queries.properties file in the com.yourcorp.app.jdbc package you would pass "/com/yourcorp/app/jdbc/Queries.properties" to this method.
@@ -51,13 +59,22 @@ public class QueryLoader {
 	 *             if the ClassLoader can't find a file at the given path.
 	 * @return Map of query names to SQL values
 	 */
-	public synchronized Map<String, String> load(String path) throws IOException {
+	public Map<String, String> load(String path) throws IOException {
 
 		Map<String, String> queryMap = this.queries.get(path);
 
 		if (queryMap == null) {
-			queryMap = this.loadQueries(path);
-			this.queries.put(path, queryMap);
+			this.loadLock.lock();
+			try {
+				queryMap = this.queries.get(path);
+				if (queryMap == null) {
+					queryMap = this.loadQueries(path);
+					this.queries.put(path, queryMap);
+				}
+			}
+			finally {
+				this.loadLock.unlock();
+			}
 		}
 
 		return queryMap;
@@ -105,7 +122,7 @@ public class QueryLoader {
 	 * @param path
 	 *            The path that the queries were loaded from.
 	 */
-	public synchronized void unload(String path) {
+	public void unload(String path) {
 		this.queries.remove(path);
 	}
 
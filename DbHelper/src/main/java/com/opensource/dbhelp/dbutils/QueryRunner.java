@@ -7,9 +7,15 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.temporal.Temporal;
+import java.util.Date;
+import java.util.Iterator;
 
 import javax.sql.DataSource;
 
+import com.opensource.dbhelp.dialect.BatchSqlRewriter;
+
 /**
  * Executes SQL queries with pluggable strategies for handling <code>ResultSet</code>s. This class is thread safe.
  *
@@ -17,6 +23,11 @@ import javax.sql.DataSource;
  */
 public class QueryRunner extends AbstractQueryRunner {
 
+	/**
+	 * Default number of parameter rows sent with one <code>executeBatch</code> call by the chunked batch methods.
+	 */
+	public static final int DEFAULT_BATCH_SIZE = 1000;
+
 	/**
 	 * Constructor for QueryRunner.
 	 */
@@ -92,6 +103,407 @@ public class QueryRunner extends AbstractQueryRunner {
 		return this.batch(conn, true, sql, params);
 	}
 
+	/**
+	 * Execute a batch of SQL INSERT, UPDATE, or DELETE queries in chunks. Parameter rows are read from the iterator and sent with <code>executeBatch</code> every <code>batchSize</code> rows, or earlier once the estimated size of the pending rows reaches <code>batchBytes</code>, so only one chunk is held in memory. The same <code>PreparedStatement</code> is used for all chunks. When a chunk fails, the chunks before it have already been executed; use a transaction to roll them back.
+	 *
+	 * @param conn
+	 *            The Connection to use to run the query. The caller is responsible for closing this Connection.
+	 * @param sql
+	 *            The SQL to execute.
+	 * @param params
+	 *            The query replacement parameters, one row per statement.
+	 * @param batchSize
+	 *            The maximum number of rows per <code>executeBatch</code> call.
+	 * @param batchBytes
+	 *            The estimated parameter size in bytes that triggers an <code>executeBatch</code> call, or 0 for no byte budget.
+	 * @return The aggregated update counts.
+	 * @throws java.sql.SQLException
+	 *             if a database access error occurs
+	 */
+	public BatchResult batch(Connection conn, String sql, Iterator<Object[]> params, int batchSize, long batchBytes) throws SQLException {
+		return this.batch(conn, false, sql, params, batchSize, batchBytes, null);
+	}
+
+	/**
+	 * Execute a batch of single row INSERT queries in chunks, rewriting each chunk into multi-row INSERT statements with the given dialect rewriter, see {@link BatchSqlRewriter}. A chunk of <code>n</code> rows is executed as statements of power-of-two row counts, so one SQL produces only a few distinct statement texts and statement caches keep hitting. All statements are prepared once per call. SQL that the rewriter does not accept is executed like {@link #batch(Connection, String, Iterator, int, long)}.
+	 *
+	 * @param conn
+	 *            The Connection to use to run the query. The caller is responsible for closing this Connection.
+	 * @param sql
+	 *            The single row INSERT statement to execute.
+	 * @param params
+	 *            The query replacement parameters, one row per inserted row.
+	 * @param batchSize
+	 *            The maximum number of rows per chunk; the rewriter may limit it further.
+	 * @param batchBytes
+	 *            The estimated parameter size in bytes that ends a chunk early, or 0 for no byte budget.
+	 * @param rewriter
+	 *            The dialect rewriter, or <code>null</code> to execute a plain JDBC batch.
+	 * @return The aggregated update counts, with one count per executed statement.
+	 * @throws java.sql.SQLException
+	 *             if a database access error occurs
+	 */
+	public BatchResult batch(Connection conn, String sql, Iterator<Object[]> params, int batchSize, long batchBytes, BatchSqlRewriter rewriter) throws SQLException {
+		return this.batch(conn, false, sql, params, batchSize, batchBytes, rewriter);
+	}
+
+	/**
+	 * Execute a batch of SQL INSERT, UPDATE, or DELETE queries in chunks, see {@link #batch(Connection, String, Iterator, int, long)}. The <code>Connection</code> is retrieved from the <code>DataSource</code> set in the constructor. This <code>Connection</code> must be in auto-commit mode or the update will not be saved.
+	 *
+	 * @param sql
+	 *            The SQL to execute.
+	 * @param params
+	 *            The query replacement parameters, one row per statement.
+	 * @param batchSize
+	 *            The maximum number of rows per <code>executeBatch</code> call.
+	 * @param batchBytes
+	 *            The estimated parameter size in bytes that triggers an <code>executeBatch</code> call, or 0 for no byte budget.
+	 * @return The aggregated update counts.
+	 * @throws java.sql.SQLException
+	 *             if a database access error occurs
+	 */
+	public BatchResult batch(String sql, Iterator<Object[]> params, int batchSize, long batchBytes) throws SQLException {
+		Connection conn = this.prepareConnection();
+
+		return this.batch(conn, true, sql, params, batchSize, batchBytes, null);
+	}
+
+	/**
+	 * Execute a batch of single row INSERT queries in chunks of multi-row statements, see {@link #batch(Connection, String, Iterator, int, long, BatchSqlRewriter)}. The <code>Connection</code> is retrieved from the <code>DataSource</code> set in the constructor. This <code>Connection</code> must be in auto-commit mode or the update will not be saved.
+	 *
+	 * @param sql
+	 *            The single row INSERT statement to execute.
+	 * @param params
+	 *            The query replacement parameters, one row per inserted row.
+	 * @param batchSize
+	 *            The maximum number of rows per chunk; the rewriter may limit it further.
+	 * @param batchBytes
+	 *            The estimated parameter size in bytes that ends a chunk early, or 0 for no byte budget.
+	 * @param rewriter
+	 *            The dialect rewriter, or <code>null</code> to execute a plain JDBC batch.
+	 * @return The aggregated update counts, with one count per executed statement.
+	 * @throws java.sql.SQLException
+	 *             if a database access error occurs
+	 */
+	public BatchResult batch(String sql, Iterator<Object[]> params, int batchSize, long batchBytes, BatchSqlRewriter rewriter) throws SQLException {
+		Connection conn = this.prepareConnection();
+
+		return this.batch(conn, true, sql, params, batchSize, batchBytes, rewriter);
+	}
+
+	/**
+	 * Executes the chunked batch after checking the parameters to ensure nothing is null.
+	 *
+	 * @param conn
+	 *            The connection to use for the batch call.
+	 * @param closeConn
+	 *            True if the connection should be closed, false otherwise.
+	 * @param sql
+	 *            The SQL statement to execute.
+	 * @param params
+	 *            The query replacement parameters, one row per statement.
+	 * @param batchSize
+	 *            The maximum number of rows per <code>executeBatch</code> call.
+	 * @param batchBytes
+	 *            The estimated parameter size in bytes that triggers an <code>executeBatch</code> call, or 0 for no byte budget.
+	 * @param rewriter
+	 *            The dialect rewriter for INSERT statements, or <code>null</code>.
+	 * @return The aggregated update counts.
+	 * @throws java.sql.SQLException
+	 *             If there are database or parameter errors.
+	 */
+	private BatchResult batch(Connection conn, boolean closeConn, String sql, Iterator<Object[]> params, int batchSize, long batchBytes, BatchSqlRewriter rewriter) throws SQLException {
+		if (conn == null) {
+			throw new SQLException("Null connection");
+		}
+
+		if (sql == null) {
+			if (closeConn) {
+				close(conn);
+			}
+			throw new SQLException("Null SQL statement");
+		}
+
+		if (params == null) {
+			if (closeConn) {
+				close(conn);
+			}
+			throw new SQLException("Null parameters. If parameters aren't need, pass an empty iterator.");
+		}
+
+		if (batchSize < 1) {
+			if (closeConn) {
+				close(conn);
+			}
+			throw new SQLException("Batch size must be positive: " + batchSize);
+		}
+
+		int parameterCount = rewriter == null ? -1 : rewriter.getParameterCount(sql);
+		if (parameterCount > 0) {
+			int chunkRows = Integer.highestOneBit(Math.min(batchSize, rewriter.getMaxRows(parameterCount)));
+			if (chunkRows > 1) {
+				try {
+					return this.rewrittenBatch(conn, sql, params, chunkRows, batchBytes, rewriter, parameterCount);
+				}
+				finally {
+					if (closeConn) {
+						close(conn);
+					}
+				}
+			}
+		}
+
+		BatchResult result = new BatchResult();
+		PreparedStatement stmt = null;
+		QueryWatchdog watchdog = null;
+		Object[] row = null;
+		try {
+			watchdog = this.startWatchdog(conn);
+			stmt = this.prepareStatement(conn, sql);
+			watchdog.watch(stmt);
+
+			int pending = 0;
+			long pendingBytes = 0;
+			while (params.hasNext()) {
+				row = params.next();
+				this.fillStatement(sql, stmt, row);
+				stmt.addBatch();
+				pending++;
+				if (batchBytes > 0) {
+					pendingBytes += estimateSize(row);
+				}
+				if (pending >= batchSize || (batchBytes > 0 && pendingBytes >= batchBytes)) {
+					result.add(pending, stmt.executeBatch());
+					pending = 0;
+					pendingBytes = 0;
+				}
+			}
+			if (pending > 0) {
+				result.add(pending, stmt.executeBatch());
+			}
+
+		}
+		catch (SQLException e) {
+			this.rethrow(translateTimeout(watchdog, e), sql + " [" + result.getRowCount() + " rows executed before the failing chunk]", row);
+		}
+		finally {
+			stopWatchdog(watchdog);
+			try {
+				this.releaseStatement(conn, sql, stmt);
+			}
+			finally {
+				if (closeConn) {
+					close(conn);
+				}
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Executes single row INSERT parameters as multi-row statements. Rows are buffered up to <code>chunkRows</code>, a power of two, and each buffered chunk is split into statements of decreasing power-of-two row counts.
+	 *
+	 * @param conn
+	 *            The connection to use.
+	 * @param sql
+	 *            The single row INSERT statement.
+	 * @param params
+	 *            The query replacement parameters, one row per inserted row.
+	 * @param chunkRows
+	 *            The maximum number of rows per statement, a power of two greater than one.
+	 * @param batchBytes
+	 *            The estimated parameter size in bytes that ends a chunk early, or 0 for no byte budget.
+	 * @param rewriter
+	 *            The dialect rewriter.
+	 * @param parameterCount
+	 *            The number of parameters per row.
+	 * @return The aggregated update counts.
+	 * @throws java.sql.SQLException
+	 *             If there are database or parameter errors.
+	 */
+	private BatchResult rewrittenBatch(Connection conn, String sql, Iterator<Object[]> params, int chunkRows, long batchBytes, BatchSqlRewriter rewriter, int parameterCount) throws SQLException {
+		RewrittenBatch batch = new RewrittenBatch(conn, sql, chunkRows, rewriter, parameterCount);
+		Object[] row = null;
+		try {
+			batch.watchdog = this.startWatchdog(conn);
+			long pendingBytes = 0;
+			while (params.hasNext()) {
+				row = params.next();
+				int length = row == null ? 0 : row.length;
+				if (length != parameterCount) {
+					throw new SQLException("Wrong number of parameters: expected " + parameterCount + ", was given " + length);
+				}
+				if (batchBytes > 0) {
+					pendingBytes += estimateSize(row);
+				}
+				if (batch.add(row) || (batchBytes > 0 && pendingBytes >= batchBytes)) {
+					batch.flush();
+					pendingBytes = 0;
+				}
+			}
+			batch.flush();
+
+		}
+		catch (SQLException e) {
+			this.rethrow(translateTimeout(batch.watchdog, e), batch.current + " [" + batch.result.getRowCount() + " rows executed before the failing statement]", row);
+		}
+		finally {
+			batch.close();
+		}
+
+		return batch.result;
+	}
+
+	/**
+	 * The state of one rewritten INSERT batch: the buffered rows of the current chunk and one statement per power-of-two row count, prepared on first use and reused for all chunks.
+	 */
+	private final class RewrittenBatch {
+
+		private final Connection conn;
+
+		private final String sql;
+
+		private final BatchSqlRewriter rewriter;
+
+		private final int parameterCount;
+
+		/**
+		 * Index <code>p</code> holds the SQL, statement and flattened parameters for <code>2^p</code> rows.
+		 */
+		private final String[] texts;
+
+		private final PreparedStatement[] stmts;
+
+		private final Object[][] args;
+
+		private final Object[][] buffer;
+
+		private final BatchResult result = new BatchResult();
+
+		private int pending;
+
+		/**
+		 * The SQL of the statement being executed, for error messages.
+		 */
+		private String current;
+
+		/**
+		 * The watchdog of the batch call, every statement is registered when it is prepared.
+		 */
+		private QueryWatchdog watchdog;
+
+		RewrittenBatch(Connection conn, String sql, int chunkRows, BatchSqlRewriter rewriter, int parameterCount) {
+			int levels = Integer.numberOfTrailingZeros(chunkRows) + 1;
+			this.conn = conn;
+			this.sql = sql;
+			this.rewriter = rewriter;
+			this.parameterCount = parameterCount;
+			this.texts = new String[levels];
+			this.stmts = new PreparedStatement[levels];
+			this.args = new Object[levels][];
+			this.buffer = new Object[chunkRows][];
+			this.current = sql;
+		}
+
+		/**
+		 * Buffers a row.
+		 *
+		 * @param row
+		 *            The parameter row.
+		 * @return true if the chunk is full and must be flushed
+		 */
+		boolean add(Object[] row) {
+			buffer[pending++] = row;
+			return pending == buffer.length;
+		}
+
+		/**
+		 * Executes the buffered rows as statements of decreasing power-of-two row counts.
+		 *
+		 * @throws SQLException
+		 *             if a database access error occurs
+		 */
+		void flush() throws SQLException {
+			int offset = 0;
+			for (int p = texts.length - 1; p >= 0; p--) {
+				int rows = 1 << p;
+				while (pending - offset >= rows) {
+					if (stmts[p] == null) {
+						texts[p] = p == 0 ? sql : rewriter.getBatchSql(sql, rows);
+						args[p] = new Object[rows * parameterCount];
+						current = texts[p];
+						stmts[p] = prepareStatement(conn, texts[p]);
+						watchdog.watch(stmts[p]);
+					}
+					for (int i = 0; i < rows; i++) {
+						System.arraycopy(buffer[offset + i], 0, args[p], i * parameterCount, parameterCount);
+						buffer[offset + i] = null;
+					}
+					current = texts[p];
+					fillStatement(texts[p], stmts[p], args[p]);
+					result.add(rows, new int[] { stmts[p].executeUpdate() });
+					offset += rows;
+				}
+			}
+			pending = 0;
+		}
+
+		/**
+		 * Releases all prepared statements. A statement that fails to release does not keep the others open; the first failure is thrown after all statements are released, with later ones chained as next exceptions.
+		 *
+		 * @throws SQLException
+		 *             if a database access error occurs
+		 */
+		void close() throws SQLException {
+			stopWatchdog(watchdog);
+			SQLException failure = null;
+			for (int p = 0; p < stmts.length; p++) {
+				try {
+					releaseStatement(conn, texts[p], stmts[p]);
+				}
+				catch (SQLException e) {
+					if (failure == null) {
+						failure = e;
+					} else {
+						failure.setNextException(e);
+					}
+				}
+			}
+			if (failure != null) {
+				throw failure;
+			}
+		}
+	}
+
+	/**
+	 * Estimates the memory a row of batch parameters takes in the driver's batch buffer.
+	 *
+	 * @param row
+	 *            The parameter row.
+	 * @return The estimated size in bytes.
+	 */
+	private static long estimateSize(Object[] row) {
+		long size = 16;
+		if (row == null) {
+			return size;
+		}
+		for (Object value : row) {
+			if (value == null) {
+				size += 4;
+			} else if (value instanceof CharSequence) {
+				size += 16 + 2L * ((CharSequence) value).length();
+			} else if (value instanceof byte[]) {
+				size += 16 + ((byte[]) value).length;
+			} else if (value instanceof Number || value instanceof Boolean || value instanceof Date || value instanceof Temporal) {
+				size += 16;
+			} else {
+				size += 64;
+			}
+		}
+		return size;
+	}
+
 	/**
 	 * Calls update after checking the parameters to ensure nothing is null.
 	 * 
@@ -127,24 +539,32 @@ public class QueryRunner extends AbstractQueryRunner {
 		}
 
 		PreparedStatement stmt = null;
+		QueryWatchdog watchdog = null;
 		int[] rows = null;
 		try {
+			watchdog = this.startWatchdog(conn);
 			stmt = this.prepareStatement(conn, sql);
+			watchdog.watch(stmt);
 
 			for (int i = 0; i < params.length; i++) {
-				this.fillStatement(stmt, params[i]);
+				this.fillStatement(sql, stmt, params[i]);
 				stmt.addBatch();
 			}
 			rows = stmt.executeBatch();
 
 		}
 		catch (SQLException e) {
-			this.rethrow(e, sql, (Object[]) params);
+			this.rethrow(translateTimeout(watchdog, e), sql, (Object[]) params);
 		}
 		finally {
-			close(stmt);
-			if (closeConn) {
-				close(conn);
+			stopWatchdog(watchdog);
+			try {
+				this.releaseStatement(conn, sql, stmt);
+			}
+			finally {
+				if (closeConn) {
+					close(conn);
+				}
 			}
 		}
 
@@ -358,18 +778,26 @@ public class QueryRunner extends AbstractQueryRunner {
 		}
 
 		PreparedStatement stmt = null;
+		QueryWatchdog watchdog = null;
 		ResultSet rs = null;
 		T result = null;
+		FetchSizeAdvisor advisor = this.getFetchSize() == 0 ? this.getFetchSizeAdvisor() : null;
 
 		try {
+			watchdog = this.startWatchdog(conn);
 			stmt = this.prepareStatement(conn, sql);
-			this.fillStatement(stmt, params);
+			watchdog.watch(stmt);
+			this.applyFetchSize(sql, stmt, advisor);
+			this.fillStatement(sql, stmt, params);
 			rs = this.wrap(stmt.executeQuery());
 			result = rsh.handle(rs);
+			if (advisor != null) {
+				advisor.record(sql, rs, FetchSizeAdvisor.countRows(result));
+			}
 
 		}
 		catch (SQLException e) {
-			this.rethrow(e, sql, params);
+			this.rethrow(translateTimeout(watchdog, e), sql, params);
 
 		}
 		finally {
@@ -377,9 +805,14 @@ public class QueryRunner extends AbstractQueryRunner {
 				close(rs);
 			}
 			finally {
-				close(stmt);
-				if (closeConn) {
-					close(conn);
+				stopWatchdog(watchdog);
+				try {
+					this.releaseStatement(conn, sql, stmt);
+				}
+				finally {
+					if (closeConn) {
+						close(conn);
+					}
 				}
 			}
 		}
@@ -513,26 +946,347 @@ public class QueryRunner extends AbstractQueryRunner {
 		}
 
 		PreparedStatement stmt = null;
+		QueryWatchdog watchdog = null;
 		int rows = 0;
 
 		try {
+			watchdog = this.startWatchdog(conn);
 			stmt = this.prepareStatement(conn, sql);
-			this.fillStatement(stmt, params);
+			watchdog.watch(stmt);
+			this.fillStatement(sql, stmt, params);
 			rows = stmt.executeUpdate();
 
 		}
 		catch (SQLException e) {
-			this.rethrow(e, sql, params);
+			this.rethrow(translateTimeout(watchdog, e), sql, params);
 
 		}
 		finally {
-			close(stmt);
+			stopWatchdog(watchdog);
+			try {
+				this.releaseStatement(conn, sql, stmt);
+			}
+			finally {
+				if (closeConn) {
+					close(conn);
+				}
+			}
+		}
+
+		return rows;
+	}
+
+	/**
+	 * Executes the given INSERT SQL statement and hands the auto-generated keys to the handler. The keys are read from <code>getGeneratedKeys()</code> of the same statement, so no extra query is needed. The caller is responsible for closing the connection.
+	 *
+	 * @param <T>
+	 *            The type of object that the handler returns
+	 * @param conn
+	 *            The connection to use to run the query.
+	 * @param sql
+	 *            The SQL to execute.
+	 * @param rsh
+	 *            The handler used to create the result object from the <code>ResultSet</code> of auto-generated keys.
+	 * @param params
+	 *            The query replacement parameters.
+	 * @return An object generated by the handler.
+	 * @throws java.sql.SQLException
+	 *             if a database access error occurs
+	 */
+	public <T> T insert(Connection conn, String sql, ResultSetHandler<T> rsh, Object... params) throws SQLException {
+		return insert(conn, false, sql, null, rsh, params);
+	}
+
+	/**
+	 * Executes the given INSERT SQL statement and hands the values of the given key columns to the handler. Drivers that return a row id for <code>RETURN_GENERATED_KEYS</code> (e.g. Oracle) need the key column names. The caller is responsible for closing the connection.
+	 *
+	 * @param <T>
+	 *            The type of object that the handler returns
+	 * @param conn
+	 *            The connection to use to run the query.
+	 * @param sql
+	 *            The SQL to execute.
+	 * @param keyColumns
+	 *            The names of the columns whose generated values should be returned.
+	 * @param rsh
+	 *            The handler used to create the result object from the <code>ResultSet</code> of auto-generated keys.
+	 * @param params
+	 *            The query replacement parameters.
+	 * @return An object generated by the handler.
+	 * @throws java.sql.SQLException
+	 *             if a database access error occurs
+	 */
+	public <T> T insert(Connection conn, String sql, String[] keyColumns, ResultSetHandler<T> rsh, Object... params) throws SQLException {
+		return insert(conn, false, sql, keyColumns, rsh, params);
+	}
+
+	/**
+	 * Executes the given INSERT SQL statement and hands the auto-generated keys to the handler. The <code>Connection</code> is retrieved from the <code>DataSource</code> set in the constructor. This <code>Connection</code> must be in auto-commit mode or the insert will not be saved.
+	 *
+	 * @param <T>
+	 *            The type of object that the handler returns
+	 * @param sql
+	 *            The SQL to execute.
+	 * @param rsh
+	 *            The handler used to create the result object from the <code>ResultSet</code> of auto-generated keys.
+	 * @param params
+	 *            The query replacement parameters.
+	 * @return An object generated by the handler.
+	 * @throws java.sql.SQLException
+	 *             if a database access error occurs
+	 */
+	public <T> T insert(String sql, ResultSetHandler<T> rsh, Object... params) throws SQLException {
+		return insert(this.prepareConnection(), true, sql, null, rsh, params);
+	}
+
+	/**
+	 * Executes the given INSERT SQL statement and hands the values of the given key columns to the handler. The <code>Connection</code> is retrieved from the <code>DataSource</code> set in the constructor. This <code>Connection</code> must be in auto-commit mode or the insert will not be saved.
+	 *
+	 * @param <T>
+	 *            The type of object that the handler returns
+	 * @param sql
+	 *            The SQL to execute.
+	 * @param keyColumns
+	 *            The names of the columns whose generated values should be returned.
+	 * @param rsh
+	 *            The handler used to create the result object from the <code>ResultSet</code> of auto-generated keys.
+	 * @param params
+	 *            The query replacement parameters.
+	 * @return An object generated by the handler.
+	 * @throws java.sql.SQLException
+	 *             if a database access error occurs
+	 */
+	public <T> T insert(String sql, String[] keyColumns, ResultSetHandler<T> rsh, Object... params) throws SQLException {
+		return insert(this.prepareConnection(), true, sql, keyColumns, rsh, params);
+	}
+
+	/**
+	 * Executes the given batch of INSERT SQL statements and hands the auto-generated keys of all rows to the handler. The caller is responsible for closing the connection.
+	 *
+	 * @param <T>
+	 *            The type of object that the handler returns
+	 * @param conn
+	 *            The connection to use to run the query.
+	 * @param sql
+	 *            The SQL to execute.
+	 * @param keyColumns
+	 *            The names of the columns whose generated values should be returned, or <code>null</code> to use <code>RETURN_GENERATED_KEYS</code>.
+	 * @param rsh
+	 *            The handler used to create the result object from the <code>ResultSet</code> of auto-generated keys.
+	 * @param params
+	 *            An array of query replacement parameters. Each row in this array is one set of batch replacement values.
+	 * @return An object generated by the handler.
+	 * @throws java.sql.SQLException
+	 *             if a database access error occurs
+	 */
+	public <T> T insertBatch(Connection conn, String sql, String[] keyColumns, ResultSetHandler<T> rsh, Object[][] params) throws SQLException {
+		return insertBatch(conn, false, sql, keyColumns, rsh, params);
+	}
+
+	/**
+	 * Executes the given batch of INSERT SQL statements and hands the auto-generated keys of all rows to the handler. The <code>Connection</code> is retrieved from the <code>DataSource</code> set in the constructor. This <code>Connection</code> must be in auto-commit mode or the insert will not be saved.
+	 *
+	 * @param <T>
+	 *            The type of object that the handler returns
+	 * @param sql
+	 *            The SQL to execute.
+	 * @param keyColumns
+	 *            The names of the columns whose generated values should be returned, or <code>null</code> to use <code>RETURN_GENERATED_KEYS</code>.
+	 * @param rsh
+	 *            The handler used to create the result object from the <code>ResultSet</code> of auto-generated keys.
+	 * @param params
+	 *            An array of query replacement parameters. Each row in this array is one set of batch replacement values.
+	 * @return An object generated by the handler.
+	 * @throws java.sql.SQLException
+	 *             if a database access error occurs
+	 */
+	public <T> T insertBatch(String sql, String[] keyColumns, ResultSetHandler<T> rsh, Object[][] params) throws SQLException {
+		return insertBatch(this.prepareConnection(), true, sql, keyColumns, rsh, params);
+	}
+
+	/**
+	 * Factory method that creates a <code>PreparedStatement</code> returning auto-generated keys. These statements are prepared with different options than the ones from {@link #prepareStatement(Connection, String)}, so they are never taken from the statement cache and are closed after use.
+	 *
+	 * @param conn
+	 *            The <code>Connection</code> used to create the <code>PreparedStatement</code>
+	 * @param sql
+	 *            The SQL statement to prepare.
+	 * @param keyColumns
+	 *            The names of the key columns, or <code>null</code> to use <code>RETURN_GENERATED_KEYS</code>.
+	 * @return An initialized <code>PreparedStatement</code>.
+	 * @throws java.sql.SQLException
+	 *             if a database access error occurs
+	 */
+	protected PreparedStatement prepareInsertStatement(Connection conn, String sql, String[] keyColumns) throws SQLException {
+		if (keyColumns == null || keyColumns.length == 0) {
+			return conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+		}
+		return conn.prepareStatement(sql, keyColumns);
+	}
+
+	/**
+	 * Executes the insert and reads the generated keys after checking the parameters to ensure nothing is null.
+	 *
+	 * @param conn
+	 *            The connection to use for the insert call.
+	 * @param closeConn
+	 *            True if the connection should be closed, false otherwise.
+	 * @param sql
+	 *            The SQL statement to execute.
+	 * @param keyColumns
+	 *            The names of the key columns, may be <code>null</code>.
+	 * @param rsh
+	 *            The handler used to create the result object from the <code>ResultSet</code> of auto-generated keys.
+	 * @param params
+	 *            The query replacement parameters.
+	 * @return An object generated by the handler.
+	 * @throws java.sql.SQLException
+	 *             If there are database or parameter errors.
+	 */
+	private <T> T insert(Connection conn, boolean closeConn, String sql, String[] keyColumns, ResultSetHandler<T> rsh, Object... params) throws SQLException {
+		if (conn == null) {
+			throw new SQLException("Null connection");
+		}
+
+		if (sql == null) {
 			if (closeConn) {
 				close(conn);
 			}
+			throw new SQLException("Null SQL statement");
 		}
 
-		return rows;
+		if (rsh == null) {
+			if (closeConn) {
+				close(conn);
+			}
+			throw new SQLException("Null ResultSetHandler");
+		}
+
+		PreparedStatement stmt = null;
+		QueryWatchdog watchdog = null;
+		ResultSet rs = null;
+		T generatedKeys = null;
+
+		try {
+			watchdog = this.startWatchdog(conn);
+			stmt = this.prepareInsertStatement(conn, sql, keyColumns);
+			watchdog.watch(stmt);
+			this.fillStatement(sql, stmt, params);
+			stmt.executeUpdate();
+			rs = stmt.getGeneratedKeys();
+			generatedKeys = rsh.handle(rs);
+
+		}
+		catch (SQLException e) {
+			this.rethrow(translateTimeout(watchdog, e), sql, params);
+
+		}
+		finally {
+			try {
+				close(rs);
+			}
+			finally {
+				stopWatchdog(watchdog);
+				try {
+					close(stmt);
+				}
+				finally {
+					if (closeConn) {
+						close(conn);
+					}
+				}
+			}
+		}
+
+		return generatedKeys;
+	}
+
+	/**
+	 * Executes the batch insert and reads the generated keys after checking the parameters to ensure nothing is null.
+	 *
+	 * @param conn
+	 *            The connection to use for the batch call.
+	 * @param closeConn
+	 *            True if the connection should be closed, false otherwise.
+	 * @param sql
+	 *            The SQL statement to execute.
+	 * @param keyColumns
+	 *            The names of the key columns, may be <code>null</code>.
+	 * @param rsh
+	 *            The handler used to create the result object from the <code>ResultSet</code> of auto-generated keys.
+	 * @param params
+	 *            An array of query replacement parameters. Each row in this array is one set of batch replacement values.
+	 * @return An object generated by the handler.
+	 * @throws java.sql.SQLException
+	 *             If there are database or parameter errors.
+	 */
+	private <T> T insertBatch(Connection conn, boolean closeConn, String sql, String[] keyColumns, ResultSetHandler<T> rsh, Object[][] params) throws SQLException {
+		if (conn == null) {
+			throw new SQLException("Null connection");
+		}
+
+		if (sql == null) {
+			if (closeConn) {
+				close(conn);
+			}
+			throw new SQLException("Null SQL statement");
+		}
+
+		if (rsh == null) {
+			if (closeConn) {
+				close(conn);
+			}
+			throw new SQLException("Null ResultSetHandler");
+		}
+
+		if (params == null) {
+			if (closeConn) {
+				close(conn);
+			}
+			throw new SQLException("Null parameters. If parameters aren't need, pass an empty array.");
+		}
+
+		PreparedStatement stmt = null;
+		QueryWatchdog watchdog = null;
+		ResultSet rs = null;
+		T generatedKeys = null;
+
+		try {
+			watchdog = this.startWatchdog(conn);
+			stmt = this.prepareInsertStatement(conn, sql, keyColumns);
+			watchdog.watch(stmt);
+
+			for (int i = 0; i < params.length; i++) {
+				this.fillStatement(sql, stmt, params[i]);
+				stmt.addBatch();
+			}
+			stmt.executeBatch();
+			rs = stmt.getGeneratedKeys();
+			generatedKeys = rsh.handle(rs);
+
+		}
+		catch (SQLException e) {
+			this.rethrow(translateTimeout(watchdog, e), sql, (Object[]) params);
+
+		}
+		finally {
+			try {
+				close(rs);
+			}
+			finally {
+				stopWatchdog(watchdog);
+				try {
+					close(stmt);
+				}
+				finally {
+					if (closeConn) {
+						close(conn);
+					}
+				}
+			}
+		}
+
+		return generatedKeys;
 	}
 
 }
\ No newline at end of file
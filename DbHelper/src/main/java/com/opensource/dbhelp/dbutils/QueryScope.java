@@ -0,0 +1,46 @@
+package com.opensource.dbhelp.dbutils;
+
+import java.util.concurrent.Callable;
+
+/**
+ * 可以从其它线程取消的一组数据库调用。
+ * <p/>
+ * 在{@link #call(Callable)}中通过QueryRunner执行的语句登记到该范围，{@link #cancel()}时对正在执行的语句调用<code>Statement.cancel()</code>，数据库停止执行，阻塞在读取结果上的调用以SQLException结束；
+ * 取消之后在范围中开始的调用立即失败。用于结束一组并行执行的调用，例如并行读取的一个分区出错时结束其它分区的查询，而不必等待它们读到下一行。
+ * <p/>
+ * 一个范围同一时间只在一个线程中执行，{@link #cancel()}可以在任意线程中调用。
+ * <p/>
+ * Copyright: Copyright (c) 26-10-17 上午2:10
+ * <p/>
+ * Company: GNU General Public License
+ * <p/>
+ * Author: GNU General Public License
+ * <p/>
+ * Version: 1.0
+ * <p/>
+ */
+public final class QueryScope {
+
+	private final QueryWatchdog.Scope scope = new QueryWatchdog.Scope();
+
+	/**
+	 * 在当前线程中以该范围执行任务
+	 *
+	 * @param task
+	 *            任务
+	 * @return 任务的结果
+	 * @throws Exception
+	 *             任务抛出的异常
+	 */
+	public <T> T call(Callable<T> task) throws Exception {
+		return scope.call(task);
+	}
+
+	/**
+	 * 取消范围中正在执行和之后开始的调用
+	 */
+	public void cancel() {
+		scope.cancel();
+	}
+
+}
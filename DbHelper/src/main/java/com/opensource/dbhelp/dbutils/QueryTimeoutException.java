@@ -0,0 +1,71 @@
+package com.opensource.dbhelp.dbutils;
+
+import java.sql.SQLTimeoutException;
+
+/**
+ * 获取连接或执行语句超过期限时抛出的异常。
+ * <p/>
+ * 驱动因<code>setQueryTimeout</code>抛出的SQLTimeoutException、看门狗到期后调用<code>Statement.cancel()</code>导致的异常以及等待连接池超时都转换为该异常，调用者可以据此区分超时和其它数据库错误。 原异常作为cause，没有原异常时为null。
+ * <p/>
+ * Copyright: Copyright (c) 26-10-17 下午11:59
+ * <p/>
+ * Company: GNU General Public License
+ * <p/>
+ * Author: GNU General Public License
+ * <p/>
+ * Version: 1.0
+ * <p/>
+ */
+public class QueryTimeoutException extends SQLTimeoutException {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * 超时的期限，毫秒
+	 */
+	private final long timeoutMillis;
+
+	/**
+	 * 构造函数
+	 *
+	 * @param reason
+	 *            异常信息
+	 * @param timeoutMillis
+	 *            超时的期限，毫秒
+	 * @param cause
+	 *            原异常，可以为null
+	 */
+	public QueryTimeoutException(String reason, long timeoutMillis, Throwable cause) {
+		super(reason, cause);
+		this.timeoutMillis = timeoutMillis;
+	}
+
+	/**
+	 * 构造函数
+	 *
+	 * @param reason
+	 *            异常信息
+	 * @param sqlState
+	 *            SQLState
+	 * @param vendorCode
+	 *            数据库错误码
+	 * @param timeoutMillis
+	 *            超时的期限，毫秒
+	 * @param cause
+	 *            原异常，可以为null
+	 */
+	public QueryTimeoutException(String reason, String sqlState, int vendorCode, long timeoutMillis, Throwable cause) {
+		super(reason, sqlState, vendorCode, cause);
+		this.timeoutMillis = timeoutMillis;
+	}
+
+	/**
+	 * 超时的期限
+	 *
+	 * @return 期限，毫秒，未知时为0
+	 */
+	public long getTimeoutMillis() {
+		return timeoutMillis;
+	}
+
+}
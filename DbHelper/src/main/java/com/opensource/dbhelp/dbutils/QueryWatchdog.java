@@ -0,0 +1,654 @@
+package com.opensource.dbhelp.dbutils;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.sql.DataSource;
+
+import com.mchange.v2.c3p0.AbstractComboPooledDataSource;
+
+/**
+ * 一次数据库操作的超时看门狗。
+ * <p/>
+ * 操作开始时创建，执行的语句通过{@link #watch(Statement)}登记：设置<code>setQueryTimeout</code>，由驱动在数据库端限制执行时间； 同时在共享的调度线程上登记一个到期任务，到期时对登记的语句调用<code>Statement.cancel()</code>，
+ * 驱动不支持或网络阻塞导致<code>setQueryTimeout</code>不生效时也能结束等待。操作结束时调用{@link #stop()}取消到期任务，并把语句的超时恢复为0，语句可以放回缓存。
+ * <p/>
+ * 在{@link Scope}中执行的操作（{@link AsyncQueryRunner}返回的Future）登记到该范围，Future被取消时同样取消正在执行的语句。
+ * <p/>
+ * 到期时调度线程只标记超时，<code>Statement.cancel()</code>交给单独的取消线程执行：mysql等驱动取消时要新建连接发送KILL QUERY，一次缓慢的取消不会推迟其它操作的到期。
+ * 取消在锁外执行，正在取消时{@link #stop()}等待取消完成，迟到的取消不会中断连接上的下一条语句。
+ * <p/>
+ * 状态用{@link ReentrantLock}保护而不是<code>synchronized</code>，在虚拟线程中执行时等待锁或等待取消完成不会占住平台线程。
+ * <p/>
+ * 该类是线程安全的。
+ * <p/>
+ * Copyright: Copyright (c) 26-10-17 下午11:59
+ * <p/>
+ * Company: GNU General Public License
+ * <p/>
+ * Author: GNU General Public License
+ * <p/>
+ * Version: 1.0
+ * <p/>
+ */
+final class QueryWatchdog {
+
+	/**
+	 * 到期任务的调度线程
+	 */
+	private static final ScheduledThreadPoolExecutor timer = createTimer();
+
+	/**
+	 * 取消语句的最大线程数
+	 */
+	private static final int MAX_CANCELLERS = 8;
+
+	/**
+	 * 到期时取消语句的线程，调度线程不执行可能阻塞的<code>Statement.cancel()</code>
+	 */
+	private static final ThreadPoolExecutor cancellers = createCancellers();
+
+	/**
+	 * 带期限获取连接的最大线程数
+	 */
+	private static final int MAX_ACQUIRERS = 16;
+
+	/**
+	 * 等待获取连接线程的最大任务数
+	 */
+	private static final int MAX_PENDING_ACQUISITIONS = 1024;
+
+	/**
+	 * 带期限获取连接时使用的线程
+	 */
+	private static final ThreadPoolExecutor acquirers = createAcquirers();
+
+	/**
+	 * 当前线程所在的取消范围
+	 */
+	private static final ThreadLocal<Scope> currentScope = new ThreadLocal<Scope>();
+
+	private static final int RUNNING = 0;
+
+	private static final int TIMED_OUT = 1;
+
+	private static final int CANCELLED = 2;
+
+	/**
+	 * 期限，纳秒，0表示不限制
+	 */
+	private final long timeoutNanos;
+
+	/**
+	 * 到期的System.nanoTime()
+	 */
+	private final long deadline;
+
+	/**
+	 * 登记的语句
+	 */
+	private final List<Statement> statements = new ArrayList<Statement>(1);
+
+	/**
+	 * 所在的取消范围，可以为null
+	 */
+	private final Scope scope;
+
+	/**
+	 * 保护语句列表和状态的锁
+	 */
+	private final ReentrantLock lock = new ReentrantLock();
+
+	/**
+	 * 取消完成的通知
+	 */
+	private final Condition cancelDone = lock.newCondition();
+
+	/**
+	 * 是否正在取消登记的语句
+	 */
+	private boolean cancelling;
+
+	/**
+	 * 到期任务，不限制期限时为null
+	 */
+	private ScheduledFuture<?> task;
+
+	private int state = RUNNING;
+
+	private boolean stopped;
+
+	private QueryWatchdog(long timeoutNanos, Scope scope) {
+		this.timeoutNanos = timeoutNanos;
+		this.deadline = System.nanoTime() + timeoutNanos;
+		this.scope = scope;
+	}
+
+	private static ScheduledThreadPoolExecutor createTimer() {
+		ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, new DaemonThreadFactory("dbhelper-query-watchdog-"));
+		executor.setRemoveOnCancelPolicy(true);
+		return executor;
+	}
+
+	private static ThreadPoolExecutor createCancellers() {
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(MAX_CANCELLERS, MAX_CANCELLERS, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new DaemonThreadFactory("dbhelper-query-canceller-"));
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+
+	private static ThreadPoolExecutor createAcquirers() {
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(MAX_ACQUIRERS, MAX_ACQUIRERS, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(MAX_PENDING_ACQUISITIONS), new DaemonThreadFactory("dbhelper-connection-acquirer-"));
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+
+	/**
+	 * 开始一次操作
+	 *
+	 * @param timeoutNanos
+	 *            期限，纳秒，0表示不限制
+	 * @return 看门狗，操作结束时需要调用{@link #stop()}
+	 */
+	static QueryWatchdog start(long timeoutNanos) {
+		Scope scope = currentScope.get();
+		final QueryWatchdog watchdog = new QueryWatchdog(timeoutNanos, scope);
+		if (timeoutNanos > 0) {
+			watchdog.task = timer.schedule(new Runnable() {
+
+				@Override
+				public void run() {
+					watchdog.expire();
+				}
+			}, timeoutNanos, TimeUnit.NANOSECONDS);
+		}
+		if (scope != null) {
+			scope.register(watchdog);
+		}
+		return watchdog;
+	}
+
+	/**
+	 * 登记即将执行的语句，设置语句的超时秒数
+	 *
+	 * @param stmt
+	 *            语句
+	 * @throws SQLException
+	 *             已经超时或已被取消，或设置超时出错
+	 */
+	void watch(Statement stmt) throws SQLException {
+		lock.lock();
+		try {
+			if (state != RUNNING) {
+				throw translate(null);
+			}
+			statements.add(stmt);
+		}
+		finally {
+			lock.unlock();
+		}
+		if (timeoutNanos > 0) {
+			long remaining = deadline - System.nanoTime();
+			if (remaining <= 0) {
+				throw timeout(null);
+			}
+			stmt.setQueryTimeout((int) Math.min(Integer.MAX_VALUE, TimeUnit.NANOSECONDS.toSeconds(remaining + 999999999L)));
+		}
+	}
+
+	/**
+	 * 结束操作，取消到期任务并恢复语句的超时设置
+	 */
+	void stop() {
+		List<Statement> watched;
+		lock.lock();
+		try {
+			if (stopped) {
+				return;
+			}
+			stopped = true;
+			watched = new ArrayList<Statement>(statements);
+			statements.clear();
+			// 取消完成之前连接不能执行下一条语句，否则迟到的取消会中断它
+			while (cancelling) {
+				cancelDone.awaitUninterruptibly();
+			}
+		}
+		finally {
+			lock.unlock();
+		}
+		if (task != null) {
+			task.cancel(false);
+		}
+		if (scope != null) {
+			scope.unregister(this);
+		}
+		if (timeoutNanos > 0) {
+			for (Statement stmt : watched) {
+				try {
+					stmt.setQueryTimeout(0);
+				}
+				catch (SQLException e) { // NOPMD
+					// 语句已关闭或不可用，由释放语句时处理
+				}
+			}
+		}
+	}
+
+	/**
+	 * 到期时在调度线程中调用，标记超时后把取消语句交给取消线程
+	 */
+	private void expire() {
+		final List<Statement> targets = mark(TIMED_OUT);
+		if (targets == null) {
+			return;
+		}
+		try {
+			cancellers.execute(new Runnable() {
+
+				@Override
+				public void run() {
+					cancel(targets);
+				}
+			});
+		}
+		catch (RejectedExecutionException e) {
+			cancel(targets);
+		}
+	}
+
+	/**
+	 * 被取消时在调用者的线程中取消登记的语句
+	 *
+	 * @param reason
+	 *            {@link #TIMED_OUT}或{@link #CANCELLED}
+	 */
+	private void interrupt(int reason) {
+		List<Statement> targets = mark(reason);
+		if (targets != null) {
+			cancel(targets);
+		}
+	}
+
+	/**
+	 * 标记到期或被取消，之后登记的语句立即失败
+	 *
+	 * @param reason
+	 *            {@link #TIMED_OUT}或{@link #CANCELLED}
+	 * @return 需要取消的语句，已结束、已标记或没有登记语句时为null；不为null时必须调用{@link #cancel(List)}
+	 */
+	private List<Statement> mark(int reason) {
+		lock.lock();
+		try {
+			if (stopped || state != RUNNING) {
+				return null;
+			}
+			state = reason;
+			if (statements.isEmpty()) {
+				return null;
+			}
+			cancelling = true;
+			return new ArrayList<Statement>(statements);
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * 在锁外取消语句，完成后通知等待的{@link #stop()}
+	 *
+	 * @param targets
+	 *            {@link #mark(int)}返回的语句
+	 */
+	private void cancel(List<Statement> targets) {
+		try {
+			for (Statement stmt : targets) {
+				try {
+					stmt.cancel();
+				}
+				catch (SQLException e) { // NOPMD
+					// 语句已执行完毕或驱动不支持取消
+				}
+			}
+		}
+		finally {
+			lock.lock();
+			try {
+				cancelling = false;
+				cancelDone.signalAll();
+			}
+			finally {
+				lock.unlock();
+			}
+		}
+	}
+
+	/**
+	 * 把操作中捕获的异常转换为超时或取消异常
+	 *
+	 * @param e
+	 *            捕获的异常，可以为null
+	 * @return 到期时为{@link QueryTimeoutException}，被取消时为说明取消的SQLException，否则为原异常
+	 */
+	SQLException translate(SQLException e) {
+		int current;
+		lock.lock();
+		try {
+			current = state;
+		}
+		finally {
+			lock.unlock();
+		}
+		if (current == TIMED_OUT || (e instanceof SQLTimeoutException && !(e instanceof QueryTimeoutException))) {
+			return timeout(e);
+		}
+		if (current == CANCELLED) {
+			return new SQLException("Statement cancelled", e);
+		}
+		return e;
+	}
+
+	/**
+	 * 创建超时异常
+	 *
+	 * @param cause
+	 *            原异常，可以为null
+	 * @return 超时异常
+	 */
+	private QueryTimeoutException timeout(SQLException cause) {
+		long millis = TimeUnit.NANOSECONDS.toMillis(timeoutNanos);
+		String reason = "Statement timed out after " + millis + " ms";
+		if (cause == null) {
+			return new QueryTimeoutException(reason, millis, null);
+		}
+		return new QueryTimeoutException(reason, cause.getSQLState(), cause.getErrorCode(), millis, cause);
+	}
+
+	/**
+	 * 在期限内从数据源获取连接。
+	 * <p/>
+	 * c3p0连接池的获取超时（<code>checkoutTimeout</code>）不超过期限时在当前线程中获取，由连接池自己限制等待时间，连接池超时时抛出{@link QueryTimeoutException}；这种方式不占用额外的线程，把连接绑定到线程的数据源也能正常工作。
+	 * 其他数据源，以及未设置获取超时或获取超时比期限长的c3p0连接池，在单独的线程中获取，到期时放弃等待，放弃之后才取得的连接立即关闭，归还连接池；获取连接的线程数和等待的任务数有上限，超出时立即失败。
+	 *
+	 * @param ds
+	 *            数据源
+	 * @param timeoutNanos
+	 *            期限，纳秒，大于0
+	 * @return 数据库连接
+	 * @throws SQLException
+	 *             获取连接出错，到期时为{@link QueryTimeoutException}
+	 */
+	static Connection getConnection(DataSource ds, long timeoutNanos) throws SQLException {
+		if (ds instanceof AbstractComboPooledDataSource) {
+			int checkoutTimeout = ((AbstractComboPooledDataSource) ds).getCheckoutTimeout();
+			if (checkoutTimeout > 0 && TimeUnit.MILLISECONDS.toNanos(checkoutTimeout) <= timeoutNanos) {
+				return getPooledConnection((AbstractComboPooledDataSource) ds);
+			}
+		}
+		Acquisition acquisition = new Acquisition(ds);
+		Future<Connection> future;
+		try {
+			future = acquirers.submit(acquisition);
+		}
+		catch (RejectedExecutionException e) {
+			throw new SQLException("Too many threads waiting for a connection", e);
+		}
+		try {
+			return future.get(timeoutNanos, TimeUnit.NANOSECONDS);
+		}
+		catch (TimeoutException e) {
+			if (acquisition.abandon()) {
+				future.cancel(true);
+				long millis = TimeUnit.NANOSECONDS.toMillis(timeoutNanos);
+				throw new QueryTimeoutException("Timed out after " + millis + " ms waiting for a connection", millis, e);
+			}
+			// 连接恰好在到期时取得
+			return getDone(future);
+		}
+		catch (InterruptedException e) {
+			if (!acquisition.abandon()) {
+				DbUtils.closeQuietly(getDone(future));
+			}
+			future.cancel(true);
+			Thread.currentThread().interrupt();
+			throw new SQLException("Interrupted while waiting for a connection", e);
+		}
+		catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof SQLException) {
+				throw (SQLException) cause;
+			}
+			throw new SQLException(cause.getMessage(), cause);
+		}
+	}
+
+	/**
+	 * 在当前线程中从c3p0连接池获取连接，等待时间由连接池的<code>checkoutTimeout</code>限制
+	 *
+	 * @param ds
+	 *            连接池
+	 * @return 数据库连接
+	 * @throws SQLException
+	 *             获取连接出错，连接池超时时为{@link QueryTimeoutException}
+	 */
+	private static Connection getPooledConnection(AbstractComboPooledDataSource ds) throws SQLException {
+		try {
+			return ds.getConnection();
+		}
+		catch (SQLException e) {
+			if (e.getCause() instanceof com.mchange.v2.resourcepool.TimeoutException) {
+				long millis = ds.getCheckoutTimeout();
+				throw new QueryTimeoutException("Timed out after " + millis + " ms waiting for a connection", e.getSQLState(), e.getErrorCode(), millis, e);
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * 读取已完成的获取连接任务的结果
+	 */
+	private static Connection getDone(Future<Connection> future) throws SQLException {
+		boolean interrupted = false;
+		try {
+			while (true) {
+				try {
+					return future.get();
+				}
+				catch (InterruptedException e) {
+					interrupted = true;
+				}
+				catch (ExecutionException e) {
+					throw new SQLException(e.getCause().getMessage(), e.getCause());
+				}
+			}
+		}
+		finally {
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * 获取连接的任务，调用者放弃等待后不再获取，已经取得的连接直接关闭
+	 */
+	private static final class Acquisition implements Callable<Connection> {
+
+		private final DataSource ds;
+
+		private boolean abandoned;
+
+		private boolean delivered;
+
+		private final ReentrantLock lock = new ReentrantLock();
+
+		Acquisition(DataSource ds) {
+			this.ds = ds;
+		}
+
+		@Override
+		public Connection call() throws SQLException {
+			lock.lock();
+			try {
+				// 调用者在任务排队时已经放弃等待
+				if (abandoned) {
+					return null;
+				}
+			}
+			finally {
+				lock.unlock();
+			}
+			Connection conn = ds.getConnection();
+			lock.lock();
+			try {
+				if (!abandoned) {
+					delivered = true;
+					return conn;
+				}
+			}
+			finally {
+				lock.unlock();
+			}
+			DbUtils.closeQuietly(conn);
+			return null;
+		}
+
+		/**
+		 * 放弃等待
+		 *
+		 * @return 是否放弃成功，连接已经交付时返回false
+		 */
+		boolean abandon() {
+			lock.lock();
+			try {
+				if (delivered) {
+					return false;
+				}
+				abandoned = true;
+				return true;
+			}
+			finally {
+				lock.unlock();
+			}
+		}
+	}
+
+	/**
+	 * 取消范围，范围内开始的操作在{@link #cancel()}时取消正在执行的语句。一个范围同一时间只在一个线程中执行。
+	 */
+	static final class Scope {
+
+		private final List<QueryWatchdog> active = new ArrayList<QueryWatchdog>(1);
+
+		private boolean cancelled;
+
+		private final ReentrantLock lock = new ReentrantLock();
+
+		/**
+		 * 在当前线程中以该范围执行任务
+		 *
+		 * @param task
+		 *            任务
+		 * @return 任务的结果
+		 * @throws Exception
+		 *             任务抛出的异常
+		 */
+		<T> T call(Callable<T> task) throws Exception {
+			Scope previous = currentScope.get();
+			currentScope.set(this);
+			try {
+				return task.call();
+			}
+			finally {
+				if (previous == null) {
+					currentScope.remove();
+				} else {
+					currentScope.set(previous);
+				}
+			}
+		}
+
+		/**
+		 * 取消范围内正在执行和之后开始的操作
+		 */
+		void cancel() {
+			List<QueryWatchdog> watchdogs;
+			lock.lock();
+			try {
+				cancelled = true;
+				watchdogs = new ArrayList<QueryWatchdog>(active);
+			}
+			finally {
+				lock.unlock();
+			}
+			for (QueryWatchdog watchdog : watchdogs) {
+				watchdog.interrupt(CANCELLED);
+			}
+		}
+
+		private void register(QueryWatchdog watchdog) {
+			boolean cancel;
+			lock.lock();
+			try {
+				active.add(watchdog);
+				cancel = cancelled;
+			}
+			finally {
+				lock.unlock();
+			}
+			if (cancel) {
+				watchdog.interrupt(CANCELLED);
+			}
+		}
+
+		private void unregister(QueryWatchdog watchdog) {
+			lock.lock();
+			try {
+				active.remove(watchdog);
+			}
+			finally {
+				lock.unlock();
+			}
+		}
+	}
+
+	/**
+	 * 创建守护线程的线程工厂，不阻止JVM退出
+	 */
+	static final class DaemonThreadFactory implements ThreadFactory {
+
+		private final String prefix;
+
+		private final AtomicInteger count = new AtomicInteger();
+
+		DaemonThreadFactory(String prefix) {
+			this.prefix = prefix;
+		}
+
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread thread = new Thread(r, prefix + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+
+}
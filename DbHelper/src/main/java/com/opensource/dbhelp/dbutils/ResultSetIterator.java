@@ -6,13 +6,14 @@ package com.opensource.dbhelp.dbutils;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
 
 /**
  * <p>
  * Wraps a <code>ResultSet</code> in an <code>Iterator<Object[]></code>. This is useful when you want to present a non-database application layer with domain neutral data.
  * </p>
  * <p>
- * This implementation requires the <code>ResultSet.isLast()</code> method to be implemented.
+ * <code>hasNext()</code> reads one row ahead with <code>ResultSet.next()</code>, so the iterator works on forward-only and streaming cursors that do not support <code>ResultSet.isLast()</code>.
  * </p>
  */
 public class ResultSetIterator implements Iterator<Object[]> {
@@ -27,6 +28,16 @@ public class ResultSetIterator implements Iterator<Object[]> {
 	 */
 	private final RowProcessor convert;
 
+	/**
+	 * Whether the cursor has been advanced to a row that <code>next()</code> has not returned yet.
+	 */
+	private boolean fetched;
+
+	/**
+	 * The result of the last <code>ResultSet.next()</code> call.
+	 */
+	private boolean more;
+
 	/**
 	 * Constructor for ResultSetIterator.
 	 * 
@@ -59,8 +70,13 @@ public class ResultSetIterator implements Iterator<Object[]> {
 	 */
 	@Override
 	public boolean hasNext() {
+		if (fetched) {
+			return more;
+		}
 		try {
-			return !rs.isLast();
+			more = rs.next();
+			fetched = true;
+			return more;
 		}
 		catch (SQLException e) {
 			rethrow(e);
@@ -73,13 +89,18 @@ public class ResultSetIterator implements Iterator<Object[]> {
 	 * 
 	 * @return An <code>Object[]</code> with the same number of elements as columns in the <code>ResultSet</code>.
 	 * @see java.util.Iterator#next()
+	 * @throws NoSuchElementException
+	 *             if there are no more rows.
 	 * @throws RuntimeException
 	 *             if an SQLException occurs.
 	 */
 	@Override
 	public Object[] next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		fetched = false;
 		try {
-			rs.next();
 			return this.convert.toArray(rs);
 		}
 		catch (SQLException e) {
@@ -89,14 +110,19 @@ public class ResultSetIterator implements Iterator<Object[]> {
 	}
 
 	/**
-	 * Deletes the current row from the <code>ResultSet</code>.
+	 * Deletes the current row from the <code>ResultSet</code>. Must be called before <code>hasNext()</code> moves the cursor to the following row.
 	 * 
 	 * @see java.util.Iterator#remove()
+	 * @throws IllegalStateException
+	 *             if the cursor has already moved past the row returned by <code>next()</code>.
 	 * @throws RuntimeException
 	 *             if an SQLException occurs.
 	 */
 	@Override
 	public void remove() {
+		if (fetched) {
+			throw new IllegalStateException("remove() must be called before hasNext()");
+		}
 		try {
 			this.rs.deleteRow();
 		}
@@ -106,14 +132,14 @@ public class ResultSetIterator implements Iterator<Object[]> {
 	}
 
 	/**
-	 * Rethrow the SQLException as a RuntimeException. This implementation creates a new RuntimeException with the SQLException's error message.
+	 * Rethrow the SQLException as a RuntimeException. This implementation creates a new RuntimeException with the SQLException's error message and keeps it as the cause.
 	 * 
 	 * @param e
 	 *            SQLException to rethrow
 	 * @since DbUtils 1.1
 	 */
 	protected void rethrow(SQLException e) {
-		throw new RuntimeException(e.getMessage());
+		throw new RuntimeException(e.getMessage(), e);
 	}
 
 	/**
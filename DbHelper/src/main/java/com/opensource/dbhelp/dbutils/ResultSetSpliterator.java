@@ -0,0 +1,153 @@
+package com.opensource.dbhelp.dbutils;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+/**
+ * 逐行读取记录集并转换为bean的<code>Spliterator</code>，用于构造惰性求值的<code>Stream</code>。
+ * <p/>
+ * 每次<code>tryAdvance</code>只调用一次<code>ResultSet.next()</code>，不依赖<code>isLast()</code>，可以用于只进游标和驱动的流式结果集。 行转换器是BasicRowProcessor时，读到第一行时通过
+ * {@link BasicRowProcessor#beanReader}解析一次映射，之后逐行复用；<code>forEachRemaining</code>在尚未解析时交给{@link BasicRowProcessor#forEachBean}处理，映射同样只解析一次。 读到末尾、转换出错或调用{@link #close()}时执行一次释放回调，由回调关闭记录集、语句和连接。SQLException包装为RuntimeException抛出，原异常作为cause。
+ * <p/>
+ * 该类不是线程安全的，不支持拆分。
+ * <p/>
+ * Copyright: Copyright (c) 26-10-17 下午9:10
+ * <p/>
+ * Company: GNU General Public License
+ * <p/>
+ * Author: GNU General Public License
+ * <p/>
+ * Version: 1.0
+ * <p/>
+ *
+ * @param <T>
+ *            每行转换后的类型
+ */
+public class ResultSetSpliterator<T> extends Spliterators.AbstractSpliterator<T> implements AutoCloseable {
+
+	/**
+	 * 读取的记录集
+	 */
+	private final ResultSet rs;
+
+	/**
+	 * 转换后的bean类
+	 */
+	private final Class<T> type;
+
+	/**
+	 * 行转换器
+	 */
+	private final RowProcessor convert;
+
+	/**
+	 * 释放资源的回调，可以为null
+	 */
+	private final Runnable release;
+
+	/**
+	 * 读到第一行时解析的bean转换器，行转换器不是BasicRowProcessor时为null
+	 */
+	private BeanReader<T> reader;
+
+	/**
+	 * 是否已读到末尾或已关闭
+	 */
+	private boolean finished;
+
+	/**
+	 * 构造函数
+	 *
+	 * @param rs
+	 *            读取的记录集
+	 * @param type
+	 *            转换后的bean类
+	 * @param convert
+	 *            行转换器
+	 * @param release
+	 *            读到末尾或关闭时执行一次的释放回调，可以为null
+	 */
+	public ResultSetSpliterator(ResultSet rs, Class<T> type, RowProcessor convert, Runnable release) {
+		super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+		this.rs = rs;
+		this.type = type;
+		this.convert = convert;
+		this.release = release;
+	}
+
+	@Override
+	public boolean tryAdvance(Consumer<? super T> action) {
+		if (finished) {
+			return false;
+		}
+		T bean;
+		try {
+			if (!rs.next()) {
+				close();
+				return false;
+			}
+			bean = read();
+		}
+		catch (SQLException e) {
+			close();
+			throw new RuntimeException(e.getMessage(), e);
+		}
+		action.accept(bean);
+		return true;
+	}
+
+	@Override
+	public void forEachRemaining(Consumer<? super T> action) {
+		if (finished) {
+			return;
+		}
+		if (reader != null || !(convert instanceof BasicRowProcessor)) {
+			super.forEachRemaining(action);
+			return;
+		}
+		try {
+			((BasicRowProcessor) convert).forEachBean(rs, type, action);
+		}
+		catch (SQLException e) {
+			throw new RuntimeException(e.getMessage(), e);
+		}
+		finally {
+			close();
+		}
+	}
+
+	/**
+	 * 转换记录集的当前行
+	 *
+	 * @return bean
+	 * @throws SQLException
+	 *             if a database access error occurs
+	 */
+	private T read() throws SQLException {
+		if (!(convert instanceof BasicRowProcessor)) {
+			return convert.toBean(rs, type);
+		}
+		if (reader == null) {
+			reader = ((BasicRowProcessor) convert).beanReader(rs.getMetaData(), type);
+		}
+		return reader.read(rs);
+	}
+
+	/**
+	 * 结束读取并执行释放回调，重复调用无效
+	 */
+	@Override
+	public void close() {
+		if (finished) {
+			return;
+		}
+		finished = true;
+		if (release != null) {
+			release.run();
+		}
+	}
+
+}
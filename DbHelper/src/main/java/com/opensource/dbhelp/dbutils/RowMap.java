@@ -0,0 +1,317 @@
+package com.opensource.dbhelp.dbutils;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * 记录集一行数据的Map实现，字段名不区分大小写。
+ * <p/>
+ * 同一个记录集的所有行共享一个{@link ColumnIndex}，每行只保存一个字段值数组，不再为每行创建两个HashMap并重复转换字段名的大小写。 实现了完整的<code>Map</code>契约：可以修改、删除已有字段，也可以put新的键，新的键保存在按需创建的附加表中；
+ * 与其它<code>Map</code>的equals/hashCode一致。与原来的实现相同，键不能为null。
+ * <p/>
+ * 该类不是线程安全的。
+ * <p/>
+ * Copyright: Copyright (c) 26-10-17 下午5:20
+ * <p/>
+ * Company: GNU General Public License
+ * <p/>
+ * Author: GNU General Public License
+ * <p/>
+ * Version: 1.0
+ * <p/>
+ *
+ * @param <V>
+ *            字段值类型
+ */
+public class RowMap<V> extends AbstractMap<String, V> implements Serializable {
+
+	private static final long serialVersionUID = -5319723816098128453L;
+
+	/**
+	 * 已删除字段的占位值
+	 */
+	private static final Object REMOVED = Removed.INSTANCE;
+
+	/**
+	 * 共享的字段索引
+	 */
+	private final ColumnIndex index;
+
+	/**
+	 * 按索引位置保存的字段值，已删除的位置为REMOVED
+	 */
+	private final Object[] values;
+
+	/**
+	 * 未删除的索引字段数
+	 */
+	private int present;
+
+	/**
+	 * 索引以外的键，以小写键保存原键值对，按需创建
+	 */
+	private LinkedHashMap<String, SimpleEntry<String, V>> extra;
+
+	private transient Set<Map.Entry<String, V>> entrySet;
+
+	/**
+	 * 构造函数
+	 *
+	 * @param index
+	 *            共享的字段索引
+	 * @param values
+	 *            按索引位置排列的字段值，由本对象持有，长度需要等于索引的字段数
+	 */
+	public RowMap(ColumnIndex index, Object[] values) {
+		if (values.length != index.size()) {
+			throw new IllegalArgumentException("values length " + values.length + " does not match column count " + index.size());
+		}
+		this.index = index;
+		this.values = values;
+		this.present = values.length;
+	}
+
+	@Override
+	public int size() {
+		return present + (extra == null ? 0 : extra.size());
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		int slot = index.indexOf(key);
+		if (slot >= 0) {
+			return values[slot] != REMOVED;
+		}
+		return extra != null && extra.containsKey(key.toString().toLowerCase(Locale.ENGLISH));
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public V get(Object key) {
+		int slot = index.indexOf(key);
+		if (slot >= 0) {
+			Object value = values[slot];
+			return value == REMOVED ? null : (V) value;
+		}
+		if (extra == null) {
+			return null;
+		}
+		SimpleEntry<String, V> entry = extra.get(key.toString().toLowerCase(Locale.ENGLISH));
+		return entry == null ? null : entry.getValue();
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public V put(String key, V value) {
+		int slot = index.indexOf(key);
+		if (slot >= 0) {
+			Object old = values[slot];
+			values[slot] = value;
+			if (old == REMOVED) {
+				present++;
+				return null;
+			}
+			return (V) old;
+		}
+		if (extra == null) {
+			extra = new LinkedHashMap<String, SimpleEntry<String, V>>();
+		}
+		// 与原来的实现一致，以最后一次put的键为准
+		SimpleEntry<String, V> old = extra.put(key.toLowerCase(Locale.ENGLISH), new SimpleEntry<String, V>(key, value));
+		return old == null ? null : old.getValue();
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public V remove(Object key) {
+		int slot = index.indexOf(key);
+		if (slot >= 0) {
+			Object old = values[slot];
+			if (old == REMOVED) {
+				return null;
+			}
+			values[slot] = REMOVED;
+			present--;
+			return (V) old;
+		}
+		if (extra == null) {
+			return null;
+		}
+		SimpleEntry<String, V> old = extra.remove(key.toString().toLowerCase(Locale.ENGLISH));
+		return old == null ? null : old.getValue();
+	}
+
+	@Override
+	public void clear() {
+		for (int i = 0; i < values.length; i++) {
+			values[i] = REMOVED;
+		}
+		present = 0;
+		extra = null;
+	}
+
+	@Override
+	public Set<Map.Entry<String, V>> entrySet() {
+		if (entrySet == null) {
+			entrySet = new EntrySet();
+		}
+		return entrySet;
+	}
+
+	/**
+	 * 已删除字段的占位类型，枚举保证反序列化后仍是同一个实例
+	 */
+	private enum Removed {
+		INSTANCE
+	}
+
+	/**
+	 * 字段值视图，先按索引顺序遍历字段，再遍历附加的键
+	 */
+	private final class EntrySet extends AbstractSet<Map.Entry<String, V>> {
+
+		@Override
+		public int size() {
+			return RowMap.this.size();
+		}
+
+		@Override
+		public void clear() {
+			RowMap.this.clear();
+		}
+
+		@Override
+		public Iterator<Map.Entry<String, V>> iterator() {
+			return new EntryIterator();
+		}
+	}
+
+	/**
+	 * 字段值视图的迭代器，支持remove
+	 */
+	private final class EntryIterator implements Iterator<Map.Entry<String, V>> {
+
+		private int next = advance(0);
+
+		private int last = -1;
+
+		private Iterator<SimpleEntry<String, V>> extraIterator;
+
+		private boolean lastExtra;
+
+		private int advance(int slot) {
+			while (slot < values.length && values[slot] == REMOVED) {
+				slot++;
+			}
+			return slot;
+		}
+
+		@Override
+		public boolean hasNext() {
+			if (next < values.length) {
+				return true;
+			}
+			if (extraIterator == null) {
+				if (extra == null) {
+					return false;
+				}
+				extraIterator = extra.values().iterator();
+			}
+			return extraIterator.hasNext();
+		}
+
+		@Override
+		public Map.Entry<String, V> next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			if (next < values.length) {
+				last = next;
+				lastExtra = false;
+				next = advance(next + 1);
+				return new SlotEntry(last);
+			}
+			lastExtra = true;
+			return extraIterator.next();
+		}
+
+		@Override
+		public void remove() {
+			if (lastExtra) {
+				extraIterator.remove();
+				lastExtra = false;
+				return;
+			}
+			if (last < 0 || values[last] == REMOVED) {
+				throw new IllegalStateException();
+			}
+			values[last] = REMOVED;
+			present--;
+			last = -1;
+		}
+	}
+
+	/**
+	 * 索引字段的键值对，setValue直接写入本行
+	 */
+	private final class SlotEntry implements Map.Entry<String, V> {
+
+		private final int slot;
+
+		SlotEntry(int slot) {
+			this.slot = slot;
+		}
+
+		@Override
+		public String getKey() {
+			return index.name(slot);
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public V getValue() {
+			Object value = values[slot];
+			return value == REMOVED ? null : (V) value;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public V setValue(V value) {
+			Object old = values[slot];
+			if (old == REMOVED) {
+				throw new IllegalStateException("entry was removed");
+			}
+			values[slot] = value;
+			return (V) old;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Map.Entry)) {
+				return false;
+			}
+			Map.Entry<?, ?> other = (Map.Entry<?, ?>) obj;
+			Object value = getValue();
+			return getKey().equals(other.getKey()) && (value == null ? other.getValue() == null : value.equals(other.getValue()));
+		}
+
+		@Override
+		public int hashCode() {
+			Object value = getValue();
+			return getKey().hashCode() ^ (value == null ? 0 : value.hashCode());
+		}
+
+		@Override
+		public String toString() {
+			return getKey() + "=" + getValue();
+		}
+	}
+
+}
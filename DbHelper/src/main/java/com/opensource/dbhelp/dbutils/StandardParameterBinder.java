@@ -0,0 +1,235 @@
+package com.opensource.dbhelp.dbutils;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * 常用参数类型的绑定器。
+ * <p/>
+ * 每个绑定器直接调用对应类型的<code>PreparedStatement.setXxx</code>方法。java.time类型转换为对应的java.sql类型后设置，不要求驱动支持JDBC 4.2；枚举按<code>name()</code>设置为字符串。 未列出的类型使用{@link #OBJECT}，与原来一样调用setObject。
+ * <p/>
+ * Copyright: Copyright (c) 26-10-17 下午11:00
+ * <p/>
+ * Company: GNU General Public License
+ * <p/>
+ * Author: GNU General Public License
+ * <p/>
+ * Version: 1.0
+ * <p/>
+ */
+enum StandardParameterBinder implements ParameterBinder {
+
+	STRING {
+
+		@Override
+		public void bind(PreparedStatement stmt, int index, Object value) throws SQLException {
+			stmt.setString(index, (String) value);
+		}
+	},
+
+	INTEGER {
+
+		@Override
+		public void bind(PreparedStatement stmt, int index, Object value) throws SQLException {
+			stmt.setInt(index, ((Integer) value).intValue());
+		}
+	},
+
+	LONG {
+
+		@Override
+		public void bind(PreparedStatement stmt, int index, Object value) throws SQLException {
+			stmt.setLong(index, ((Long) value).longValue());
+		}
+	},
+
+	SHORT {
+
+		@Override
+		public void bind(PreparedStatement stmt, int index, Object value) throws SQLException {
+			stmt.setShort(index, ((Short) value).shortValue());
+		}
+	},
+
+	BYTE {
+
+		@Override
+		public void bind(PreparedStatement stmt, int index, Object value) throws SQLException {
+			stmt.setByte(index, ((Byte) value).byteValue());
+		}
+	},
+
+	DOUBLE {
+
+		@Override
+		public void bind(PreparedStatement stmt, int index, Object value) throws SQLException {
+			stmt.setDouble(index, ((Double) value).doubleValue());
+		}
+	},
+
+	FLOAT {
+
+		@Override
+		public void bind(PreparedStatement stmt, int index, Object value) throws SQLException {
+			stmt.setFloat(index, ((Float) value).floatValue());
+		}
+	},
+
+	BOOLEAN {
+
+		@Override
+		public void bind(PreparedStatement stmt, int index, Object value) throws SQLException {
+			stmt.setBoolean(index, ((Boolean) value).booleanValue());
+		}
+	},
+
+	CHARACTER {
+
+		@Override
+		public void bind(PreparedStatement stmt, int index, Object value) throws SQLException {
+			stmt.setString(index, value.toString());
+		}
+	},
+
+	BIG_DECIMAL {
+
+		@Override
+		public void bind(PreparedStatement stmt, int index, Object value) throws SQLException {
+			stmt.setBigDecimal(index, (BigDecimal) value);
+		}
+	},
+
+	BIG_INTEGER {
+
+		@Override
+		public void bind(PreparedStatement stmt, int index, Object value) throws SQLException {
+			stmt.setBigDecimal(index, new BigDecimal((BigInteger) value));
+		}
+	},
+
+	TIMESTAMP {
+
+		@Override
+		public void bind(PreparedStatement stmt, int index, Object value) throws SQLException {
+			stmt.setTimestamp(index, (Timestamp) value);
+		}
+	},
+
+	DATE {
+
+		@Override
+		public void bind(PreparedStatement stmt, int index, Object value) throws SQLException {
+			stmt.setDate(index, (Date) value);
+		}
+	},
+
+	TIME {
+
+		@Override
+		public void bind(PreparedStatement stmt, int index, Object value) throws SQLException {
+			stmt.setTime(index, (Time) value);
+		}
+	},
+
+	LOCAL_DATE {
+
+		@Override
+		public void bind(PreparedStatement stmt, int index, Object value) throws SQLException {
+			stmt.setDate(index, Date.valueOf((LocalDate) value));
+		}
+	},
+
+	LOCAL_DATE_TIME {
+
+		@Override
+		public void bind(PreparedStatement stmt, int index, Object value) throws SQLException {
+			stmt.setTimestamp(index, Timestamp.valueOf((LocalDateTime) value));
+		}
+	},
+
+	LOCAL_TIME {
+
+		@Override
+		public void bind(PreparedStatement stmt, int index, Object value) throws SQLException {
+			stmt.setTime(index, Time.valueOf((LocalTime) value));
+		}
+	},
+
+	INSTANT {
+
+		@Override
+		public void bind(PreparedStatement stmt, int index, Object value) throws SQLException {
+			stmt.setTimestamp(index, Timestamp.from((Instant) value));
+		}
+	},
+
+	ENUM {
+
+		@Override
+		public void bind(PreparedStatement stmt, int index, Object value) throws SQLException {
+			stmt.setString(index, ((Enum<?>) value).name());
+		}
+	},
+
+	BYTES {
+
+		@Override
+		public void bind(PreparedStatement stmt, int index, Object value) throws SQLException {
+			stmt.setBytes(index, (byte[]) value);
+		}
+	},
+
+	INPUT_STREAM {
+
+		@Override
+		public void bind(PreparedStatement stmt, int index, Object value) throws SQLException {
+			stmt.setBinaryStream(index, (InputStream) value);
+		}
+	},
+
+	READER {
+
+		@Override
+		public void bind(PreparedStatement stmt, int index, Object value) throws SQLException {
+			stmt.setCharacterStream(index, (Reader) value);
+		}
+	},
+
+	BLOB {
+
+		@Override
+		public void bind(PreparedStatement stmt, int index, Object value) throws SQLException {
+			stmt.setBlob(index, (Blob) value);
+		}
+	},
+
+	CLOB {
+
+		@Override
+		public void bind(PreparedStatement stmt, int index, Object value) throws SQLException {
+			stmt.setClob(index, (Clob) value);
+		}
+	},
+
+	OBJECT {
+
+		@Override
+		public void bind(PreparedStatement stmt, int index, Object value) throws SQLException {
+			stmt.setObject(index, value);
+		}
+	};
+
+}
@@ -0,0 +1,291 @@
+package com.opensource.dbhelp.dbutils;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 绑定到一个数据库连接的PreparedStatement缓存，按最近最少使用淘汰。
+ * <p/>
+ * 连接在多次调用之间保持不变时（如{@link com.opensource.dbhelp.DbTransaction}），同一条SQL只在该连接上预编译一次，不依赖连接池的statement缓存（c3p0的maxStatements默认为0）。
+ * 语句取出使用期间从缓存中移除，使用完毕再放回，因此回调中嵌套执行同一条SQL时会另外预编译一个语句，不会关闭正在读取的记录集。 超出容量时淘汰最久未使用的语句并关闭，{@link #close()}关闭全部缓存的语句，需要在释放连接之前调用。
+ * <p/>
+ * 该类是线程安全的，使用{@link ReentrantLock}而不是<code>synchronized</code>，在虚拟线程中等待锁不会占住平台线程。
+ * <p/>
+ * Copyright: Copyright (c) 26-10-17 下午10:20
+ * <p/>
+ * Company: GNU General Public License
+ * <p/>
+ * Author: GNU General Public License
+ * <p/>
+ * Version: 1.0
+ * <p/>
+ */
+public final class StatementCache {
+
+	/**
+	 * 默认最多缓存的语句数
+	 */
+	public static final int DEFAULT_MAX_STATEMENTS = 32;
+
+	/**
+	 * 缓存绑定的连接
+	 */
+	private final Connection conn;
+
+	/**
+	 * 最多缓存的语句数
+	 */
+	private final int maxStatements;
+
+	/**
+	 * SQL到空闲语句的映射，按访问顺序排列
+	 */
+	private final LinkedHashMap<String, PreparedStatement> statements;
+
+	/**
+	 * 是否已关闭
+	 */
+	private boolean closed;
+
+	/**
+	 * 命中缓存的次数
+	 */
+	private long hits;
+
+	/**
+	 * 需要重新预编译的次数
+	 */
+	private long misses;
+
+	/**
+	 * 超出容量被淘汰的语句数
+	 */
+	private long evictions;
+
+	/**
+	 * 保护缓存和统计的锁
+	 */
+	private final ReentrantLock lock = new ReentrantLock();
+
+	/**
+	 * 构造函数，最多缓存{@link #DEFAULT_MAX_STATEMENTS}个语句
+	 *
+	 * @param conn
+	 *            缓存绑定的连接
+	 */
+	public StatementCache(Connection conn) {
+		this(conn, DEFAULT_MAX_STATEMENTS);
+	}
+
+	/**
+	 * 构造函数
+	 *
+	 * @param conn
+	 *            缓存绑定的连接
+	 * @param maxStatements
+	 *            最多缓存的语句数
+	 */
+	public StatementCache(Connection conn, int maxStatements) {
+		if (conn == null) {
+			throw new IllegalArgumentException("conn cannot be null");
+		}
+		if (maxStatements < 1) {
+			throw new IllegalArgumentException("maxStatements must be positive");
+		}
+		this.conn = conn;
+		this.maxStatements = maxStatements;
+		this.statements = new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true);
+	}
+
+	/**
+	 * 获取缓存绑定的连接
+	 *
+	 * @return 数据库连接
+	 */
+	public Connection getConnection() {
+		return conn;
+	}
+
+	/**
+	 * 取出SQL对应的语句，缓存中没有时在绑定的连接上预编译。取出的语句在{@link #release(String, PreparedStatement)}之前不会被其它调用使用。
+	 *
+	 * @param sql
+	 *            SQL语句
+	 * @return 预编译的语句
+	 * @throws SQLException
+	 *             if a database access error occurs
+	 */
+	public PreparedStatement acquire(String sql) throws SQLException {
+		lock.lock();
+		try {
+			PreparedStatement stmt = closed ? null : statements.remove(sql);
+			if (stmt != null) {
+				hits++;
+				return stmt;
+			}
+			misses++;
+		}
+		finally {
+			lock.unlock();
+		}
+		return conn.prepareStatement(sql);
+	}
+
+	/**
+	 * 把用完的语句放回缓存，同一条SQL已有空闲语句或缓存已关闭时不接收。放回时清除参数和未执行的批处理，超出容量时关闭最久未使用的语句。
+	 *
+	 * @param sql
+	 *            SQL语句
+	 * @param stmt
+	 *            在绑定的连接上预编译的语句
+	 * @return 是否放回缓存，返回false时由调用者关闭语句
+	 */
+	public boolean release(String sql, PreparedStatement stmt) {
+		try {
+			stmt.clearParameters();
+			stmt.clearBatch();
+		}
+		catch (SQLException e) {
+			return false;
+		}
+
+		PreparedStatement eldest = null;
+		lock.lock();
+		try {
+			if (closed || statements.containsKey(sql)) {
+				return false;
+			}
+			statements.put(sql, stmt);
+			if (statements.size() > maxStatements) {
+				Iterator<PreparedStatement> it = statements.values().iterator();
+				eldest = it.next();
+				it.remove();
+				evictions++;
+			}
+		}
+		finally {
+			lock.unlock();
+		}
+		DbUtils.closeQuietly(eldest);
+		return true;
+	}
+
+	/**
+	 * 关闭全部缓存的语句，之后取出的语句不再缓存。需要在释放连接之前调用。
+	 */
+	public void close() {
+		List<PreparedStatement> idle;
+		lock.lock();
+		try {
+			closed = true;
+			idle = new ArrayList<PreparedStatement>(statements.values());
+			statements.clear();
+		}
+		finally {
+			lock.unlock();
+		}
+		for (PreparedStatement stmt : idle) {
+			DbUtils.closeQuietly(stmt);
+		}
+	}
+
+	/**
+	 * 当前缓存的空闲语句数
+	 *
+	 * @return 语句数
+	 */
+	public int size() {
+		lock.lock();
+		try {
+			return statements.size();
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * 命中缓存的次数
+	 *
+	 * @return 命中次数
+	 */
+	public long getHits() {
+		lock.lock();
+		try {
+			return hits;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * 需要重新预编译的次数
+	 *
+	 * @return 未命中次数
+	 */
+	public long getMisses() {
+		lock.lock();
+		try {
+			return misses;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * 超出容量被淘汰的语句数
+	 *
+	 * @return 淘汰次数
+	 */
+	public long getEvictions() {
+		lock.lock();
+		try {
+			return evictions;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * 命中率
+	 *
+	 * @return 命中次数占取出次数的比例，还没有取出时为0
+	 */
+	public double getHitRate() {
+		lock.lock();
+		try {
+			long total = hits + misses;
+			return total == 0 ? 0 : (double) hits / total;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public String toString() {
+		lock.lock();
+		try {
+			Map<String, Object> stats = new LinkedHashMap<String, Object>();
+			stats.put("size", Integer.valueOf(statements.size()));
+			stats.put("hits", Long.valueOf(hits));
+			stats.put("misses", Long.valueOf(misses));
+			stats.put("evictions", Long.valueOf(evictions));
+			return "StatementCache" + stats;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+}
@@ -0,0 +1,140 @@
+package com.opensource.dbhelp.dbutils;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 单次查询内按字段去重字符串值的缓存。
+ * <p/>
+ * 状态、类型、地区等字段在大结果集中反复出现少数几个值，每个单元格都分配新的字符串会占用大量堆内存。 本缓存为每个字段保存一个有上限的值表，相同的值返回同一个实例。当某个字段的值表已满又出现新值时检查命中率：
+ * 重复值不到一半时认为该字段基数过高，丢弃其值表并停止去重；否则保留已有的值表继续去重，但不再加入新值。
+ * <p/>
+ * 每次查询创建一个实例，查询结束后随结果集处理器一起丢弃。该类不是线程安全的。
+ * <p/>
+ * Copyright: Copyright (c) 26-10-17 下午6:30
+ * <p/>
+ * Company: GNU General Public License
+ * <p/>
+ * Author: GNU General Public License
+ * <p/>
+ * Version: 1.0
+ * <p/>
+ */
+public final class StringDeduplicator {
+
+	/**
+	 * 每个字段默认最多缓存的不同值个数
+	 */
+	public static final int DEFAULT_MAX_VALUES = 256;
+
+	/**
+	 * 每个字段最多缓存的不同值个数
+	 */
+	private final int maxValues;
+
+	/**
+	 * 每个字段的值表，下标为字段序号（从1开始），未使用或已停止去重的字段为null
+	 */
+	private final Map<String, String>[] values;
+
+	/**
+	 * 每个字段命中值表的次数
+	 */
+	private final int[] hits;
+
+	/**
+	 * 每个字段是否已停止去重
+	 */
+	private final boolean[] disabled;
+
+	/**
+	 * 每个字段的值表是否已满，满后只查找不再加入
+	 */
+	private final boolean[] full;
+
+	/**
+	 * 构造函数，每个字段最多缓存{@link #DEFAULT_MAX_VALUES}个不同值
+	 *
+	 * @param columnCount
+	 *            结果集字段数
+	 */
+	public StringDeduplicator(int columnCount) {
+		this(columnCount, DEFAULT_MAX_VALUES);
+	}
+
+	/**
+	 * 构造函数
+	 *
+	 * @param columnCount
+	 *            结果集字段数
+	 * @param maxValues
+	 *            每个字段最多缓存的不同值个数
+	 */
+	public StringDeduplicator(int columnCount, int maxValues) {
+		if (maxValues < 1) {
+			throw new IllegalArgumentException("maxValues must be positive");
+		}
+		this.maxValues = maxValues;
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		Map<String, String>[] tables = new Map[columnCount + 1];
+		this.values = tables;
+		this.hits = new int[columnCount + 1];
+		this.disabled = new boolean[columnCount + 1];
+		this.full = new boolean[columnCount + 1];
+	}
+
+	/**
+	 * 返回与给定值相等的共享实例
+	 *
+	 * @param column
+	 *            字段序号，从1开始
+	 * @param value
+	 *            字段值
+	 * @return 之前出现过的相等实例，或者value本身
+	 */
+	public String deduplicate(int column, String value) {
+		if (value == null || value.isEmpty() || disabled[column]) {
+			return value;
+		}
+
+		Map<String, String> table = values[column];
+		if (table == null) {
+			table = new HashMap<String, String>();
+			values[column] = table;
+		}
+
+		String shared = table.get(value);
+		if (shared != null) {
+			hits[column]++;
+			return shared;
+		}
+		if (full[column]) {
+			return value;
+		}
+
+		if (table.size() >= maxValues) {
+			if (hits[column] < table.size()) {
+				// 重复值不到一半，基数过高，去重只会增加开销
+				disabled[column] = true;
+				values[column] = null;
+			} else {
+				full[column] = true;
+			}
+			return value;
+		}
+		table.put(value, value);
+		return value;
+	}
+
+	/**
+	 * 判断字段是否仍在去重
+	 *
+	 * @param column
+	 *            字段序号，从1开始
+	 * @return 是否仍在去重
+	 */
+	public boolean isEnabled(int column) {
+		return !disabled[column];
+	}
+
+}
@@ -0,0 +1,76 @@
+package com.opensource.dbhelp.dbutils.handlers;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.function.Consumer;
+
+import com.opensource.dbhelp.dbutils.ResultSetHandler;
+
+/**
+ * 逐行回调处理器的基类。
+ * <p/>
+ * 每读取一行就转换并交给回调处理，不保存转换结果，内存占用与结果集大小无关。处理结果为处理的行数。回调抛出的运行时异常会中止读取并原样抛出，记录集等资源由QueryRunner负责关闭。
+ * <p/>
+ * Copyright: Copyright (c) 26-10-17 下午8:30
+ * <p/>
+ * Company: GNU General Public License
+ * <p/>
+ * Author: GNU General Public License
+ * <p/>
+ * Version: 1.0
+ * <p/>
+ *
+ * @param <T>
+ *            每行转换后的类型
+ */
+public abstract class AbstractCallbackHandler<T> implements ResultSetHandler<Integer> {
+
+	/**
+	 * 每行的回调
+	 */
+	protected final Consumer<? super T> action;
+
+	/**
+	 * 构造函数
+	 *
+	 * @param action
+	 *            每行的回调
+	 */
+	protected AbstractCallbackHandler(Consumer<? super T> action) {
+		if (action == null) {
+			throw new IllegalArgumentException("action cannot be null");
+		}
+		this.action = action;
+	}
+
+	/**
+	 * 逐行转换记录集并交给回调处理
+	 *
+	 * @param rs
+	 *            <code>ResultSet</code> to process.
+	 * @return 处理的行数
+	 * @throws java.sql.SQLException
+	 *             if a database access error occurs
+	 */
+	@Override
+	public Integer handle(ResultSet rs) throws SQLException {
+		int rows = 0;
+		while (rs.next()) {
+			this.action.accept(this.handleRow(rs));
+			rows++;
+		}
+		return Integer.valueOf(rows);
+	}
+
+	/**
+	 * 转换当前行
+	 *
+	 * @param rs
+	 *            <code>ResultSet</code> to process.
+	 * @return 转换结果
+	 * @throws java.sql.SQLException
+	 *             if a database access error occurs
+	 */
+	protected abstract T handleRow(ResultSet rs) throws SQLException;
+
+}
@@ -0,0 +1,56 @@
+package com.opensource.dbhelp.dbutils.handlers;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.function.Consumer;
+
+import com.opensource.dbhelp.dbutils.RowProcessor;
+
+/**
+ * 把每行转换为Object[]并交给回调处理的处理器。
+ * <p/>
+ * Copyright: Copyright (c) 26-10-17 下午8:30
+ * <p/>
+ * Company: GNU General Public License
+ * <p/>
+ * Author: GNU General Public License
+ * <p/>
+ * Version: 1.0
+ * <p/>
+ */
+public class ArrayCallbackHandler extends AbstractCallbackHandler<Object[]> {
+
+	/**
+	 * The RowProcessor implementation to use when converting rows into arrays.
+	 */
+	private final RowProcessor convert;
+
+	/**
+	 * 构造函数
+	 *
+	 * @param action
+	 *            每行的回调
+	 */
+	public ArrayCallbackHandler(Consumer<? super Object[]> action) {
+		this(ArrayHandler.ROW_PROCESSOR, action);
+	}
+
+	/**
+	 * 构造函数
+	 *
+	 * @param convert
+	 *            The <code>RowProcessor</code> implementation to use when converting rows into arrays.
+	 * @param action
+	 *            每行的回调
+	 */
+	public ArrayCallbackHandler(RowProcessor convert, Consumer<? super Object[]> action) {
+		super(action);
+		this.convert = convert;
+	}
+
+	@Override
+	protected Object[] handleRow(ResultSet rs) throws SQLException {
+		return this.convert.toArray(rs);
+	}
+
+}
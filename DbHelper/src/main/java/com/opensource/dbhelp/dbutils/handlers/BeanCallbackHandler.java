@@ -0,0 +1,80 @@
+package com.opensource.dbhelp.dbutils.handlers;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.function.Consumer;
+
+import com.opensource.dbhelp.dbutils.BasicRowProcessor;
+import com.opensource.dbhelp.dbutils.RowProcessor;
+
+/**
+ * 把每行转换为JavaBean并交给回调处理的处理器。
+ * <p/>
+ * 使用BasicRowProcessor时每个记录集只计算一次字段映射，逐行创建对象；其它RowProcessor逐行调用<code>toBean</code>。
+ * <p/>
+ * Copyright: Copyright (c) 26-10-17 下午8:30
+ * <p/>
+ * Company: GNU General Public License
+ * <p/>
+ * Author: GNU General Public License
+ * <p/>
+ * Version: 1.0
+ * <p/>
+ *
+ * @param <T>
+ *            bean类型
+ */
+public class BeanCallbackHandler<T> extends AbstractCallbackHandler<T> {
+
+	/**
+	 * bean类
+	 */
+	private final Class<T> type;
+
+	/**
+	 * The RowProcessor implementation to use when converting rows into beans.
+	 */
+	private final RowProcessor convert;
+
+	/**
+	 * 构造函数
+	 *
+	 * @param type
+	 *            bean类
+	 * @param action
+	 *            每个bean的回调
+	 */
+	public BeanCallbackHandler(Class<T> type, Consumer<? super T> action) {
+		this(type, ArrayHandler.ROW_PROCESSOR, action);
+	}
+
+	/**
+	 * 构造函数
+	 *
+	 * @param type
+	 *            bean类
+	 * @param convert
+	 *            The <code>RowProcessor</code> implementation to use when converting rows into beans.
+	 * @param action
+	 *            每个bean的回调
+	 */
+	public BeanCallbackHandler(Class<T> type, RowProcessor convert, Consumer<? super T> action) {
+		super(action);
+		this.type = type;
+		this.convert = convert;
+	}
+
+	@Override
+	public Integer handle(ResultSet rs) throws SQLException {
+		if (this.convert instanceof BasicRowProcessor) {
+			return Integer.valueOf(((BasicRowProcessor) this.convert).forEachBean(rs, this.type, this.action));
+		}
+		return super.handle(rs);
+	}
+
+	@Override
+	protected T handleRow(ResultSet rs) throws SQLException {
+		return this.convert.toBean(rs, this.type);
+	}
+
+}
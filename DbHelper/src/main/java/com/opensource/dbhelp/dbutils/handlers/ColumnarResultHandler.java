@@ -0,0 +1,40 @@
+package com.opensource.dbhelp.dbutils.handlers;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import com.opensource.dbhelp.dbutils.ColumnarResult;
+import com.opensource.dbhelp.dbutils.ResultSetHandler;
+
+/**
+ * 把记录集转换为按列保存的{@link ColumnarResult}的处理器。
+ * <p/>
+ * 与<code>ArrayListHandler</code>、<code>MapListHandler</code>逐行装箱为<code>Object[]</code>或<code>Map</code>不同，数值字段直接读入<code>int[]</code>、<code>long[]</code>、<code>double[]</code>， 适合只需要数值字段的统计类查询。该类是线程安全的。
+ * <p/>
+ * Copyright: Copyright (c) 26-10-17 下午7:40
+ * <p/>
+ * Company: GNU General Public License
+ * <p/>
+ * Author: GNU General Public License
+ * <p/>
+ * Version: 1.0
+ * <p/>
+ */
+public class ColumnarResultHandler implements ResultSetHandler<ColumnarResult> {
+
+	/**
+	 * 读取记录集的全部行
+	 *
+	 * @param rs
+	 *            <code>ResultSet</code> to process.
+	 * @return 按列保存的结果，记录集为空时行数为0
+	 * @throws java.sql.SQLException
+	 *             if a database access error occurs
+	 * @see com.opensource.dbhelp.dbutils.ResultSetHandler#handle(java.sql.ResultSet)
+	 */
+	@Override
+	public ColumnarResult handle(ResultSet rs) throws SQLException {
+		return ColumnarResult.read(rs);
+	}
+
+}
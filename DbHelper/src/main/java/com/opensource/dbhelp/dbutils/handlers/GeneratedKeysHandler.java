@@ -0,0 +1,73 @@
+package com.opensource.dbhelp.dbutils.handlers;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+import com.opensource.dbhelp.dbutils.ResultSetHandler;
+
+/**
+ * 把<code>getGeneratedKeys()</code>返回的记录集读取为<code>long[]</code>的处理器，每行取第一列。
+ * <p/>
+ * 自增主键和序列值一般为整数，驱动返回的类型不一（mysql为<code>BigInteger</code>或<code>Long</code>，oracle为<code>BigDecimal</code>），这里统一转换为long。 键值不是数值时（如oracle未指定主键列时返回的ROWID）抛出SQLException，
+ * 此时需要指定主键列名。该类是线程安全的。
+ * <p/>
+ * Copyright: Copyright (c) 26-10-17 下午11:58
+ * <p/>
+ * Company: GNU General Public License
+ * <p/>
+ * Author: GNU General Public License
+ * <p/>
+ * Version: 1.0
+ * <p/>
+ */
+public class GeneratedKeysHandler implements ResultSetHandler<long[]> {
+
+	/**
+	 * 读取全部键值
+	 *
+	 * @param rs
+	 *            <code>ResultSet</code> to process.
+	 * @return 键值，没有生成的键时为空数组
+	 * @throws java.sql.SQLException
+	 *             if a database access error occurs or a key is not numeric
+	 * @see com.opensource.dbhelp.dbutils.ResultSetHandler#handle(java.sql.ResultSet)
+	 */
+	@Override
+	public long[] handle(ResultSet rs) throws SQLException {
+		long[] keys = new long[16];
+		int count = 0;
+		while (rs.next()) {
+			if (count == keys.length) {
+				keys = Arrays.copyOf(keys, count << 1);
+			}
+			keys[count++] = toLong(rs.getObject(1));
+		}
+		return count == keys.length ? keys : Arrays.copyOf(keys, count);
+	}
+
+	/**
+	 * 把键值转换为long
+	 *
+	 * @param key
+	 *            驱动返回的键值
+	 * @return 键值
+	 * @throws SQLException
+	 *             键值为null或不是数值
+	 */
+	private static long toLong(Object key) throws SQLException {
+		if (key instanceof Number) {
+			return ((Number) key).longValue();
+		}
+		if (key instanceof String) {
+			try {
+				return Long.parseLong((String) key);
+			}
+			catch (NumberFormatException e) {
+				// 按非数值键处理
+			}
+		}
+		throw new SQLException("Generated key is not numeric: " + key + ", specify the key column names");
+	}
+
+}
@@ -0,0 +1,80 @@
+package com.opensource.dbhelp.dbutils.handlers;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import com.opensource.dbhelp.dbutils.BasicRowProcessor;
+import com.opensource.dbhelp.dbutils.ColumnIndex;
+import com.opensource.dbhelp.dbutils.RowProcessor;
+
+/**
+ * 把每行转换为Map&#60;String, Object&#62;并交给回调处理的处理器。
+ * <p/>
+ * 使用BasicRowProcessor时所有行共享一个字段索引，每个记录集只读取一次字段名。
+ * <p/>
+ * Copyright: Copyright (c) 26-10-17 下午8:30
+ * <p/>
+ * Company: GNU General Public License
+ * <p/>
+ * Author: GNU General Public License
+ * <p/>
+ * Version: 1.0
+ * <p/>
+ */
+public class MapCallbackHandler extends AbstractCallbackHandler<Map<String, Object>> {
+
+	/**
+	 * The RowProcessor implementation to use when converting rows into Maps.
+	 */
+	private final RowProcessor convert;
+
+	/**
+	 * 构造函数
+	 *
+	 * @param action
+	 *            每行的回调
+	 */
+	public MapCallbackHandler(Consumer<? super Map<String, Object>> action) {
+		this(ArrayHandler.ROW_PROCESSOR, action);
+	}
+
+	/**
+	 * 构造函数
+	 *
+	 * @param convert
+	 *            The <code>RowProcessor</code> implementation to use when converting rows into Maps.
+	 * @param action
+	 *            每行的回调
+	 */
+	public MapCallbackHandler(RowProcessor convert, Consumer<? super Map<String, Object>> action) {
+		super(action);
+		this.convert = convert;
+	}
+
+	@Override
+	public Integer handle(ResultSet rs) throws SQLException {
+		if (!(this.convert instanceof BasicRowProcessor)) {
+			return super.handle(rs);
+		}
+
+		BasicRowProcessor processor = (BasicRowProcessor) this.convert;
+		ColumnIndex index = null;
+		int rows = 0;
+		while (rs.next()) {
+			if (index == null) {
+				index = ColumnIndex.of(rs.getMetaData());
+			}
+			this.action.accept(processor.toMap(rs, index));
+			rows++;
+		}
+		return Integer.valueOf(rows);
+	}
+
+	@Override
+	protected Map<String, Object> handleRow(ResultSet rs) throws SQLException {
+		return this.convert.toMap(rs);
+	}
+
+}
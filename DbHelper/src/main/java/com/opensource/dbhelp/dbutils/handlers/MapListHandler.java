@@ -5,8 +5,12 @@ package com.opensource.dbhelp.dbutils.handlers;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
+import com.opensource.dbhelp.dbutils.BasicRowProcessor;
+import com.opensource.dbhelp.dbutils.ColumnIndex;
 import com.opensource.dbhelp.dbutils.RowProcessor;
 
 /**
@@ -39,6 +43,33 @@ public class MapListHandler extends AbstractListHandler<Map<String, Object>> {
 		this.convert = convert;
 	}
 
+	/**
+	 * Converts all rows of the <code>ResultSet</code> into <code>Map</code>s. With a <code>BasicRowProcessor</code> the rows share one {@link ColumnIndex}, so the column names are read and indexed once per <code>ResultSet</code> instead of once per row.
+	 *
+	 * @param rs
+	 *            <code>ResultSet</code> to process.
+	 * @return a list of all rows in the result set
+	 * @throws java.sql.SQLException
+	 *             if a database access error occurs
+	 */
+	@Override
+	public List<Map<String, Object>> handle(ResultSet rs) throws SQLException {
+		if (!(this.convert instanceof BasicRowProcessor)) {
+			return super.handle(rs);
+		}
+
+		BasicRowProcessor processor = (BasicRowProcessor) this.convert;
+		List<Map<String, Object>> rows = new ArrayList<Map<String, Object>>();
+		ColumnIndex index = null;
+		while (rs.next()) {
+			if (index == null) {
+				index = ColumnIndex.of(rs.getMetaData());
+			}
+			rows.add(processor.toMap(rs, index));
+		}
+		return rows;
+	}
+
 	/**
 	 * Converts the <code>ResultSet</code> row into a <code>Map</code> object.
 	 * 
@@ -0,0 +1,56 @@
+package com.opensource.dbhelp.dbutils.handlers;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.function.Consumer;
+
+import com.opensource.dbhelp.dbutils.StringRowProcessor;
+
+/**
+ * 把每行转换为String[]，NULL转为空字符串并交给回调处理的处理器。
+ * <p/>
+ * Copyright: Copyright (c) 26-10-17 下午8:30
+ * <p/>
+ * Company: GNU General Public License
+ * <p/>
+ * Author: GNU General Public License
+ * <p/>
+ * Version: 1.0
+ * <p/>
+ */
+public class StringArrayCallbackHandler extends AbstractCallbackHandler<String[]> {
+
+	/**
+	 * The StringRowProcessor implementation to use when converting rows into arrays.
+	 */
+	private final StringRowProcessor convert;
+
+	/**
+	 * 构造函数
+	 *
+	 * @param action
+	 *            每行的回调
+	 */
+	public StringArrayCallbackHandler(Consumer<? super String[]> action) {
+		this(StringArrayHandler.ROW_PROCESSOR, action);
+	}
+
+	/**
+	 * 构造函数
+	 *
+	 * @param convert
+	 *            The <code>StringRowProcessor</code> implementation to use when converting rows into arrays.
+	 * @param action
+	 *            每行的回调
+	 */
+	public StringArrayCallbackHandler(StringRowProcessor convert, Consumer<? super String[]> action) {
+		super(action);
+		this.convert = convert;
+	}
+
+	@Override
+	protected String[] handleRow(ResultSet rs) throws SQLException {
+		return this.convert.toArray(rs);
+	}
+
+}
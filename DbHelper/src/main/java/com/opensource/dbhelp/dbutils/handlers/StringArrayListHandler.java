@@ -5,7 +5,11 @@ package com.opensource.dbhelp.dbutils.handlers;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
 
+import com.opensource.dbhelp.dbutils.BasicStringRowProcessor;
+import com.opensource.dbhelp.dbutils.StringDeduplicator;
 import com.opensource.dbhelp.dbutils.StringRowProcessor;
 
 /**
@@ -20,6 +24,11 @@ public class StringArrayListHandler extends AbstractListHandler<String[]> {
 	 */
 	private final StringRowProcessor convert;
 
+	/**
+	 * Whether repeated column values share one <code>String</code> instance.
+	 */
+	private final boolean deduplicate;
+
 	/**
 	 * Creates a new instance of ArrayListHandler using a <code>BasicStringRowProcessor</code> for conversions.
 	 */
@@ -27,6 +36,16 @@ public class StringArrayListHandler extends AbstractListHandler<String[]> {
 		this(StringArrayHandler.ROW_PROCESSOR);
 	}
 
+	/**
+	 * Creates a new instance of ArrayListHandler using a <code>BasicStringRowProcessor</code> for conversion.
+	 *
+	 * @param deduplicate
+	 *            true to share one instance between equal values of the same column within a <code>ResultSet</code>, see {@link StringDeduplicator}.
+	 */
+	public StringArrayListHandler(boolean deduplicate) {
+		this(StringArrayHandler.ROW_PROCESSOR, deduplicate);
+	}
+
 	/**
 	 * Creates a new instance of ArrayListHandler.
 	 * 
@@ -34,8 +53,48 @@ public class StringArrayListHandler extends AbstractListHandler<String[]> {
 	 *            The <code>StringRowProcessor</code> implementation to use when converting rows into String[]s.
 	 */
 	public StringArrayListHandler(StringRowProcessor convert) {
+		this(convert, false);
+	}
+
+	/**
+	 * Creates a new instance of ArrayListHandler.
+	 * 
+	 * @param convert
+	 *            The <code>StringRowProcessor</code> implementation to use when converting rows.
+	 * @param deduplicate
+	 *            true to share one instance between equal values of the same column within a <code>ResultSet</code>, see {@link StringDeduplicator}. Only applies to a <code>BasicStringRowProcessor</code>.
+	 */
+	public StringArrayListHandler(StringRowProcessor convert, boolean deduplicate) {
 		super();
 		this.convert = convert;
+		this.deduplicate = deduplicate;
+	}
+
+	/**
+	 * Converts all rows of the <code>ResultSet</code> into <code>String[]</code>s, deduplicating repeated values within each column if requested.
+	 *
+	 * @param rs
+	 *            <code>ResultSet</code> to process.
+	 * @return a list of all rows in the result set
+	 * @throws java.sql.SQLException
+	 *             if a database access error occurs
+	 */
+	@Override
+	public List<String[]> handle(ResultSet rs) throws SQLException {
+		if (!this.deduplicate || !(this.convert instanceof BasicStringRowProcessor)) {
+			return super.handle(rs);
+		}
+
+		BasicStringRowProcessor processor = (BasicStringRowProcessor) this.convert;
+		List<String[]> rows = new ArrayList<String[]>();
+		StringDeduplicator dedup = null;
+		while (rs.next()) {
+			if (dedup == null) {
+				dedup = new StringDeduplicator(rs.getMetaData().getColumnCount());
+			}
+			rows.add(processor.toArray(rs, dedup));
+		}
+		return rows;
 	}
 
 	/**
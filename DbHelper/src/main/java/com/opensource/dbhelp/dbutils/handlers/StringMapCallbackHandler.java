@@ -0,0 +1,80 @@
+package com.opensource.dbhelp.dbutils.handlers;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import com.opensource.dbhelp.dbutils.BasicStringRowProcessor;
+import com.opensource.dbhelp.dbutils.ColumnIndex;
+import com.opensource.dbhelp.dbutils.StringRowProcessor;
+
+/**
+ * 把每行转换为Map&#60;String, String&#62;并交给回调处理的处理器。
+ * <p/>
+ * 使用BasicStringRowProcessor时所有行共享一个字段索引，每个记录集只读取一次字段名。
+ * <p/>
+ * Copyright: Copyright (c) 26-10-17 下午8:30
+ * <p/>
+ * Company: GNU General Public License
+ * <p/>
+ * Author: GNU General Public License
+ * <p/>
+ * Version: 1.0
+ * <p/>
+ */
+public class StringMapCallbackHandler extends AbstractCallbackHandler<Map<String, String>> {
+
+	/**
+	 * The StringRowProcessor implementation to use when converting rows into Maps.
+	 */
+	private final StringRowProcessor convert;
+
+	/**
+	 * 构造函数
+	 *
+	 * @param action
+	 *            每行的回调
+	 */
+	public StringMapCallbackHandler(Consumer<? super Map<String, String>> action) {
+		this(StringArrayHandler.ROW_PROCESSOR, action);
+	}
+
+	/**
+	 * 构造函数
+	 *
+	 * @param convert
+	 *            The <code>StringRowProcessor</code> implementation to use when converting rows into Maps.
+	 * @param action
+	 *            每行的回调
+	 */
+	public StringMapCallbackHandler(StringRowProcessor convert, Consumer<? super Map<String, String>> action) {
+		super(action);
+		this.convert = convert;
+	}
+
+	@Override
+	public Integer handle(ResultSet rs) throws SQLException {
+		if (!(this.convert instanceof BasicStringRowProcessor)) {
+			return super.handle(rs);
+		}
+
+		BasicStringRowProcessor processor = (BasicStringRowProcessor) this.convert;
+		ColumnIndex index = null;
+		int rows = 0;
+		while (rs.next()) {
+			if (index == null) {
+				index = ColumnIndex.of(rs.getMetaData());
+			}
+			this.action.accept(processor.toMap(rs, index));
+			rows++;
+		}
+		return Integer.valueOf(rows);
+	}
+
+	@Override
+	protected Map<String, String> handleRow(ResultSet rs) throws SQLException {
+		return this.convert.toMap(rs);
+	}
+
+}
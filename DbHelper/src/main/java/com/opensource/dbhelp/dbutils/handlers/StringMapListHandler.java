@@ -4,9 +4,15 @@
 package com.opensource.dbhelp.dbutils.handlers;
 
 import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
+import com.opensource.dbhelp.dbutils.BasicStringRowProcessor;
+import com.opensource.dbhelp.dbutils.ColumnIndex;
+import com.opensource.dbhelp.dbutils.StringDeduplicator;
 import com.opensource.dbhelp.dbutils.StringRowProcessor;
 
 /**
@@ -21,6 +27,11 @@ public class StringMapListHandler extends AbstractListHandler<Map<String, String
 	 */
 	private final StringRowProcessor convert;
 
+	/**
+	 * Whether repeated column values share one <code>String</code> instance.
+	 */
+	private final boolean deduplicate;
+
 	/**
 	 * Creates a new instance of MapListHandler using a <code>BasicStringRowProcessor</code> for conversion.
 	 */
@@ -28,6 +39,16 @@ public class StringMapListHandler extends AbstractListHandler<Map<String, String
 		this(StringArrayHandler.ROW_PROCESSOR);
 	}
 
+	/**
+	 * Creates a new instance of MapListHandler using a <code>BasicStringRowProcessor</code> for conversion.
+	 *
+	 * @param deduplicate
+	 *            true to share one instance between equal values of the same column within a <code>ResultSet</code>, see {@link StringDeduplicator}.
+	 */
+	public StringMapListHandler(boolean deduplicate) {
+		this(StringArrayHandler.ROW_PROCESSOR, deduplicate);
+	}
+
 	/**
 	 * Creates a new instance of MapListHandler.
 	 * 
@@ -35,8 +56,53 @@ public class StringMapListHandler extends AbstractListHandler<Map<String, String
 	 *            The <code>StringRowProcessor</code> implementation to use when converting rows into Maps.
 	 */
 	public StringMapListHandler(StringRowProcessor convert) {
+		this(convert, false);
+	}
+
+	/**
+	 * Creates a new instance of MapListHandler.
+	 * 
+	 * @param convert
+	 *            The <code>StringRowProcessor</code> implementation to use when converting rows.
+	 * @param deduplicate
+	 *            true to share one instance between equal values of the same column within a <code>ResultSet</code>, see {@link StringDeduplicator}. Only applies to a <code>BasicStringRowProcessor</code>.
+	 */
+	public StringMapListHandler(StringRowProcessor convert, boolean deduplicate) {
 		super();
 		this.convert = convert;
+		this.deduplicate = deduplicate;
+	}
+
+	/**
+	 * Converts all rows of the <code>ResultSet</code> into <code>Map</code>s. With a <code>BasicStringRowProcessor</code> the rows share one {@link ColumnIndex}, so the column names are read and indexed once per <code>ResultSet</code> instead of once per row, and repeated values are deduplicated if requested.
+	 *
+	 * @param rs
+	 *            <code>ResultSet</code> to process.
+	 * @return a list of all rows in the result set
+	 * @throws java.sql.SQLException
+	 *             if a database access error occurs
+	 */
+	@Override
+	public List<Map<String, String>> handle(ResultSet rs) throws SQLException {
+		if (!(this.convert instanceof BasicStringRowProcessor)) {
+			return super.handle(rs);
+		}
+
+		BasicStringRowProcessor processor = (BasicStringRowProcessor) this.convert;
+		List<Map<String, String>> rows = new ArrayList<Map<String, String>>();
+		ColumnIndex index = null;
+		StringDeduplicator dedup = null;
+		while (rs.next()) {
+			if (index == null) {
+				ResultSetMetaData rsmd = rs.getMetaData();
+				index = ColumnIndex.of(rsmd);
+				if (this.deduplicate) {
+					dedup = new StringDeduplicator(rsmd.getColumnCount());
+				}
+			}
+			rows.add(processor.toMap(rs, index, dedup));
+		}
+		return rows;
 	}
 
 	/**
@@ -0,0 +1,290 @@
+package com.opensource.dbhelp.dialect;
+
+import java.util.Locale;
+
+/**
+ * 批量INSERT改写的公共实现，负责解析单行INSERT语句
+ * <p/>
+ * 只改写<code>INSERT INTO 表(字段) VALUES(...)</code>形式的语句：VALUES只有一行，占位符只出现在VALUES中。 字符串、带引号的标识符及注释中的内容不参与解析；不符合条件的语句不改写，按原来的方式逐行批处理。
+ * 反斜杠在字符串中是否为转义符取决于数据库（mysql还取决于sql_mode），数据库支持反斜杠转义时字符串中含反斜杠的语句也不改写。
+ * <p/>
+ * Copyright: Copyright (c) 26-10-17 下午11:50
+ * <p/>
+ * Company: GNU General Public License
+ * <p/>
+ * Author: GNU General Public License
+ * <p/>
+ * Version: 1.0
+ * <p/>
+ */
+public abstract class AbstractBatchSqlRewriter implements BatchSqlRewriter {
+
+	/**
+	 * 一条语句最多的占位符个数
+	 */
+	private final int maxParameters;
+
+	/**
+	 * 一条语句最多插入的行数
+	 */
+	private final int maxRows;
+
+	/**
+	 * 字符串中的反斜杠是否可能是转义符
+	 */
+	private final boolean backslashEscapes;
+
+	/**
+	 * 构造函数，字符串中的反斜杠不是转义符
+	 *
+	 * @param maxParameters
+	 *            一条语句最多的占位符个数
+	 * @param maxRows
+	 *            一条语句最多插入的行数
+	 */
+	protected AbstractBatchSqlRewriter(int maxParameters, int maxRows) {
+		this(maxParameters, maxRows, false);
+	}
+
+	/**
+	 * 构造函数
+	 *
+	 * @param maxParameters
+	 *            一条语句最多的占位符个数
+	 * @param maxRows
+	 *            一条语句最多插入的行数
+	 * @param backslashEscapes
+	 *            字符串中的反斜杠是否可能是转义符，是时字符串中含反斜杠的语句不改写
+	 */
+	protected AbstractBatchSqlRewriter(int maxParameters, int maxRows, boolean backslashEscapes) {
+		this.maxParameters = maxParameters;
+		this.maxRows = maxRows;
+		this.backslashEscapes = backslashEscapes;
+	}
+
+	@Override
+	public int getParameterCount(String sql) {
+		Insert insert = parse(sql, backslashEscapes);
+		return insert == null || !accept(insert) ? -1 : insert.parameterCount;
+	}
+
+	@Override
+	public int getMaxRows(int parameterCount) {
+		if (parameterCount < 1) {
+			return 1;
+		}
+		return Math.max(1, Math.min(maxRows, maxParameters / parameterCount));
+	}
+
+	@Override
+	public String getBatchSql(String sql, int rows) {
+		Insert insert = parse(sql, backslashEscapes);
+		if (insert == null || !accept(insert)) {
+			throw new IllegalArgumentException("Not a single row INSERT ... VALUES statement: " + sql);
+		}
+		return buildBatchSql(insert, rows);
+	}
+
+	/**
+	 * 判断解析出的语句在该数据库上能否改写
+	 *
+	 * @param insert
+	 *            解析出的语句
+	 * @return 能否改写
+	 */
+	protected boolean accept(Insert insert) {
+		return insert.suffix.isEmpty();
+	}
+
+	/**
+	 * 生成插入多行的语句
+	 *
+	 * @param insert
+	 *            解析出的语句
+	 * @param rows
+	 *            插入的行数
+	 * @return 改写后的SQL
+	 */
+	protected abstract String buildBatchSql(Insert insert, int rows);
+
+	/**
+	 * 解析单行INSERT语句，字符串中的反斜杠不是转义符
+	 *
+	 * @param sql
+	 *            SQL语句
+	 * @return 解析结果，不是单行INSERT ... VALUES语句时返回null
+	 */
+	protected static Insert parse(String sql) {
+		return parse(sql, false);
+	}
+
+	/**
+	 * 解析单行INSERT语句
+	 *
+	 * @param sql
+	 *            SQL语句
+	 * @param backslashEscapes
+	 *            字符串中的反斜杠是否可能是转义符，是时字符串中含反斜杠的语句返回null
+	 * @return 解析结果，不是单行INSERT ... VALUES语句时返回null
+	 */
+	protected static Insert parse(String sql, boolean backslashEscapes) {
+		if (sql == null) {
+			return null;
+		}
+		String text = sql.trim();
+		if (text.endsWith(";")) {
+			text = text.substring(0, text.length() - 1).trim();
+		}
+		String lower = text.toLowerCase(Locale.ENGLISH);
+		if (!lower.startsWith("insert") || lower.length() < 7 || !Character.isWhitespace(lower.charAt(6)) || !lower.substring(6).trim().startsWith("into")) {
+			return null;
+		}
+
+		int values = -1;
+		int depth = 0;
+		for (int i = 0; i < text.length(); i++) {
+			char ch = text.charAt(i);
+			if (ch == '\'' || ch == '"' || ch == '`') {
+				i = skipQuoted(text, i, backslashEscapes);
+				if (i < 0) {
+					return null;
+				}
+			} else if (text.startsWith("--", i) || text.startsWith("/*", i) || ch == '?') {
+				// 注释或VALUES之前的占位符，不改写
+				return null;
+			} else if (ch == '(') {
+				depth++;
+			} else if (ch == ')') {
+				depth--;
+			} else if (depth == 0 && isKeyword(lower, i, "values")) {
+				values = i;
+				break;
+			}
+		}
+		if (values < 0) {
+			return null;
+		}
+
+		int open = values + "values".length();
+		while (open < text.length() && Character.isWhitespace(text.charAt(open))) {
+			open++;
+		}
+		if (open >= text.length() || text.charAt(open) != '(') {
+			return null;
+		}
+
+		int parameterCount = 0;
+		int close = -1;
+		depth = 0;
+		for (int i = open; i < text.length() && close < 0; i++) {
+			char ch = text.charAt(i);
+			if (ch == '\'' || ch == '"' || ch == '`') {
+				i = skipQuoted(text, i, backslashEscapes);
+				if (i < 0) {
+					return null;
+				}
+			} else if (text.startsWith("--", i) || text.startsWith("/*", i)) {
+				return null;
+			} else if (ch == '?') {
+				parameterCount++;
+			} else if (ch == '(') {
+				depth++;
+			} else if (ch == ')' && --depth == 0) {
+				close = i;
+			}
+		}
+		if (close < 0 || parameterCount == 0) {
+			return null;
+		}
+
+		String suffix = text.substring(close + 1).trim();
+		if (suffix.startsWith(",") || suffix.indexOf('?') >= 0 || suffix.indexOf('\'') >= 0 || suffix.contains("--") || suffix.contains("/*")) {
+			return null;
+		}
+		return new Insert(text.substring(0, values).trim(), text.substring(open, close + 1), suffix, parameterCount);
+	}
+
+	/**
+	 * 跳过引号中的内容
+	 *
+	 * @param text
+	 *            SQL语句
+	 * @param start
+	 *            开始引号的位置
+	 * @param backslashEscapes
+	 *            字符串中的反斜杠是否可能是转义符
+	 * @return 结束引号的位置，没有结束引号或字符串中有可能是转义符的反斜杠时返回-1
+	 */
+	private static int skipQuoted(String text, int start, boolean backslashEscapes) {
+		char quote = text.charAt(start);
+		for (int i = start + 1; i < text.length(); i++) {
+			char ch = text.charAt(i);
+			if (backslashEscapes && ch == '\\' && quote != '`') {
+				// 开启NO_BACKSLASH_ESCAPES时反斜杠是普通字符，无法确定字符串在哪里结束
+				return -1;
+			}
+			if (ch == quote) {
+				if (i + 1 < text.length() && text.charAt(i + 1) == quote) {
+					// 连续两个引号表示引号本身
+					i++;
+				} else {
+					return i;
+				}
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * 判断指定位置是否为独立的关键字
+	 *
+	 * @param lower
+	 *            小写的SQL语句
+	 * @param index
+	 *            位置
+	 * @param keyword
+	 *            小写的关键字
+	 * @return 是否为关键字
+	 */
+	private static boolean isKeyword(String lower, int index, String keyword) {
+		if (!lower.startsWith(keyword, index)) {
+			return false;
+		}
+		int end = index + keyword.length();
+		return (index == 0 || !Character.isJavaIdentifierPart(lower.charAt(index - 1))) && (end == lower.length() || !Character.isJavaIdentifierPart(lower.charAt(end)));
+	}
+
+	/**
+	 * 解析出的单行INSERT语句
+	 */
+	protected static final class Insert {
+
+		/**
+		 * VALUES之前的部分，如<code>INSERT INTO t(a,b)</code>
+		 */
+		public final String head;
+
+		/**
+		 * 一行的值，包括括号，如<code>(?,?)</code>
+		 */
+		public final String values;
+
+		/**
+		 * VALUES之后的部分，如mysql的<code>ON DUPLICATE KEY UPDATE ...</code>，没有时为空字符串
+		 */
+		public final String suffix;
+
+		/**
+		 * 一行的参数个数
+		 */
+		public final int parameterCount;
+
+		Insert(String head, String values, String suffix, int parameterCount) {
+			this.head = head;
+			this.values = values;
+			this.suffix = suffix;
+			this.parameterCount = parameterCount;
+		}
+	}
+
+}
@@ -0,0 +1,47 @@
+package com.opensource.dbhelp.dialect;
+
+/**
+ * 批量INSERT改写接口
+ * <p/>
+ * 把单行的<code>INSERT INTO t(a,b) VALUES(?,?)</code>改写为一条语句插入多行，一次执行代替多次逐行执行。 每条改写后的语句的行数取2的幂，同一条SQL最多只产生十几种不同的语句文本，语句缓存仍然可以命中。
+ * <p/>
+ * Copyright: Copyright (c) 26-10-17 下午11:50
+ * <p/>
+ * Company: GNU General Public License
+ * <p/>
+ * Author: GNU General Public License
+ * <p/>
+ * Version: 1.0
+ * <p/>
+ */
+public interface BatchSqlRewriter {
+
+	/**
+	 * 获取可以改写的INSERT语句每行的参数个数
+	 *
+	 * @param sql
+	 *            单行INSERT语句
+	 * @return 每行的参数个数，不能改写时返回-1
+	 */
+	public int getParameterCount(String sql);
+
+	/**
+	 * 获取一条改写后的语句最多插入的行数，受数据库占位符个数的限制
+	 *
+	 * @param parameterCount
+	 *            每行的参数个数
+	 * @return 最多行数
+	 */
+	public int getMaxRows(int parameterCount);
+
+	/**
+	 * 生成插入多行的语句，参数按行依次排列
+	 *
+	 * @param sql
+	 *            单行INSERT语句，{@link #getParameterCount(String)}需要大于0
+	 * @param rows
+	 *            插入的行数
+	 * @return 改写后的SQL
+	 */
+	public String getBatchSql(String sql, int rows);
+}
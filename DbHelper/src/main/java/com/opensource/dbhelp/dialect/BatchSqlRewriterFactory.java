@@ -0,0 +1,34 @@
+package com.opensource.dbhelp.dialect;
+
+import com.opensource.dbhelp.dialect.mysql.MySqlBatchSqlRewriter;
+import com.opensource.dbhelp.dialect.oracle.OracleBatchSqlRewriter;
+
+/**
+ * 获取批量INSERT改写对象
+ * <p/>
+ * Copyright: Copyright (c) 26-10-17 下午11:50
+ * <p/>
+ * Company: GNU General Public License
+ * <p/>
+ * Author: GNU General Public License
+ * <p/>
+ * Version: 1.0
+ * <p/>
+ */
+public class BatchSqlRewriterFactory {
+
+	/**
+	 * 获取批量INSERT改写对象
+	 *
+	 * @param dialect
+	 *            数据库类型
+	 * @return BatchSqlRewriter
+	 */
+	public static BatchSqlRewriter getRewriter(String dialect) {
+		if ("mysql".equals(dialect)) {
+			return new MySqlBatchSqlRewriter();
+		} else {
+			return new OracleBatchSqlRewriter();
+		}
+	}
+}
@@ -0,0 +1,58 @@
+package com.opensource.dbhelp.dialect.mysql;
+
+import com.opensource.dbhelp.dialect.AbstractBatchSqlRewriter;
+
+/**
+ * Mysql 批量INSERT改写实现，改写为<code>INSERT INTO t(a,b) VALUES (?,?),(?,?),...</code>
+ * <p/>
+ * 预编译语句最多65535个占位符；不含占位符的<code>ON DUPLICATE KEY UPDATE</code>子句保留在语句末尾。 字符串中的反斜杠默认是转义符，含反斜杠的字符串不能可靠地确定结尾，这样的语句不改写。
+ * <p/>
+ * Copyright: Copyright (c) 26-10-17 下午11:50
+ * <p/>
+ * Company: GNU General Public License
+ * <p/>
+ * Author: GNU General Public License
+ * <p/>
+ * Version: 1.0
+ * <p/>
+ */
+public class MySqlBatchSqlRewriter extends AbstractBatchSqlRewriter {
+
+	/**
+	 * 预编译语句最多的占位符个数
+	 */
+	private static final int MAX_PARAMETERS = 65535;
+
+	/**
+	 * 一条语句最多插入的行数，避免语句超过max_allowed_packet
+	 */
+	private static final int MAX_ROWS = 1024;
+
+	/**
+	 * 构造函数
+	 */
+	public MySqlBatchSqlRewriter() {
+		super(MAX_PARAMETERS, MAX_ROWS, true);
+	}
+
+	@Override
+	protected boolean accept(Insert insert) {
+		return insert.suffix.isEmpty() || insert.suffix.regionMatches(true, 0, "on duplicate key update", 0, "on duplicate key update".length());
+	}
+
+	@Override
+	protected String buildBatchSql(Insert insert, int rows) {
+		StringBuilder ret = new StringBuilder(insert.head.length() + insert.suffix.length() + (insert.values.length() + 1) * rows + 10);
+		ret.append(insert.head).append(" VALUES ");
+		for (int i = 0; i < rows; i++) {
+			if (i > 0) {
+				ret.append(',');
+			}
+			ret.append(insert.values);
+		}
+		if (!insert.suffix.isEmpty()) {
+			ret.append(' ').append(insert.suffix);
+		}
+		return ret.toString();
+	}
+}
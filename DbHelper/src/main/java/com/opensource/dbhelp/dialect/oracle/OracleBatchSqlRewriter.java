@@ -0,0 +1,57 @@
+package com.opensource.dbhelp.dialect.oracle;
+
+import java.util.Locale;
+
+import com.opensource.dbhelp.dialect.AbstractBatchSqlRewriter;
+
+/**
+ * Oracle 批量INSERT改写实现，改写为<code>INSERT ALL INTO t(a,b) VALUES (?,?) INTO t(a,b) VALUES (?,?) ... SELECT 1 FROM DUAL</code>
+ * <p/>
+ * INSERT ALL中的序列只取一次值，所有行得到相同的NEXTVAL，因此VALUES中使用序列的语句不改写。 语句较长时解析开销增长较快，每条语句的行数比mysql少。
+ * <p/>
+ * Copyright: Copyright (c) 26-10-17 下午11:50
+ * <p/>
+ * Company: GNU General Public License
+ * <p/>
+ * Author: GNU General Public License
+ * <p/>
+ * Version: 1.0
+ * <p/>
+ */
+public class OracleBatchSqlRewriter extends AbstractBatchSqlRewriter {
+
+	/**
+	 * 一条语句最多的绑定变量个数
+	 */
+	private static final int MAX_PARAMETERS = 65535;
+
+	/**
+	 * 一条语句最多插入的行数
+	 */
+	private static final int MAX_ROWS = 256;
+
+	/**
+	 * 构造函数
+	 */
+	public OracleBatchSqlRewriter() {
+		super(MAX_PARAMETERS, MAX_ROWS);
+	}
+
+	@Override
+	protected boolean accept(Insert insert) {
+		return insert.suffix.isEmpty() && !insert.values.toLowerCase(Locale.ENGLISH).contains("nextval");
+	}
+
+	@Override
+	protected String buildBatchSql(Insert insert, int rows) {
+		// 去掉开头的INSERT，保留INTO t(a,b)
+		String into = insert.head.substring("insert".length()).trim();
+		StringBuilder ret = new StringBuilder((into.length() + insert.values.length() + 10) * rows + 40);
+		ret.append("INSERT ALL");
+		for (int i = 0; i < rows; i++) {
+			ret.append(' ').append(into).append(" VALUES ").append(insert.values);
+		}
+		ret.append(" SELECT 1 FROM DUAL");
+		return ret.toString();
+	}
+}
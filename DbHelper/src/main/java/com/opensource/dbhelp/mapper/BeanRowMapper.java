@@ -0,0 +1,45 @@
+package com.opensource.dbhelp.mapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * 编译期生成的bean映射器接口。
+ * <p/>
+ * 实现类由{@link RowMapperProcessor}生成，不需要手工编写。映射器把属性按固定顺序编号，查询时先由{@link MapperRowProcessor}使用的BeanProcessor根据字段标签计算出每个属性对应的字段序号，再逐行调用{@link #mapRow(ResultSet, int[])}。
+ * <p/>
+ * Copyright: Copyright (c) 26-10-17 下午2:30
+ * <p/>
+ * Company: GNU General Public License
+ * <p/>
+ * Author: GNU General Public License
+ * <p/>
+ * Version: 1.0
+ * <p/>
+ *
+ * @param <T>
+ *            实体类型
+ */
+public interface BeanRowMapper<T> {
+
+	/**
+	 * 获取映射器支持的属性名，数组下标即属性编号
+	 *
+	 * @return 属性名数组
+	 */
+	String[] getPropertyNames();
+
+	/**
+	 * 把记录集的当前行转换为实体对象
+	 *
+	 * @param rs
+	 *            记录集，已定位到有效行
+	 * @param columns
+	 *            每个属性编号对应的字段序号，0表示记录集中没有该属性对应的字段
+	 * @return 实体对象
+	 * @throws SQLException
+	 *             if a database access error occurs
+	 */
+	T mapRow(ResultSet rs, int[] columns) throws SQLException;
+
+}
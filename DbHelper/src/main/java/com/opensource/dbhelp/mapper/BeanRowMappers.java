@@ -0,0 +1,110 @@
+package com.opensource.dbhelp.mapper;
+
+import java.beans.IntrospectionException;
+
+/**
+ * 编译期生成映射器的注册表。
+ * <p/>
+ * 按命名规则查找实体类对应的生成映射器，查找结果（包括找不到的情况）缓存在实体类上，每个实体类只加载一次，类被卸载时缓存随之释放。
+ * <p/>
+ * Copyright: Copyright (c) 26-10-17 下午2:30
+ * <p/>
+ * Company: GNU General Public License
+ * <p/>
+ * Author: GNU General Public License
+ * <p/>
+ * Version: 1.0
+ * <p/>
+ */
+public final class BeanRowMappers {
+
+	/**
+	 * 生成映射器的类名后缀
+	 */
+	public static final String SUFFIX = "_RowMapper";
+
+	/**
+	 * 没有生成映射器的标记
+	 */
+	private static final Object NONE = new Object();
+
+	/**
+	 * 实体类到映射器的缓存
+	 */
+	private static final ClassValue<Object> MAPPERS = new ClassValue<Object>() {
+
+		@Override
+		protected Object computeValue(Class<?> type) {
+			return load(type);
+		}
+	};
+
+	private BeanRowMappers() {
+		// disable construct
+	}
+
+	/**
+	 * 获取实体类对应的生成映射器的类名
+	 *
+	 * @param binaryName
+	 *            实体类的二进制类名，例如 com.foo.Outer$Inner
+	 * @return 映射器类名，例如 com.foo.Outer_Inner_RowMapper
+	 */
+	public static String mapperClassName(String binaryName) {
+		int dot = binaryName.lastIndexOf('.');
+		String pkg = dot < 0 ? "" : binaryName.substring(0, dot + 1);
+		return pkg + binaryName.substring(dot + 1).replace('$', '_') + SUFFIX;
+	}
+
+	/**
+	 * 判断实体类是否有生成的映射器
+	 *
+	 * @param type
+	 *            实体类
+	 * @return 是否有生成的映射器
+	 */
+	public static boolean hasMapper(Class<?> type) {
+		return find(type) != null;
+	}
+
+	/**
+	 * 查找实体类对应的生成映射器
+	 *
+	 * @param type
+	 *            实体类
+	 * @return 映射器，没有生成映射器时返回null
+	 */
+	@SuppressWarnings("unchecked")
+	static <T> RowMapperBinding<T> find(Class<T> type) {
+		Object mapper = MAPPERS.get(type);
+		return mapper == NONE ? null : (RowMapperBinding<T>) mapper;
+	}
+
+	/**
+	 * 加载实体类对应的生成映射器
+	 *
+	 * @param type
+	 *            实体类
+	 * @return 映射器，没有生成映射器时返回NONE
+	 */
+	private static Object load(Class<?> type) {
+		ClassLoader loader = type.getClassLoader();
+		if (loader == null || type.isPrimitive() || type.isArray()) {
+			return NONE;
+		}
+		try {
+			Class<?> c = Class.forName(mapperClassName(type.getName()), true, loader);
+			if (!BeanRowMapper.class.isAssignableFrom(c)) {
+				return NONE;
+			}
+			return new RowMapperBinding<Object>((BeanRowMapper<?>) c.getDeclaredConstructor().newInstance());
+		}
+		catch (ReflectiveOperationException e) {
+			return NONE;
+		}
+		catch (IntrospectionException e) {
+			return NONE;
+		}
+	}
+
+}
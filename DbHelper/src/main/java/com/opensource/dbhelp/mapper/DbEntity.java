@@ -0,0 +1,28 @@
+package com.opensource.dbhelp.mapper;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 标注需要在编译期生成映射器的实体类。
+ * <p/>
+ * 实体类必须是public的顶层类或静态内部类，且有public的无参构造函数。编译时{@link RowMapperProcessor}为其生成名为“类名_RowMapper”的{@link BeanRowMapper}实现， 字段与属性的对应规则与CamelBeanProcessor相同，例如 update_time 映射到 updateTime 属性。
+ * <p/>
+ * Copyright: Copyright (c) 26-10-17 下午2:30
+ * <p/>
+ * Company: GNU General Public License
+ * <p/>
+ * Author: GNU General Public License
+ * <p/>
+ * Version: 1.0
+ * <p/>
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface DbEntity {
+
+}
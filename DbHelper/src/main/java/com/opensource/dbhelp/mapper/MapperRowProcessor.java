@@ -0,0 +1,122 @@
+package com.opensource.dbhelp.mapper;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import com.opensource.dbhelp.dbutils.BasicRowProcessor;
+import com.opensource.dbhelp.dbutils.BeanProcessor;
+import com.opensource.dbhelp.dbutils.BeanReader;
+import com.opensource.dbhelp.dbutils.CamelBeanProcessor;
+
+/**
+ * 优先使用编译期生成映射器的行转换器。
+ * <p/>
+ * bean类有{@link RowMapperProcessor}生成的映射器时直接调用映射器，不经过反射；否则交给构造时传入的BeanProcessor处理。 字段与属性的匹配（包括字段到属性名的覆盖）总是由传入的BeanProcessor完成。
+ * 生成的映射器按默认规则转换字段的值，因此只在传入的是BeanProcessor或CamelBeanProcessor本身时使用；传入其它子类时可能定制了字段转换或bean的创建，全部交给该子类处理。
+ * <p/>
+ * This class is thread-safe.
+ * <p/>
+ * Copyright: Copyright (c) 26-10-17 下午2:30
+ * <p/>
+ * Company: GNU General Public License
+ * <p/>
+ * Author: GNU General Public License
+ * <p/>
+ * Version: 1.0
+ * <p/>
+ */
+public class MapperRowProcessor extends BasicRowProcessor {
+
+	/**
+	 * 匹配字段，以及没有生成映射器时转换bean的BeanProcessor
+	 */
+	private final BeanProcessor convert;
+
+	/**
+	 * 是否可以使用生成的映射器
+	 */
+	private final boolean mappersEnabled;
+
+	/**
+	 * 构造函数
+	 *
+	 * @param convert
+	 *            匹配字段，以及没有生成映射器时使用的BeanProcessor
+	 */
+	public MapperRowProcessor(BeanProcessor convert) {
+		super(convert);
+		this.convert = convert;
+		this.mappersEnabled = convert.getClass() == BeanProcessor.class || convert.getClass() == CamelBeanProcessor.class;
+	}
+
+	@Override
+	public <T> T toBean(ResultSet rs, Class<T> type) throws SQLException {
+		RowMapperBinding<T> mapper = find(type);
+		if (mapper == null) {
+			return super.toBean(rs, type);
+		}
+		return mapper.reader(convert, type, rs.getMetaData()).read(rs);
+	}
+
+	@Override
+	public <T> List<T> toBeanList(ResultSet rs, Class<T> type) throws SQLException {
+		RowMapperBinding<T> mapper = find(type);
+		if (mapper == null) {
+			return super.toBeanList(rs, type);
+		}
+		List<T> results = new ArrayList<T>();
+		if (!rs.next()) {
+			return results;
+		}
+		BeanReader<T> reader = mapper.reader(convert, type, rs.getMetaData());
+		do {
+			results.add(reader.read(rs));
+		}
+		while (rs.next());
+		return results;
+	}
+
+	@Override
+	public <T> int forEachBean(ResultSet rs, Class<T> type, Consumer<? super T> action) throws SQLException {
+		RowMapperBinding<T> mapper = find(type);
+		if (mapper == null) {
+			return super.forEachBean(rs, type, action);
+		}
+		if (!rs.next()) {
+			return 0;
+		}
+		BeanReader<T> reader = mapper.reader(convert, type, rs.getMetaData());
+		int rows = 0;
+		do {
+			action.accept(reader.read(rs));
+			rows++;
+		}
+		while (rs.next());
+		return rows;
+	}
+
+	@Override
+	public <T> BeanReader<T> beanReader(ResultSetMetaData rsmd, Class<T> type) throws SQLException {
+		RowMapperBinding<T> mapper = find(type);
+		if (mapper == null) {
+			return super.beanReader(rsmd, type);
+		}
+		return mapper.reader(convert, type, rsmd);
+	}
+
+	/**
+	 * 查找可以使用的生成映射器
+	 *
+	 * @param type
+	 *            实体类
+	 * @return 映射器，没有生成映射器或不能使用时返回null
+	 */
+	private <T> RowMapperBinding<T> find(Class<T> type) {
+		return mappersEnabled ? BeanRowMappers.<T> find(type) : null;
+	}
+
+}
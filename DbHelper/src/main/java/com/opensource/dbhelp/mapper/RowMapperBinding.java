@@ -0,0 +1,80 @@
+package com.opensource.dbhelp.mapper;
+
+import java.beans.IntrospectionException;
+import java.beans.PropertyDescriptor;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+import com.opensource.dbhelp.dbutils.BeanProcessor;
+import com.opensource.dbhelp.dbutils.BeanReader;
+
+/**
+ * 生成映射器与记录集字段的绑定。
+ * <p/>
+ * 字段标签与映射器属性的匹配交给BeanProcessor的{@link BeanProcessor#matchColumns}完成，规则（包括字段到属性名的覆盖）与反射映射时相同。 每个记录集只匹配一次字段，之后逐行直接按字段序号读取。
+ * <p/>
+ * Copyright: Copyright (c) 26-10-17 下午2:30
+ * <p/>
+ * Company: GNU General Public License
+ * <p/>
+ * Author: GNU General Public License
+ * <p/>
+ * Version: 1.0
+ * <p/>
+ */
+final class RowMapperBinding<T> {
+
+	/**
+	 * 生成的映射器
+	 */
+	private final BeanRowMapper<T> mapper;
+
+	/**
+	 * 映射器的属性，数组下标即属性编号，只用于按名称匹配字段
+	 */
+	private final PropertyDescriptor[] props;
+
+	@SuppressWarnings("unchecked")
+	RowMapperBinding(BeanRowMapper<?> mapper) throws IntrospectionException {
+		this.mapper = (BeanRowMapper<T>) mapper;
+		String[] names = mapper.getPropertyNames();
+		this.props = new PropertyDescriptor[names.length];
+		for (int i = 0; i < names.length; i++) {
+			props[i] = new PropertyDescriptor(names[i], null, null);
+		}
+	}
+
+	/**
+	 * 按记录集的字段创建转换器
+	 *
+	 * @param convert
+	 *            匹配字段与属性的BeanProcessor
+	 * @param type
+	 *            实体类
+	 * @param rsmd
+	 *            记录集元数据
+	 * @return 转换器
+	 * @throws SQLException
+	 *             if a database access error occurs
+	 */
+	BeanReader<T> reader(BeanProcessor convert, Class<?> type, ResultSetMetaData rsmd) throws SQLException {
+		int[] columnToProperty = convert.matchColumns(type, rsmd, props);
+		// 属性编号到字段序号，0表示没有对应字段；多个字段对应同一属性时与反射映射一样以最后一个为准
+		final int[] columns = new int[props.length];
+		for (int col = 1; col < columnToProperty.length; col++) {
+			int slot = columnToProperty[col];
+			if (slot >= 0 && slot < columns.length) {
+				columns[slot] = col;
+			}
+		}
+		return new BeanReader<T>() {
+
+			@Override
+			public T read(ResultSet rs) throws SQLException {
+				return mapper.mapRow(rs, columns);
+			}
+		};
+	}
+
+}
@@ -0,0 +1,298 @@
+package com.opensource.dbhelp.mapper;
+
+import java.beans.Introspector;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+/**
+ * 为标注了{@link DbEntity}的实体类生成{@link BeanRowMapper}实现的注解处理器。
+ * <p/>
+ * 生成的映射器直接调用实体类的setter，并按属性类型调用对应的<code>ResultSet.getXxx</code>方法，包装类型通过<code>wasNull()</code>判断SQL NULL， <code>java.sql.Date</code>/<code>Time</code>/<code>Timestamp</code>类型的属性与BeanProcessor一样由读取到的<code>java.util.Date</code>按毫秒数重新创建， 与BeanProcessor的转换规则一致。
+ * 处理器通过META-INF/services注册，引用dbhelper的项目编译时自动生效；没有标注的类不受影响。
+ * <p/>
+ * Copyright: Copyright (c) 26-10-17 下午2:30
+ * <p/>
+ * Company: GNU General Public License
+ * <p/>
+ * Author: GNU General Public License
+ * <p/>
+ * Version: 1.0
+ * <p/>
+ */
+public class RowMapperProcessor extends AbstractProcessor {
+
+	/**
+	 * 属性类型对应的ResultSet读取方法，包装类型需要判断wasNull
+	 */
+	private static final Map<String, String> GETTERS = new HashMap<String, String>();
+
+	static {
+		GETTERS.put("int", "getInt");
+		GETTERS.put("long", "getLong");
+		GETTERS.put("double", "getDouble");
+		GETTERS.put("float", "getFloat");
+		GETTERS.put("short", "getShort");
+		GETTERS.put("byte", "getByte");
+		GETTERS.put("boolean", "getBoolean");
+		GETTERS.put("java.lang.Integer", "getInt");
+		GETTERS.put("java.lang.Long", "getLong");
+		GETTERS.put("java.lang.Double", "getDouble");
+		GETTERS.put("java.lang.Float", "getFloat");
+		GETTERS.put("java.lang.Short", "getShort");
+		GETTERS.put("java.lang.Byte", "getByte");
+		GETTERS.put("java.lang.Boolean", "getBoolean");
+		GETTERS.put("java.lang.String", "getString");
+		GETTERS.put("java.math.BigDecimal", "getBigDecimal");
+		GETTERS.put("java.sql.Timestamp", "getTimestamp");
+		GETTERS.put("java.sql.SQLXML", "getSQLXML");
+		GETTERS.put("byte[]", "getBytes");
+	}
+
+	/**
+	 * 与BeanProcessor.convertValue一致，读取到的java.util.Date需要转换的属性类型
+	 */
+	private static final Set<String> DATE_TYPES = new HashSet<String>();
+
+	static {
+		DATE_TYPES.add("java.sql.Date");
+		DATE_TYPES.add("java.sql.Time");
+		DATE_TYPES.add("java.sql.Timestamp");
+	}
+
+	@Override
+	public Set<String> getSupportedAnnotationTypes() {
+		return Collections.singleton(DbEntity.class.getName());
+	}
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+		for (Element element : roundEnv.getElementsAnnotatedWith(DbEntity.class)) {
+			if (element.getKind() != ElementKind.CLASS) {
+				error(element, "@DbEntity can only be applied to classes");
+				continue;
+			}
+			TypeElement type = (TypeElement) element;
+			if (check(type)) {
+				generate(type);
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * 检查实体类能否生成映射器
+	 *
+	 * @param type
+	 *            实体类
+	 * @return 是否可以生成
+	 */
+	private boolean check(TypeElement type) {
+		Set<Modifier> modifiers = type.getModifiers();
+		if (!modifiers.contains(Modifier.PUBLIC) || modifiers.contains(Modifier.ABSTRACT)) {
+			error(type, "@DbEntity class must be public and not abstract");
+			return false;
+		}
+		if (type.getNestingKind() != NestingKind.TOP_LEVEL && (type.getNestingKind() != NestingKind.MEMBER || !modifiers.contains(Modifier.STATIC))) {
+			error(type, "@DbEntity class must be a top level class or a static member class");
+			return false;
+		}
+		for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+			if (constructor.getParameters().isEmpty() && constructor.getModifiers().contains(Modifier.PUBLIC)) {
+				return true;
+			}
+		}
+		error(type, "@DbEntity class must have a public no-arg constructor");
+		return false;
+	}
+
+	/**
+	 * 收集实体类（包括父类）的public setter，按属性名去重
+	 *
+	 * @param type
+	 *            实体类
+	 * @return 属性名到setter的映射，保持声明顺序
+	 */
+	private Map<String, ExecutableElement> setters(TypeElement type) {
+		Map<String, ExecutableElement> setters = new LinkedHashMap<String, ExecutableElement>();
+		for (ExecutableElement method : ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(type))) {
+			String name = method.getSimpleName().toString();
+			Set<Modifier> modifiers = method.getModifiers();
+			if (name.length() > 3 && name.startsWith("set") && method.getParameters().size() == 1 && method.getReturnType().getKind() == TypeKind.VOID && modifiers.contains(Modifier.PUBLIC) && !modifiers.contains(Modifier.STATIC)) {
+				TypeMirror paramType = method.getParameters().get(0).asType();
+				if (paramType.getKind().isPrimitive() && !GETTERS.containsKey(paramType.toString())) {
+					// char等没有对应ResultSet读取方法的基本类型不生成映射
+					continue;
+				}
+				String property = Introspector.decapitalize(name.substring(3));
+				if (!setters.containsKey(property)) {
+					setters.put(property, method);
+				}
+			}
+		}
+		return setters;
+	}
+
+	/**
+	 * 生成映射器源码
+	 *
+	 * @param type
+	 *            实体类
+	 */
+	private void generate(TypeElement type) {
+		String entity = type.getQualifiedName().toString();
+		String mapperName = BeanRowMappers.mapperClassName(processingEnv.getElementUtils().getBinaryName(type).toString());
+		int dot = mapperName.lastIndexOf('.');
+		String pkg = dot < 0 ? null : mapperName.substring(0, dot);
+		String simpleName = mapperName.substring(dot + 1);
+
+		Map<String, ExecutableElement> setters = setters(type);
+		List<String> properties = new ArrayList<String>(setters.keySet());
+
+		StringBuilder sb = new StringBuilder(2048);
+		if (pkg != null) {
+			sb.append("package ").append(pkg).append(";\n\n");
+		}
+		sb.append("import java.sql.ResultSet;\n");
+		sb.append("import java.sql.SQLException;\n\n");
+		sb.append("/**\n * Generated by ").append(RowMapperProcessor.class.getName()).append(" for {@link ").append(entity).append("}. Do not edit.\n */\n");
+		sb.append("public final class ").append(simpleName).append(" implements ").append(BeanRowMapper.class.getName()).append("<").append(entity).append("> {\n\n");
+
+		sb.append("\tprivate static final String[] PROPERTY_NAMES = {");
+		for (int i = 0; i < properties.size(); i++) {
+			sb.append(i == 0 ? " " : ", ").append('"').append(properties.get(i)).append('"');
+		}
+		sb.append(" };\n\n");
+
+		sb.append("\t@Override\n");
+		sb.append("\tpublic String[] getPropertyNames() {\n");
+		sb.append("\t\treturn PROPERTY_NAMES.clone();\n");
+		sb.append("\t}\n\n");
+
+		sb.append("\t@Override\n");
+		sb.append("\t@SuppressWarnings({ \"unchecked\", \"rawtypes\" })\n");
+		sb.append("\tpublic ").append(entity).append(" mapRow(ResultSet rs, int[] columns) throws SQLException {\n");
+		sb.append("\t\t").append(entity).append(" bean = new ").append(entity).append("();\n");
+		sb.append("\t\tint c;\n");
+		for (int i = 0; i < properties.size(); i++) {
+			ExecutableElement setter = setters.get(properties.get(i));
+			sb.append("\t\tif ((c = columns[").append(i).append("]) > 0) {\n");
+			appendSet(sb, setter);
+			sb.append("\t\t}\n");
+		}
+		sb.append("\t\treturn bean;\n");
+		sb.append("\t}\n\n");
+		sb.append("}\n");
+
+		try {
+			JavaFileObject file = processingEnv.getFiler().createSourceFile(mapperName, type);
+			Writer writer = file.openWriter();
+			try {
+				writer.write(sb.toString());
+			}
+			finally {
+				writer.close();
+			}
+		}
+		catch (IOException e) {
+			error(type, "Cannot generate " + mapperName + ": " + e.getMessage());
+		}
+	}
+
+	/**
+	 * 生成读取字段并调用setter的语句
+	 *
+	 * @param sb
+	 *            源码
+	 * @param setter
+	 *            setter方法
+	 */
+	private void appendSet(StringBuilder sb, ExecutableElement setter) {
+		String method = setter.getSimpleName().toString();
+		TypeMirror paramType = setter.getParameters().get(0).asType();
+		String typeName = typeName(paramType);
+		String getter = GETTERS.get(typeName);
+
+		if (getter == null) {
+			String erasure = processingEnv.getTypeUtils().erasure(paramType).toString();
+			sb.append("\t\t\tObject v = rs.getObject(c);\n");
+			if (DATE_TYPES.contains(erasure)) {
+				sb.append("\t\t\tif (v instanceof java.util.Date) {\n");
+				sb.append("\t\t\t\tv = new ").append(erasure).append("(((java.util.Date) v).getTime());\n");
+				sb.append("\t\t\t}\n");
+			}
+			sb.append("\t\t\tif (v != null && !(v instanceof ").append(erasure).append(")) {\n");
+			sb.append("\t\t\t\tthrow new SQLException(\"Cannot set ").append(Introspector.decapitalize(method.substring(3))).append(": incompatible types, cannot convert \" + v.getClass().getName() + \" to ").append(erasure).append("\");\n");
+			sb.append("\t\t\t}\n");
+			sb.append("\t\t\tbean.").append(method).append("((").append(erasure).append(") v);\n");
+		} else if (typeName.startsWith("java.lang.") && !"java.lang.String".equals(typeName)) {
+			String primitive = getter.substring(3).toLowerCase(Locale.ENGLISH);
+			sb.append("\t\t\t").append(primitive).append(" v = rs.").append(getter).append("(c);\n");
+			sb.append("\t\t\tbean.").append(method).append("(rs.wasNull() ? null : ").append(typeName).append(".valueOf(v));\n");
+		} else if (DATE_TYPES.contains(typeName)) {
+			sb.append("\t\t\t").append(typeName).append(" v = rs.").append(getter).append("(c);\n");
+			sb.append("\t\t\tbean.").append(method).append("(v == null ? null : new ").append(typeName).append("(v.getTime()));\n");
+		} else {
+			sb.append("\t\t\tbean.").append(method).append("(rs.").append(getter).append("(c));\n");
+		}
+	}
+
+	/**
+	 * 获取类型名，数组类型返回“元素类型[]”
+	 *
+	 * @param type
+	 *            类型
+	 * @return 类型名
+	 */
+	private String typeName(TypeMirror type) {
+		if (type.getKind() == TypeKind.ARRAY) {
+			return typeName(((ArrayType) type).getComponentType()) + "[]";
+		}
+		if (type.getKind() == TypeKind.DECLARED) {
+			return processingEnv.getTypeUtils().erasure(type).toString();
+		}
+		return type.toString();
+	}
+
+	/**
+	 * 输出编译错误
+	 *
+	 * @param element
+	 *            出错的元素
+	 * @param message
+	 *            错误信息
+	 */
+	private void error(Element element, String message) {
+		processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+	}
+
+}
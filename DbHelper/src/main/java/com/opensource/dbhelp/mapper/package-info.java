@@ -0,0 +1,17 @@
+/**
+ * 编译期生成的bean映射器。
+ * <p>
+ * 在实体类上标注{@link com.opensource.dbhelp.mapper.DbEntity}，编译时由{@link com.opensource.dbhelp.mapper.RowMapperProcessor}生成直接调用setter的映射器，
+ * DbHelper查询bean时自动使用生成的映射器，没有生成映射器的类仍然使用CamelBeanProcessor通过反射映射。
+ *
+ * <pre>
+ * &#64;DbEntity
+ * public class User {
+ *     ...
+ * }
+ *
+ * // 编译后生成 User_RowMapper
+ * List&lt;User&gt; users = dbHelper.getBeanList(&quot;select * from t_user&quot;, User.class);
+ * </pre>
+ */
+package com.opensource.dbhelp.mapper;
@@ -51,6 +51,9 @@ public class ListPagedStatement<T> extends AbstractPagedStatement<T> {
 	/** 数据源 */
 	private DataSource dataSource;
 
+	/** 执行查询使用的QueryRunner，为null时使用数据源新建 */
+	private QueryRunner queryRunner;
+
 	/**
 	 * 构造一查询出当页数据的PageStatement，并指定每页显示记录条数
 	 * 
@@ -82,7 +85,7 @@ public class ListPagedStatement<T> extends AbstractPagedStatement<T> {
 	public com.opensource.dbhelp.page.ListPage<T> executeQuery(int type) throws SQLException {
 		this.debug(0);
 
-		QueryRunner run = new QueryRunner(dataSource);
+		QueryRunner run = queryRunner != null ? queryRunner : new QueryRunner(dataSource);
 		String[] count = run.query(this.countSql, new StringArrayHandler(), params);
 		if (count != null) {
 			totalCount = Integer.valueOf(count[0]);
@@ -99,6 +102,10 @@ public class ListPagedStatement<T> extends AbstractPagedStatement<T> {
 		// if (this.currentPage>maxPage) this.currentPage = Double.valueOf(maxPage).intValue();
 
 		params = pageSqlParser.attachPageParam(params, this.hasOffset, this.startIndex, this.pageSize);
+		if (this.pageSize > 0) {
+			// 一次往返取完一页
+			run.setFetchSize(this.pageSize);
+		}
 
 		this.debug(1);
 
@@ -152,6 +159,16 @@ public class ListPagedStatement<T> extends AbstractPagedStatement<T> {
 		this.clazz = clazz;
 	}
 
+	/**
+	 * 设置执行查询使用的QueryRunner，例如带有超时设置的QueryRunner。查询一页记录时QueryRunner的fetch size设置为每页记录数。
+	 *
+	 * @param queryRunner
+	 *            QueryRunner对象，需要设置数据源；为null时使用构造函数的数据源新建
+	 */
+	public void setQueryRunner(QueryRunner queryRunner) {
+		this.queryRunner = queryRunner;
+	}
+
 	/**
 	 * 取封装成List查询结果
 	 *
@@ -0,0 +1,205 @@
+package com.opensource.dbhelp.dbutils;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import com.opensource.dbhelp.dbutils.handlers.ScalarHandler;
+
+/**
+ * 比较平台线程池和虚拟线程执行器上{@link AsyncQueryRunner}吞吐量的基准程序。
+ * <p/>
+ * 数据源是模拟的：每次执行查询阻塞固定的时间，模拟数据库的响应延迟，不需要真实的数据库。每一轮同时提交“并发请求数”个查询并等待全部完成，按完成的查询数和耗时计算吞吐量。
+ * 平台线程池的吞吐量在并发请求数超过线程数后不再增长；虚拟线程执行器的吞吐量随并发请求数增长，直到最大并发数（连接池的最大连接数）。当前JVM不支持虚拟线程时只测试平台线程池。
+ * <p/>
+ * 用法：<code>java -cp target/classes:target/test-classes com.opensource.dbhelp.dbutils.AsyncQueryRunnerBenchmark [延迟毫秒] [平台线程数] [最大并发数] [轮数]</code>，默认为20、32、1024、10。
+ * <p/>
+ * Copyright: Copyright (c) 26-10-17 上午1:50
+ * <p/>
+ * Company: GNU General Public License
+ * <p/>
+ * Author: GNU General Public License
+ * <p/>
+ * Version: 1.0
+ * <p/>
+ */
+public final class AsyncQueryRunnerBenchmark {
+
+	/**
+	 * 测试的并发请求数
+	 */
+	private static final int[] CONCURRENCY_LEVELS = { 8, 32, 128, 512, 1024 };
+
+	private AsyncQueryRunnerBenchmark() {
+	}
+
+	/**
+	 * 执行基准测试，按并发请求数输出两种执行器的吞吐量
+	 *
+	 * @param args
+	 *            延迟毫秒、平台线程数、最大并发数、轮数，均可省略
+	 * @throws Exception
+	 *             查询出错
+	 */
+	public static void main(String[] args) throws Exception {
+		long latencyMillis = args.length > 0 ? Long.parseLong(args[0]) : 20;
+		int poolSize = args.length > 1 ? Integer.parseInt(args[1]) : 32;
+		int maxConcurrency = args.length > 2 ? Integer.parseInt(args[2]) : 1024;
+		int rounds = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+
+		DataSource ds = newSlowDataSource(latencyMillis);
+		System.out.println("latency " + latencyMillis + " ms, platform threads " + poolSize + ", max concurrency " + maxConcurrency + ", virtual threads " + (DbExecutors.isVirtualThreadSupported() ? "supported" : "not supported"));
+		System.out.println(String.format("%12s %20s %20s", "concurrency", "platform (ops/s)", "virtual (ops/s)"));
+		for (int concurrency : CONCURRENCY_LEVELS) {
+			double platform = run(Executors.newFixedThreadPool(poolSize, new QueryWatchdog.DaemonThreadFactory("benchmark-platform-")), ds, concurrency, rounds);
+			String virtual = "-";
+			if (DbExecutors.isVirtualThreadSupported()) {
+				virtual = String.format("%.0f", run(DbExecutors.newVirtualThreadPerTaskExecutor(maxConcurrency), ds, concurrency, rounds));
+			}
+			System.out.println(String.format("%12d %20.0f %20s", concurrency, platform, virtual));
+		}
+	}
+
+	/**
+	 * 在执行器上执行若干轮查询，执行完毕后关闭执行器
+	 *
+	 * @param executor
+	 *            执行器
+	 * @param ds
+	 *            模拟的数据源
+	 * @param concurrency
+	 *            每一轮同时提交的查询数
+	 * @param rounds
+	 *            轮数
+	 * @return 每秒完成的查询数
+	 */
+	private static double run(ExecutorService executor, DataSource ds, int concurrency, int rounds) throws Exception {
+		try {
+			AsyncQueryRunner runner = new AsyncQueryRunner(executor, new QueryRunner(ds, true));
+			ScalarHandler<Object> handler = new ScalarHandler<Object>();
+			// 预热，创建线程
+			execute(runner, handler, concurrency);
+			long start = System.nanoTime();
+			for (int i = 0; i < rounds; i++) {
+				execute(runner, handler, concurrency);
+			}
+			long elapsed = System.nanoTime() - start;
+			return (double) concurrency * rounds * TimeUnit.SECONDS.toNanos(1) / elapsed;
+		}
+		finally {
+			executor.shutdown();
+			executor.awaitTermination(1, TimeUnit.MINUTES);
+		}
+	}
+
+	private static void execute(AsyncQueryRunner runner, ScalarHandler<Object> handler, int concurrency) throws Exception {
+		List<Future<Object>> futures = new ArrayList<Future<Object>>(concurrency);
+		for (int i = 0; i < concurrency; i++) {
+			futures.add(runner.query("select 1", handler));
+		}
+		for (Future<Object> future : futures) {
+			future.get();
+		}
+	}
+
+	/**
+	 * 创建模拟的数据源，执行查询时阻塞指定的时间，返回空的结果集
+	 *
+	 * @param latencyMillis
+	 *            每次查询阻塞的毫秒数
+	 * @return 数据源
+	 */
+	private static DataSource newSlowDataSource(final long latencyMillis) {
+		final ResultSet rs = proxy(ResultSet.class, null);
+		final PreparedStatement stmt = proxy(PreparedStatement.class, new InvocationHandler() {
+
+			@Override
+			public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+				if ("executeQuery".equals(method.getName())) {
+					Thread.sleep(latencyMillis);
+					return rs;
+				}
+				return defaultValue(method.getReturnType());
+			}
+		});
+		final Connection conn = proxy(Connection.class, new InvocationHandler() {
+
+			@Override
+			public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+				if ("prepareStatement".equals(method.getName())) {
+					return stmt;
+				}
+				return defaultValue(method.getReturnType());
+			}
+		});
+		return proxy(DataSource.class, new InvocationHandler() {
+
+			@Override
+			public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+				if ("getConnection".equals(method.getName())) {
+					return conn;
+				}
+				return defaultValue(method.getReturnType());
+			}
+		});
+	}
+
+	/**
+	 * 创建接口的代理
+	 *
+	 * @param type
+	 *            接口
+	 * @param handler
+	 *            调用处理器，为null时所有方法返回默认值
+	 * @return 代理对象
+	 */
+	private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+		if (handler == null) {
+			handler = new InvocationHandler() {
+
+				@Override
+				public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+					return defaultValue(method.getReturnType());
+				}
+			};
+		}
+		return type.cast(Proxy.newProxyInstance(AsyncQueryRunnerBenchmark.class.getClassLoader(), new Class<?>[] { type }, handler));
+	}
+
+	private static Object defaultValue(Class<?> type) {
+		if (type == boolean.class) {
+			return Boolean.FALSE;
+		}
+		if (type == int.class) {
+			return 0;
+		}
+		if (type == long.class) {
+			return 0L;
+		}
+		if (type == short.class) {
+			return (short) 0;
+		}
+		if (type == byte.class) {
+			return (byte) 0;
+		}
+		if (type == float.class) {
+			return 0f;
+		}
+		if (type == double.class) {
+			return 0d;
+		}
+		return null;
+	}
+
+}
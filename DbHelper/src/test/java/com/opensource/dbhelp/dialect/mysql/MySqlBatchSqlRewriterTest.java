@@ -0,0 +1,101 @@
+package com.opensource.dbhelp.dialect.mysql;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * {@link MySqlBatchSqlRewriter}的单元测试，覆盖单行INSERT的解析和多行语句的生成。
+ * <p/>
+ * Copyright: Copyright (c) 26-10-17 下午4:50
+ * <p/>
+ * Company: GNU General Public License
+ * <p/>
+ * Author: GNU General Public License
+ * <p/>
+ * Version: 1.0
+ * <p/>
+ */
+public class MySqlBatchSqlRewriterTest {
+
+	private final MySqlBatchSqlRewriter rewriter = new MySqlBatchSqlRewriter();
+
+	@Test
+	public void rewritesSingleRowInsert() {
+		String sql = "INSERT INTO t_user(id, user_name) VALUES (?, ?)";
+		assertEquals(2, rewriter.getParameterCount(sql));
+		assertEquals("INSERT INTO t_user(id, user_name) VALUES (?, ?),(?, ?),(?, ?)", rewriter.getBatchSql(sql, 3));
+	}
+
+	@Test
+	public void ignoresTrailingSemicolonAndCase() {
+		String sql = "insert into t(a) values(?);";
+		assertEquals(1, rewriter.getParameterCount(sql));
+		assertEquals("insert into t(a) VALUES (?),(?)", rewriter.getBatchSql(sql, 2));
+	}
+
+	@Test
+	public void countsFunctionArguments() {
+		String sql = "INSERT INTO t(a, b) VALUES (?, concat(?, 'x'))";
+		assertEquals(2, rewriter.getParameterCount(sql));
+		assertEquals("INSERT INTO t(a, b) VALUES (?, concat(?, 'x')),(?, concat(?, 'x'))", rewriter.getBatchSql(sql, 2));
+	}
+
+	@Test
+	public void skipsPlaceholdersInQuotes() {
+		assertEquals(1, rewriter.getParameterCount("INSERT INTO t(a, b) VALUES (?, 'a?b')"));
+		assertEquals(1, rewriter.getParameterCount("INSERT INTO t(a, b) VALUES (?, \"a?b\")"));
+		assertEquals(1, rewriter.getParameterCount("INSERT INTO t(a, b) VALUES (?, 'it''s ?')"));
+		assertEquals(2, rewriter.getParameterCount("INSERT INTO `t?`(`a`, `b`) VALUES (?, ?)"));
+		assertEquals(1, rewriter.getParameterCount("INSERT INTO t(`a\\`, b) VALUES (?, 'x')"));
+	}
+
+	@Test
+	public void refusesBackslashInStrings() {
+		assertEquals(-1, rewriter.getParameterCount("INSERT INTO t(a, b) VALUES (?, 'a\\'?\\'b')"));
+		assertEquals(-1, rewriter.getParameterCount("INSERT INTO t(a, b) VALUES (?, \"a\\\\\")"));
+	}
+
+	@Test
+	public void refusesUnterminatedQuotes() {
+		assertEquals(-1, rewriter.getParameterCount("INSERT INTO t(a, b) VALUES (?, 'a)"));
+	}
+
+	@Test
+	public void refusesComments() {
+		assertEquals(-1, rewriter.getParameterCount("INSERT INTO t(a) /* x */ VALUES (?)"));
+		assertEquals(-1, rewriter.getParameterCount("INSERT INTO t(a) VALUES (? /* x */)"));
+		assertEquals(-1, rewriter.getParameterCount("INSERT INTO t(a) VALUES (?) -- x"));
+	}
+
+	@Test
+	public void keepsOnDuplicateKeyUpdate() {
+		String sql = "INSERT INTO t(id, n) VALUES (?, ?) ON DUPLICATE KEY UPDATE n = n + VALUES(n)";
+		assertEquals(2, rewriter.getParameterCount(sql));
+		assertEquals("INSERT INTO t(id, n) VALUES (?, ?),(?, ?) ON DUPLICATE KEY UPDATE n = n + VALUES(n)", rewriter.getBatchSql(sql, 2));
+		assertEquals(-1, rewriter.getParameterCount("INSERT INTO t(id, n) VALUES (?, ?) ON DUPLICATE KEY UPDATE n = ?"));
+		assertEquals(-1, rewriter.getParameterCount("INSERT INTO t(id, n) VALUES (?, ?) ON DUPLICATE KEY UPDATE n = 'x'"));
+	}
+
+	@Test
+	public void refusesOtherStatements() {
+		assertEquals(-1, rewriter.getParameterCount("INSERT INTO t(a) SELECT a FROM s WHERE b = ?"));
+		assertEquals(-1, rewriter.getParameterCount("INSERT INTO t(a) VALUES (?), (?)"));
+		assertEquals(-1, rewriter.getParameterCount("INSERT INTO t(a) VALUES (1)"));
+		assertEquals(-1, rewriter.getParameterCount("UPDATE t SET a = ?"));
+		assertEquals(-1, rewriter.getParameterCount("INSERT INTO t(a) VALUES (?) RETURNING a"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void getBatchSqlRejectsUnsupportedStatements() {
+		rewriter.getBatchSql("UPDATE t SET a = ?", 2);
+	}
+
+	@Test
+	public void limitsRowsByPlaceholders() {
+		assertEquals(1024, rewriter.getMaxRows(2));
+		assertEquals(65535 / 100, rewriter.getMaxRows(100));
+		assertEquals(1, rewriter.getMaxRows(0));
+	}
+
+}
@@ -0,0 +1,66 @@
+package com.opensource.dbhelp.dialect.oracle;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * {@link OracleBatchSqlRewriter}的单元测试，覆盖单行INSERT的解析和INSERT ALL语句的生成。
+ * <p/>
+ * Copyright: Copyright (c) 26-10-17 下午4:50
+ * <p/>
+ * Company: GNU General Public License
+ * <p/>
+ * Author: GNU General Public License
+ * <p/>
+ * Version: 1.0
+ * <p/>
+ */
+public class OracleBatchSqlRewriterTest {
+
+	private final OracleBatchSqlRewriter rewriter = new OracleBatchSqlRewriter();
+
+	@Test
+	public void rewritesToInsertAll() {
+		String sql = "INSERT INTO t_user(id, user_name) VALUES (?, ?)";
+		assertEquals(2, rewriter.getParameterCount(sql));
+		assertEquals("INSERT ALL INTO t_user(id, user_name) VALUES (?, ?) INTO t_user(id, user_name) VALUES (?, ?) SELECT 1 FROM DUAL", rewriter.getBatchSql(sql, 2));
+	}
+
+	@Test
+	public void skipsPlaceholdersInQuotes() {
+		assertEquals(1, rewriter.getParameterCount("INSERT INTO t(a, b) VALUES (?, 'a?b')"));
+		assertEquals(1, rewriter.getParameterCount("INSERT INTO t(a, b) VALUES (?, 'it''s ?')"));
+		assertEquals(2, rewriter.getParameterCount("INSERT INTO \"T?\"(a, b) VALUES (?, ?)"));
+	}
+
+	@Test
+	public void treatsBackslashAsPlainCharacter() {
+		assertEquals(1, rewriter.getParameterCount("INSERT INTO t(a, b) VALUES (?, 'a\\')"));
+	}
+
+	@Test
+	public void refusesComments() {
+		assertEquals(-1, rewriter.getParameterCount("INSERT INTO t(a) VALUES (?) -- x"));
+		assertEquals(-1, rewriter.getParameterCount("INSERT /*+ APPEND */ INTO t(a) VALUES (?)"));
+	}
+
+	@Test
+	public void refusesSequences() {
+		assertEquals(-1, rewriter.getParameterCount("INSERT INTO t(id, a) VALUES (seq_t.nextval, ?)"));
+		assertEquals(-1, rewriter.getParameterCount("INSERT INTO t(id, a) VALUES (SEQ_T.NEXTVAL, ?)"));
+	}
+
+	@Test
+	public void refusesSuffix() {
+		assertEquals(-1, rewriter.getParameterCount("INSERT INTO t(id, n) VALUES (?, ?) ON DUPLICATE KEY UPDATE n = 1"));
+		assertEquals(-1, rewriter.getParameterCount("INSERT INTO t(id) VALUES (?) RETURNING id INTO ?"));
+	}
+
+	@Test
+	public void limitsRows() {
+		assertEquals(256, rewriter.getMaxRows(2));
+		assertEquals(65535 / 1000, rewriter.getMaxRows(1000));
+	}
+
+}